@@ -9,6 +9,7 @@
 plugins {
     id("application")
     id("org.openjfx.javafxplugin") version "0.1.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -40,6 +41,17 @@ java {
     }
 }
 
+// The SIMD aggregation kernels use the incubating Vector API, which must be added explicitly
+val incubatorModules = listOf("--add-modules", "jdk.incubator.vector")
+
+tasks.withType<JavaCompile>().configureEach {
+    options.compilerArgs.addAll(incubatorModules)
+}
+
+tasks.withType<Test>().configureEach {
+    jvmArgs(incubatorModules)
+}
+
 javafx {
     version = "21.0.7"
     modules = listOf(
@@ -48,6 +60,106 @@ javafx {
     )
 }
 
+// JMH benchmarks in src/jmh/java: ./gradlew jmh, or one group with -PjmhInclude=ParserBenchmark.
+// Results (throughput and, from the gc profiler, allocation per operation) are written to build/results/jmh.
+// The 10M-row runs keep the parsed rows in memory and need a large heap: -PjmhHeap=16g (the default).
+jmh {
+    jmhVersion = "1.37"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    jvmArgsAppend = incubatorModules + "-Xmx${findProperty("jmhHeap") ?: "16g"}"
+    findProperty("jmhInclude")?.let { includes = listOf(it.toString()) }
+    findProperty("jmhRows")?.let { benchmarkParameters.put("rows", project.objects.listProperty<String>().value(it.toString().split(","))) }
+}
+
+// Headless PNG rendering of a job file: ./gradlew renderBatch --args="jobs.txt --out reports"
+tasks.register<JavaExec>("renderBatch") {
+    group = "application"
+    description = "Renders the charts listed in a job file to PNG without starting the GUI."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("datavisualizer.BatchRenderApp")
+    jvmArgs(incubatorModules + "-Djava.awt.headless=true")
+}
+
+// Headless HTTP query server: ./gradlew runServer --args="--root data --port 8080"
+tasks.register<JavaExec>("runServer") {
+    group = "application"
+    description = "Serves aggregation queries over the data files of a directory as JSON."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("datavisualizer.QueryServerApp")
+    jvmArgs(incubatorModules + "-Djava.awt.headless=true")
+}
+
+// End-to-end scaling test on generated data, at the heap users have (-PloadTestHeap, default 4g):
+// ./gradlew loadTest --args="--rows 1000000,10000000 --csv loadtest.csv --label 1.4"
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Opens, filters and charts growing synthetic datasets and reports where the application breaks."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("datavisualizer.LoadTestApp")
+    jvmArgs(incubatorModules + "-Djava.awt.headless=true" + "-Xmx${findProperty("loadTestHeap") ?: "4g"}")
+    isIgnoreExitValue = true // Reaching the breaking point is a result, not a build failure
+}
+
+// Startup-optimized launch with an application class-data-sharing (AppCDS) archive. CDS only archives classes
+// loaded from jars, so these tasks run the packaged jar instead of build/classes, with JavaFX on the module path
+// as in the run task. The archive is tied to this JDK and class path; it is rebuilt when the jar changes.
+val cdsArchiveFile = layout.buildDirectory.file("cds/app.jsa")
+val javafxJars = configurations.runtimeClasspath.get().filter { it.name.startsWith("javafx-") }
+val desktopClasspath = files(tasks.jar) + configurations.runtimeClasspath.get().filter { !it.name.startsWith("javafx-") }
+val javafxModuleArgs = listOf("--add-modules", "javafx.controls,javafx.fxml")
+
+// Training run: starts the GUI, optionally opens -PcdsTrainingFile=data.csv, exits after the first frame
+// and dumps the classes it loaded: ./gradlew cdsArchive
+tasks.register<JavaExec>("cdsArchive") {
+    group = "build"
+    description = "Creates the AppCDS archive used by runFast from a training run of the GUI."
+    classpath = desktopClasspath
+    mainClass.set("datavisualizer.MainApp")
+    inputs.files(desktopClasspath)
+    outputs.file(cdsArchiveFile)
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        listOf("-XX:ArchiveClassesAtExit=" + cdsArchiveFile.get().asFile.path, "--module-path", javafxJars.asPath) +
+                javafxModuleArgs + incubatorModules + "-Ddatavisualizer.startup.exit=true"
+    })
+    findProperty("cdsTrainingFile")?.let { systemProperty("datavisualizer.startup.open", file(it).path) }
+    doFirst { cdsArchiveFile.get().asFile.parentFile.mkdirs() }
+}
+
+// Starts the GUI with the AppCDS archive: ./gradlew runFast
+tasks.register<JavaExec>("runFast") {
+    group = "application"
+    description = "Runs the application with the AppCDS archive for a faster start."
+    dependsOn("cdsArchive")
+    classpath = desktopClasspath
+    mainClass.set("datavisualizer.MainApp")
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        listOf("-XX:SharedArchiveFile=" + cdsArchiveFile.get().asFile.path, "--module-path", javafxJars.asPath) +
+                javafxModuleArgs + incubatorModules
+    })
+}
+
+// Time to first frame with and without the archive: ./gradlew startupBenchmark
+// The benchmark is a plain main class kept with the JMH sources, so it stays out of the unit tests. Results are appended to ~/.datavisualizer/startup-history.csv (-PstartupHistory=...), so they survive clean builds.
+tasks.register<JavaExec>("startupBenchmark") {
+    group = "verification"
+    description = "Measures the time to the first frame of the GUI and reports regressions."
+    dependsOn("cdsArchive")
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("datavisualizer.StartupBenchmark")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf("--classpath", desktopClasspath.asPath, "--module-path", javafxJars.asPath,
+                "--archive", cdsArchiveFile.get().asFile.path,
+                "--history", findProperty("startupHistory")?.toString()
+                        ?: file(System.getProperty("user.home") + "/.datavisualizer/startup-history.csv").path,
+                "--runs", findProperty("startupRuns")?.toString() ?: "10")
+    })
+}
+
 application {
     mainClass.set("datavisualizer.MainApp")
+    applicationDefaultJvmArgs = incubatorModules
 }
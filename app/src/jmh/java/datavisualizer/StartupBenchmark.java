@@ -0,0 +1,170 @@
+package datavisualizer;
+
+import datavisualizer.util.StartupTimer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures the time to the first frame of the GUI, with and without the AppCDS archive.
+ * Run with {@code ./gradlew startupBenchmark}.
+ * <p>
+ * Each launch is a fresh JVM that exits after its first frame ({@link StartupTimer#EXIT_PROPERTY}); the first
+ * launch of each mode only warms the file cache and is not counted. The medians are appended to a history file,
+ * and a median more than {@value #REGRESSION_PERCENT}% above the previous run's is reported as a regression.
+ * <p>
+ * Arguments: {@code --classpath <cp> --module-path <javafx jars> [--archive <app.jsa>] [--history <csv>] [--runs <n>]}.
+ */
+public class StartupBenchmark {
+
+    private static final int DEFAULT_RUNS = 10;
+    private static final int REGRESSION_PERCENT = 10;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String classpath = null;
+        String modulePath = null;
+        File archive = null;
+        Path history = null;
+        int runs = DEFAULT_RUNS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--classpath": classpath = args[i + 1]; break;
+                case "--module-path": modulePath = args[i + 1]; break;
+                case "--archive": archive = new File(args[i + 1]); break;
+                case "--history": history = Paths.get(args[i + 1]); break;
+                case "--runs": runs = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (classpath == null || modulePath == null) {
+            System.err.println("Usage: StartupBenchmark --classpath <cp> --module-path <javafx jars> [--archive <app.jsa>] [--history <csv>] [--runs <n>]");
+            System.exit(2);
+        }
+
+        List<String> lines = new ArrayList<>();
+        String date = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        lines.add(measure("default", launchCommand(classpath, modulePath, null), runs, date, history));
+        if (archive != null && archive.isFile()) {
+            lines.add(measure("appcds", launchCommand(classpath, modulePath, archive), runs, date, history));
+        } else {
+            System.out.println("No AppCDS archive, run ./gradlew cdsArchive to compare with it.");
+        }
+        if (history != null) {
+            Files.createDirectories(history.toAbsolutePath().getParent());
+            if (!Files.exists(history)) {
+                lines.add(0, "date,mode,runs,firstFrameMedianMs,firstFrameMinMs,exitMedianMs");
+            }
+            Files.write(history, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private static List<String> launchCommand(String classpath, String modulePath, File archive) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        }
+        command.add("--add-modules");
+        command.add("jdk.incubator.vector");
+        command.add("--module-path");
+        command.add(modulePath);
+        command.add("--add-modules");
+        command.add("javafx.controls,javafx.fxml");
+        command.add("-D" + StartupTimer.EXIT_PROPERTY + "=true");
+        command.add("-D" + StartupTimer.REPORT_PROPERTY + "=true");
+        command.add("-cp");
+        command.add(classpath);
+        command.add("datavisualizer.MainApp");
+        return command;
+    }
+
+    /**
+     * Launches the application repeatedly and prints the first-frame and exit times.
+     *
+     * @return The history line for this mode.
+     */
+    private static String measure(String mode, List<String> command, int runs, String date, Path history)
+            throws IOException, InterruptedException {
+        List<Long> firstFrames = new ArrayList<>();
+        List<Long> exits = new ArrayList<>();
+        for (int run = 0; run <= runs; run++) {
+            List<String> launch = new ArrayList<>(command);
+            launch.add(1, "-D" + StartupTimer.ORIGIN_PROPERTY + "=" + System.currentTimeMillis());
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(launch).redirectErrorStream(true).start();
+            long firstFrame = -1;
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    if (line.startsWith(StartupTimer.REPORT_PREFIX)) {
+                        firstFrame = parseMilestone(line, StartupTimer.FIRST_FRAME);
+                    }
+                }
+            }
+            int exitCode = process.waitFor();
+            long exit = (System.nanoTime() - start) / 1_000_000;
+            if (exitCode != 0 || firstFrame < 0) {
+                throw new IllegalStateException(mode + " launch failed with exit code " + exitCode + " (no first frame reported)");
+            }
+            if (run > 0) { // The first launch only warms the file cache
+                firstFrames.add(firstFrame);
+                exits.add(exit);
+            }
+        }
+        long median = median(firstFrames);
+        System.out.printf("%-8s first frame: median %5d ms, min %5d ms, max %5d ms; launch to exit: median %5d ms (%d runs)%n",
+                mode, median, Collections.min(firstFrames), Collections.max(firstFrames), median(exits), runs);
+        long previous = history != null ? previousMedian(history, mode) : -1;
+        if (previous > 0) {
+            long change = (median - previous) * 100 / previous;
+            if (change > REGRESSION_PERCENT) {
+                System.err.printf("REGRESSION: %s first frame median %d ms, was %d ms (+%d%%)%n", mode, median, previous, change);
+            } else {
+                System.out.printf("%-8s previous median %d ms (%+d%%)%n", mode, previous, change);
+            }
+        }
+        return String.join(",", date, mode, Integer.toString(runs), Long.toString(median),
+                Long.toString(Collections.min(firstFrames)), Long.toString(median(exits)));
+    }
+
+    private static long parseMilestone(String report, String milestone) {
+        for (String part : report.substring(StartupTimer.REPORT_PREFIX.length()).trim().split(" ")) {
+            if (part.startsWith(milestone + "=")) {
+                return Long.parseLong(part.substring(milestone.length() + 1));
+            }
+        }
+        return -1;
+    }
+
+    private static long previousMedian(Path history, String mode) throws IOException {
+        if (!Files.exists(history)) {
+            return -1;
+        }
+        long previous = -1;
+        for (String line : Files.readAllLines(history, StandardCharsets.UTF_8)) {
+            String[] fields = line.split(",");
+            if (fields.length >= 4 && fields[1].equals(mode)) {
+                previous = Long.parseLong(fields[3]);
+            }
+        }
+        return previous;
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,134 @@
+package datavisualizer;
+
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.parser.ParserFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic sales data for the benchmarks.
+ * <p>
+ * Every row has a {@code date} (one per day, cycling through five years), a {@code region} (8 values), a
+ * {@code product} (500 values), a {@code revenue} with two decimals and an integer {@code units}. There are no
+ * empty cells, since the aggregation logs every pass that skips nulls. The same row count always gives the same
+ * data, so results are comparable across runs and machines. Files are written once to the temporary directory
+ * and reused by later forks and runs.
+ */
+public final class SyntheticData {
+
+    /** Columns of every generated row, in file order. */
+    public static final String[] COLUMNS = {"date", "region", "product", "revenue", "units"};
+
+    private static final String[] REGIONS = {"North", "South", "East", "West", "Central", "Coastal", "Mountain", "Islands"};
+    private static final int PRODUCTS = 500;
+    private static final int DAYS = 5 * 365;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+    private static final long SEED = 42;
+    private static final int VERSION = 2; // Bump when the generated rows change, so stale files are not reused
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Gets a CSV file with the given number of rows, writing it if needed.
+     *
+     * @param rows The number of data rows.
+     * @return The file.
+     */
+    public static File csv(int rows) {
+        return file(rows, "csv");
+    }
+
+    /**
+     * Gets a JSON file (an array of row objects) with the given number of rows, writing it if needed.
+     *
+     * @param rows The number of data rows.
+     * @return The file.
+     */
+    public static File json(int rows) {
+        return file(rows, "json");
+    }
+
+    /**
+     * Loads a dataset with the given number of rows, as the application would load the CSV file.
+     *
+     * @param rows The number of data rows.
+     * @return The dataset, with its bitmap indexes built.
+     */
+    public static DataSet dataSet(int rows) {
+        try {
+            return ParserFactory.load(csv(rows));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static synchronized File file(int rows, String extension) {
+        File file = new File(System.getProperty("java.io.tmpdir"),
+                "datavisualizer-bench-v" + VERSION + "-" + rows + "." + extension);
+        if (file.isFile()) {
+            return file;
+        }
+        File partial = new File(file.getPath() + ".part");
+        try (BufferedWriter out = Files.newBufferedWriter(partial.toPath(), StandardCharsets.UTF_8)) {
+            if (extension.equals("csv")) {
+                writeCsv(out, rows);
+            } else {
+                writeJson(out, rows);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!partial.renameTo(file)) {
+            throw new IllegalStateException("Could not write " + file);
+        }
+        return file;
+    }
+
+    private static void writeCsv(BufferedWriter out, int rows) throws IOException {
+        out.write(String.join(",", COLUMNS));
+        out.newLine();
+        Random random = new Random(SEED);
+        String[] cells = new String[COLUMNS.length];
+        for (int row = 0; row < rows; row++) {
+            fillRow(random, row, cells);
+            out.write(String.join(",", cells));
+            out.newLine();
+        }
+    }
+
+    private static void writeJson(BufferedWriter out, int rows) throws IOException {
+        out.write('[');
+        Random random = new Random(SEED);
+        String[] cells = new String[COLUMNS.length];
+        for (int row = 0; row < rows; row++) {
+            fillRow(random, row, cells);
+            out.write(row == 0 ? "\n{" : ",\n{");
+            for (int i = 0; i < COLUMNS.length; i++) {
+                out.write((i > 0 ? "," : "") + '"' + COLUMNS[i] + "\":");
+                out.write(i >= 3 ? cells[i] : '"' + cells[i] + '"'); // revenue and units are numbers
+            }
+            out.write('}');
+        }
+        out.write("\n]\n");
+    }
+
+    /**
+     * Generates the cells of one row; the random sequence is the same for CSV and JSON.
+     */
+    private static void fillRow(Random random, int row, String[] cells) {
+        cells[0] = FIRST_DAY.plusDays(row % DAYS).toString();
+        cells[1] = REGIONS[random.nextInt(REGIONS.length)];
+        cells[2] = "P" + random.nextInt(PRODUCTS);
+        cells[3] = String.format(Locale.ROOT, "%.2f", Math.round(random.nextDouble() * 100_000) / 100.0);
+        cells[4] = Integer.toString(1 + random.nextInt(50));
+    }
+}
@@ -0,0 +1,76 @@
+package datavisualizer.controller;
+
+import datavisualizer.SyntheticData;
+import datavisualizer.model.ChartState;
+import datavisualizer.model.ChartStateModel;
+import datavisualizer.model.aggregate.Aggregation;
+import datavisualizer.model.chart.ChartFactory;
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.command.UpdateChartStateCommand;
+import datavisualizer.model.command.UpdateFilterCommand;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.filter.FilterEngine;
+import datavisualizer.model.filter.InFilter;
+import datavisualizer.model.filter.SelectionVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Undoes and redoes a filter change through {@link CommandManager}, with an observer that re-filters and
+ * re-aggregates the chart the way the application's controller does on every model change (the chart control
+ * itself is not built). One operation is an undo followed by a redo.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class CommandManagerBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int rows;
+
+    private final CommandManager commandManager = new CommandManager();
+    private final ChartStateModel model = new ChartStateModel();
+    private final FilterEngine filterEngine = new FilterEngine();
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        DataSet dataSet = SyntheticData.dataSet(rows);
+        model.setDataSet(dataSet);
+        model.addObserver(changes -> redraw());
+        commandManager.executeCommand(new UpdateChartStateCommand(model, model.getState(),
+                ChartState.EMPTY.withChart(ChartType.BAR, "region", List.of("revenue", "units"))));
+        commandManager.executeCommand(new UpdateFilterCommand(model, null, new InFilter("product", Set.of("P1", "P2", "P3"), true)));
+    }
+
+    @Benchmark
+    public void undoRedo() {
+        commandManager.undo();
+        commandManager.redo();
+    }
+
+    /**
+     * Does what the controller does for a model change, minus the scene graph.
+     */
+    private void redraw() {
+        DataSet dataSet = model.getDataSet();
+        if (dataSet == null || model.getXColumn() == null) {
+            return;
+        }
+        SelectionVector selection = model.getFilter() != null ? filterEngine.evaluate(model.getFilter(), dataSet) : null;
+        Aggregation.prepare(dataSet, model.getXColumn(), model.getYColumns(), selection, null); // As createChart does
+        blackhole.consume(ChartFactory.createBarSeries(dataSet, model.getXColumn(), model.getYColumns(), selection, null));
+    }
+}
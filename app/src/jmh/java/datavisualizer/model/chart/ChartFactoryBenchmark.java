@@ -0,0 +1,64 @@
+package datavisualizer.model.chart;
+
+import datavisualizer.SyntheticData;
+import datavisualizer.model.aggregate.Aggregation;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.time.TimeBucket;
+import javafx.scene.chart.XYChart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the series of a bar chart with {@link ChartFactory#createBarSeries}: the aggregation, the reduction to
+ * a drawable number of categories and the series objects. The chart control itself is not created, since that
+ * needs a running JavaFX toolkit.
+ * <p>
+ * {@code barSeries} aggregates from scratch each time; {@code barSeriesCached} finds the sums in the dataset's
+ * cache, as when a chart is redrawn, and measures the rest.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ChartFactoryBenchmark {
+
+    private static final List<String> Y_COLUMNS = List.of("revenue", "units");
+
+    @Param({"10000", "1000000", "10000000"})
+    int rows;
+
+    // 8 categories, 500 categories folded into "Other", and daily timestamps rolled up at the automatic granularity
+    @Param({"region", "product", "date"})
+    String xColumn;
+
+    private DataSet dataSet;
+    private TimeBucket bucket;
+
+    @Setup
+    public void setUp() {
+        dataSet = SyntheticData.dataSet(rows);
+        bucket = Aggregation.resolveTimeBucket(dataSet, xColumn, null);
+        Aggregation.prepare(dataSet, xColumn, Y_COLUMNS, null, bucket); // Builds the typed column views once
+    }
+
+    @Benchmark
+    public List<XYChart.Series<String, Number>> barSeries() {
+        dataSet.getCategorySums().clear();
+        dataSet.getTimeRollups().clear();
+        Aggregation.prepare(dataSet, xColumn, Y_COLUMNS, null, bucket); // As createChart does
+        return ChartFactory.createBarSeries(dataSet, xColumn, Y_COLUMNS, null, bucket);
+    }
+
+    @Benchmark
+    public List<XYChart.Series<String, Number>> barSeriesCached() {
+        return ChartFactory.createBarSeries(dataSet, xColumn, Y_COLUMNS, null, bucket);
+    }
+}
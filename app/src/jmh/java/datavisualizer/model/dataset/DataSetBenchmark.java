@@ -0,0 +1,41 @@
+package datavisualizer.model.dataset;
+
+import datavisualizer.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads whole columns of a loaded dataset with {@link DataSet#getColumnData}, for a text and a numeric column.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class DataSetBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int rows;
+
+    @Param({"region", "revenue"})
+    String column;
+
+    private DataSet dataSet;
+
+    @Setup
+    public void setUp() {
+        dataSet = SyntheticData.dataSet(rows);
+    }
+
+    @Benchmark
+    public List<Object> getColumnData() {
+        return dataSet.getColumnData(column);
+    }
+}
@@ -0,0 +1,62 @@
+package datavisualizer.model.parser;
+
+import datavisualizer.SyntheticData;
+import datavisualizer.model.dataset.DataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses whole synthetic files with {@link CSVParser} and {@link JSONParser}.
+ * Throughput is files per second; the gc profiler's {@code gc.alloc.rate.norm} is the bytes allocated per file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParserBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class CsvFile {
+        @Param({"10000", "1000000", "10000000"})
+        int rows;
+
+        File file;
+
+        @Setup
+        public void setUp() {
+            file = SyntheticData.csv(rows);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class JsonFile {
+        // Gson materializes every row as a map of boxed values first, so 10M rows do not fit a usual heap
+        @Param({"10000", "1000000"})
+        int rows;
+
+        File file;
+
+        @Setup
+        public void setUp() {
+            file = SyntheticData.json(rows);
+        }
+    }
+
+    @Benchmark
+    public DataSet csv(CsvFile input) throws IOException {
+        return new CSVParser().parse(input.file);
+    }
+
+    @Benchmark
+    public DataSet json(JsonFile input) throws IOException {
+        return new JSONParser().parse(input.file);
+    }
+}
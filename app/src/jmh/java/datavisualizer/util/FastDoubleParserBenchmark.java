@@ -0,0 +1,70 @@
+package datavisualizer.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares FastDoubleParser with Double.parseDouble on typical CSV cells.
+ * Throughput is values per microsecond.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FastDoubleParserBenchmark {
+
+    private static final int VALUES = 1_000_000;
+
+    private String[] cells;
+    private double[] out;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        cells = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            switch (i % 4) {
+                case 0: cells[i] = Integer.toString(random.nextInt(100_000)); break;
+                case 1: cells[i] = String.format("%.2f", random.nextDouble() * 10_000); break;
+                case 2: cells[i] = Double.toString(random.nextGaussian() * 1e6); break;
+                default: cells[i] = i % 40 == 3 ? "n/a" : Double.toString(random.nextDouble()); break;
+            }
+        }
+        out = new double[VALUES];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int doubleParseDouble() {
+        int invalid = 0;
+        for (int i = 0; i < VALUES; i++) {
+            try {
+                out[i] = Double.parseDouble(cells[i]);
+            } catch (NumberFormatException e) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int fastDoubleParser() {
+        int invalid = 0;
+        for (int i = 0; i < VALUES; i++) {
+            String cell = cells[i];
+            if (FastDoubleParser.parse(cell, 0, cell.length(), out, i) != FastDoubleParser.OK) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+}
@@ -0,0 +1,118 @@
+package datavisualizer;
+
+import datavisualizer.batch.BatchJob;
+import datavisualizer.batch.BatchRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command-line entry point for rendering charts to PNG without the GUI.
+ * <p>
+ * Usage: {@code BatchRenderApp <job-file> [--out <dir>] [--width <px>] [--height <px>] [--threads <n>] [--mode load|stream|auto|sample]}
+ * <p>
+ * Each non-empty line of the job file that does not start with '#' describes one chart:
+ * {@code input.csv, BAR, xColumn, yColumn[;yColumn...][, output.png]}.
+ * <p>
+ * With {@code --mode stream}, each chart is aggregated in a single pass over its input without loading it, for
+ * files larger than the heap; the default, {@code auto}, does so only for files that would not fit the load budget.
+ * With {@code --mode sample}, each chart is estimated from a random sample of its input, with error bars.
+ */
+public class BatchRenderApp {
+
+    /**
+     * Main entry point for batch rendering.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length == 0) {
+            System.err.println("Usage: BatchRenderApp <job-file> [--out <dir>] [--width <px>] [--height <px>] [--threads <n>] [--mode load|stream|auto|sample]");
+            System.exit(2);
+        }
+
+        File jobFile = new File(args[0]);
+        File outputDir = new File(".");
+        int width = 1024;
+        int height = 640;
+        int threads = Runtime.getRuntime().availableProcessors();
+        BatchRunner.InputMode inputMode = BatchRunner.InputMode.AUTO;
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                switch (args[i]) {
+                    case "--out":
+                        outputDir = new File(args[i + 1]);
+                        break;
+                    case "--width":
+                        width = Integer.parseInt(args[i + 1]);
+                        break;
+                    case "--height":
+                        height = Integer.parseInt(args[i + 1]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[i + 1]);
+                        break;
+                    case "--mode":
+                        inputMode = BatchRunner.InputMode.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+
+        List<BatchJob> jobs;
+        try {
+            jobs = readJobs(jobFile, outputDir);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Cannot read job file: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int failures = new BatchRunner(width, height, inputMode).run(jobs, threads);
+        System.out.printf("Rendered %d of %d charts in %.1f s%n", jobs.size() - failures, jobs.size(),
+                (System.nanoTime() - start) / 1e9);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Reads the jobs of a job file.
+     *
+     * @param jobFile   The job file.
+     * @param outputDir The directory for outputs without an explicit file.
+     * @return The jobs, in file order.
+     * @throws IOException If the file cannot be read.
+     */
+    private static List<BatchJob> readJobs(File jobFile, File outputDir) throws IOException {
+        File baseDir = jobFile.getAbsoluteFile().getParentFile();
+        List<BatchJob> jobs = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(jobFile.toPath(), StandardCharsets.UTF_8)) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                jobs.add(BatchJob.parse(trimmed, baseDir, outputDir));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return jobs;
+    }
+}
@@ -0,0 +1,141 @@
+package datavisualizer;
+
+import datavisualizer.loadtest.DataGenerator;
+import datavisualizer.loadtest.LoadTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command-line entry point for the end-to-end load test, see {@link LoadTest}.
+ * <p>
+ * Usage: {@code LoadTestApp [--rows <n,n,...>] [--format csv|json] [--categorical <n>] [--cardinality <n>]
+ * [--numeric <n>] [--distribution uniform|normal|lognormal|exponential] [--null-rate <0..1>] [--seed <n>]
+ * [--dir <dir>] [--csv <results.csv>] [--label <text>]}
+ * <p>
+ * The results are printed as a table; with {@code --csv} they are also appended to a file, labelled e.g. with the
+ * release, so breaking points can be compared across releases. Run it with the heap the users have (-Xmx).
+ */
+public class LoadTestApp {
+
+    private static final String USAGE = "Usage: LoadTestApp [--rows <n,n,...>] [--format csv|json] [--categorical <n>]"
+            + " [--cardinality <n>] [--numeric <n>] [--distribution uniform|normal|lognormal|exponential]"
+            + " [--null-rate <0..1>] [--seed <n>] [--dir <dir>] [--csv <results.csv>] [--label <text>]";
+
+    /**
+     * Main entry point for the load test.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        List<Integer> sizes = List.of(10_000, 100_000, 1_000_000, 5_000_000, 10_000_000, 20_000_000);
+        String format = "csv";
+        int categorical = 2;
+        int cardinality = 100;
+        int numeric = 4;
+        DataGenerator.Distribution distribution = DataGenerator.Distribution.LOGNORMAL;
+        double nullRate = 0.01;
+        long seed = 42;
+        File directory = new File(System.getProperty("java.io.tmpdir"), "datavisualizer-loadtest");
+        File resultsFile = null;
+        String label = "";
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--rows":
+                        sizes = parseSizes(value);
+                        break;
+                    case "--format":
+                        format = value.toLowerCase(Locale.ROOT);
+                        if (!format.equals("csv") && !format.equals("json")) {
+                            throw new IllegalArgumentException("Unsupported format: " + value);
+                        }
+                        break;
+                    case "--categorical":
+                        categorical = Integer.parseInt(value);
+                        break;
+                    case "--cardinality":
+                        cardinality = Integer.parseInt(value);
+                        break;
+                    case "--numeric":
+                        numeric = Integer.parseInt(value);
+                        break;
+                    case "--distribution":
+                        distribution = DataGenerator.Distribution.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--null-rate":
+                        nullRate = Double.parseDouble(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--dir":
+                        directory = new File(value);
+                        break;
+                    case "--csv":
+                        resultsFile = new File(value);
+                        break;
+                    case "--label":
+                        label = value.replace(',', ' ');
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) { // Includes NumberFormatException and unknown distributions
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        List<LoadTest.Result> results;
+        try {
+            DataGenerator generator = new DataGenerator(categorical, cardinality, numeric, distribution, nullRate, seed);
+            System.out.printf("Load test: %s, %d categorical columns x %d values, %d numeric columns (%s), %.1f%% nulls, max heap %d MB%n",
+                    format, categorical, cardinality, numeric, distribution.name().toLowerCase(Locale.ROOT), nullRate * 100,
+                    Runtime.getRuntime().maxMemory() / (1024 * 1024));
+            results = new LoadTest(generator, format, directory).run(sizes);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (resultsFile != null) {
+            try {
+                List<String> lines = new ArrayList<>();
+                if (!resultsFile.isFile()) {
+                    lines.add(LoadTest.Result.CSV_HEADER);
+                }
+                for (LoadTest.Result result : results) {
+                    lines.add(result.formatCsv(label));
+                }
+                Files.write(resultsFile.toPath(), lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("Cannot write results: " + e.getMessage());
+            }
+        }
+        LoadTest.Result last = results.get(results.size() - 1);
+        System.exit(last.getFailure() == null ? 0 : 1);
+    }
+
+    private static List<Integer> parseSizes(String text) {
+        List<Integer> sizes = new ArrayList<>();
+        for (String part : text.split(",")) {
+            sizes.add(Integer.parseInt(part.trim().replace("_", "")));
+        }
+        sizes.sort(null);
+        return sizes;
+    }
+}
@@ -2,22 +2,32 @@
 package datavisualizer;
 
 import datavisualizer.controller.AppController; // Import AppController
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.util.StartupTimer;
 import datavisualizer.view.MainView; // Import MainView
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
 
 /**
  * Main application class for the DataVisualizerFX application.
  * Initializes the primary stage and loads the main view.
+ * <p>
+ * Only what the start screen needs is loaded before the first frame; the chart and dashboard views, parsers and
+ * the session journal are set up on first use, and the previous session is restored once the window is painted.
+ * Startup milestones are recorded by {@link StartupTimer}.
  */
 public class MainApp extends Application {
 
     private AppController appController; // Keep the AppController instance
     private MainView mainView; // Add a MainView instance
+    private boolean firstFrame; // Set once the first pulse after showing the stage has been laid out
+    private boolean measuring; // Exit after the first frame, without touching the session
 
     /**
      * Starts the JavaFX application.
@@ -28,8 +38,10 @@ public class MainApp extends Application {
      */
     @Override
     public void start(Stage primaryStage) throws IOException {
+        measuring = StartupTimer.isExitAfterFirstFrame();
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/main_view.fxml"));
         javafx.scene.Parent root = loader.load();
+        StartupTimer.mark(StartupTimer.FXML);
         Scene scene = new Scene(root, 1024, 640);
         mainView = loader.getController(); // Get the MainView controller
         appController = new AppController(); // Instantiate the AppController
@@ -37,9 +49,50 @@ public class MainApp extends Application {
         appController.setMainView(mainView); // Set the MainView in AppController
         appController.setPrimaryStage(primaryStage);
 
+        // Runs at the end of every pulse's layout, right before the frame is rendered
+        scene.addPostLayoutPulseListener(() -> {
+            if (!firstFrame) {
+                firstFrame = true;
+                StartupTimer.mark(StartupTimer.FIRST_FRAME);
+                Platform.runLater(this::afterFirstFrame); // After this pulse, so the frame is not delayed
+            }
+        });
         primaryStage.setTitle("DataVisualizer");
         primaryStage.setScene(scene);
         primaryStage.show();
+        StartupTimer.mark(StartupTimer.SHOWN);
+    }
+
+    /**
+     * Reopens the previous session once the start screen is on screen, or, for startup measurements and
+     * training runs, opens the requested file and exits.
+     */
+    private void afterFirstFrame() {
+        if (StartupTimer.isReportRequested()) {
+            System.out.println(StartupTimer.report());
+        }
+        if (!measuring) {
+            appController.restoreSession(); // Reopen the previous session, if one was journaled
+            Thread registration = new Thread(PerformanceMetrics::registerMBean, "metrics-registration"); // Loads JMX
+            registration.setDaemon(true);
+            registration.start();
+            return;
+        }
+        String trainingFile = System.getProperty(StartupTimer.OPEN_PROPERTY);
+        if (trainingFile != null) {
+            appController.openFile(new File(trainingFile));
+        }
+        Platform.exit();
+    }
+
+    /**
+     * Stops the application, flushing the session journal.
+     */
+    @Override
+    public void stop() {
+        if (appController != null && !measuring) {
+            appController.shutdown();
+        }
     }
 
     /**
@@ -48,6 +101,7 @@ public class MainApp extends Application {
      * @param args Command line arguments.
      */
     public static void main(String[] args) {
+        StartupTimer.mark(StartupTimer.MAIN);
         launch(args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package datavisualizer;
+
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.server.QueryServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command-line entry point for serving aggregation queries over HTTP without the GUI.
+ * <p>
+ * Usage: {@code QueryServerApp [--root <dir>] [--port <port>] [--max-concurrent <n>]}
+ * <p>
+ * Example query: {@code curl "http://localhost:8080/aggregate?file=sales.csv&x=region&y=revenue"}.
+ */
+public class QueryServerApp {
+
+    /**
+     * Main entry point for the query server.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true"); // Answers are small; don't let Nagle hold them back
+        }
+        Path root = Paths.get(".");
+        int port = 8080;
+        int maxConcurrent = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                switch (args[i]) {
+                    case "--root":
+                        root = Paths.get(args[i + 1]);
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(args[i + 1]);
+                        break;
+                    case "--max-concurrent":
+                        maxConcurrent = Integer.parseInt(args[i + 1]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: QueryServerApp [--root <dir>] [--port <port>] [--max-concurrent <n>]");
+            System.exit(2);
+        }
+        if (!Files.isDirectory(root)) {
+            System.err.println("Not a directory: " + root);
+            System.exit(2);
+        }
+
+        QueryServer server = new QueryServer(root, maxConcurrent);
+        try {
+            server.start(port);
+        } catch (IOException e) {
+            System.err.println("Cannot start server: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        PerformanceMetrics.registerMBean(); // Parse and aggregation latency for JMX scrapers
+        System.out.println("Serving " + root.toAbsolutePath().normalize() + " on port " + server.getPort());
+    }
+}
@@ -0,0 +1,137 @@
+package datavisualizer.batch;
+
+import datavisualizer.model.chart.ChartType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One chart to render in a batch: input file, chart type, X column, Y columns and output file.
+ */
+public class BatchJob {
+
+    private final File input;
+    private final ChartType chartType;
+    private final String xColumn;
+    private final List<String> yColumns;
+    private final File output;
+
+    /**
+     * Constructs a batch job.
+     *
+     * @param input     The data file.
+     * @param chartType The type of chart.
+     * @param xColumn   The X column.
+     * @param yColumns  The Y columns.
+     * @param output    The PNG file to write.
+     */
+    public BatchJob(File input, ChartType chartType, String xColumn, List<String> yColumns, File output) {
+        this.input = input;
+        this.chartType = chartType;
+        this.xColumn = xColumn;
+        this.yColumns = List.copyOf(yColumns);
+        this.output = output;
+    }
+
+    /**
+     * Parses one line of a job file: {@code input, type, x, y1;y2, [output]}.
+     * Relative input paths are resolved against the job file's directory; without an output file,
+     * a name is derived from the input and columns and placed in the output directory.
+     *
+     * @param line      The line to parse.
+     * @param baseDir   The directory relative input paths are resolved against.
+     * @param outputDir The directory for outputs without an explicit file.
+     * @return The job.
+     * @throws IllegalArgumentException If the line is malformed.
+     */
+    public static BatchJob parse(String line, File baseDir, File outputDir) {
+        String[] parts = line.split(",");
+        if (parts.length < 4 || parts.length > 5) {
+            throw new IllegalArgumentException("Expected 'input, type, x, y[;y...][, output]' but got: " + line);
+        }
+        File input = resolve(parts[0].trim(), baseDir);
+        ChartType chartType;
+        try {
+            chartType = ChartType.valueOf(parts[1].trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown chart type '" + parts[1].trim() + "', expected one of " + Arrays.toString(ChartType.values()));
+        }
+        String xColumn = parts[2].trim();
+        List<String> yColumns = new ArrayList<>();
+        for (String y : parts[3].split(";")) {
+            if (!y.trim().isEmpty()) {
+                yColumns.add(y.trim());
+            }
+        }
+        if (xColumn.isEmpty() || yColumns.isEmpty()) {
+            throw new IllegalArgumentException("X and Y columns are required: " + line);
+        }
+        File output;
+        if (parts.length == 5 && !parts[4].trim().isEmpty()) {
+            output = resolve(parts[4].trim(), outputDir);
+        } else {
+            String base = input.getName().replaceFirst("\\.[^.]*$", "");
+            String name = String.join("_", base, chartType.name().toLowerCase(Locale.ROOT), xColumn, String.join("-", yColumns));
+            output = new File(outputDir, name.replaceAll("[^A-Za-z0-9._-]", "_") + ".png");
+        }
+        return new BatchJob(input, chartType, xColumn, yColumns, output);
+    }
+
+    private static File resolve(String path, File baseDir) {
+        File file = new File(path);
+        return file.isAbsolute() || baseDir == null ? file : new File(baseDir, path);
+    }
+
+    /**
+     * Gets the data file.
+     *
+     * @return The input file.
+     */
+    public File getInput() {
+        return input;
+    }
+
+    /**
+     * Gets the chart type.
+     *
+     * @return The chart type.
+     */
+    public ChartType getChartType() {
+        return chartType;
+    }
+
+    /**
+     * Gets the X column.
+     *
+     * @return The column name.
+     */
+    public String getXColumn() {
+        return xColumn;
+    }
+
+    /**
+     * Gets the Y columns.
+     *
+     * @return An unmodifiable list of column names.
+     */
+    public List<String> getYColumns() {
+        return yColumns;
+    }
+
+    /**
+     * Gets the PNG file to write.
+     *
+     * @return The output file.
+     */
+    public File getOutput() {
+        return output;
+    }
+
+    @Override
+    public String toString() {
+        return chartType + " " + xColumn + " x " + yColumns + " from " + input.getName();
+    }
+}
@@ -0,0 +1,185 @@
+package datavisualizer.batch;
+
+import datavisualizer.model.aggregate.ApproximateAggregation;
+import datavisualizer.model.aggregate.StreamingAggregation;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.parser.ParserFactory;
+import datavisualizer.model.render.ChartData;
+import datavisualizer.model.render.ChartDataBuilder;
+import datavisualizer.model.render.Java2DChartRenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders batch jobs to PNG files in parallel.
+ * Each input file is parsed once, by whichever job needs it first; other jobs on the same file wait for
+ * and share that DataSet (its typed columns and rollups are cached and thread-safe).
+ * Inputs too large to load are streamed instead, once per job, see {@link StreamingAggregation}.
+ */
+public class BatchRunner {
+
+    /**
+     * How input files are read.
+     */
+    public enum InputMode {
+        /** Load each file once and share it between jobs. */
+        LOAD,
+        /** Aggregate each job's chart in a single pass over its file, without loading it. */
+        STREAM,
+        /** Stream files that would not fit the load budget in full, load the others. */
+        AUTO,
+        /** Estimate each job's chart from a stratified sample of its file, with error bars, see {@link ApproximateAggregation}. */
+        SAMPLE
+    }
+
+    private final int width;
+    private final int height;
+    private final InputMode inputMode;
+    private final Java2DChartRenderer renderer = new Java2DChartRenderer();
+    private final Map<File, CompletableFuture<DataSet>> dataSets = new ConcurrentHashMap<>();
+    private final Map<File, Boolean> streamed = new ConcurrentHashMap<>(); // AUTO decisions per input
+
+    /**
+     * Constructs a runner producing images of the given size, choosing per file whether to load or stream it.
+     *
+     * @param width  The image width in pixels.
+     * @param height The image height in pixels.
+     */
+    public BatchRunner(int width, int height) {
+        this(width, height, InputMode.AUTO);
+    }
+
+    /**
+     * Constructs a runner producing images of the given size.
+     *
+     * @param width     The image width in pixels.
+     * @param height    The image height in pixels.
+     * @param inputMode How input files are read.
+     */
+    public BatchRunner(int width, int height, InputMode inputMode) {
+        this.width = width;
+        this.height = height;
+        this.inputMode = inputMode;
+    }
+
+    /**
+     * Runs the jobs on a fixed pool of worker threads and waits for all of them.
+     * Failures are reported per job on System.err and do not stop the other jobs.
+     *
+     * @param jobs    The jobs to run.
+     * @param threads The number of worker threads.
+     * @return The number of jobs that failed.
+     */
+    public int run(List<BatchJob> jobs, int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        AtomicInteger failures = new AtomicInteger();
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (BatchJob job : jobs) {
+                pending.add(executor.submit(() -> {
+                    try {
+                        render(job);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        System.err.println("Failed to render " + job + ": " + e.getMessage());
+                    }
+                }));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Batch interrupted.");
+            return jobs.size();
+        } catch (ExecutionException e) {
+            System.err.println("Unexpected batch error: " + e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures.get();
+    }
+
+    /**
+     * Renders a single job.
+     *
+     * @param job The job.
+     * @throws IOException If the input cannot be loaded, the chart is invalid, or the output cannot be written.
+     */
+    public void render(BatchJob job) throws IOException {
+        DataSet dataSet;
+        if (inputMode == InputMode.SAMPLE) {
+            dataSet = ApproximateAggregation.aggregate(job.getInput(), job.getXColumn(), job.getYColumns(), null, null,
+                    ApproximateAggregation.Mode.STRATIFIED, ApproximateAggregation.DEFAULT_TARGET_MILLIS, System.nanoTime());
+        } else {
+            dataSet = streams(job.getInput())
+                    ? StreamingAggregation.aggregate(job.getInput(), job.getXColumn(), job.getYColumns(), null, null)
+                    : dataSetFor(job.getInput());
+        }
+        ChartData chart = ChartDataBuilder.build(job.getChartType(), dataSet, job.getXColumn(), job.getYColumns(), null, null);
+        if (chart == null) {
+            throw new IOException("Nothing to draw (check the column names).");
+        }
+        File parent = job.getOutput().getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create output directory " + parent);
+        }
+        renderer.writePng(chart, width, height, job.getOutput());
+    }
+
+    /**
+     * Decides whether an input file is streamed rather than loaded.
+     */
+    private boolean streams(File input) throws IOException {
+        if (inputMode != InputMode.AUTO) {
+            return inputMode == InputMode.STREAM;
+        }
+        File key = input.getCanonicalFile();
+        Boolean decision = streamed.get(key);
+        if (decision == null) {
+            decision = !ParserFactory.plan(key, ParserFactory.getLoadBudget()).isFull();
+            streamed.put(key, decision);
+            if (decision) {
+                System.out.println(input.getName() + " does not fit the load budget in full, streaming it for each chart.");
+            }
+        }
+        return decision;
+    }
+
+    /**
+     * Gets the DataSet of an input file, loading it on the calling thread if no other job has started to.
+     */
+    private DataSet dataSetFor(File input) throws IOException {
+        File key = input.getCanonicalFile();
+        CompletableFuture<DataSet> created = new CompletableFuture<>();
+        CompletableFuture<DataSet> existing = dataSets.putIfAbsent(key, created);
+        if (existing == null) {
+            try {
+                created.complete(ParserFactory.load(key));
+            } catch (IOException | RuntimeException e) {
+                created.completeExceptionally(e);
+            }
+            existing = created;
+        }
+        try {
+            return existing.join();
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Cannot load " + input + ": " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -1,20 +1,63 @@
 package datavisualizer.controller;
 
+import datavisualizer.diagnostics.FlightRecording;
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.model.aggregate.ApproximateAggregation;
+import datavisualizer.model.aggregate.ColumnSummary;
+import datavisualizer.model.aggregate.StreamingAggregation;
+import datavisualizer.model.dataset.ComputedColumn;
 import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.NumericColumn;
 import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.ChartState;
+import datavisualizer.model.ChartStateChange;
 import datavisualizer.model.ChartStateModel;
 import datavisualizer.model.ChartStateObserver;
 import datavisualizer.view.MainView;
 import datavisualizer.view.ColumnSelectionPanel;
 import datavisualizer.view.ErrorDisplayView;
 import datavisualizer.model.command.Command;
+import datavisualizer.model.command.UpdateBrushCommand;
 import datavisualizer.model.command.UpdateChartStateCommand;
-
+import datavisualizer.model.command.UpdateFilterCommand;
+import datavisualizer.model.command.UpdateOverlaysCommand;
+import datavisualizer.model.command.UpdateTimeBucketCommand;
+import datavisualizer.model.dashboard.CrossFilter;
+import datavisualizer.model.dashboard.Dashboard;
+import datavisualizer.model.dashboard.DashboardChart;
+import datavisualizer.model.filter.AndFilter;
+import datavisualizer.model.filter.FilterEngine;
+import datavisualizer.model.filter.FilterOperator;
+import datavisualizer.model.filter.FilterPredicate;
+import datavisualizer.model.filter.OrFilter;
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.overlay.OverlaySpec;
+import datavisualizer.model.overlay.OverlayType;
+import datavisualizer.model.registry.DataSetRegistry;
+import datavisualizer.model.render.ChartData;
+import datavisualizer.model.render.ChartDataBuilder;
+import datavisualizer.model.render.SvgChartWriter;
+import datavisualizer.model.session.SessionJournal;
+import datavisualizer.model.time.TimeBucket;
+
+import datavisualizer.view.ChartView;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Controller for the main application window.
@@ -27,9 +70,47 @@ public class AppController implements ChartStateObserver {
     private final CommandManager commandManager = new CommandManager();
     private final FileController fileController = new FileController();
     private final ChartStateModel chartStateModel = new ChartStateModel(); // Model holds state and data
+    private final DataSetRegistry dataSets = new DataSetRegistry(); // Open files, kept within the memory budget
+    private File currentFile; // The open file shown in the chart, or null
+    // Persists the session so it can be restored after a restart or crash
+    private final SessionJournal journal = new SessionJournal(SessionJournal.defaultDirectory(), chartStateModel);
+    private boolean restoring; // True while a previous session is replayed; snapshots wait until the end
+    private boolean snapshotScheduled;
+    private final FilterEngine filterEngine = new FilterEngine(); // Reuses selection bitmaps across re-filters
+    // Exports run off the FX thread, one at a time
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chart-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Passes over whole files take seconds to minutes, so they get their own thread and never hold up an export
+    private final ExecutorService scanExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-scan");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Starting and saving flight recordings, so a toggle never waits behind an export or a file scan
+    private final ExecutorService recordingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flight-recording");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Dashboard dashboard = new Dashboard();
+    // Dashboard scans run in parallel, one task per distinct grouping
+    private final ExecutorService dashboardExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "dashboard-scan");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private long dashboardRefreshes; // Bumped per refresh, so only the latest one is shown
+    private CrossFilter crossFilter; // Links the dashboard's charts as shown, or null
+    private final FlightRecording flightRecording = new FlightRecording(); // Started from the Help menu
+    private boolean recordingBusy; // True while a recording is being started or saved
 
     public AppController() {
         chartStateModel.addObserver(this); // Register as observer
+        dashboard.setBrushListener(this::applyBrush);
     }
 
     /**
@@ -43,59 +124,152 @@ public class AppController implements ChartStateObserver {
 
     /**
      * Handles the action of opening a data file using FileController.
+     * The file is added to the open datasets and shown; files that are already open are just switched to.
      */
     public void openFile() {
-        DataSet loadedDataSet = fileController.loadDataFile(primaryStage);
-        if (loadedDataSet != null) {
-            // this.dataSet = loadedDataSet; // Removed setting local field
-            chartStateModel.setDataSet(loadedDataSet); // Set DataSet in the model
-            // Reset chart state using the model (which also clears previous data ref)
-            chartStateModel.resetState(); // Reset config, keep new data
-            chartStateModel.setDataSet(loadedDataSet); // Re-set DataSet after resetState clears it
-            commandManager.clearHistory(); // Clear undo/redo
-
-            if (mainView != null) {
-                mainView.displayDataSet(loadedDataSet); // Pass loaded data to view for initial setup
-                // Set initial state in panel after populating
-                ColumnSelectionPanel panel = mainView.getColumnSelectionPanel();
-                if (panel != null && !loadedDataSet.getColumnNames().isEmpty()) {
-                    String defaultX = loadedDataSet.getColumnNames().get(0);
-                    String defaultY = loadedDataSet.getColumnNames().size() > 1 ? loadedDataSet.getColumnNames().get(1) : defaultX;
-                    // Update the model with initial defaults
-                    chartStateModel.updateState(ChartType.BAR, defaultX, defaultY);
-                    // Reflect the model's state in the panel
-                    panel.reflectChartState(chartStateModel.getChartType(), chartStateModel.getXColumn(), defaultY);
-                    // triggerChartViewUpdate(); // Triggered by model updateState via observer
-                }
-            }
-        } else {
+        File selectedFile = fileController.chooseDataFile(primaryStage);
+        if (selectedFile == null) {
             System.err.println("Failed to load data file or operation cancelled.");
-            // Ensure model's dataset is null if loading failed
-            if (chartStateModel.getDataSet() != null) {
-                 chartStateModel.setDataSet(null);
-                 chartStateModel.resetState(); // Also reset config state
+            return;
+        }
+        openFile(selectedFile);
+    }
+
+    /**
+     * Opens the given data file and shows it; files that are already open are just switched to.
+     *
+     * @param selectedFile The data file.
+     */
+    public void openFile(File selectedFile) {
+        DataSet loadedDataSet;
+        try {
+            loadedDataSet = dataSets.open(selectedFile);
+        } catch (IOException e) {
+            // Handle file reading/parsing error; the datasets that are already open stay as they are
+            e.printStackTrace();
+            System.err.println("Error loading file: " + e.getMessage());
+            showMessage("Open File", Alert.AlertType.ERROR, "Could not load " + selectedFile.getName() + ": " + e.getMessage());
+            return;
+        }
+        showDataSet(selectedFile.getAbsoluteFile(), loadedDataSet);
+        fileController.reportLoadPlan(selectedFile, loadedDataSet, primaryStage);
+    }
+
+    /**
+     * Switches to another open data file, reloading it if it was evicted to stay within the memory budget.
+     *
+     * @param file The open file to show.
+     */
+    public void requestDataSetSwitch(File file) {
+        if (file == null || file.equals(currentFile)) {
+            return;
+        }
+        try {
+            DataSet dataSet = dataSets.get(file);
+            if (dataSet != null) {
+                showDataSet(file, dataSet);
             }
+        } catch (IOException e) {
+            System.err.println("Error reloading " + file.getName() + ": " + e.getMessage());
+            dataSets.close(file); // The file is gone or no longer readable
+            reflectOpenDataSets();
         }
     }
 
     /**
-     * Closes the currently open file, clearing the dataset and resetting the view.
+     * Makes a dataset the current one and resets the chart configuration for it.
+     *
+     * @param file          The file the dataset was loaded from.
+     * @param loadedDataSet The dataset.
+     */
+    private void showDataSet(File file, DataSet loadedDataSet) {
+        currentFile = file;
+        // One update scope, so the chart is built once for the new dataset and its default columns
+        chartStateModel.beginUpdate();
+        try {
+            showDataSetInScope(file, loadedDataSet);
+        } finally {
+            chartStateModel.endUpdate();
+        }
+        takeSnapshot(); // The history was cleared, so the journal starts over from this dataset
+    }
+
+    private void showDataSetInScope(File file, DataSet loadedDataSet) {
+        // Reset chart state using the model (which also clears previous data ref)
+        chartStateModel.resetState(); // Reset config, keep new data
+        chartStateModel.setDataSet(loadedDataSet); // Re-set DataSet after resetState clears it
+        commandManager.clearHistory(); // Clear undo/redo
+        if (primaryStage != null) {
+            primaryStage.setTitle("DataVisualizer - " + file.getName());
+        }
+
+        if (mainView != null) {
+            mainView.displayDataSet(loadedDataSet); // Pass loaded data to view for initial setup
+            // Set initial state in panel after populating
+            ColumnSelectionPanel panel = mainView.getColumnSelectionPanel();
+            if (panel != null) {
+                panel.reflectMemoryUsage(loadedDataSet.estimateMemoryFootprint(), loadedDataSet.getIndexFootprint());
+            }
+            reflectOpenDataSets();
+            if (panel != null && !loadedDataSet.getColumnNames().isEmpty()) {
+                String defaultX = loadedDataSet.getColumnNames().get(0);
+                String defaultY = loadedDataSet.getColumnNames().size() > 1 ? loadedDataSet.getColumnNames().get(1) : defaultX;
+                // Update the model with initial defaults
+                chartStateModel.updateState(ChartType.BAR, defaultX, defaultY);
+                // Reflect the model's state in the panel
+                panel.reflectChartState(chartStateModel.getChartType(), chartStateModel.getXColumn(), defaultY);
+                // triggerChartViewUpdate(); // Triggered by the model via observer when the update scope ends
+            }
+        }
+    }
+
+    /**
+     * Closes the currently open file. Shows the most recently opened remaining file,
+     * or clears the dataset and resets the view if none is left.
      */
     public void closeCurrentFile() {
+        if (currentFile != null) {
+            dataSets.close(currentFile);
+            currentFile = null;
+        }
+        List<File> remaining = dataSets.getOpenFiles();
+        if (!remaining.isEmpty()) {
+            requestDataSetSwitch(remaining.get(remaining.size() - 1));
+            if (currentFile != null) {
+                System.out.println("File closed.");
+                return;
+            }
+        }
+
         // Reset chart state and data using the model
         chartStateModel.resetState(); // This now also clears the DataSet in the model
         commandManager.clearHistory();
 
         if (mainView != null) {
             mainView.displayDataSet(null); // Show start screen
+            if (mainView.getColumnSelectionPanel() != null) {
+                mainView.getColumnSelectionPanel().reflectMemoryUsage(0, 0);
+            }
+            reflectOpenDataSets();
         }
 
         if (primaryStage != null) {
             primaryStage.setTitle("DataVisualizer");
         }
+        takeSnapshot();
         System.out.println("File closed.");
     }
 
+    /**
+     * Shows the open files and the registry's memory use in the panel.
+     */
+    private void reflectOpenDataSets() {
+        if (mainView != null && mainView.getColumnSelectionPanel() != null) {
+            mainView.getColumnSelectionPanel().reflectOpenDataSets(dataSets.getOpenFiles(), currentFile,
+                    dataSets.getResidentCount(), dataSets.getResidentBytes(), dataSets.getBudget());
+        }
+    }
+
     /**
      * Sets the main view for this controller.
      *
@@ -111,8 +285,85 @@ public class AppController implements ChartStateObserver {
     }
 
     @Override
-    public void chartStateChanged() {
-        triggerChartViewUpdate();
+    public void chartStateChanged(Set<ChartStateChange> changes) {
+        triggerChartViewUpdate(changes);
+        if (changes.contains(ChartStateChange.DATASET)) {
+            dashboard.clearBrushes(); // Brushes belong to the previous dataset's groups
+        }
+        if (changes.contains(ChartStateChange.DATASET) || changes.contains(ChartStateChange.FILTER)) {
+            refreshDashboard(); // Dashboard charts follow the current dataset and filter
+        }
+        if (journal.isSnapshotDue() && !snapshotScheduled) {
+            // Snapshot once the current command has finished updating the undo/redo stacks
+            snapshotScheduled = true;
+            Platform.runLater(() -> {
+                snapshotScheduled = false;
+                takeSnapshot();
+            });
+        }
+    }
+
+    /**
+     * Restores the session journaled by the previous run, if any, then starts journaling this one.
+     * The dataset is reopened from the session's binary cache when its source is unchanged, and the journal
+     * is replayed inside one model update scope, so the chart is built only once, for the final state.
+     */
+    public void restoreSession() {
+        SessionJournal.RecoveredSession session = journal.recover();
+        chartStateModel.beginUpdate();
+        try {
+            if (session != null) {
+                restoring = true;
+                try {
+                    replay(session);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Could not restore the previous session: " + e.getMessage());
+                } finally {
+                    restoring = false;
+                }
+            }
+            journal.start();
+            commandManager.setJournal(journal);
+            takeSnapshot(); // Starts the new journal from the restored state
+        } finally {
+            chartStateModel.endUpdate();
+        }
+    }
+
+    /**
+     * Reopens the session's dataset, restores the snapshot, and re-applies the commands journaled after it.
+     *
+     * @param session The recovered session.
+     * @throws IOException If the dataset cannot be loaded.
+     */
+    private void replay(SessionJournal.RecoveredSession session) throws IOException {
+        File file = session.getFile();
+        if (file == null || !file.isFile()) {
+            return;
+        }
+        DataSet dataSet = dataSets.open(file, journal.loadDataSet(session));
+        showDataSet(file.getAbsoluteFile(), dataSet);
+        session.applyState(chartStateModel);
+        commandManager.replay(session, chartStateModel);
+        System.out.println("Restored session for " + file.getName() + ".");
+    }
+
+    /**
+     * Replaces the journal with a snapshot of the current session.
+     */
+    private void takeSnapshot() {
+        if (!restoring) {
+            journal.snapshot(currentFile, chartStateModel.getDataSet(), commandManager.getHistory(), commandManager.getRedoStack());
+        }
+    }
+
+    /**
+     * Writes a final snapshot and stops the session journal. Called when the application exits.
+     */
+    public void shutdown() {
+        takeSnapshot();
+        journal.close();
+        flightRecording.close();
     }
 
     public CommandManager getCommandManager() {
@@ -127,17 +378,41 @@ public class AppController implements ChartStateObserver {
         return mainView;
     }
 
+    /**
+     * Updates the chart view and the panel from the model's current state.
+     */
     public void triggerChartViewUpdate() {
+        triggerChartViewUpdate(EnumSet.allOf(ChartStateChange.class));
+    }
+
+    /**
+     * Updates the chart view and the panel after the given parts of the model's state changed.
+     * Work that depends only on unchanged parts, such as rebuilding the chart or summarizing the Y column, is skipped.
+     *
+     * @param changes The changed parts of the state.
+     */
+    private void triggerChartViewUpdate(Set<ChartStateChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
         if (mainView != null && mainView.getChartView() != null) {
-            // Read state from the model
-            ChartType type = chartStateModel.getChartType();
-            String xCol = chartStateModel.getXColumn();
-            List<String> yCols = chartStateModel.getYColumns();
-            // Get the current DataSet from the model
-            DataSet currentDataSet = chartStateModel.getDataSet(); // Use the model's dataSet field
+            // Read one consistent snapshot of the state from the model
+            ChartState state = chartStateModel.getSnapshot();
+            ChartType type = state.getChartType();
+            String xCol = state.getXColumn();
+            List<String> yCols = state.getYColumns();
+            DataSet currentDataSet = state.getDataSet();
+            FilterPredicate filter = state.getFilter();
+
+            // Evaluate the filter column-at-a-time; only selected rows reach the aggregation
+            SelectionVector selection = null;
+            if (currentDataSet != null && filter != null) {
+                selection = filterEngine.evaluate(filter, currentDataSet);
+            }
 
             // Pass the state AND the DataSet read from the model to the view
-            mainView.getChartView().updateChart(currentDataSet, type, xCol, yCols);
+            mainView.getChartView().updateChart(currentDataSet, type, xCol, yCols, selection,
+                    state.getTimeBucket(), state.getOverlays(), changes);
 
             // Also update the selection panel UI to reflect the model's state
             ColumnSelectionPanel panel = mainView.getColumnSelectionPanel();
@@ -145,6 +420,16 @@ public class AppController implements ChartStateObserver {
                 // Assuming single Y column for reflectChartState for now
                 String yColSingle = yCols.isEmpty() ? null : yCols.get(0);
                 panel.reflectChartState(type, xCol, yColSingle);
+                panel.reflectOverlays(state.getOverlays(), type == ChartType.LINE);
+                panel.reflectTimeBucket(state.getTimeBucket(),
+                        currentDataSet != null && xCol != null && currentDataSet.isTimestampColumn(xCol));
+                int totalRows = currentDataSet != null ? currentDataSet.getRowCount() : 0;
+                panel.reflectFilterState(filter, selection != null ? selection.cardinality() : totalRows, totalRows);
+                if (changes.contains(ChartStateChange.Y_COLUMNS) || changes.contains(ChartStateChange.FILTER)
+                        || changes.contains(ChartStateChange.DATASET)) {
+                    NumericColumn yNumeric = (currentDataSet != null && yColSingle != null) ? currentDataSet.getNumericColumn(yColSingle) : null;
+                    panel.reflectColumnSummary(yColSingle, yNumeric != null ? ColumnSummary.of(yNumeric, selection) : null);
+                }
             }
         } else {
              System.err.println("Cannot trigger chart view update: MainView or ChartView is null.");
@@ -185,22 +470,18 @@ public class AppController implements ChartStateObserver {
 
 
         // --- Create and Execute Command ---
-        // Get previous state from the ChartStateModel
-        ChartType previousType = chartStateModel.getChartType();
-        String previousX = chartStateModel.getXColumn();
-        List<String> previousY = chartStateModel.getYColumns(); // Already immutable
+        // Get previous state from the ChartStateModel as an immutable snapshot
+        ChartState previous = chartStateModel.getState();
 
         // Assuming single Y column selection for simplicity in command creation
         List<String> requestedYList = (requestedYCol != null) ? List.of(requestedYCol) : Collections.emptyList();
+        ChartState requested = previous.withChart(requestedType, requestedXCol, requestedYList);
 
         // Check if state actually changed (optional, command could be idempotent)
-        if (!Objects.equals(previousType, requestedType) || !Objects.equals(previousX, requestedXCol) || !previousY.equals(requestedYList)) {
-             // Create a command that operates on the ChartStateModel
-             Command updateCmd = new UpdateChartStateCommand(
-                 chartStateModel, // Pass the model
-                 previousType, previousX, previousY, // Previous state
-                 requestedType, requestedXCol, requestedYList // New state
-             );
+        if (previous.getChartType() != requested.getChartType() || !Objects.equals(previous.getXColumn(), requestedXCol)
+                || !previous.getYColumns().equals(requestedYList)) {
+             // Create a command that operates on the ChartStateModel, holding both snapshots
+             Command updateCmd = new UpdateChartStateCommand(chartStateModel, previous, requested);
             // Execute the command
             commandManager.executeCommand(updateCmd);
             // View update is triggered by the observer pattern via chartStateChanged -> triggerChartViewUpdate
@@ -243,4 +524,489 @@ public class AppController implements ChartStateObserver {
         // This will go through the command creation process in requestChartUpdate
         requestChartUpdate(currentType, panelY, panelX); // Pass swapped axes
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Requests adding a filter condition built from the panel inputs.
+     * The condition is combined with the current filter and applied through an undoable command.
+     *
+     * @param column    The column to filter.
+     * @param operator  The filter operator.
+     * @param valueText The value text entered by the user.
+     * @param matchAny  true to combine with the current filter using OR, false for AND.
+     */
+    public void requestFilterAdd(String column, FilterOperator operator, String valueText, boolean matchAny) {
+        if (mainView == null || mainView.getColumnSelectionPanel() == null) {
+            System.err.println("Cannot add filter: View components not ready.");
+            return;
+        }
+        ErrorDisplayView errorDisplay = mainView.getColumnSelectionPanel().getErrorDisplayView();
+        if (errorDisplay == null) {
+            System.err.println("Cannot add filter: ErrorDisplayView not initialized.");
+            return;
+        }
+        errorDisplay.clearFilterError();
+        if (chartStateModel.getDataSet() == null) {
+            System.err.println("Cannot add filter: No data loaded.");
+            return;
+        }
+        if (operator == null) {
+            errorDisplay.showFilterError("Please select a filter operator.");
+            return;
+        }
+
+        FilterPredicate condition;
+        try {
+            condition = operator.createPredicate(column, valueText);
+        } catch (IllegalArgumentException e) {
+            errorDisplay.showFilterError(e.getMessage());
+            return;
+        }
+
+        FilterPredicate previousFilter = chartStateModel.getFilter();
+        FilterPredicate newFilter;
+        if (previousFilter == null) {
+            newFilter = condition;
+        } else {
+            newFilter = matchAny ? OrFilter.of(previousFilter, condition) : AndFilter.of(previousFilter, condition);
+        }
+        commandManager.executeCommand(new UpdateFilterCommand(chartStateModel, previousFilter, newFilter));
+    }
+
+    /**
+     * Requests removing all filter conditions through an undoable command.
+     */
+    public void requestFilterClear() {
+        FilterPredicate previousFilter = chartStateModel.getFilter();
+        if (previousFilter != null) {
+            commandManager.executeCommand(new UpdateFilterCommand(chartStateModel, previousFilter, null));
+        }
+    }
+
+    /**
+     * Requests a change of the time granularity used for timestamp X columns, through an undoable command.
+     *
+     * @param timeBucket The new granularity, or null for automatic.
+     */
+    public void requestTimeBucketChange(TimeBucket timeBucket) {
+        TimeBucket previousBucket = chartStateModel.getTimeBucket();
+        if (previousBucket != timeBucket) {
+            commandManager.executeCommand(new UpdateTimeBucketCommand(chartStateModel, previousBucket, timeBucket));
+        }
+    }
+
+    /**
+     * Requests adding a line chart overlay built from the panel inputs, through an undoable command.
+     *
+     * @param type          The overlay type.
+     * @param parameterText The window size or smoothing factor entered by the user.
+     */
+    public void requestOverlayAdd(OverlayType type, String parameterText) {
+        if (mainView == null || mainView.getColumnSelectionPanel() == null) {
+            System.err.println("Cannot add overlay: View components not ready.");
+            return;
+        }
+        ErrorDisplayView errorDisplay = mainView.getColumnSelectionPanel().getErrorDisplayView();
+        if (errorDisplay == null) {
+            System.err.println("Cannot add overlay: ErrorDisplayView not initialized.");
+            return;
+        }
+        errorDisplay.clearOverlayError();
+        if (type == null) {
+            errorDisplay.showOverlayError("Please select an overlay.");
+            return;
+        }
+
+        OverlaySpec spec;
+        try {
+            spec = type.createSpec(parameterText);
+        } catch (IllegalArgumentException e) {
+            errorDisplay.showOverlayError(e.getMessage());
+            return;
+        }
+
+        List<OverlaySpec> previousOverlays = chartStateModel.getOverlays();
+        if (previousOverlays.contains(spec)) {
+            return; // Already shown
+        }
+        List<OverlaySpec> newOverlays = new ArrayList<>(previousOverlays);
+        newOverlays.add(spec);
+        commandManager.executeCommand(new UpdateOverlaysCommand(chartStateModel, previousOverlays, List.copyOf(newOverlays)));
+    }
+
+    /**
+     * Adds a computed column to the current dataset, e.g. {@code margin = revenue - cost}, and offers it in the
+     * column selectors. Its values are computed when a chart, filter or summary first uses it.
+     *
+     * @param name           The name of the new column.
+     * @param expressionText The expression computing it from other columns.
+     * @return true if the column was added; otherwise the error is shown in the panel.
+     */
+    public boolean requestComputedColumnAdd(String name, String expressionText) {
+        DataSet dataSet = chartStateModel.getDataSet();
+        if (mainView == null || mainView.getColumnSelectionPanel() == null) {
+            System.err.println("Cannot add computed column: View components not ready.");
+            return false;
+        }
+        ErrorDisplayView errorDisplay = mainView.getColumnSelectionPanel().getErrorDisplayView();
+        if (errorDisplay == null) {
+            System.err.println("Cannot add computed column: ErrorDisplayView not initialized.");
+            return false;
+        }
+        errorDisplay.clearComputedColumnError();
+        if (dataSet == null) {
+            errorDisplay.showComputedColumnError("Open a data file first.");
+            return false;
+        }
+        ComputedColumn column;
+        try {
+            column = new ComputedColumn(name, expressionText);
+            dataSet.addComputedColumn(column);
+        } catch (IllegalArgumentException e) {
+            errorDisplay.showComputedColumnError(e.getMessage());
+            return false;
+        }
+        mainView.getColumnSelectionPanel().addColumn(column.getName());
+        System.out.println("Added computed column " + column + ".");
+        takeSnapshot(); // Journaled commands may refer to the new column from now on
+        return true;
+    }
+
+    /**
+     * Requests removing all line chart overlays through an undoable command.
+     */
+    public void requestOverlayClear() {
+        List<OverlaySpec> previousOverlays = chartStateModel.getOverlays();
+        if (!previousOverlays.isEmpty()) {
+            commandManager.executeCommand(new UpdateOverlaysCommand(chartStateModel, previousOverlays, List.of()));
+        }
+    }
+
+    /**
+     * Exports the chart currently shown in the ChartView to an SVG file chosen by the user.
+     * The chart state is captured on the FX thread; aggregation and writing run on a background thread.
+     */
+    public void requestSvgExport() {
+        if (mainView == null || mainView.getChartView() == null) {
+            System.err.println("Cannot export chart: View components not ready.");
+            return;
+        }
+        ChartView chartView = mainView.getChartView();
+        ChartType type = chartView.getCurrentChartType();
+        DataSet dataSet = chartView.getCurrentDataSet();
+        if (type == null || dataSet == null) {
+            showExportResult(Alert.AlertType.INFORMATION, "There is no chart to export.");
+            return;
+        }
+        File target = fileController.chooseSvgExportFile(primaryStage);
+        if (target == null) {
+            return; // Cancelled
+        }
+
+        String xCol = chartView.getCurrentXColumn();
+        List<String> yCols = chartView.getCurrentYColumns();
+        TimeBucket timeBucket = chartView.getCurrentTimeBucket();
+        List<OverlaySpec> overlays = chartView.getCurrentOverlays();
+        SelectionVector selection = null;
+        if (chartView.getCurrentSelection() != null) {
+            // The engine reuses its vector on the next re-filter, so the export gets its own copy
+            selection = new SelectionVector(0);
+            selection.copyFrom(chartView.getCurrentSelection());
+        }
+        int width = Math.max(400, (int) chartView.getChartContainer().getWidth());
+        int height = Math.max(300, (int) chartView.getChartContainer().getHeight());
+
+        SelectionVector exportSelection = selection;
+        exportExecutor.execute(() -> {
+            try {
+                ChartData chart = ChartDataBuilder.build(type, dataSet, xCol, yCols, exportSelection, timeBucket, overlays);
+                if (chart == null) {
+                    throw new IOException("The chart has no data to export.");
+                }
+                SvgChartWriter.write(chart, width, height, target.toPath());
+                Platform.runLater(() -> showExportResult(Alert.AlertType.INFORMATION, "Chart exported to " + target.getName() + "."));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error exporting chart: " + e.getMessage());
+                Platform.runLater(() -> showExportResult(Alert.AlertType.ERROR, "Could not export the chart: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Aggregates the current chart over the whole current file in one streaming pass, without loading the file,
+     * and shows the result until the chart is changed next. For a file loaded in a reduced mode (see
+     * {@link FileController#reportLoadPlan}) this gives the exact totals rather than those of the loaded rows.
+     * The pass runs off the FX thread; a result for a chart that has changed meanwhile is dropped.
+     */
+    public void requestStreamedChart() {
+        if (mainView == null || mainView.getChartView() == null) {
+            System.err.println("Cannot stream chart: View components not ready.");
+            return;
+        }
+        ChartState state = chartStateModel.getSnapshot();
+        File file = currentFile;
+        if (file == null || state.getXColumn() == null || state.getYColumns().isEmpty()) {
+            showMessage("Stream Chart", Alert.AlertType.INFORMATION, "Open a file and choose the X and Y columns first.");
+            return;
+        }
+        scanExecutor.execute(() -> {
+            try {
+                DataSet aggregated = StreamingAggregation.aggregate(file, state);
+                Platform.runLater(() -> {
+                    if (!file.equals(currentFile) || !chartStateModel.isCurrent(state)) {
+                        return; // The chart changed while the file was read
+                    }
+                    mainView.getChartView().updateChart(aggregated, state.getChartType(), state.getXColumn(), state.getYColumns(),
+                            null, state.getTimeBucket(), state.getOverlays(), EnumSet.allOf(ChartStateChange.class));
+                    showMessage("Stream Chart", Alert.AlertType.INFORMATION, aggregated.getLoadPlan().describe()
+                            + " The chart shows them until it is changed.");
+                });
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error streaming " + file.getName() + ": " + e.getMessage());
+                Platform.runLater(() -> showMessage("Stream Chart", Alert.AlertType.ERROR, "Could not stream the file: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Estimates the current chart from a random sample of the current file, read within
+     * {@link ApproximateAggregation#DEFAULT_TARGET_MILLIS}, and shows the estimates with their confidence intervals.
+     * The notice offers to refine the chart with an exact streaming pass, see {@link #requestStreamedChart()}.
+     *
+     * @param mode How rows are sampled: uniformly, or stratified by X category so rare categories are estimated too.
+     */
+    public void requestApproximateChart(ApproximateAggregation.Mode mode) {
+        if (mainView == null || mainView.getChartView() == null) {
+            System.err.println("Cannot approximate chart: View components not ready.");
+            return;
+        }
+        ChartState state = chartStateModel.getSnapshot();
+        File file = currentFile;
+        if (file == null || state.getXColumn() == null || state.getYColumns().isEmpty()) {
+            showMessage("Approximate Chart", Alert.AlertType.INFORMATION, "Open a file and choose the X and Y columns first.");
+            return;
+        }
+        scanExecutor.execute(() -> {
+            try {
+                DataSet estimated = ApproximateAggregation.aggregate(file, state, mode, ApproximateAggregation.DEFAULT_TARGET_MILLIS);
+                Platform.runLater(() -> {
+                    if (!file.equals(currentFile) || !chartStateModel.isCurrent(state)) {
+                        return; // The chart changed while the file was sampled
+                    }
+                    mainView.getChartView().updateChart(estimated, state.getChartType(), state.getXColumn(), state.getYColumns(),
+                            null, state.getTimeBucket(), state.getOverlays(), EnumSet.allOf(ChartStateChange.class));
+                    ButtonType refine = new ButtonType("Refine Exactly", ButtonBar.ButtonData.OTHER);
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION, estimated.getLoadPlan().describe()
+                            + " The chart shows the estimates until it is changed.", refine, ButtonType.OK);
+                    alert.setTitle("Approximate Chart");
+                    alert.setHeaderText(null);
+                    if (alert.showAndWait().orElse(ButtonType.OK) == refine && chartStateModel.isCurrent(state)) {
+                        requestStreamedChart();
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error sampling " + file.getName() + ": " + e.getMessage());
+                Platform.runLater(() -> showMessage("Approximate Chart", Alert.AlertType.ERROR, "Could not sample the file: " + e.getMessage()));
+            }
+        });
+    }
+
+    private void showExportResult(Alert.AlertType alertType, String message) {
+        showMessage("Export Chart", alertType, message);
+    }
+
+    private void showMessage(String title, Alert.AlertType alertType, String message) {
+        Alert alert = new Alert(alertType);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+
+    /**
+     * Starts a flight recording, or stops the one in progress and saves it to a file chosen by the user.
+     * Starting and saving take a moment and run off the FX thread; attach the file to a report of a slow chart.
+     */
+    public void requestRecordingToggle() {
+        if (recordingBusy) {
+            return; // The previous start or save has not finished yet
+        }
+        if (!flightRecording.isRecording()) {
+            recordingBusy = true;
+            recordingExecutor.execute(() -> {
+                try {
+                    flightRecording.start();
+                    System.out.println("Flight recording started.");
+                    Platform.runLater(() -> finishRecordingToggle(true));
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error starting flight recording: " + e.getMessage());
+                    Platform.runLater(() -> {
+                        finishRecordingToggle(false);
+                        showMessage("Flight Recording", Alert.AlertType.ERROR, "Could not start the recording: " + e.getMessage());
+                    });
+                }
+            });
+            return;
+        }
+        File target = fileController.chooseRecordingFile(primaryStage);
+        if (target == null) {
+            return; // Cancelled, keep recording
+        }
+        recordingBusy = true;
+        recordingExecutor.execute(() -> {
+            try {
+                flightRecording.stop(target.toPath());
+                System.out.println("Flight recording saved to " + target);
+                Platform.runLater(() -> {
+                    finishRecordingToggle(false);
+                    showMessage("Flight Recording", Alert.AlertType.INFORMATION, "Recording saved to " + target.getName() + ".");
+                });
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error saving flight recording: " + e.getMessage());
+                Platform.runLater(() -> {
+                    finishRecordingToggle(false);
+                    showMessage("Flight Recording", Alert.AlertType.ERROR, "Could not save the recording: " + e.getMessage());
+                });
+            }
+        });
+    }
+
+    private void finishRecordingToggle(boolean recording) {
+        recordingBusy = false;
+        if (mainView != null) {
+            mainView.setRecordingActive(recording);
+        }
+    }
+
+    /**
+     * Switches between the single chart and the dashboard.
+     */
+    public void requestDashboardToggle() {
+        if (mainView == null) {
+            return;
+        }
+        mainView.setDashboardVisible(!mainView.isDashboardVisible());
+        refreshDashboard();
+    }
+
+    /**
+     * Adds the chart currently configured in the model to the dashboard.
+     */
+    public void requestDashboardAdd() {
+        ChartState state = chartStateModel.getState();
+        if (state.getDataSet() == null || state.getXColumn() == null || state.getYColumns().isEmpty()) {
+            System.err.println("Cannot add chart to dashboard: No chart configured.");
+            return;
+        }
+        dashboard.add(new DashboardChart(state.getChartType(), state.getXColumn(), state.getYColumns(), state.getTimeBucket()));
+        System.out.println("Added to dashboard (" + dashboard.getCharts().size() + " charts).");
+        refreshDashboard();
+    }
+
+    /**
+     * Removes a chart from the dashboard.
+     *
+     * @param index The position of the chart.
+     */
+    public void requestDashboardRemove(int index) {
+        if (index >= 0 && index < dashboard.getCharts().size()) {
+            dashboard.remove(index);
+            refreshDashboard();
+        }
+    }
+
+    /**
+     * Removes every chart from the dashboard.
+     */
+    public void requestDashboardClear() {
+        dashboard.clear();
+        refreshDashboard();
+    }
+
+    /**
+     * Brushes a group of a dashboard chart, filtering the other charts to the brushed groups. Undoable.
+     *
+     * @param chart    The position of the chart in the dashboard.
+     * @param label    The label of the clicked group.
+     * @param additive true to add the group to or remove it from the chart's brush; false to brush only this
+     *                 group, or to remove the brush if only this group was brushed.
+     */
+    public void requestBrushToggle(int chart, String label, boolean additive) {
+        if (crossFilter == null || chart < 0 || chart >= dashboard.getCharts().size()) {
+            return;
+        }
+        String key = crossFilter.getDimensionKey(crossFilter.getDimension(chart));
+        Set<String> prevLabels = dashboard.getBrush(key);
+        Set<String> newLabels;
+        if (additive) {
+            newLabels = prevLabels != null ? new LinkedHashSet<>(prevLabels) : new LinkedHashSet<>();
+            if (!newLabels.remove(label)) {
+                newLabels.add(label);
+            }
+        } else {
+            newLabels = Set.of(label).equals(prevLabels) ? null : Set.of(label);
+        }
+        commandManager.executeCommand(new UpdateBrushCommand(dashboard, key, prevLabels, newLabels));
+    }
+
+    /**
+     * Applies a changed brush to the cross-filter and redraws the dashboard in place.
+     *
+     * @param key    The dimension key.
+     * @param labels The labels kept, or null if the brush was removed.
+     */
+    private void applyBrush(String key, Set<String> labels) {
+        int dimension = crossFilter != null ? crossFilter.findDimension(key) : -1;
+        if (dimension < 0) {
+            return; // Not shown; applied when the dashboard is next built
+        }
+        // Re-aggregating the changed groups and redrawing the tiles show in the performance overlay
+        PerformanceMetrics.Timer aggregation = PerformanceMetrics.start(PerformanceMetrics.Phase.AGGREGATION);
+        crossFilter.setBrush(dimension, labels);
+        aggregation.stop();
+        PerformanceMetrics.Timer render = PerformanceMetrics.start(PerformanceMetrics.Phase.RENDER);
+        mainView.getDashboardView().update();
+        render.stop();
+    }
+
+    /**
+     * Rebuilds the dashboard if it is shown. The charts are linked off the FX thread, one parallel pass per
+     * distinct grouping, with the current brushes applied; the tiles are then drawn from the group sums.
+     */
+    private void refreshDashboard() {
+        if (mainView == null || !mainView.isDashboardVisible()) {
+            crossFilter = null;
+            return;
+        }
+        long refresh = ++dashboardRefreshes;
+        ChartState state = chartStateModel.getState();
+        DataSet dataSet = state.getDataSet();
+        List<DashboardChart> charts = dashboard.getCharts();
+        if (dataSet == null || charts.isEmpty()) {
+            crossFilter = null;
+            mainView.getDashboardView().show(dataSet, null, charts);
+            return;
+        }
+        // The engine reuses its vector on the next re-filter, so the build gets its own copy
+        SelectionVector selection = state.getFilter() != null ? filterEngine.evaluate(state.getFilter(), dataSet).snapshot() : null;
+        try {
+            dashboard.link(dataSet, selection, dashboardExecutor).whenComplete((linked, error) -> Platform.runLater(() -> {
+                if (refresh != dashboardRefreshes) {
+                    return; // Superseded by a later refresh
+                }
+                if (error != null) {
+                    System.err.println("Error linking dashboard charts: " + error.getMessage());
+                    crossFilter = null;
+                } else {
+                    dashboard.applyBrushes(linked); // Brushes changed while it was built
+                    crossFilter = linked;
+                }
+                mainView.getDashboardView().show(dataSet, crossFilter, charts);
+            }));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Cannot link dashboard charts: " + e.getMessage());
+            crossFilter = null;
+            mainView.getDashboardView().show(dataSet, null, charts);
+        }
+    }
+}
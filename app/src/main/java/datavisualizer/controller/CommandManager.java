@@ -1,8 +1,16 @@
 // DataVisualizerFX/src/main/java/datavisualizerfx/controller/CommandManager.java
 package datavisualizer.controller;
 
+import com.google.gson.JsonObject;
+import datavisualizer.diagnostics.CommandEvent;
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.model.ChartStateModel;
 import datavisualizer.model.command.Command;
+import datavisualizer.model.session.SessionCodec;
+import datavisualizer.model.session.SessionJournal;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
 /**
@@ -12,6 +20,16 @@ public class CommandManager {
 
     private final Stack<Command> history = new Stack<>();
     private final Stack<Command> redoStack = new Stack<>();
+    private SessionJournal journal; // Persists executed, undone and redone commands; null while not journaling
+
+    /**
+     * Sets the journal that records every executed, undone and redone command.
+     *
+     * @param journal The journal, or null to stop journaling (e.g. while replaying it).
+     */
+    public void setJournal(SessionJournal journal) {
+        this.journal = journal;
+    }
 
     /**
      * Executes a command and adds it to the history.
@@ -20,9 +38,17 @@ public class CommandManager {
      * @param command The command to execute.
      */
     public void executeCommand(Command command) {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        PerformanceMetrics.Timer timer = PerformanceMetrics.start(PerformanceMetrics.Phase.COMMAND);
         command.execute();
         history.push(command);
+        boolean redoCleared = !redoStack.isEmpty();
         redoStack.clear();
+        if (journal != null) {
+            journal.recordExecute(command, redoCleared);
+        }
+        finish(event, timer, "execute", command);
     }
 
     /**
@@ -32,9 +58,16 @@ public class CommandManager {
      */
     public void undo() {
         if (!history.isEmpty()) {
+            CommandEvent event = new CommandEvent();
+            event.begin();
+            PerformanceMetrics.Timer timer = PerformanceMetrics.start(PerformanceMetrics.Phase.COMMAND);
             Command command = history.pop();
             command.undo();
             redoStack.push(command);
+            if (journal != null) {
+                journal.recordUndo(command);
+            }
+            finish(event, timer, "undo", command);
         }
     }
 
@@ -45,9 +78,26 @@ public class CommandManager {
      */
     public void redo() {
         if (!redoStack.isEmpty()) {
+            CommandEvent event = new CommandEvent();
+            event.begin();
+            PerformanceMetrics.Timer timer = PerformanceMetrics.start(PerformanceMetrics.Phase.COMMAND);
             Command command = redoStack.pop();
             command.execute();
             history.push(command);
+            if (journal != null) {
+                journal.recordRedo(command);
+            }
+            finish(event, timer, "redo", command);
+        }
+    }
+
+    private void finish(CommandEvent event, PerformanceMetrics.Timer timer, String operation, Command command) {
+        timer.stop();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.command = command.getClass().getSimpleName();
+            event.historySize = history.size();
+            event.commit();
         }
     }
 
@@ -59,4 +109,64 @@ public class CommandManager {
         history.clear();
         redoStack.clear();
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the commands that can be undone.
+     *
+     * @return A copy of the history, oldest first.
+     */
+    public List<Command> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    /**
+     * Gets the commands that can be redone.
+     *
+     * @return A copy of the redo stack, oldest first.
+     */
+    public List<Command> getRedoStack() {
+        return new ArrayList<>(redoStack);
+    }
+
+    /**
+     * Replaces both stacks, e.g. when restoring a session. The commands are not executed.
+     *
+     * @param history   The commands that can be undone, oldest first.
+     * @param redoStack The commands that can be redone, oldest first.
+     */
+    public void restoreHistory(List<Command> history, List<Command> redoStack) {
+        this.history.clear();
+        this.history.addAll(history);
+        this.redoStack.clear();
+        this.redoStack.addAll(redoStack);
+    }
+
+    /**
+     * Restores the undo/redo stacks of a recovered session and re-applies the commands journaled after its snapshot.
+     * The model should already hold the snapshot's state, see {@link SessionJournal.RecoveredSession#applyState}.
+     *
+     * @param session The recovered session.
+     * @param model   The model the commands operate on.
+     */
+    public void replay(SessionJournal.RecoveredSession session, ChartStateModel model) {
+        restoreHistory(session.getHistory(model), session.getRedoStack(model));
+        for (JsonObject event : session.getEvents()) {
+            switch (event.get("t").getAsString()) {
+                case "execute":
+                    executeCommand(SessionCodec.decodeCommand(event.getAsJsonObject("command"), model));
+                    break;
+                case "undo":
+                    undo();
+                    break;
+                case "redo":
+                    redo();
+                    break;
+                case "clearRedo":
+                    redoStack.clear();
+                    break;
+                default:
+                    System.err.println("Skipping unknown session record: " + event.get("t"));
+            }
+        }
+    }
+}
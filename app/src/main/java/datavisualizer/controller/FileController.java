@@ -1,16 +1,15 @@
 package datavisualizer.controller;
 
 import datavisualizer.model.dataset.DataSet;
-import datavisualizer.model.parser.CSVParser;
-import datavisualizer.model.parser.DataParser;
-import datavisualizer.model.parser.JSONParser;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.model.parser.ParserFactory;
 import datavisualizer.util.FileUtils;
 import javafx.scene.control.Alert;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.Map;
 
 /**
  * Controller responsible for handling file loading operations.
@@ -18,14 +17,13 @@ import java.io.IOException;
 public class FileController {
 
     /**
-     * Opens a file chooser dialog and loads data from the selected file.
-     * Determines the file type and uses the appropriate parser.
-     * The default filter shows both CSV and JSON files.
+     * Opens a file chooser dialog for a data file.
+     * The default filter shows both CSV and JSON files; files of other types are rejected with an alert.
      *
      * @param primaryStage The primary stage used to show the file chooser dialog.
-     * @return A DataSet containing the loaded data, or null if loading fails or is cancelled.
+     * @return The selected file, or null if its type is not supported or the dialog was cancelled.
      */
-    public DataSet loadDataFile(Stage primaryStage) {
+    public File chooseDataFile(Stage primaryStage) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open Data File");
 
@@ -46,41 +44,79 @@ public class FileController {
 
         File selectedFile = fileChooser.showOpenDialog(primaryStage);
 
-        if (selectedFile != null) {
-            primaryStage.setTitle("DataVisualizer - " + selectedFile.getName());
+        if (selectedFile != null && ParserFactory.forFile(selectedFile) == null) {
             String fileExtension = FileUtils.getFileExtension(selectedFile);
-            DataParser parser = null;
+            System.err.println("Unsupported or unrecognized file type: " + fileExtension);
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Unsupported File Type");
+            alert.setHeaderText(null);
+            alert.setContentText("The selected file type '." + fileExtension + "' is not supported. Please select a CSV or JSON file.");
+            alert.showAndWait();
+            return null; // Indicate failure
+        }
+        return selectedFile; // Null if the user cancelled the file chooser
+    }
 
-            switch (fileExtension) {
-                case "csv":
-                    parser = new CSVParser();
-                    break;
-                case "json":
-                    parser = new JSONParser();
-                    break;
-                default:
-                    System.err.println("Unsupported or unrecognized file type: " + fileExtension);
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setTitle("Unsupported File Type");
-                    alert.setHeaderText(null);
-                    alert.setContentText("The selected file type '." + fileExtension + "' is not supported. Please select a CSV or JSON file.");
-                    alert.showAndWait();
-                return null; // Indicate failure
-            }
+    /**
+     * Opens a save dialog for exporting the current chart as SVG.
+     *
+     * @param primaryStage The primary stage used to show the dialog.
+     * @return The chosen file, or null if the user cancelled.
+     */
+    public File chooseSvgExportFile(Stage primaryStage) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Chart as SVG");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("SVG Images (*.svg)", "*.svg"));
+        fileChooser.setInitialFileName("chart.svg");
+        File selectedFile = fileChooser.showSaveDialog(primaryStage);
+        if (selectedFile != null && !FileUtils.getFileExtension(selectedFile).equals("svg")) {
+            selectedFile = new File(selectedFile.getParentFile(), selectedFile.getName() + ".svg");
+        }
+        return selectedFile;
+    }
 
-            try {
-                // Parse the file using the selected parser
-                return parser.parse(selectedFile);
-            } catch (IOException e) {
-                // Handle file reading/parsing error
-                e.printStackTrace();
-                System.err.println("Error loading file: " + e.getMessage());
-                // Optionally, display an error message to the user via an alert
-                return null; // Indicates failure
-            }
-        } else {
-            // User cancelled the file chooser
-            return null;
+    /**
+     * Opens a save dialog for a flight recording.
+     *
+     * @param primaryStage The primary stage used to show the dialog.
+     * @return The chosen file, or null if the user cancelled.
+     */
+    public File chooseRecordingFile(Stage primaryStage) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Flight Recording");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Flight Recordings (*.jfr)", "*.jfr"));
+        fileChooser.setInitialFileName("datavisualizer.jfr");
+        File selectedFile = fileChooser.showSaveDialog(primaryStage);
+        if (selectedFile != null && !FileUtils.getFileExtension(selectedFile).equals("jfr")) {
+            selectedFile = new File(selectedFile.getParentFile(), selectedFile.getName() + ".jfr");
+        }
+        return selectedFile;
+    }
+
+    /**
+     * Reports how a file was loaded: the strategy and the estimated footprint of each column go to the console,
+     * and a load in a degraded mode (typed-only or sampled) is explained to the user in a notice.
+     *
+     * @param file         The loaded file.
+     * @param dataSet      Its dataset.
+     * @param primaryStage The primary stage, owner of the notice.
+     */
+    public void reportLoadPlan(File file, DataSet dataSet, Stage primaryStage) {
+        LoadPlan plan = dataSet.getLoadPlan();
+        System.out.println("Loaded " + file.getName() + " as " + plan + " (" + dataSet.getRowCount() + " rows, ~"
+                + (dataSet.estimateMemoryFootprint() + dataSet.getIndexFootprint()) / (1024 * 1024) + " MB"
+                + (dataSet.isCompressingColumns() ? ", compressed columns" : "") + ").");
+        for (Map.Entry<String, Long> column : dataSet.estimateColumnFootprints().entrySet()) {
+            System.out.println("  " + column.getKey() + ": ~" + column.getValue() / 1024 + " KB");
+        }
+        if (plan.isFull()) {
+            return;
         }
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.initOwner(primaryStage);
+        alert.setTitle("Large File");
+        alert.setHeaderText(file.getName() + " was loaded in a reduced mode to fit in memory");
+        alert.setContentText(plan.describe());
+        alert.showAndWait();
     }
-}
\ No newline at end of file
+}
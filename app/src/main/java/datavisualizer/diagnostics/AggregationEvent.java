@@ -0,0 +1,31 @@
+package datavisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for summing Y columns per X value or time bucket, including cache hits.
+ */
+@Name("datavisualizer.Aggregate")
+@Label("Aggregate")
+@Category({"Data Visualizer", "Chart"})
+@Description("Sums of Y columns per X category or time bucket over the selected rows")
+public final class AggregationEvent extends jdk.jfr.Event {
+
+    @Label("X Column")
+    public String xColumn;
+
+    @Label("Y Columns")
+    public int yColumns;
+
+    @Label("Time Bucket")
+    public String timeBucket;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Selected Rows")
+    public int selectedRows;
+}
@@ -0,0 +1,35 @@
+package datavisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for building a JavaFX chart from a DataSet, including its aggregation.
+ */
+@Name("datavisualizer.CreateChart")
+@Label("Create Chart")
+@Category({"Data Visualizer", "Chart"})
+@Description("Aggregation and construction of a JavaFX chart with its series")
+public final class ChartCreateEvent extends jdk.jfr.Event {
+
+    @Label("Chart Type")
+    public String chartType;
+
+    @Label("X Column")
+    public String xColumn;
+
+    @Label("Y Columns")
+    public int yColumns;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Selected Rows")
+    public int selectedRows;
+
+    @Label("Data Points")
+    @Description("Points or slices added to the chart, after series reduction")
+    public int points;
+}
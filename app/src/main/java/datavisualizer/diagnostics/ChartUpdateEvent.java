@@ -0,0 +1,33 @@
+package datavisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for an update of the chart view, from the state change to the chart being swapped into
+ * the scene. Layout and painting follow in the next pulse and show up as JavaFX rendering.
+ */
+@Name("datavisualizer.UpdateChart")
+@Label("Update Chart View")
+@Category({"Data Visualizer", "Chart"})
+@Description("Rebuild of the displayed chart after a state change")
+public final class ChartUpdateEvent extends jdk.jfr.Event {
+
+    @Label("Chart Type")
+    public String chartType;
+
+    @Label("Changes")
+    public String changes;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Selected Rows")
+    public int selectedRows;
+
+    @Label("Rebuilt")
+    @Description("False if the changes did not affect the chart or it could not be created")
+    public boolean rebuilt;
+}
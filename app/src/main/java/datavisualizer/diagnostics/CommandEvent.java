@@ -0,0 +1,25 @@
+package datavisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for executing, undoing or redoing a command, including the chart updates it triggers.
+ */
+@Name("datavisualizer.Command")
+@Label("Command")
+@Category({"Data Visualizer", "Commands"})
+@Description("Execute, undo or redo of a command through the command manager")
+public final class CommandEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Command")
+    public String command;
+
+    @Label("History Size")
+    public int historySize;
+}
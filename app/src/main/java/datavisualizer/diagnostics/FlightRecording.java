@@ -0,0 +1,94 @@
+package datavisualizer.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Starts and saves a Java Flight Recorder recording from within the application, so a slow chart can be reported
+ * with a profile attached. The recording uses the JDK's "profile" settings (method samples, allocations, GC and
+ * I/O) and includes the application's own events for parsing, aggregation, chart updates and commands.
+ * <p>
+ * Recordings can also be started at launch with {@code -XX:StartFlightRecording}; the application events are
+ * enabled by default in any recording.
+ */
+public class FlightRecording {
+
+    private static final String SETTINGS = "profile";
+    private static final long MAX_SIZE = 256L * 1024 * 1024; // Older chunks are dropped during long sessions
+    private static final Duration MAX_AGE = Duration.ofMinutes(30);
+
+    private Recording recording;
+
+    /**
+     * Checks whether a recording is in progress.
+     *
+     * @return true between {@link #start()} and {@link #stop}.
+     */
+    public synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Starts a recording.
+     *
+     * @throws IOException           If the recording settings cannot be read.
+     * @throws IllegalStateException If a recording is already in progress or flight recording is not available.
+     */
+    public synchronized void start() throws IOException {
+        if (recording != null) {
+            throw new IllegalStateException("A recording is already in progress.");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(SETTINGS);
+        } catch (ParseException e) {
+            throw new IOException("Invalid recording settings: " + e.getMessage(), e);
+        }
+        Recording started = new Recording(configuration);
+        started.setName("Data Visualizer");
+        started.setToDisk(true);
+        started.setMaxSize(MAX_SIZE);
+        started.setMaxAge(MAX_AGE);
+        started.start();
+        recording = started;
+    }
+
+    /**
+     * Stops the recording and writes it to a file.
+     *
+     * @param target The .jfr file to write.
+     * @throws IOException           If the file cannot be written; the recording is discarded anyway.
+     * @throws IllegalStateException If no recording is in progress.
+     */
+    public void stop(Path target) throws IOException {
+        Recording stopped;
+        synchronized (this) {
+            if (recording == null) {
+                throw new IllegalStateException("No recording in progress.");
+            }
+            stopped = recording;
+            recording = null;
+        }
+        try {
+            stopped.stop();
+            stopped.dump(target);
+        } finally {
+            stopped.close();
+        }
+    }
+
+    /**
+     * Discards the recording in progress, if any, e.g. when the application exits.
+     */
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package datavisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for parsing a data file into a DataSet, without building the indexes.
+ */
+@Name("datavisualizer.Parse")
+@Label("Parse File")
+@Category({"Data Visualizer", "Data"})
+@Description("Parsing of a CSV or JSON file")
+public final class ParseEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Format")
+    public String format;
+
+    @Label("File Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int columns;
+}
@@ -0,0 +1,83 @@
+package datavisualizer.diagnostics;
+
+/**
+ * Management interface of {@link PerformanceMetrics}, registered as {@code datavisualizer:type=PerformanceMetrics}
+ * so long-running sessions can be watched and scraped with JConsole, VisualVM or a JMX exporter.
+ */
+public interface PerformanceMetricsMXBean {
+
+    /**
+     * Gets the statistics of JavaFX pulses (CSS and layout of the scene).
+     *
+     * @return The pulse statistics.
+     */
+    PhaseSummary getPulse();
+
+    /**
+     * Gets the statistics of parsing data files.
+     *
+     * @return The parse statistics.
+     */
+    PhaseSummary getParse();
+
+    /**
+     * Gets the statistics of aggregation passes.
+     *
+     * @return The aggregation statistics.
+     */
+    PhaseSummary getAggregation();
+
+    /**
+     * Gets the statistics of chart rebuilds in the chart view.
+     *
+     * @return The render statistics.
+     */
+    PhaseSummary getRender();
+
+    /**
+     * Gets the statistics of executed, undone and redone commands.
+     *
+     * @return The command statistics.
+     */
+    PhaseSummary getCommand();
+
+    /**
+     * Gets the size of the last parsed file.
+     *
+     * @return The size in bytes, or 0 if no file was parsed.
+     */
+    long getLastParseBytes();
+
+    /**
+     * Gets the number of rows of the last parsed file.
+     *
+     * @return The row count, or 0 if no file was parsed.
+     */
+    long getLastParseRows();
+
+    /**
+     * Gets the throughput of the last parse.
+     *
+     * @return Megabytes (10^6 bytes) per second, or 0 if no file was parsed.
+     */
+    double getLastParseMegabytesPerSecond();
+
+    /**
+     * Gets the throughput of the last parse.
+     *
+     * @return Rows per second, or 0 if no file was parsed.
+     */
+    double getLastParseRowsPerSecond();
+
+    /**
+     * Checks whether allocated bytes are measured; they are reported as 0 if the JVM cannot measure them.
+     *
+     * @return true if per-thread allocation is measured.
+     */
+    boolean isAllocationMeasured();
+
+    /**
+     * Clears all statistics, e.g. before reproducing an issue.
+     */
+    void reset();
+}
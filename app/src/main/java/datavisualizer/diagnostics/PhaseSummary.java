@@ -0,0 +1,50 @@
+package datavisualizer.diagnostics;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * A snapshot of the latency and allocation statistics of one phase, as shown in the performance overlay and
+ * exposed through {@link PerformanceMetricsMXBean}.
+ */
+public final class PhaseSummary {
+
+    private final long count;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    private final double lastMillis;
+    private final long allocatedBytesPerOperation;
+    private final long lastAllocatedBytes;
+
+    /**
+     * Constructs a summary.
+     *
+     * @param count                      The number of recorded operations.
+     * @param p50Millis                  The median duration in milliseconds.
+     * @param p99Millis                  The 99th percentile duration in milliseconds.
+     * @param maxMillis                  The longest duration in milliseconds.
+     * @param lastMillis                 The duration of the latest operation in milliseconds.
+     * @param allocatedBytesPerOperation The mean number of bytes allocated by the operating thread per operation.
+     * @param lastAllocatedBytes         The bytes allocated by the latest operation.
+     */
+    @ConstructorParameters({"count", "p50Millis", "p99Millis", "maxMillis", "lastMillis",
+            "allocatedBytesPerOperation", "lastAllocatedBytes"})
+    public PhaseSummary(long count, double p50Millis, double p99Millis, double maxMillis, double lastMillis,
+                        long allocatedBytesPerOperation, long lastAllocatedBytes) {
+        this.count = count;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+        this.lastMillis = lastMillis;
+        this.allocatedBytesPerOperation = allocatedBytesPerOperation;
+        this.lastAllocatedBytes = lastAllocatedBytes;
+    }
+
+    public long getCount() { return count; }
+    public double getP50Millis() { return p50Millis; }
+    public double getP99Millis() { return p99Millis; }
+    public double getMaxMillis() { return maxMillis; }
+    public double getLastMillis() { return lastMillis; }
+    public long getAllocatedBytesPerOperation() { return allocatedBytesPerOperation; }
+    public long getLastAllocatedBytes() { return lastAllocatedBytes; }
+}
@@ -0,0 +1,270 @@
+package datavisualizer.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates synthetic CSV or JSON datasets for load tests.
+ * <p>
+ * Every row has a {@code date} (one per day, cycling through ten years), the categorical columns
+ * {@code cat1..catN}, each with the given number of distinct values drawn uniformly, and the numeric columns
+ * {@code num1..numM}, drawn from the given distribution and written with two decimals. Categorical and numeric
+ * cells are left empty (or null in JSON) at the given rate. The output depends only on the settings and the
+ * seed, so a file can be regenerated or reused instead of being kept around.
+ */
+public final class DataGenerator {
+
+    /**
+     * Distributions of the numeric columns.
+     */
+    public enum Distribution {
+        /** Uniform between 0 and 1000. */
+        UNIFORM,
+        /** Normal with mean 500 and standard deviation 150. */
+        NORMAL,
+        /** Log-normal with a median of about 150 and a long right tail. */
+        LOGNORMAL,
+        /** Exponential with mean 500. */
+        EXPONENTIAL;
+
+        double next(Random random) {
+            switch (this) {
+                case NORMAL:
+                    return 500 + 150 * random.nextGaussian();
+                case LOGNORMAL:
+                    return Math.exp(5 + random.nextGaussian());
+                case EXPONENTIAL:
+                    return -500 * Math.log(1 - random.nextDouble());
+                default:
+                    return 1000 * random.nextDouble();
+            }
+        }
+    }
+
+    private static final int DAYS = 10 * 365;
+    private static final long FIRST_DAY = LocalDate.of(2015, 1, 1).toEpochDay();
+
+    private final int categoricalColumns;
+    private final int cardinality;
+    private final int numericColumns;
+    private final Distribution distribution;
+    private final double nullRate;
+    private final long seed;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param categoricalColumns The number of categorical columns (at least 1).
+     * @param cardinality        The number of distinct values of each categorical column (at least 1).
+     * @param numericColumns     The number of numeric columns (at least 1).
+     * @param distribution       The distribution of the numeric values.
+     * @param nullRate           The fraction of empty categorical and numeric cells, from 0 to 1.
+     * @param seed               The random seed.
+     * @throws IllegalArgumentException If a setting is out of range.
+     */
+    public DataGenerator(int categoricalColumns, int cardinality, int numericColumns, Distribution distribution,
+                         double nullRate, long seed) {
+        if (categoricalColumns < 1 || numericColumns < 1 || cardinality < 1) {
+            throw new IllegalArgumentException("Need at least one categorical and one numeric column, and a cardinality of at least 1.");
+        }
+        if (!(nullRate >= 0 && nullRate <= 1)) {
+            throw new IllegalArgumentException("Null rate must be between 0 and 1: " + nullRate);
+        }
+        this.categoricalColumns = categoricalColumns;
+        this.cardinality = cardinality;
+        this.numericColumns = numericColumns;
+        this.distribution = distribution;
+        this.nullRate = nullRate;
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the names of the categorical columns.
+     *
+     * @return {@code cat1..catN}.
+     */
+    public List<String> getCategoricalColumns() {
+        return names("cat", categoricalColumns);
+    }
+
+    /**
+     * Gets the names of the numeric columns.
+     *
+     * @return {@code num1..numM}.
+     */
+    public List<String> getNumericColumns() {
+        return names("num", numericColumns);
+    }
+
+    /**
+     * Gets the names of all columns, in file order.
+     *
+     * @return The date column, then the categorical and numeric columns.
+     */
+    public List<String> getColumnNames() {
+        List<String> names = new ArrayList<>();
+        names.add("date");
+        names.addAll(getCategoricalColumns());
+        names.addAll(getNumericColumns());
+        return names;
+    }
+
+    /**
+     * Gets a category label as it appears in the generated files.
+     *
+     * @param column The categorical column, from 0.
+     * @param value  The value, from 0 to the cardinality - 1.
+     * @return The label.
+     */
+    public String category(int column, int value) {
+        return (char) ('A' + column % 26) + Integer.toString(value);
+    }
+
+    /**
+     * Writes a dataset into a directory, reusing an existing file generated with the same settings.
+     *
+     * @param directory The directory (created if needed).
+     * @param rows      The number of data rows.
+     * @param format    "csv" or "json".
+     * @return The file.
+     * @throws IOException If the file cannot be written.
+     */
+    public File write(File directory, int rows, String format) throws IOException {
+        String name = String.format(Locale.ROOT, "load-%d-c%dx%d-n%d-%s-null%s-s%d.%s", rows, categoricalColumns,
+                cardinality, numericColumns, distribution.name().toLowerCase(Locale.ROOT), nullRate, seed, format);
+        File file = new File(directory, name);
+        if (file.isFile()) {
+            return file;
+        }
+        Files.createDirectories(directory.toPath());
+        File partial = new File(directory, name + ".part");
+        try (BufferedWriter out = Files.newBufferedWriter(partial.toPath(), StandardCharsets.UTF_8)) {
+            switch (format) {
+                case "csv":
+                    writeCsv(out, rows);
+                    break;
+                case "json":
+                    writeJson(out, rows);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported format: " + format);
+            }
+        }
+        Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    /**
+     * Writes rows as CSV with a header line.
+     *
+     * @param out  The destination.
+     * @param rows The number of data rows.
+     * @throws IOException If writing fails.
+     */
+    public void writeCsv(Appendable out, int rows) throws IOException {
+        out.append(String.join(",", getColumnNames())).append('\n');
+        Random random = new Random(seed);
+        StringBuilder line = new StringBuilder(128);
+        for (int row = 0; row < rows; row++) {
+            line.setLength(0);
+            line.append(LocalDate.ofEpochDay(FIRST_DAY + row % DAYS));
+            for (int c = 0; c < categoricalColumns; c++) {
+                line.append(',');
+                int value = random.nextInt(cardinality);
+                if (!isNull(random)) {
+                    line.append(category(c, value));
+                }
+            }
+            for (int n = 0; n < numericColumns; n++) {
+                line.append(',');
+                double value = distribution.next(random);
+                if (!isNull(random)) {
+                    appendNumber(line, value);
+                }
+            }
+            out.append(line).append('\n');
+        }
+    }
+
+    /**
+     * Writes rows as a JSON array of objects, with the same values as {@link #writeCsv}.
+     *
+     * @param out  The destination.
+     * @param rows The number of data rows.
+     * @throws IOException If writing fails.
+     */
+    public void writeJson(Appendable out, int rows) throws IOException {
+        List<String> categorical = getCategoricalColumns();
+        List<String> numeric = getNumericColumns();
+        out.append('[');
+        Random random = new Random(seed);
+        StringBuilder line = new StringBuilder(256);
+        for (int row = 0; row < rows; row++) {
+            line.setLength(0);
+            line.append(row == 0 ? "\n{" : ",\n{");
+            line.append("\"date\":\"").append(LocalDate.ofEpochDay(FIRST_DAY + row % DAYS)).append('"');
+            for (int c = 0; c < categoricalColumns; c++) {
+                int value = random.nextInt(cardinality);
+                line.append(",\"").append(categorical.get(c)).append("\":");
+                if (isNull(random)) {
+                    line.append("null");
+                } else {
+                    line.append('"').append(category(c, value)).append('"');
+                }
+            }
+            for (int n = 0; n < numericColumns; n++) {
+                double value = distribution.next(random);
+                line.append(",\"").append(numeric.get(n)).append("\":");
+                if (isNull(random)) {
+                    line.append("null");
+                } else {
+                    appendNumber(line, value);
+                }
+            }
+            out.append(line.append('}'));
+        }
+        out.append("\n]\n");
+    }
+
+    /**
+     * Draws whether a cell is empty. Always consumes one random number, so the values do not depend on the rate.
+     */
+    private boolean isNull(Random random) {
+        return random.nextDouble() < nullRate;
+    }
+
+    /**
+     * Appends a number with two decimals, without the cost of String.format for every cell.
+     */
+    private static void appendNumber(StringBuilder line, double value) {
+        long cents = Math.round(value * 100);
+        if (cents < 0) {
+            line.append('-');
+            cents = -cents;
+        }
+        line.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+
+    private static List<String> names(String prefix, int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            names.add(prefix + i);
+        }
+        return Collections.unmodifiableList(names);
+    }
+}
@@ -0,0 +1,339 @@
+package datavisualizer.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import datavisualizer.controller.CommandManager;
+import datavisualizer.model.ChartState;
+import datavisualizer.model.ChartStateModel;
+import datavisualizer.model.aggregate.Aggregation;
+import datavisualizer.model.chart.ChartFactory;
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.command.UpdateChartStateCommand;
+import datavisualizer.model.command.UpdateFilterCommand;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.model.filter.FilterEngine;
+import datavisualizer.model.filter.InFilter;
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.parser.ParserFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Drives the application's whole pipeline over generated datasets of increasing size and measures each phase.
+ * <p>
+ * For every size, the dataset is generated (or reused) and then, as the controller would when a user opens the
+ * file and picks a chart:
+ * <ol>
+ *   <li><b>open</b>: parses the file and builds its indexes, and puts it into a fresh model;</li>
+ *   <li><b>state</b>: executes the commands that pick a bar chart of {@code num1, num2} by {@code cat1} and
+ *       filter out one value of the last categorical column, and evaluates the filter;</li>
+ *   <li><b>aggregate</b>: sums the Y columns per category over the selected rows;</li>
+ *   <li><b>series</b>: reduces the sums and builds the chart series (all of {@code ChartFactory} except the
+ *       JavaFX control, which needs a running toolkit).</li>
+ * </ol>
+ * The peak heap is the sum of the heap pools' peak usage during the run; the live heap is what is still used,
+ * after a full collection, while the dataset is open. GC pauses are the collections that ran during the phases.
+ * The sizes run in order and the test stops at the first one that runs out of memory, which is the breaking point.
+ */
+public class LoadTest {
+
+    private final DataGenerator generator;
+    private final String format;
+    private final File directory;
+
+    /**
+     * Constructs a load test.
+     *
+     * @param generator Generates the datasets.
+     * @param format    "csv" or "json".
+     * @param directory Where the generated files are kept; existing files with the same settings are reused.
+     */
+    public LoadTest(DataGenerator generator, String format, File directory) {
+        this.generator = generator;
+        this.format = format;
+        this.directory = directory;
+    }
+
+    /**
+     * Runs the pipeline for each size, printing a table row as each size completes.
+     *
+     * @param sizes The row counts, in increasing order.
+     * @return The results, one per size that was run; the last one failed if a size ran out of memory.
+     * @throws IOException If a dataset cannot be written.
+     */
+    public List<Result> run(List<Integer> sizes) throws IOException {
+        List<Result> results = new ArrayList<>();
+        System.out.println(Result.HEADER);
+        for (int rows : sizes) {
+            File file = generator.write(directory, rows, format);
+            Result result = runOne(file, rows);
+            results.add(result);
+            System.out.println(result.formatRow());
+            if (result.failure != null) {
+                System.err.println("Stopped at " + rows + " rows: " + result.failure);
+                break;
+            }
+        }
+        return results;
+    }
+
+    private Result runOne(File file, int rows) {
+        Result result = new Result(rows, file.length());
+        GcRecorder gc = new GcRecorder();
+        System.gc(); // Start from an empty heap, so the peak belongs to this size
+        resetHeapPeaks();
+        gc.start();
+        String phase = "open";
+        try {
+            String xColumn = generator.getCategoricalColumns().get(0);
+            List<String> yColumns = generator.getNumericColumns().subList(0, Math.min(2, generator.getNumericColumns().size()));
+            String filterColumn = generator.getCategoricalColumns().get(generator.getCategoricalColumns().size() - 1);
+
+            long start = System.nanoTime();
+            DataSet dataSet = ParserFactory.load(file);
+            ChartStateModel model = new ChartStateModel();
+            model.setDataSet(dataSet);
+            result.openMillis = millisSince(start);
+            result.loadPlan = dataSet.getLoadPlan();
+
+            phase = "state";
+            start = System.nanoTime();
+            CommandManager commandManager = new CommandManager();
+            commandManager.executeCommand(new UpdateChartStateCommand(model, model.getState(),
+                    ChartState.EMPTY.withChart(ChartType.BAR, xColumn, yColumns)));
+            commandManager.executeCommand(new UpdateFilterCommand(model, null, new InFilter(filterColumn,
+                    Set.of(generator.category(generator.getCategoricalColumns().size() - 1, 0)), true)));
+            SelectionVector selection = new FilterEngine().evaluate(model.getFilter(), dataSet);
+            result.selectedRows = selection.cardinality();
+            result.stateMillis = millisSince(start);
+
+            phase = "aggregate";
+            start = System.nanoTime();
+            Aggregation.prepare(dataSet, model.getXColumn(), model.getYColumns(), selection, null);
+            result.aggregateMillis = millisSince(start);
+
+            phase = "series";
+            start = System.nanoTime();
+            result.points = ChartFactory.createBarSeries(dataSet, model.getXColumn(), model.getYColumns(), selection, null)
+                    .stream().mapToInt(series -> series.getData().size()).sum();
+            result.seriesMillis = millisSince(start);
+
+            gc.stop();
+            result.peakHeapBytes = heapPeak();
+            System.gc();
+            result.liveHeapBytes = heapUsed();
+            Reference.reachabilityFence(model); // The open dataset is part of the live heap
+        } catch (OutOfMemoryError e) {
+            gc.stop();
+            result.failure = "OutOfMemoryError in " + phase;
+            result.peakHeapBytes = heapPeak();
+        } catch (IOException | RuntimeException e) {
+            gc.stop();
+            result.failure = e.getClass().getSimpleName() + " in " + phase + ": " + e.getMessage();
+            result.peakHeapBytes = heapPeak();
+        }
+        result.gcPauses = gc.pauses;
+        result.gcMillis = gc.totalMillis;
+        result.maxPauseMillis = gc.maxMillis;
+        return result;
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static void resetHeapPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Counts the collections between start and stop from the collectors' counters, and takes the longest pause
+     * from their notifications. Collections requested with System.gc() by the test itself are not counted.
+     */
+    private static final class GcRecorder implements NotificationListener {
+        private long startCount;
+        private long startMillis;
+        private volatile boolean recording;
+        long pauses;
+        long totalMillis;
+        volatile long maxMillis;
+
+        void start() {
+            startCount = collectionCount();
+            startMillis = collectionMillis();
+            recording = true;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+                }
+            }
+        }
+
+        void stop() {
+            recording = false;
+            pauses = collectionCount() - startCount;
+            totalMillis = collectionMillis() - startMillis;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    try {
+                        ((NotificationEmitter) collector).removeNotificationListener(this);
+                    } catch (ListenerNotFoundException e) {
+                        // Not registered with this collector
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!recording || !notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            if (!info.getGcCause().equals("System.gc()")) {
+                maxMillis = Math.max(maxMillis, info.getGcInfo().getDuration());
+            }
+        }
+
+        private static long collectionCount() {
+            long count = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, collector.getCollectionCount());
+            }
+            return count;
+        }
+
+        private static long collectionMillis() {
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                millis += Math.max(0, collector.getCollectionTime());
+            }
+            return millis;
+        }
+    }
+
+    /**
+     * The measurements of one size.
+     */
+    public static final class Result {
+        /** Header of the lines written by {@link #formatCsv}. */
+        public static final String CSV_HEADER = "label,rows,fileBytes,openMs,stateMs,aggregateMs,seriesMs,totalMs,"
+                + "peakHeapBytes,liveHeapBytes,gcPauses,gcMs,maxPauseMs,result";
+
+        static final String HEADER = String.format(Locale.ROOT, "%12s %8s %9s %9s %9s %9s %9s %9s %9s %9s %7s %8s %9s  %s",
+                "rows", "file MB", "open ms", "state ms", "agg ms", "series ms", "total ms",
+                "peak MB", "live MB", "selected", "GCs", "GC ms", "max pause", "result");
+
+        final int rows;
+        final long fileBytes;
+        long openMillis = -1;
+        long stateMillis = -1;
+        long aggregateMillis = -1;
+        long seriesMillis = -1;
+        long peakHeapBytes;
+        long liveHeapBytes = -1;
+        long gcPauses;
+        long gcMillis;
+        long maxPauseMillis;
+        int selectedRows = -1;
+        int points;
+        LoadPlan loadPlan = LoadPlan.FULL;
+        String failure;
+
+        Result(int rows, long fileBytes) {
+            this.rows = rows;
+            this.fileBytes = fileBytes;
+        }
+
+        /**
+         * Gets the row count.
+         *
+         * @return The number of generated rows.
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Gets the total time of the phases that completed.
+         *
+         * @return Milliseconds.
+         */
+        public long getTotalMillis() {
+            return Math.max(0, openMillis) + Math.max(0, stateMillis) + Math.max(0, aggregateMillis) + Math.max(0, seriesMillis);
+        }
+
+        /**
+         * Gets why the size failed.
+         *
+         * @return The failure, or null if every phase completed.
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+        /**
+         * Formats the result as a row of the table printed by {@link #run}.
+         *
+         * @return The row.
+         */
+        public String formatRow() {
+            return String.format(Locale.ROOT, "%,12d %8.1f %9s %9s %9s %9s %9d %9.0f %9s %9s %7d %8d %9d  %s",
+                    rows, fileBytes / 1e6, cell(openMillis), cell(stateMillis), cell(aggregateMillis), cell(seriesMillis),
+                    getTotalMillis(), peakHeapBytes / 1e6, liveHeapBytes < 0 ? "-" : String.format(Locale.ROOT, "%.0f", liveHeapBytes / 1e6),
+                    selectedRows < 0 ? "-" : Integer.toString(selectedRows), gcPauses, gcMillis, maxPauseMillis,
+                    failure != null ? failure : "ok (" + points + " points" + (loadPlan.isFull() ? "" : ", " + loadPlan) + ")");
+        }
+
+        /**
+         * Formats the result as a CSV line, see {@link #CSV_HEADER}.
+         *
+         * @param label The label of the run, e.g. a release.
+         * @return The line.
+         */
+        public String formatCsv(String label) {
+            return String.join(",", label, Integer.toString(rows), Long.toString(fileBytes), Long.toString(openMillis),
+                    Long.toString(stateMillis), Long.toString(aggregateMillis), Long.toString(seriesMillis),
+                    Long.toString(getTotalMillis()), Long.toString(peakHeapBytes), Long.toString(liveHeapBytes),
+                    Long.toString(gcPauses), Long.toString(gcMillis), Long.toString(maxPauseMillis),
+                    failure != null ? failure.replace(',', ';') : loadPlan.isFull() ? "ok" : "ok " + loadPlan);
+        }
+
+        private static String cell(long millis) {
+            return millis < 0 ? "-" : Long.toString(millis);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package datavisualizer.model;
+
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.filter.FilterPredicate;
+import datavisualizer.model.overlay.OverlaySpec;
+import datavisualizer.model.time.TimeBucket;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the chart configuration and the dataset it applies to.
+ * <p>
+ * Snapshots are published by {@link ChartStateModel} with increasing versions, so any thread can read a
+ * consistent state without locking and tell whether a result computed from it is still current by comparing
+ * versions. The dataset version changes whenever a different dataset is set, so caches keyed on it can tell
+ * datasets apart without holding on to them. Changing a snapshot returns a new one; unchanged parts are shared.
+ */
+public final class ChartState {
+
+    /**
+     * The state of a model with no dataset and default settings.
+     */
+    public static final ChartState EMPTY = new ChartState(0, ChartType.BAR, null, Collections.emptyList(),
+            null, null, Collections.emptyList(), null, 0);
+
+    private final long version;
+    private final ChartType chartType;
+    private final String xColumn;
+    private final List<String> yColumns; // Immutable
+    private final FilterPredicate filter;
+    private final TimeBucket timeBucket;
+    private final List<OverlaySpec> overlays; // Immutable
+    private final DataSet dataSet;
+    private final long dataSetVersion;
+
+    private ChartState(long version, ChartType chartType, String xColumn, List<String> yColumns,
+                       FilterPredicate filter, TimeBucket timeBucket, List<OverlaySpec> overlays,
+                       DataSet dataSet, long dataSetVersion) {
+        this.version = version;
+        this.chartType = chartType;
+        this.xColumn = xColumn;
+        this.yColumns = yColumns;
+        this.filter = filter;
+        this.timeBucket = timeBucket;
+        this.overlays = overlays;
+        this.dataSet = dataSet;
+        this.dataSetVersion = dataSetVersion;
+    }
+
+    /**
+     * Gets the version of this snapshot. Published snapshots have strictly increasing versions.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the chart type.
+     *
+     * @return The chart type.
+     */
+    public ChartType getChartType() {
+        return chartType;
+    }
+
+    /**
+     * Gets the X-axis column.
+     *
+     * @return The column name, or null if none selected.
+     */
+    public String getXColumn() {
+        return xColumn;
+    }
+
+    /**
+     * Gets the Y-axis columns.
+     *
+     * @return An immutable list of column names.
+     */
+    public List<String> getYColumns() {
+        return yColumns;
+    }
+
+    /**
+     * Gets the row filter.
+     *
+     * @return The filter predicate, or null if all rows are shown.
+     */
+    public FilterPredicate getFilter() {
+        return filter;
+    }
+
+    /**
+     * Gets the time granularity for a timestamp X column.
+     *
+     * @return The time bucket, or null if it is chosen automatically.
+     */
+    public TimeBucket getTimeBucket() {
+        return timeBucket;
+    }
+
+    /**
+     * Gets the overlays drawn on line charts.
+     *
+     * @return An immutable list of overlay specifications.
+     */
+    public List<OverlaySpec> getOverlays() {
+        return overlays;
+    }
+
+    /**
+     * Gets the dataset.
+     *
+     * @return The dataset, or null if none is loaded.
+     */
+    public DataSet getDataSet() {
+        return dataSet;
+    }
+
+    /**
+     * Gets the version of the dataset, which changes whenever a different dataset is set.
+     *
+     * @return The dataset version.
+     */
+    public long getDataSetVersion() {
+        return dataSetVersion;
+    }
+
+    /**
+     * Returns a snapshot with a different chart type and columns.
+     *
+     * @param type  The chart type, or null for BAR.
+     * @param xCol  The X-axis column.
+     * @param yCols The Y-axis columns, or null for none.
+     * @return The new snapshot.
+     */
+    public ChartState withChart(ChartType type, String xCol, List<String> yCols) {
+        return new ChartState(version, type != null ? type : ChartType.BAR, xCol,
+                yCols != null ? List.copyOf(yCols) : Collections.emptyList(),
+                filter, timeBucket, overlays, dataSet, dataSetVersion);
+    }
+
+    /**
+     * Returns a snapshot with a different filter.
+     *
+     * @param newFilter The filter, or null for all rows.
+     * @return The new snapshot.
+     */
+    public ChartState withFilter(FilterPredicate newFilter) {
+        return new ChartState(version, chartType, xColumn, yColumns, newFilter, timeBucket, overlays, dataSet, dataSetVersion);
+    }
+
+    /**
+     * Returns a snapshot with a different time bucket.
+     *
+     * @param newBucket The time bucket, or null for automatic.
+     * @return The new snapshot.
+     */
+    public ChartState withTimeBucket(TimeBucket newBucket) {
+        return new ChartState(version, chartType, xColumn, yColumns, filter, newBucket, overlays, dataSet, dataSetVersion);
+    }
+
+    /**
+     * Returns a snapshot with different overlays.
+     *
+     * @param newOverlays The overlay specifications, or null for none.
+     * @return The new snapshot.
+     */
+    public ChartState withOverlays(List<OverlaySpec> newOverlays) {
+        return new ChartState(version, chartType, xColumn, yColumns, filter, timeBucket,
+                newOverlays != null ? List.copyOf(newOverlays) : Collections.emptyList(), dataSet, dataSetVersion);
+    }
+
+    /**
+     * Returns a snapshot for a different dataset, with the next dataset version.
+     *
+     * @param newDataSet The dataset, or null for none.
+     * @return The new snapshot.
+     */
+    public ChartState withDataSet(DataSet newDataSet) {
+        return new ChartState(version, chartType, xColumn, yColumns, filter, timeBucket, overlays, newDataSet, dataSetVersion + 1);
+    }
+
+    /**
+     * Returns this snapshot with a new version, as assigned by the model when publishing it.
+     *
+     * @param newVersion The version.
+     * @return The new snapshot.
+     */
+    ChartState withVersion(long newVersion) {
+        return new ChartState(newVersion, chartType, xColumn, yColumns, filter, timeBucket, overlays, dataSet, dataSetVersion);
+    }
+}
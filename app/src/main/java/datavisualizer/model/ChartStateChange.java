@@ -0,0 +1,14 @@
+package datavisualizer.model;
+
+/**
+ * The parts of the ChartStateModel that can change, reported to observers as a change set.
+ */
+public enum ChartStateChange {
+    CHART_TYPE,
+    X_COLUMN,
+    Y_COLUMNS,
+    DATASET,
+    FILTER,
+    TIME_BUCKET,
+    OVERLAYS
+}
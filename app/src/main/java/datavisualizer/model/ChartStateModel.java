@@ -2,21 +2,35 @@ package datavisualizer.model;
 
 import datavisualizer.model.chart.ChartType;
 import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.filter.FilterPredicate;
+import datavisualizer.model.overlay.OverlaySpec;
+import datavisualizer.model.time.TimeBucket;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Model class to hold the current state of the chart configuration and data.
+ * Every mutator notifies observers with the set of parts that actually changed; mutators called between
+ * {@link #beginUpdate()} and {@link #endUpdate()} are coalesced into one notification when the outermost
+ * update ends.
+ * <p>
+ * The state itself is an immutable {@link ChartState}. The model is changed from the FX thread only, and its
+ * getters return the state as changed so far, including changes in an open update scope. Each notification
+ * first publishes the state as a new versioned snapshot, which other threads read with {@link #getSnapshot()}.
  */
 public class ChartStateModel {
-    private ChartType chartType = ChartType.BAR; // Default chart type
-    private String xColumn = null;
-    private List<String> yColumns = new ArrayList<>();
-    private DataSet currentDataSet = null;
+    private ChartState state = ChartState.EMPTY; // Working state, FX thread only
+    private final AtomicReference<ChartState> published = new AtomicReference<>(ChartState.EMPTY);
 
     private final List<ChartStateObserver> observers = new ArrayList<>();
+    private final EnumSet<ChartStateChange> pendingChanges = EnumSet.noneOf(ChartStateChange.class);
+    private int updateDepth; // Nesting level of open update scopes
 
     /**
      * Gets the currently selected chart type.
@@ -24,7 +38,7 @@ public class ChartStateModel {
      * @return The current ChartType.
      */
     public ChartType getChartType() {
-        return chartType;
+        return state.getChartType();
     }
 
     /**
@@ -33,7 +47,7 @@ public class ChartStateModel {
      * @return The name of the X-axis column, or null if none selected.
      */
     public String getXColumn() {
-        return xColumn;
+        return state.getXColumn();
     }
 
     /**
@@ -42,8 +56,7 @@ public class ChartStateModel {
      * @return An unmodifiable list of the Y-axis column names.
      */
     public List<String> getYColumns() {
-        // Return immutable copy to prevent external modification
-        return Collections.unmodifiableList(yColumns);
+        return state.getYColumns();
     }
 
     /**
@@ -52,18 +65,88 @@ public class ChartStateModel {
      * @return The current DataSet, or null if none is loaded.
      */
     public DataSet getDataSet() { // Added getter for DataSet
-        return currentDataSet;
+        return state.getDataSet();
     }
 
     /**
-     * Sets the current DataSet.
-     * Usually called when a new file is loaded.
-     * Does not notify observers by itself; typically followed by a state update.
+     * Gets the current row filter.
+     *
+     * @return The filter predicate, or null if all rows are shown.
+     */
+    public FilterPredicate getFilter() {
+        return state.getFilter();
+    }
+
+    /**
+     * Sets the row filter and notifies observers.
+     *
+     * @param filter The new filter predicate, or null to show all rows.
+     */
+    public void setFilter(FilterPredicate filter) {
+        if (state.getFilter() != filter) {
+            state = state.withFilter(filter);
+            pendingChanges.add(ChartStateChange.FILTER);
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Gets the time granularity used when the X column holds timestamps.
+     *
+     * @return The time bucket, or null if it is chosen automatically.
+     */
+    public TimeBucket getTimeBucket() {
+        return state.getTimeBucket();
+    }
+
+    /**
+     * Sets the time granularity and notifies observers.
+     *
+     * @param timeBucket The new time bucket, or null to choose automatically.
+     */
+    public void setTimeBucket(TimeBucket timeBucket) {
+        if (state.getTimeBucket() != timeBucket) {
+            state = state.withTimeBucket(timeBucket);
+            pendingChanges.add(ChartStateChange.TIME_BUCKET);
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Gets the overlays drawn on line charts.
+     *
+     * @return An unmodifiable list of overlay specifications (empty if none).
+     */
+    public List<OverlaySpec> getOverlays() {
+        return state.getOverlays();
+    }
+
+    /**
+     * Sets the overlays drawn on line charts and notifies observers.
+     *
+     * @param overlays The overlay specifications (null or empty for none).
+     */
+    public void setOverlays(List<OverlaySpec> overlays) {
+        List<OverlaySpec> newOverlays = overlays != null ? overlays : Collections.emptyList();
+        if (!state.getOverlays().equals(newOverlays)) {
+            state = state.withOverlays(newOverlays);
+            pendingChanges.add(ChartStateChange.OVERLAYS);
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Sets the current DataSet and notifies observers.
+     * Usually called when a new file is loaded, inside an update scope together with the new chart state.
      *
      * @param dataSet The new DataSet, or null to clear.
      */
     public void setDataSet(DataSet dataSet) { // Added setter for DataSet
-        this.currentDataSet = dataSet;
+        if (state.getDataSet() != dataSet) {
+            state = state.withDataSet(dataSet);
+            pendingChanges.add(ChartStateChange.DATASET);
+        }
+        notifyObservers();
     }
 
 
@@ -76,10 +159,7 @@ public class ChartStateModel {
      *             If multiple Y columns are needed later, this method signature should change.
      */
     public void updateState(ChartType type, String xCol, String yCol) {
-        this.chartType = (type != null) ? type : ChartType.BAR; // Default if null
-        this.xColumn = xCol;
-        this.yColumns = (yCol != null) ? new ArrayList<>(List.of(yCol)) : new ArrayList<>();
-        notifyObservers();
+        updateState(type, xCol, (yCol != null) ? List.of(yCol) : null);
     }
 
      /**
@@ -90,9 +170,17 @@ public class ChartStateModel {
      * @param yCols The new list of Y-axis columns.
      */
     public void updateState(ChartType type, String xCol, List<String> yCols) {
-        this.chartType = (type != null) ? type : ChartType.BAR; // Default if null
-        this.xColumn = xCol;
-        this.yColumns = (yCols != null) ? new ArrayList<>(yCols) : new ArrayList<>();
+        ChartState previous = state;
+        state = state.withChart(type, xCol, yCols); // Defaults to BAR if type is null
+        if (previous.getChartType() != state.getChartType()) {
+            pendingChanges.add(ChartStateChange.CHART_TYPE);
+        }
+        if (!Objects.equals(previous.getXColumn(), state.getXColumn())) {
+            pendingChanges.add(ChartStateChange.X_COLUMN);
+        }
+        if (!previous.getYColumns().equals(state.getYColumns())) {
+            pendingChanges.add(ChartStateChange.Y_COLUMNS);
+        }
         notifyObservers();
     }
 
@@ -100,13 +188,66 @@ public class ChartStateModel {
      * Resets the chart state and data to default values.
      */
     public void resetState() {
-        this.chartType = ChartType.BAR;
-        this.xColumn = null;
-        this.yColumns.clear();
-        this.currentDataSet = null; // Clear DataSet reference
-        notifyObservers(); // Notify observers about the reset
+        beginUpdate();
+        try {
+            updateState(ChartType.BAR, null, (List<String>) null);
+            setFilter(null);
+            setTimeBucket(null);
+            setOverlays(null);
+            setDataSet(null); // Clear DataSet reference
+        } finally {
+            endUpdate(); // Notify observers about the reset
+        }
+    }
+
+    /**
+     * Opens an update scope. Until the matching {@link #endUpdate()}, changes are collected instead of
+     * being reported one by one. Scopes may be nested; only the outermost one notifies.
+     */
+    public void beginUpdate() {
+        updateDepth++;
     }
 
+    /**
+     * Closes an update scope, notifying observers once with everything that changed inside the outermost scope.
+     */
+    public void endUpdate() {
+        if (updateDepth == 0) {
+            throw new IllegalStateException("endUpdate() without beginUpdate()");
+        }
+        updateDepth--;
+        notifyObservers();
+    }
+
+
+    /**
+     * Gets the current state, including changes made in an open update scope. FX thread only.
+     *
+     * @return The working state snapshot (its version is that of the last publication until it is published).
+     */
+    public ChartState getState() {
+        return state;
+    }
+
+    /**
+     * Gets the state as of the last notification. Safe to call from any thread.
+     *
+     * @return The latest published snapshot.
+     */
+    public ChartState getSnapshot() {
+        return published.get();
+    }
+
+    /**
+     * Checks whether a snapshot is still the latest published one, e.g. to drop a result computed from it
+     * in the background once the user has moved on. Safe to call from any thread.
+     *
+     * @param snapshot The snapshot the result was computed from.
+     * @return true if no newer state has been published.
+     */
+    public boolean isCurrent(ChartState snapshot) {
+        return published.get().getVersion() == snapshot.getVersion();
+    }
 
     public void addObserver(ChartStateObserver observer) {
         if (observer != null && !observers.contains(observer)) {
@@ -118,10 +259,20 @@ public class ChartStateModel {
         observers.remove(observer);
     }
 
+    /**
+     * Publishes the state and reports the pending changes to observers, unless an update scope is open or nothing changed.
+     */
     private void notifyObservers() {
+        if (updateDepth > 0 || pendingChanges.isEmpty()) {
+            return;
+        }
+        Set<ChartStateChange> changes = Collections.unmodifiableSet(EnumSet.copyOf(pendingChanges));
+        pendingChanges.clear();
+        state = state.withVersion(published.get().getVersion() + 1);
+        published.set(state);
         // Use a copy to avoid ConcurrentModificationException if observer tries to unregister during notification
         for (ChartStateObserver observer : new ArrayList<>(observers)) {
-            observer.chartStateChanged();
+            observer.chartStateChanged(changes);
         }
     }
 }
\ No newline at end of file
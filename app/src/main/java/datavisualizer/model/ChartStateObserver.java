@@ -1,5 +1,17 @@
 package datavisualizer.model;
 
+import java.util.Set;
+
+/**
+ * Observer of the ChartStateModel.
+ */
 public interface ChartStateObserver {
-    void chartStateChanged();
-}
\ No newline at end of file
+
+    /**
+     * Called once per update of the model. Changes made inside one update scope
+     * (see {@link ChartStateModel#beginUpdate()}) are coalesced into a single call.
+     *
+     * @param changes The parts of the state that changed; never empty.
+     */
+    void chartStateChanged(Set<ChartStateChange> changes);
+}
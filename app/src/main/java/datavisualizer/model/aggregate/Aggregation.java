@@ -0,0 +1,218 @@
+package datavisualizer.model.aggregate;
+
+import datavisualizer.diagnostics.AggregationEvent;
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.model.dataset.CategoricalColumn;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.DoubleBlockIterator;
+import datavisualizer.model.dataset.NumericColumn;
+import datavisualizer.model.dataset.TimestampColumn;
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.time.TimeBucket;
+import datavisualizer.model.time.TimeRollup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Group-by aggregation over typed columns.
+ * Kept free of JavaFX types so the same code path can back on-screen charts and headless callers.
+ */
+public class Aggregation {
+
+    /** Label used for rows whose category value is null. */
+    public static final String NULL_CATEGORY = "N/A";
+
+    /**
+     * Sums Y values per X category, considering only selected rows.
+     * Categories are returned in order of first appearance among the selected rows;
+     * rows with a null or non-numeric Y value are skipped.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The category column.
+     * @param yColumn   The numeric value column.
+     * @param selection The selected rows, or null to use every row.
+     * @return A map from category label to summed value.
+     */
+    public static Map<String, Double> sumByCategory(DataSet dataSet, String xColumn, String yColumn, SelectionVector selection) {
+        return sumByCategory(dataSet, xColumn, List.of(yColumn), selection).get(yColumn);
+    }
+
+    /**
+     * Sums several Y columns per X category with a single pass over the selected rows.
+     * Each result is the same as {@link #sumByCategory(DataSet, String, String, SelectionVector)} for that column.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The category column.
+     * @param yColumns  The numeric value columns.
+     * @param selection The selected rows, or null to use every row.
+     * @return A map from Y column to its map from category label to summed value (empty for missing columns).
+     */
+    public static Map<String, Map<String, Double>> sumByCategory(DataSet dataSet, String xColumn, List<String> yColumns,
+                                                                 SelectionVector selection) {
+        Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+        for (String yColumn : yColumns) {
+            results.put(yColumn, new LinkedHashMap<>()); // Maintain order
+        }
+        CategoricalColumn x = dataSet.getCategoricalColumn(xColumn);
+        List<NumericColumn> ys = new ArrayList<>();
+        for (String yColumn : results.keySet()) {
+            NumericColumn y = dataSet.getNumericColumn(yColumn);
+            if (y != null) {
+                ys.add(y);
+            }
+        }
+        if (x == null || ys.isEmpty()) {
+            return results;
+        }
+
+        // Group ids are dictionary code + 1, so that null categories map to group 0
+        int groupCount = x.getCardinality() + 1;
+        int columnCount = ys.size();
+        double[][] sums = new double[columnCount][groupCount];
+        boolean[][] seen = new boolean[columnCount][groupCount];
+        int[][] firstSeenOrder = new int[columnCount][groupCount];
+        int[] seenCount = new int[columnCount];
+        int[] skipped = new int[columnCount];
+        // Values are read block by block, so compressed columns are decoded one block at a time
+        DoubleBlockIterator[] blocks = new DoubleBlockIterator[columnCount];
+        double[][] values = new double[columnCount][];
+        int[] offsets = new int[columnCount];
+        int size = x.size(); // Process only matching pairs
+        for (int j = 0; j < columnCount; j++) {
+            blocks[j] = ys.get(j).blocks();
+            size = Math.min(size, ys.get(j).size());
+        }
+
+        int[] codes = x.codes();
+        int blockEnd = 0; // Rows before this are covered by the current blocks
+        int row = selection != null ? selection.nextSetBit(0) : 0;
+        while (row >= 0 && row < size) {
+            if (row >= blockEnd) { // Blocks of every column cover the same rows
+                for (int j = 0; j < columnCount; j++) {
+                    values[j] = blocks[j].seek(row);
+                    offsets[j] = blocks[j].offset();
+                }
+                blockEnd = blocks[0].end();
+            }
+            int group = codes[row] + 1;
+            for (int j = 0; j < columnCount; j++) {
+                if (ys.get(j).isNull(row)) {
+                    skipped[j]++;
+                } else {
+                    if (!seen[j][group]) {
+                        seen[j][group] = true;
+                        firstSeenOrder[j][seenCount[j]++] = group;
+                    }
+                    sums[j][group] += values[j][row - offsets[j]];
+                }
+            }
+            row = selection != null ? selection.nextSetBit(row + 1) : row + 1;
+        }
+
+        for (int j = 0; j < columnCount; j++) {
+            Map<String, Double> aggregatedData = results.get(ys.get(j).getName());
+            for (int i = 0; i < seenCount[j]; i++) {
+                int group = firstSeenOrder[j][i];
+                String label = group == 0 ? NULL_CATEGORY : x.getDictionary().get(group - 1);
+                aggregatedData.merge(label, sums[j][group], Double::sum);
+            }
+            if (skipped[j] > 0) {
+                System.err.println("Skipped " + skipped[j] + " null or non-numeric values in column " + ys.get(j).getName() + ".");
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Sums Y values per X category, or per time bucket when a bucket is given.
+     * This is the aggregation behind every chart, export and query. Results are cached on the dataset
+     * and must not be modified.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The category or timestamp column.
+     * @param yColumn   The numeric value column.
+     * @param selection The selected rows, or null to use every row.
+     * @param bucket    The time granularity for a timestamp X column, or null to group by distinct X value.
+     * @return A map from category (or bucket) label to summed value, in category or time order.
+     */
+    public static Map<String, Double> sumByX(DataSet dataSet, String xColumn, String yColumn, SelectionVector selection, TimeBucket bucket) {
+        if (bucket == null) {
+            return dataSet.getCategorySums().get(dataSet, xColumn, yColumn, selection);
+        }
+        TimeRollup rollup = dataSet.getTimeRollups().get(dataSet, xColumn, yColumn, bucket, selection);
+        return rollup != null ? rollup.toLabelledMap() : new LinkedHashMap<>();
+    }
+
+    /**
+     * Sums the sampling variances of the values that {@link #sumByX} sums, for a dataset of estimates (see
+     * {@link ApproximateAggregation}). Estimates of different rows are treated as independent, so the variance of
+     * their sum is the sum of their variances.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The category or timestamp column.
+     * @param yColumn   The numeric value column.
+     * @param selection The selected rows, or null to use every row.
+     * @param bucket    The time granularity for a timestamp X column, or null to group by distinct X value.
+     * @return A map from category (or bucket) label to variance, or null if the dataset holds exact values.
+     */
+    public static Map<String, Double> varianceByX(DataSet dataSet, String xColumn, String yColumn, SelectionVector selection,
+                                                  TimeBucket bucket) {
+        DataSet variances = dataSet.getVariances();
+        if (variances == null || !variances.getColumnNames().contains(yColumn)) {
+            return null;
+        }
+        return sumByX(variances, xColumn, yColumn, selection, bucket);
+    }
+
+    /**
+     * Computes and caches the sums of several Y columns over one X column, with one pass over the selected rows
+     * for all columns that are not cached yet. Later {@link #sumByX} calls for these columns are cache hits.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The category or timestamp column.
+     * @param yColumns  The numeric value columns.
+     * @param selection The selected rows, or null to use every row.
+     * @param bucket    The time granularity for a timestamp X column, or null to group by distinct X value.
+     */
+    public static void prepare(DataSet dataSet, String xColumn, List<String> yColumns, SelectionVector selection, TimeBucket bucket) {
+        AggregationEvent event = new AggregationEvent();
+        event.begin();
+        PerformanceMetrics.Timer timer = PerformanceMetrics.start(PerformanceMetrics.Phase.AGGREGATION);
+        if (bucket == null) {
+            dataSet.getCategorySums().getAll(dataSet, xColumn, yColumns, selection);
+        } else {
+            dataSet.getTimeRollups().getAll(dataSet, xColumn, yColumns, bucket, selection);
+        }
+        timer.stop();
+        if (event.shouldCommit()) {
+            event.xColumn = xColumn;
+            event.yColumns = yColumns.size();
+            event.timeBucket = bucket != null ? bucket.name() : null;
+            event.rows = dataSet.getRowCount();
+            event.selectedRows = selection != null ? selection.cardinality() : event.rows;
+            event.commit();
+        }
+    }
+
+    /**
+     * Picks the time granularity for an X column.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The X column.
+     * @param requested The granularity chosen by the user, or null for automatic.
+     * @return The granularity to use, or null if the column does not hold timestamps.
+     */
+    public static TimeBucket resolveTimeBucket(DataSet dataSet, String xColumn, TimeBucket requested) {
+        if (!dataSet.isTimestampColumn(xColumn)) {
+            return null;
+        }
+        if (requested != null) {
+            return requested;
+        }
+        TimestampColumn time = dataSet.getTimestampColumn(xColumn);
+        return TimeBucket.choose(Math.max(0L, time.getMax() - time.getMin()));
+    }
+}
@@ -0,0 +1,74 @@
+package datavisualizer.model.aggregate;
+
+/**
+ * Full-column reduction kernels over primitive numeric columns.
+ * Null masks and selections use the same layout as SelectionVector: one bit per row in 64-bit words.
+ * Implementations are picked at runtime by {@link Kernels#get()}.
+ */
+public interface AggregationKernels {
+
+    /**
+     * Sums the non-null values.
+     *
+     * @param values   The column values.
+     * @param nullMask Bits set for null rows.
+     * @param size     The number of rows.
+     * @return The sum (0 if every row is null).
+     */
+    double sum(double[] values, long[] nullMask, int size);
+
+    /**
+     * Finds the smallest non-null value.
+     *
+     * @param values   The column values.
+     * @param nullMask Bits set for null rows.
+     * @param size     The number of rows.
+     * @return The minimum, or positive infinity if every row is null.
+     */
+    double min(double[] values, long[] nullMask, int size);
+
+    /**
+     * Finds the largest non-null value.
+     *
+     * @param values   The column values.
+     * @param nullMask Bits set for null rows.
+     * @param size     The number of rows.
+     * @return The maximum, or negative infinity if every row is null.
+     */
+    double max(double[] values, long[] nullMask, int size);
+
+    /**
+     * Counts the non-null rows, optionally restricted to a selection.
+     *
+     * @param nullMask  Bits set for null rows.
+     * @param selection Bits set for selected rows, or null for all rows.
+     * @param size      The number of rows.
+     * @return The number of non-null (selected) rows.
+     */
+    default int count(long[] nullMask, long[] selection, int size) {
+        int words = (size + 63) >>> 6;
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            long valid = ~nullMask[w];
+            if (selection != null) {
+                valid &= selection[w];
+            }
+            if (w == words - 1 && (size & 63) != 0) {
+                valid &= (1L << size) - 1; // Ignore bits past the last row
+            }
+            count += Long.bitCount(valid);
+        }
+        return count;
+    }
+
+    /**
+     * Sums the non-null values of the selected rows.
+     *
+     * @param values    The column values.
+     * @param nullMask  Bits set for null rows.
+     * @param selection Bits set for selected rows.
+     * @param size      The number of rows.
+     * @return The sum over selected, non-null rows.
+     */
+    double filteredSum(double[] values, long[] nullMask, long[] selection, int size);
+}
@@ -0,0 +1,533 @@
+package datavisualizer.model.aggregate;
+
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.model.ChartState;
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.dataset.CategoricalColumn;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.model.dataset.NumericColumn;
+import datavisualizer.model.filter.FilterEngine;
+import datavisualizer.model.filter.FilterPredicate;
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.parser.CSVParser;
+import datavisualizer.model.parser.DataParser;
+import datavisualizer.model.parser.ParserFactory;
+import datavisualizer.model.time.TimeBucket;
+import datavisualizer.model.time.TimestampParser;
+import datavisualizer.util.FileUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Estimates the sums of a chart from a random sample of a file, with confidence intervals, for a quick first look
+ * at inputs that take long to aggregate exactly (see {@link StreamingAggregation} for the exact pass).
+ * <p>
+ * CSV files are read as blocks of {@value #BLOCK_BYTES} bytes in random order until the target latency is spent,
+ * so the sample rate adapts to the time allowed: a small file is read completely, a huge one only in part. Every
+ * row read is filtered as usual and offered to a sample of bounded size:
+ * <ul>
+ *     <li>{@link Mode#UNIFORM}: one reservoir of rows for all groups (Algorithm R). Large groups are estimated
+ *     well, rare ones poorly or not at all.</li>
+ *     <li>{@link Mode#STRATIFIED}: one reservoir per X category (or time bucket), with the exact number of rows read
+ *     per category, so every category keeps up to {@value #STRATUM_ROWS} rows however rare it is.</li>
+ * </ul>
+ * Sums are scaled to the whole file. Their variance has two parts: that of reading only some rows of the file, and
+ * that of keeping only some of those in the reservoirs; both vanish when the whole file fits the sample. Rows of a
+ * block are treated as independent draws, so the intervals are somewhat optimistic for files sorted by the X column.
+ * JSON files cannot be read from a random position; they are read completely, and only the reservoirs sample.
+ */
+public final class ApproximateAggregation {
+
+    /**
+     * How rows are sampled.
+     */
+    public enum Mode {
+        UNIFORM, STRATIFIED
+    }
+
+    /** The time to spend sampling when none is given, in milliseconds. */
+    public static final long DEFAULT_TARGET_MILLIS = Long.getLong("datavisualizer.approximate.targetMillis", 200);
+    /** The normal quantile of the two-sided 95% confidence intervals. */
+    public static final double Z_95 = 1.959964;
+
+    // Small blocks keep the rows of the sample spread over the file; they are parsed in batches to amortize the setup
+    static final int BLOCK_BYTES = 4096;
+    private static final int BLOCKS_PER_BATCH = 16;
+    private static final int BATCH_ROWS = 4096;
+    private static final int UNIFORM_ROWS = 250_000;
+    static final int STRATUM_ROWS = 5_000;
+    private static final int UNRESOLVED = -2;
+    private static final int SKIPPED = -1;
+
+    private final String xColumn;
+    private final List<String> yColumns;
+    private final FilterPredicate filter;
+    private final TimeBucket requestedBucket;
+    private final Mode mode;
+    private final SplittableRandom random;
+    private final FilterEngine engine = new FilterEngine();
+
+    private Boolean timeAxis; // Decided on the first chunk, which is spread over the whole file
+    private TimeBucket bucket;
+    private final Map<String, Integer> categoryGroups = new HashMap<>();
+    private int nullGroup = -1;
+    private final Map<Long, Integer> timeGroups = new HashMap<>();
+    private String[] labels = new String[64];
+    private long[] starts = new long[64];
+    private Reservoir[] strata = new Reservoir[64]; // STRATIFIED: per group
+    private final Reservoir uniform; // UNIFORM: for all groups
+    private final boolean[] found;
+    private int groupCount;
+    private long rowsRead;
+    private long rowsSelected;
+
+    private ApproximateAggregation(String xColumn, List<String> yColumns, FilterPredicate filter, TimeBucket bucket,
+                                   Mode mode, long seed) {
+        this.xColumn = xColumn;
+        this.yColumns = List.copyOf(new LinkedHashSet<>(yColumns));
+        this.filter = filter;
+        this.requestedBucket = bucket;
+        this.mode = mode;
+        this.random = new SplittableRandom(seed);
+        this.uniform = mode == Mode.UNIFORM ? new Reservoir(UNIFORM_ROWS, this.yColumns.size()) : null;
+        this.found = new boolean[this.yColumns.size()];
+    }
+
+    /**
+     * Estimates the chart of a state over a file: its X and Y columns (only the first Y for pie charts), filter and
+     * time bucket.
+     *
+     * @param file         The CSV or JSON file.
+     * @param state        The chart state, e.g. the snapshot of the ChartStateModel; its dataset is not used.
+     * @param mode         How rows are sampled.
+     * @param targetMillis The time to spend reading the file.
+     * @return A dataset of estimates, see {@link #aggregate(File, String, List, FilterPredicate, TimeBucket, Mode, long, long)}.
+     * @throws IOException If the file cannot be read or parsed, or the X column is not in it.
+     */
+    public static DataSet aggregate(File file, ChartState state, Mode mode, long targetMillis) throws IOException {
+        List<String> yColumns = state.getChartType() == ChartType.PIE && !state.getYColumns().isEmpty()
+                ? state.getYColumns().subList(0, 1) : state.getYColumns();
+        return aggregate(file, state.getXColumn(), yColumns, state.getFilter(), state.getTimeBucket(), mode, targetMillis,
+                System.nanoTime());
+    }
+
+    /**
+     * Estimates the sums of Y columns per X category, or per time bucket for a timestamp X column, over the rows of
+     * a file that match a filter, from a sample read within a target time.
+     * <p>
+     * The result has the same shape as that of {@link StreamingAggregation}: the X column and the Y columns, one
+     * row per group, in order of first appearance in the sample (time buckets in time order). Its Y cells are
+     * estimates, and its {@link DataSet#getVariances() variances} hold their sampling variances. Groups that no row
+     * of the sample falls into are missing. Its plan is {@link LoadPlan.Strategy#APPROXIMATE}.
+     *
+     * @param file         The CSV or JSON file.
+     * @param xColumn      The category or timestamp column.
+     * @param yColumns     The numeric value columns.
+     * @param filter       The rows to include, or null for every row.
+     * @param bucket       The granularity for a timestamp X column, or null to choose one from the time span of the
+     *                     first rows sampled.
+     * @param mode         How rows are sampled.
+     * @param targetMillis The time to spend reading a CSV file; at least one batch of blocks is read.
+     * @param seed         The seed of the random choices, so a sample can be repeated.
+     * @return The dataset of estimates.
+     * @throws IOException If the file cannot be read or parsed, or the X column is not in it.
+     */
+    public static DataSet aggregate(File file, String xColumn, List<String> yColumns, FilterPredicate filter,
+                                    TimeBucket bucket, Mode mode, long targetMillis, long seed) throws IOException {
+        DataParser parser = ParserFactory.forFile(file);
+        if (parser == null) {
+            throw new IOException("Unsupported file type: ." + FileUtils.getFileExtension(file));
+        }
+        if (xColumn == null || yColumns == null || yColumns.isEmpty()) {
+            throw new IOException("Sampling needs an X column and at least one Y column.");
+        }
+        ApproximateAggregation aggregation = new ApproximateAggregation(xColumn, yColumns, filter, bucket, mode, seed);
+        Set<String> textColumns = new LinkedHashSet<>();
+        textColumns.add(xColumn);
+        if (filter != null) {
+            filter.collectColumns(textColumns);
+        }
+        Set<String> numericColumns = new LinkedHashSet<>(aggregation.yColumns);
+        numericColumns.removeAll(textColumns);
+
+        long begin = System.nanoTime();
+        PerformanceMetrics.Timer timer = PerformanceMetrics.start(PerformanceMetrics.Phase.PARSE);
+        double scale; // Estimated rows in the file per row read
+        long bytesRead;
+        if (parser instanceof CSVParser) {
+            long[] read = aggregation.sampleBlocks(file, parser, numericColumns, textColumns, begin + targetMillis * 1_000_000L);
+            bytesRead = read[0];
+            scale = read[1] > 0 ? (double) read[1] / Math.max(1, bytesRead) : 1.0;
+        } else {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                parser.parseChunks(reader, numericColumns, textColumns, StreamingAggregation.CHUNK_ROWS, aggregation::fold);
+            }
+            bytesRead = file.length();
+            scale = 1.0;
+        }
+        PerformanceMetrics.recordParse(bytesRead, aggregation.rowsRead, timer.stop());
+        DataSet result = aggregation.toDataSet(scale);
+        System.out.printf("Approximated %s: %d rows read of about %d (%.2f%%), %d selected, %d groups, in %d ms.%n",
+                file.getName(), aggregation.rowsRead, Math.round(aggregation.rowsRead * scale), 100.0 / scale,
+                aggregation.rowsSelected, aggregation.groupCount, (System.nanoTime() - begin) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Gets the margin of the 95% confidence interval of an estimate.
+     *
+     * @param variance The sampling variance of the estimate.
+     * @return The half-width of the interval.
+     */
+    public static double margin(double variance) {
+        return Z_95 * Math.sqrt(Math.max(0, variance));
+    }
+
+    /**
+     * Reads blocks of a CSV file in random order, each with the lines that start in it, until the deadline or the
+     * end of the blocks, and folds them in batches.
+     *
+     * @return The bytes of the blocks read, and the bytes of all blocks (0 if the file was read completely).
+     */
+    private long[] sampleBlocks(File file, DataParser parser, Set<String> numericColumns, Set<String> textColumns,
+                                long deadline) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            long length = in.length();
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+            long dataStart = readRestOfLine(in, 0, headerBytes);
+            String header = headerBytes.toString(StandardCharsets.UTF_8).stripTrailing() + "\n";
+            long dataBytes = length - dataStart;
+            long blockCount = (dataBytes + BLOCK_BYTES - 1) / BLOCK_BYTES;
+
+            Map<Long, Long> swapped = new HashMap<>(); // A Fisher-Yates shuffle of the block numbers, drawn lazily
+            long drawn = 0;
+            long bytesRead = 0;
+            byte[] buffer = new byte[BLOCK_BYTES + 1];
+            ByteArrayOutputStream batch = new ByteArrayOutputStream(BLOCKS_PER_BATCH * BLOCK_BYTES + 1024);
+            while (drawn < blockCount && (drawn == 0 || System.nanoTime() < deadline)) {
+                batch.reset();
+                batch.write(header.getBytes(StandardCharsets.UTF_8));
+                for (int i = 0; i < BLOCKS_PER_BATCH && drawn < blockCount; i++, drawn++) {
+                    long pick = drawn + random.nextLong(blockCount - drawn);
+                    long block = swapped.getOrDefault(pick, pick);
+                    swapped.put(pick, swapped.getOrDefault(drawn, drawn));
+                    long start = dataStart + block * BLOCK_BYTES;
+                    long end = Math.min(length, start + BLOCK_BYTES);
+                    bytesRead += end - start;
+                    readBlock(in, start, end, buffer, batch);
+                }
+                parser.parseChunks(new StringReader(batch.toString(StandardCharsets.UTF_8)), numericColumns, textColumns,
+                        BATCH_ROWS, this::fold);
+            }
+            return new long[]{bytesRead, drawn < blockCount ? dataBytes : 0};
+        }
+    }
+
+    /**
+     * Appends the lines that start in a block, the last one read to its end, to a batch.
+     * A line starts at a position if the byte before it is a line break, so reading starts one byte early.
+     */
+    private static void readBlock(RandomAccessFile in, long start, long end, byte[] buffer, ByteArrayOutputStream batch)
+            throws IOException {
+        int length = (int) (end - start + 1);
+        in.seek(start - 1);
+        in.readFully(buffer, 0, length);
+        int first = 0;
+        while (first < length && buffer[first] != '\n') {
+            first++;
+        }
+        if (first >= length - 1) {
+            return; // No line starts in this block
+        }
+        batch.write(buffer, first + 1, length - first - 1);
+        if (buffer[length - 1] != '\n') {
+            if (readRestOfLine(in, end, batch) == in.length()) {
+                batch.write('\n'); // The last line of the file may have no line break
+            }
+        }
+    }
+
+    /**
+     * Copies the bytes from a position up to and including the next line break.
+     *
+     * @return The position after the copied bytes.
+     */
+    private static long readRestOfLine(RandomAccessFile in, long position, ByteArrayOutputStream out) throws IOException {
+        byte[] chunk = new byte[1024];
+        in.seek(position);
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            for (int i = 0; i < n; i++) {
+                if (chunk[i] == '\n') {
+                    out.write(chunk, 0, i + 1);
+                    return position + i + 1;
+                }
+            }
+            out.write(chunk, 0, n);
+            position += n;
+        }
+        return position;
+    }
+
+    /**
+     * Offers the selected rows of one chunk to the sample.
+     */
+    private void fold(DataSet chunk) throws IOException {
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException("Sampling was cancelled.");
+        }
+        CategoricalColumn x = chunk.getCategoricalColumn(xColumn);
+        if (x == null) {
+            throw new IOException("Column '" + xColumn + "' not found.");
+        }
+        if (timeAxis == null) {
+            timeAxis = chunk.isTimestampColumn(xColumn);
+            bucket = Aggregation.resolveTimeBucket(chunk, xColumn, requestedBucket);
+        }
+        NumericColumn[] ys = new NumericColumn[yColumns.size()];
+        for (int j = 0; j < ys.length; j++) {
+            ys[j] = chunk.getNumericColumn(yColumns.get(j));
+            found[j] |= ys[j] != null;
+        }
+        SelectionVector selection = filter != null ? engine.evaluate(filter, chunk) : null;
+
+        int[] codes = x.codes();
+        int[] groupOfCode = new int[x.getCardinality() + 1]; // Indexed by code + 1, so null is 0
+        Arrays.fill(groupOfCode, UNRESOLVED);
+        int size = chunk.getRowCount();
+        int row = selection != null ? selection.nextSetBit(0) : 0;
+        while (row >= 0 && row < size) {
+            int group = groupOfCode[codes[row] + 1];
+            if (group == UNRESOLVED) {
+                group = resolve(x, codes[row]);
+                groupOfCode[codes[row] + 1] = group;
+            }
+            if (group != SKIPPED) { // Rows without a group count towards the file, but add nothing to any sum
+                rowsSelected++;
+                Reservoir reservoir = uniform != null ? uniform : strata[group];
+                int slot = reservoir.offer(random);
+                if (slot >= 0) {
+                    reservoir.groups[slot] = group;
+                    for (int j = 0; j < ys.length; j++) {
+                        NumericColumn y = ys[j];
+                        reservoir.values[j][slot] = y == null || y.isNull(row) ? Double.NaN : y.getDouble(row);
+                    }
+                }
+            }
+            row = selection != null ? selection.nextSetBit(row + 1) : row + 1;
+        }
+        rowsRead += size;
+    }
+
+    /**
+     * Finds or creates the group of an X value.
+     *
+     * @return The group, or {@link #SKIPPED} for a value that is not a timestamp on a time axis.
+     */
+    private int resolve(CategoricalColumn x, int code) {
+        String value = code == CategoricalColumn.NULL_CODE ? null : x.getDictionary().get(code);
+        if (!timeAxis) {
+            if (value == null) {
+                if (nullGroup < 0) {
+                    nullGroup = addGroup(null, 0L);
+                }
+                return nullGroup;
+            }
+            Integer group = categoryGroups.get(value);
+            if (group == null) {
+                group = addGroup(value, 0L);
+                categoryGroups.put(value, group);
+            }
+            return group;
+        }
+        long[] millis = new long[1];
+        if (value == null || TimestampParser.parse(value, millis) != TimestampParser.OK) {
+            return SKIPPED;
+        }
+        long start = bucket.floor(millis[0]);
+        Integer group = timeGroups.get(start);
+        if (group == null) {
+            group = addGroup(null, start);
+            timeGroups.put(start, group);
+        }
+        return group;
+    }
+
+    private int addGroup(String label, long start) {
+        if (groupCount == labels.length) {
+            labels = Arrays.copyOf(labels, groupCount * 2);
+            starts = Arrays.copyOf(starts, groupCount * 2);
+            strata = Arrays.copyOf(strata, groupCount * 2);
+        }
+        labels[groupCount] = label;
+        starts[groupCount] = start;
+        if (mode == Mode.STRATIFIED) {
+            strata[groupCount] = new Reservoir(STRATUM_ROWS, yColumns.size());
+        }
+        return groupCount++;
+    }
+
+    /**
+     * Builds the dataset of estimates, one row per group, with its variances.
+     * <p>
+     * For a group and Y column, let z be the Y value of a row in the group and 0 for any other row. Each reservoir
+     * estimates the sum (and sum of squares) of z over the rows it was offered; together they estimate the totals
+     * over all rows read, which are scaled to the file. The variance adds that of reading m of about N rows,
+     * N²(1 - m/N)·s²/m with s² the variance of z over the rows read, to that of each reservoir keeping n of its c
+     * rows, scaled the same way: (N/m)²·c²(1 - n/c)·s_r²/n.
+     *
+     * @param scale The estimated number of rows in the file per row read.
+     */
+    private DataSet toDataSet(double scale) {
+        int columnCount = yColumns.size();
+        double[][] estimates = new double[columnCount][groupCount];
+        double[][] variances = new double[columnCount][groupCount];
+        boolean[][] present = new boolean[columnCount][groupCount];
+        double m = rowsRead;
+        double population = m * scale;
+        for (int j = 0; j < columnCount; j++) {
+            double[] sums = new double[groupCount];
+            double[] squares = new double[groupCount];
+            if (uniform != null) {
+                uniform.sum(j, sums, squares, present[j]);
+            }
+            for (int g = 0; g < groupCount; g++) {
+                Reservoir reservoir = uniform != null ? uniform : strata[g];
+                if (uniform == null) {
+                    reservoir.sum(j, sums, squares, present[j]);
+                }
+                if (!present[j][g]) {
+                    continue;
+                }
+                int n = reservoir.size;
+                double c = reservoir.offered;
+                double total = c / n * sums[g]; // Over the rows read
+                double totalSquares = c / n * squares[g];
+                double keptVariance = n > 1 && n < c
+                        ? c * c * (1 - n / c) * Math.max(0, (squares[g] - sums[g] * sums[g] / n) / (n - 1)) / n : 0;
+                double readVariance = m > 1 && scale > 1
+                        ? population * population * (1 - m / population)
+                          * Math.max(0, (totalSquares - total * total / m) / (m - 1)) / m : 0;
+                estimates[j][g] = total * scale;
+                variances[j][g] = readVariance + scale * scale * keptVariance;
+            }
+        }
+
+        Integer[] order = new Integer[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            order[i] = i;
+        }
+        boolean time = Boolean.TRUE.equals(timeAxis);
+        if (time) {
+            Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+        }
+        List<String> dictionary = new ArrayList<>(groupCount);
+        int[] codes = new int[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            int group = order[i];
+            String label = time ? TimeBucket.MINUTE.format(starts[group]) : labels[group]; // Parses back as a timestamp
+            codes[i] = label == null ? CategoricalColumn.NULL_CODE : dictionary.size();
+            if (label != null) {
+                dictionary.add(label);
+            }
+        }
+        List<String> names = new ArrayList<>();
+        List<Object> columns = new ArrayList<>();
+        List<Object> varianceColumns = new ArrayList<>();
+        names.add(xColumn);
+        columns.add(new CategoricalColumn(xColumn, codes, dictionary));
+        varianceColumns.add(new CategoricalColumn(xColumn, codes, dictionary));
+        for (int j = 0; j < columnCount; j++) {
+            if (!found[j] || yColumns.get(j).equals(xColumn)) {
+                continue; // Charts report missing Y columns themselves
+            }
+            double[] values = new double[groupCount];
+            double[] valueVariances = new double[groupCount];
+            long[] nullMask = new long[(groupCount + 63) >>> 6];
+            for (int i = 0; i < groupCount; i++) {
+                int group = order[i];
+                values[i] = estimates[j][group];
+                valueVariances[i] = variances[j][group];
+                if (!present[j][group]) {
+                    nullMask[i >>> 6] |= 1L << i;
+                }
+            }
+            names.add(yColumns.get(j));
+            columns.add(new NumericColumn(yColumns.get(j), values, nullMask, groupCount));
+            varianceColumns.add(new NumericColumn(yColumns.get(j), valueVariances, nullMask.clone(), groupCount));
+        }
+        DataSet dataSet = DataSet.fromColumns(names, columns, groupCount);
+        dataSet.setVariances(DataSet.fromColumns(names, varianceColumns, groupCount));
+        dataSet.setLoadPlan(LoadPlan.approximate(rowsRead, Math.round(population)));
+        return dataSet;
+    }
+
+    /**
+     * A uniform sample of bounded size of the rows offered to it (Algorithm R): the group and Y values of each.
+     */
+    private static final class Reservoir {
+        private final int capacity;
+        private long offered;
+        private int size;
+        private int[] groups = new int[16];
+        private final double[][] values; // Per Y column; NaN for null
+
+        Reservoir(int capacity, int columnCount) {
+            this.capacity = capacity;
+            this.values = new double[columnCount][16];
+        }
+
+        /**
+         * Offers a row.
+         *
+         * @return The slot to store the row in, or -1 if it is not kept.
+         */
+        int offer(SplittableRandom random) {
+            offered++;
+            if (size < capacity) {
+                if (size == groups.length) {
+                    int grown = Math.min(capacity, size * 2);
+                    groups = Arrays.copyOf(groups, grown);
+                    for (int j = 0; j < values.length; j++) {
+                        values[j] = Arrays.copyOf(values[j], grown);
+                    }
+                }
+                return size++;
+            }
+            long slot = random.nextLong(offered);
+            return slot < capacity ? (int) slot : -1;
+        }
+
+        /**
+         * Adds the values and squares of a Y column of the rows kept to their groups' sums.
+         */
+        void sum(int column, double[] sums, double[] squares, boolean[] present) {
+            double[] ys = values[column];
+            for (int i = 0; i < size; i++) {
+                double y = ys[i];
+                if (!Double.isNaN(y)) {
+                    sums[groups[i]] += y;
+                    squares[groups[i]] += y * y;
+                    present[groups[i]] = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package datavisualizer.model.aggregate;
+
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.filter.SelectionVector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lazily computed, cached per-category sums of one dataset.
+ * Several Y columns requested together are summed in one pass over the rows, so charts that share an X column
+ * share a scan. Entries are keyed by (X column, Y column, selection stamp) and evicted least-recently-used.
+ * The scan runs outside the lock, so independent requests can be computed in parallel.
+ */
+public class CategorySumCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    private final Map<Key, Map<String, Double>> sums = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Map<String, Double>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Gets the sums of a numeric column per category, computing them if needed.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The category column.
+     * @param yColumn   The numeric column to sum.
+     * @param selection The selected rows (its stamp is part of the cache key), or null for all rows.
+     * @return An unmodifiable map from category label to sum, in order of first appearance.
+     */
+    public Map<String, Double> get(DataSet dataSet, String xColumn, String yColumn, SelectionVector selection) {
+        return getAll(dataSet, xColumn, List.of(yColumn), selection).get(yColumn);
+    }
+
+    /**
+     * Gets the sums of several numeric columns per category, computing the missing ones with a single scan.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The category column.
+     * @param yColumns  The numeric columns to sum.
+     * @param selection The selected rows (its stamp is part of the cache key), or null for all rows.
+     * @return A map from Y column to its unmodifiable map from category label to sum.
+     */
+    public Map<String, Map<String, Double>> getAll(DataSet dataSet, String xColumn, List<String> yColumns, SelectionVector selection) {
+        long stamp = selection != null ? selection.getStamp() : 0L;
+        Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (this) {
+            for (String yColumn : yColumns) {
+                Map<String, Double> cached = sums.get(new Key(xColumn, yColumn, stamp));
+                results.put(yColumn, cached);
+                if (cached == null) {
+                    missing.add(yColumn);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+        Map<String, Map<String, Double>> computed = Aggregation.sumByCategory(dataSet, xColumn, missing, selection);
+        synchronized (this) {
+            for (Map.Entry<String, Map<String, Double>> entry : computed.entrySet()) {
+                Map<String, Double> value = Collections.unmodifiableMap(entry.getValue());
+                sums.put(new Key(xColumn, entry.getKey(), stamp), value);
+                results.put(entry.getKey(), value);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Drops every cached sum.
+     */
+    public synchronized void clear() {
+        sums.clear();
+    }
+
+    /**
+     * Cache key of one column's sums.
+     */
+    private static final class Key {
+        private final String xColumn;
+        private final String yColumn;
+        private final long selectionStamp;
+
+        Key(String xColumn, String yColumn, long selectionStamp) {
+            this.xColumn = xColumn;
+            this.yColumn = yColumn;
+            this.selectionStamp = selectionStamp;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return selectionStamp == other.selectionStamp && xColumn.equals(other.xColumn) && yColumn.equals(other.yColumn);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(xColumn, yColumn, selectionStamp);
+        }
+    }
+}
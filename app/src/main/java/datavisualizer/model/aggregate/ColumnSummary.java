@@ -0,0 +1,130 @@
+package datavisualizer.model.aggregate;
+
+import datavisualizer.model.dataset.DoubleBlockIterator;
+import datavisualizer.model.dataset.NumericColumn;
+import datavisualizer.model.filter.SelectionVector;
+
+/**
+ * Count, sum, minimum and maximum of a numeric column, computed with the runtime-selected kernels.
+ */
+public class ColumnSummary {
+
+    private final int count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    private ColumnSummary(int count, double sum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Summarizes the non-null values of a column, optionally restricted to selected rows.
+     *
+     * @param column    The numeric column.
+     * @param selection The selected rows, or null for all rows.
+     * @return The summary.
+     */
+    public static ColumnSummary of(NumericColumn column, SelectionVector selection) {
+        AggregationKernels kernels = Kernels.get();
+        if (column.isCompressed()) {
+            return ofBlocks(kernels, column, selection);
+        }
+        double[] values = column.values();
+        int size = column.size();
+        if (selection == null) {
+            long[] nullMask = column.nullMask();
+            return new ColumnSummary(kernels.count(nullMask, null, size), kernels.sum(values, nullMask, size),
+                    kernels.min(values, nullMask, size), kernels.max(values, nullMask, size));
+        }
+        // Rows outside the selection are treated as null for min/max
+        long[] nullMask = column.nullMask();
+        long[] selected = selection.words();
+        long[] excluded = new long[nullMask.length];
+        for (int w = 0; w < excluded.length; w++) {
+            excluded[w] = nullMask[w] | ~selected[w];
+        }
+        return new ColumnSummary(kernels.count(nullMask, selected, size), kernels.filteredSum(values, nullMask, selected, size),
+                kernels.min(values, excluded, size), kernels.max(values, excluded, size));
+    }
+
+    /**
+     * Summarizes a compressed column block by block, running the kernels over each decoded block with the matching
+     * words of the masks (blocks are a whole number of words).
+     */
+    private static ColumnSummary ofBlocks(AggregationKernels kernels, NumericColumn column, SelectionVector selection) {
+        long[] nullMask = column.nullMask();
+        long[] selected = selection != null ? selection.words() : null;
+        long[] blockNulls = new long[DoubleBlockIterator.BLOCK_SIZE / 64];
+        long[] blockSelected = selected != null ? new long[blockNulls.length] : null;
+        long[] blockExcluded = selected != null ? new long[blockNulls.length] : null;
+        int count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        DoubleBlockIterator blocks = column.blocks();
+        while (blocks.next()) {
+            double[] values = blocks.values();
+            int rows = blocks.end() - blocks.start();
+            int firstWord = blocks.start() >>> 6;
+            int words = (rows + 63) >>> 6;
+            System.arraycopy(nullMask, firstWord, blockNulls, 0, words);
+            if (selected == null) {
+                count += kernels.count(blockNulls, null, rows);
+                sum += kernels.sum(values, blockNulls, rows);
+                min = Math.min(min, kernels.min(values, blockNulls, rows));
+                max = Math.max(max, kernels.max(values, blockNulls, rows));
+            } else {
+                // Rows outside the selection are treated as null for min/max
+                System.arraycopy(selected, firstWord, blockSelected, 0, words);
+                for (int w = 0; w < words; w++) {
+                    blockExcluded[w] = blockNulls[w] | ~blockSelected[w];
+                }
+                count += kernels.count(blockNulls, blockSelected, rows);
+                sum += kernels.filteredSum(values, blockNulls, blockSelected, rows);
+                min = Math.min(min, kernels.min(values, blockExcluded, rows));
+                max = Math.max(max, kernels.max(values, blockExcluded, rows));
+            }
+        }
+        return new ColumnSummary(count, sum, min, max);
+    }
+
+    /**
+     * Gets the number of non-null values.
+     *
+     * @return The count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the sum of the values.
+     *
+     * @return The sum.
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Gets the smallest value.
+     *
+     * @return The minimum, or positive infinity if there are no values.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the largest value.
+     *
+     * @return The maximum, or negative infinity if there are no values.
+     */
+    public double getMax() {
+        return max;
+    }
+}
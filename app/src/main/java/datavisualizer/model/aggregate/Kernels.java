@@ -0,0 +1,38 @@
+package datavisualizer.model.aggregate;
+
+/**
+ * Picks the reduction kernel implementation at runtime.
+ * The SIMD kernels are used when the jdk.incubator.vector module has been added to the JVM
+ * (see the --add-modules flags in the Gradle build) and the system property
+ * datavisualizer.simd is not set to false; otherwise the scalar kernels are used.
+ */
+public class Kernels {
+
+    private static final AggregationKernels INSTANCE = select();
+
+    /**
+     * Gets the kernels chosen for this JVM.
+     *
+     * @return The kernel implementation.
+     */
+    public static AggregationKernels get() {
+        return INSTANCE;
+    }
+
+    private static AggregationKernels select() {
+        if (!Boolean.parseBoolean(System.getProperty("datavisualizer.simd", "true"))) {
+            return new ScalarKernels();
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new ScalarKernels();
+        }
+        try {
+            // Loaded reflectively so that this class never links against the incubator module directly
+            return (AggregationKernels) Class.forName("datavisualizer.model.aggregate.VectorKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("Vector API kernels unavailable, using scalar kernels: " + e);
+            return new ScalarKernels();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package datavisualizer.model.aggregate;
+
+/**
+ * Plain-Java reduction kernels; the fallback when the Vector API is not available.
+ * Walks the masks a word at a time and skips words with no valid rows.
+ */
+public class ScalarKernels implements AggregationKernels {
+
+    @Override
+    public double sum(double[] values, long[] nullMask, int size) {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            if ((nullMask[i >>> 6] & (1L << i)) == 0) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public double min(double[] values, long[] nullMask, int size) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            if ((nullMask[i >>> 6] & (1L << i)) == 0 && values[i] < min) {
+                min = values[i];
+            }
+        }
+        return min;
+    }
+
+    @Override
+    public double max(double[] values, long[] nullMask, int size) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            if ((nullMask[i >>> 6] & (1L << i)) == 0 && values[i] > max) {
+                max = values[i];
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public double filteredSum(double[] values, long[] nullMask, long[] selection, int size) {
+        double sum = 0;
+        int words = (size + 63) >>> 6;
+        for (int w = 0; w < words; w++) {
+            long valid = selection[w] & ~nullMask[w];
+            int base = w << 6;
+            while (valid != 0) {
+                int row = base + Long.numberOfTrailingZeros(valid);
+                if (row >= size) {
+                    break;
+                }
+                sum += values[row];
+                valid &= valid - 1;
+            }
+        }
+        return sum;
+    }
+}
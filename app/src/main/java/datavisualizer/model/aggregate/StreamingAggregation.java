@@ -0,0 +1,327 @@
+package datavisualizer.model.aggregate;
+
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.model.ChartState;
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.dataset.CategoricalColumn;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.model.dataset.NumericColumn;
+import datavisualizer.model.filter.FilterEngine;
+import datavisualizer.model.filter.FilterPredicate;
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.parser.DataParser;
+import datavisualizer.model.parser.ParserFactory;
+import datavisualizer.model.time.TimeBucket;
+import datavisualizer.model.time.TimestampParser;
+import datavisualizer.util.FileUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Aggregates a chart over a file in a single pass, without loading the file, for inputs larger than the heap.
+ * <p>
+ * The chart's columns and filter are pushed down into the parser: only the X, Y and filter columns are read, in
+ * chunks of {@link #CHUNK_ROWS} rows. Each chunk is filtered with the usual {@link FilterEngine}, folded into the
+ * sums of Y per X category (or time bucket) and dropped, so memory is bounded by the chunk size plus the number of
+ * groups. The result is a small dataset with one row per group, whose sums are exactly those a full load would
+ * chart: every chart and export path can draw it as it is.
+ */
+public final class StreamingAggregation {
+
+    /** Rows per chunk: large enough to amortize the per-chunk work, small enough to stay in the cache-friendly range. */
+    public static final int CHUNK_ROWS = 64 * 1024;
+    // For timestamp X columns without a chosen bucket, minute sums are rolled up to coarser buckets beyond this many
+    private static final int MAX_TIME_GROUPS = 100_000;
+    private static final TimeBucket[] AUTO_BUCKETS = {TimeBucket.MINUTE, TimeBucket.HOUR, TimeBucket.DAY, TimeBucket.MONTH};
+    private static final int UNRESOLVED = -2;
+    private static final int SKIPPED = -1;
+
+    private final String xColumn;
+    private final List<String> yColumns;
+    private final FilterPredicate filter;
+    private final TimeBucket requestedBucket;
+    private final FilterEngine engine = new FilterEngine();
+
+    private Boolean timeAxis; // Decided on the first chunk, as a loaded dataset decides from a sample
+    private TimeBucket bucket; // For a time axis, the granularity of the group keys
+    private final Map<String, Integer> categoryGroups = new HashMap<>();
+    private int nullGroup = -1;
+    private final Map<Long, Integer> timeGroups = new HashMap<>();
+    private String[] labels = new String[64]; // Per group; null for the null category
+    private long[] starts = new long[64]; // Per group, for a time axis
+    private double[][] sums;
+    private long[][] present; // Per Y column, one bit per group that has a value
+    private final boolean[] found; // Per Y column, whether the file has it
+    private int groupCount;
+    private long rowsRead;
+    private long rowsSelected;
+
+    private StreamingAggregation(String xColumn, List<String> yColumns, FilterPredicate filter, TimeBucket bucket) {
+        this.xColumn = xColumn;
+        this.yColumns = List.copyOf(new LinkedHashSet<>(yColumns));
+        this.filter = filter;
+        this.requestedBucket = bucket;
+        this.sums = new double[this.yColumns.size()][64];
+        this.present = new long[this.yColumns.size()][1];
+        this.found = new boolean[this.yColumns.size()];
+    }
+
+    /**
+     * Aggregates the chart of a state over a file: its X and Y columns (only the first Y for pie charts),
+     * filter and time bucket.
+     *
+     * @param file  The CSV or JSON file.
+     * @param state The chart state, e.g. the snapshot of the ChartStateModel; its dataset is not used.
+     * @return A dataset with one row per group, see {@link #aggregate(File, String, List, FilterPredicate, TimeBucket)}.
+     * @throws IOException If the file cannot be read or parsed, or the X column is not in it.
+     */
+    public static DataSet aggregate(File file, ChartState state) throws IOException {
+        List<String> yColumns = state.getChartType() == ChartType.PIE && !state.getYColumns().isEmpty()
+                ? state.getYColumns().subList(0, 1) : state.getYColumns();
+        return aggregate(file, state.getXColumn(), yColumns, state.getFilter(), state.getTimeBucket());
+    }
+
+    /**
+     * Sums Y columns per X category, or per time bucket for a timestamp X column, over the rows of a file that
+     * match a filter, in a single pass.
+     * <p>
+     * The result has the X column and the Y columns, one row per group. Categories are in order of first
+     * appearance, with null X values as an empty category; time buckets are in time order, labelled with their
+     * start. A Y cell is empty if no selected row of the group had a number in that column. Its plan is
+     * {@link LoadPlan.Strategy#STREAMED}.
+     *
+     * @param file     The CSV or JSON file.
+     * @param xColumn  The category or timestamp column.
+     * @param yColumns The numeric value columns.
+     * @param filter   The rows to include, or null for every row.
+     * @param bucket   The granularity for a timestamp X column, or null to keep the finest that stays below
+     *                 {@value #MAX_TIME_GROUPS} buckets (a chart on the result can roll it up further).
+     * @return The aggregated dataset.
+     * @throws IOException If the file cannot be read or parsed, or the X column is not in it.
+     */
+    public static DataSet aggregate(File file, String xColumn, List<String> yColumns, FilterPredicate filter,
+                                    TimeBucket bucket) throws IOException {
+        DataParser parser = ParserFactory.forFile(file);
+        if (parser == null) {
+            throw new IOException("Unsupported file type: ." + FileUtils.getFileExtension(file));
+        }
+        if (xColumn == null || yColumns == null || yColumns.isEmpty()) {
+            throw new IOException("Streaming needs an X column and at least one Y column.");
+        }
+        StreamingAggregation aggregation = new StreamingAggregation(xColumn, yColumns, filter, bucket);
+        Set<String> textColumns = new LinkedHashSet<>();
+        textColumns.add(xColumn);
+        if (filter != null) {
+            filter.collectColumns(textColumns); // As text, so filters see the same values as on a loaded dataset
+        }
+        Set<String> numericColumns = new LinkedHashSet<>(aggregation.yColumns);
+        numericColumns.removeAll(textColumns);
+
+        PerformanceMetrics.Timer timer = PerformanceMetrics.start(PerformanceMetrics.Phase.PARSE);
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            parser.parseChunks(reader, numericColumns, textColumns, CHUNK_ROWS, aggregation::fold);
+        }
+        PerformanceMetrics.recordParse(file.length(), aggregation.rowsRead, timer.stop());
+        DataSet result = aggregation.toDataSet();
+        System.out.println("Streamed " + file.getName() + ": " + aggregation.rowsRead + " rows read, "
+                + aggregation.rowsSelected + " selected, " + aggregation.groupCount + " groups.");
+        return result;
+    }
+
+    /**
+     * Folds one chunk into the group sums.
+     */
+    private void fold(DataSet chunk) throws IOException {
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException("Streaming was cancelled.");
+        }
+        CategoricalColumn x = chunk.getCategoricalColumn(xColumn);
+        if (x == null) {
+            throw new IOException("Column '" + xColumn + "' not found.");
+        }
+        if (timeAxis == null) {
+            timeAxis = chunk.isTimestampColumn(xColumn);
+            bucket = timeAxis ? (requestedBucket != null ? requestedBucket : AUTO_BUCKETS[0]) : null;
+        }
+        NumericColumn[] ys = new NumericColumn[yColumns.size()];
+        for (int j = 0; j < ys.length; j++) {
+            ys[j] = chunk.getNumericColumn(yColumns.get(j)); // Null if the file has no such column
+            found[j] |= ys[j] != null;
+        }
+        SelectionVector selection = filter != null ? engine.evaluate(filter, chunk) : null;
+
+        int[] codes = x.codes();
+        int[] groupOfCode = new int[x.getCardinality() + 1]; // Indexed by code + 1, so null is 0
+        Arrays.fill(groupOfCode, UNRESOLVED);
+        int size = chunk.getRowCount();
+        int row = selection != null ? selection.nextSetBit(0) : 0;
+        while (row >= 0 && row < size) {
+            rowsSelected++;
+            int group = groupOfCode[codes[row] + 1];
+            for (int j = 0; j < ys.length; j++) {
+                NumericColumn y = ys[j];
+                if (y == null || y.isNull(row)) {
+                    continue;
+                }
+                if (group == UNRESOLVED) { // Groups are created by their first value, as in Aggregation
+                    group = resolve(x, codes[row]);
+                    groupOfCode[codes[row] + 1] = group;
+                }
+                if (group == SKIPPED) {
+                    break;
+                }
+                sums[j][group] += y.getDouble(row);
+                present[j][group >>> 6] |= 1L << group;
+            }
+            row = selection != null ? selection.nextSetBit(row + 1) : row + 1;
+        }
+        rowsRead += size;
+
+        if (timeAxis && requestedBucket == null) {
+            while (groupCount > MAX_TIME_GROUPS && bucket != AUTO_BUCKETS[AUTO_BUCKETS.length - 1]) {
+                rollUp(AUTO_BUCKETS[Arrays.asList(AUTO_BUCKETS).indexOf(bucket) + 1]);
+            }
+        }
+    }
+
+    /**
+     * Finds or creates the group of an X value.
+     *
+     * @return The group, or {@link #SKIPPED} for a row that has no group (a value that is not a timestamp).
+     */
+    private int resolve(CategoricalColumn x, int code) {
+        String value = code == CategoricalColumn.NULL_CODE ? null : x.getDictionary().get(code);
+        if (!timeAxis) {
+            if (value == null) {
+                if (nullGroup < 0) {
+                    nullGroup = addGroup(null, 0L);
+                }
+                return nullGroup;
+            }
+            Integer group = categoryGroups.get(value);
+            if (group == null) {
+                group = addGroup(value, 0L);
+                categoryGroups.put(value, group);
+            }
+            return group;
+        }
+        long[] millis = new long[1];
+        if (value == null || TimestampParser.parse(value, millis) != TimestampParser.OK) {
+            return SKIPPED;
+        }
+        long start = bucket.floor(millis[0]);
+        Integer group = timeGroups.get(start);
+        if (group == null) {
+            group = addGroup(null, start);
+            timeGroups.put(start, group);
+        }
+        return group;
+    }
+
+    private int addGroup(String label, long start) {
+        if (groupCount == labels.length) {
+            int capacity = groupCount * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            for (int j = 0; j < sums.length; j++) {
+                sums[j] = Arrays.copyOf(sums[j], capacity);
+                present[j] = Arrays.copyOf(present[j], (capacity + 63) >>> 6);
+            }
+        }
+        labels[groupCount] = label;
+        starts[groupCount] = start;
+        return groupCount++;
+    }
+
+    /**
+     * Re-buckets the time groups into a coarser granularity; sums of finer buckets add up exactly.
+     */
+    private void rollUp(TimeBucket coarser) {
+        String[] oldLabels = labels;
+        long[] oldStarts = starts;
+        double[][] oldSums = sums;
+        long[][] oldPresent = present;
+        int oldCount = groupCount;
+        labels = new String[64];
+        starts = new long[64];
+        sums = new double[yColumns.size()][64];
+        present = new long[yColumns.size()][1];
+        groupCount = 0;
+        timeGroups.clear();
+        bucket = coarser;
+        for (int i = 0; i < oldCount; i++) {
+            long start = coarser.floor(oldStarts[i]);
+            Integer group = timeGroups.get(start);
+            if (group == null) {
+                group = addGroup(oldLabels[i], start);
+                timeGroups.put(start, group);
+            }
+            for (int j = 0; j < sums.length; j++) {
+                if ((oldPresent[j][i >>> 6] & (1L << i)) != 0) {
+                    sums[j][group] += oldSums[j][i];
+                    present[j][group >>> 6] |= 1L << group;
+                }
+            }
+        }
+        System.out.println("Streaming: more than " + MAX_TIME_GROUPS + " time buckets, rolled up to " + coarser.name().toLowerCase() + ".");
+    }
+
+    /**
+     * Builds the result dataset, one row per group.
+     */
+    private DataSet toDataSet() {
+        Integer[] order = new Integer[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            order[i] = i;
+        }
+        boolean time = Boolean.TRUE.equals(timeAxis);
+        if (time) {
+            Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+        }
+        List<String> dictionary = new ArrayList<>(groupCount);
+        int[] codes = new int[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            int group = order[i];
+            String label = time ? TimeBucket.MINUTE.format(starts[group]) : labels[group]; // Parses back as a timestamp
+            codes[i] = label == null ? CategoricalColumn.NULL_CODE : dictionary.size();
+            if (label != null) {
+                dictionary.add(label);
+            }
+        }
+        List<String> names = new ArrayList<>();
+        List<Object> columns = new ArrayList<>();
+        names.add(xColumn);
+        columns.add(new CategoricalColumn(xColumn, codes, dictionary));
+        for (int j = 0; j < yColumns.size(); j++) {
+            if (!found[j] || yColumns.get(j).equals(xColumn)) {
+                continue; // Charts report missing Y columns themselves
+            }
+            double[] values = new double[groupCount];
+            long[] nullMask = new long[(groupCount + 63) >>> 6];
+            for (int i = 0; i < groupCount; i++) {
+                int group = order[i];
+                values[i] = sums[j][group];
+                if ((present[j][group >>> 6] & (1L << group)) == 0) {
+                    nullMask[i >>> 6] |= 1L << i;
+                }
+            }
+            names.add(yColumns.get(j));
+            columns.add(new NumericColumn(yColumns.get(j), values, nullMask, groupCount));
+        }
+        DataSet dataSet = DataSet.fromColumns(names, columns, groupCount);
+        dataSet.setLoadPlan(LoadPlan.streamed(rowsRead));
+        return dataSet;
+    }
+}
@@ -0,0 +1,111 @@
+package datavisualizer.model.aggregate;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD reduction kernels built on the incubating Java Vector API.
+ * Each step processes one vector of rows; the matching lanes of the null mask (and selection)
+ * are turned into a VectorMask, so nulls are skipped without branches. Min and max also mask out NaN lanes, which
+ * the MIN/MAX operators would propagate, to skip NaN like the scalar comparisons do.
+ * Only loaded through {@link Kernels} when the jdk.incubator.vector module is present.
+ */
+public class VectorKernels implements AggregationKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length(); // 2, 4 or 8; always divides 64
+    private static final long LANE_BITS = LANES == 64 ? -1L : (1L << LANES) - 1;
+
+    @Override
+    public double sum(double[] values, long[] nullMask, int size) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(size);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            VectorMask<Double> valid = validLanes(nullMask, null, i);
+            acc = acc.add(DoubleVector.fromArray(SPECIES, values, i), valid);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < size; i++) {
+            if ((nullMask[i >>> 6] & (1L << i)) == 0) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public double min(double[] values, long[] nullMask, int size) {
+        DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        int bound = SPECIES.loopBound(size);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            VectorMask<Double> valid = validLanes(nullMask, null, i).andNot(v.test(VectorOperators.IS_NAN));
+            acc = acc.lanewise(VectorOperators.MIN, v, valid);
+        }
+        double min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < size; i++) {
+            if ((nullMask[i >>> 6] & (1L << i)) == 0 && values[i] < min) {
+                min = values[i];
+            }
+        }
+        return min;
+    }
+
+    @Override
+    public double max(double[] values, long[] nullMask, int size) {
+        DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        int bound = SPECIES.loopBound(size);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            VectorMask<Double> valid = validLanes(nullMask, null, i).andNot(v.test(VectorOperators.IS_NAN));
+            acc = acc.lanewise(VectorOperators.MAX, v, valid);
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < size; i++) {
+            if ((nullMask[i >>> 6] & (1L << i)) == 0 && values[i] > max) {
+                max = values[i];
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public double filteredSum(double[] values, long[] nullMask, long[] selection, int size) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(size);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            if ((i & 63) == 0 && (selection[i >>> 6] & ~nullMask[i >>> 6]) == 0) {
+                i += 64 - LANES; // Whole word deselected; skip to the next word
+                continue;
+            }
+            VectorMask<Double> valid = validLanes(nullMask, selection, i);
+            acc = acc.add(DoubleVector.fromArray(SPECIES, values, i), valid);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < size; i++) {
+            long bit = 1L << i;
+            if ((selection[i >>> 6] & bit) != 0 && (nullMask[i >>> 6] & bit) == 0) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Builds the lane mask of valid rows starting at the given row (a multiple of the lane count).
+     */
+    private static VectorMask<Double> validLanes(long[] nullMask, long[] selection, int row) {
+        int word = row >>> 6;
+        long valid = ~nullMask[word];
+        if (selection != null) {
+            valid &= selection[word];
+        }
+        return VectorMask.fromLong(SPECIES, (valid >>> (row & 63)) & LANE_BITS);
+    }
+}
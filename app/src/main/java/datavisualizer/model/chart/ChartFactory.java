@@ -1,6 +1,15 @@
 package datavisualizer.model.chart;
 
+import datavisualizer.diagnostics.ChartCreateEvent;
+import datavisualizer.model.aggregate.Aggregation;
+import datavisualizer.model.aggregate.ApproximateAggregation;
 import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.overlay.Overlay;
+import datavisualizer.model.overlay.OverlaySpec;
+import datavisualizer.model.render.SeriesReducer;
+import datavisualizer.model.time.TimeBucket;
+import datavisualizer.model.time.TimeRollup;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -11,14 +20,20 @@ import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.PieChart;
 import javafx.scene.chart.XYChart;
 import javafx.scene.chart.CategoryAxis;
+import javafx.scene.layout.Region;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Factory class for creating different types of charts.
+ * Series are bounded with {@link SeriesReducer} before they reach the scene graph, so charts over
+ * many distinct X values stay responsive.
  */
 public class ChartFactory {
 
@@ -32,24 +47,113 @@ public class ChartFactory {
      * @return The created JavaFX Chart object, or null if the type is unknown or data is unsuitable.
      */
     public static Chart createChart(ChartType chartType, DataSet dataSet, String xColumn, List<String> yColumns) {
+        return createChart(chartType, dataSet, xColumn, yColumns, null);
+    }
+
+    /**
+     * Creates a chart over the selected rows of a DataSet.
+     *
+     * @param chartType The type of chart to create.
+     * @param dataSet   The dataset to visualize.
+     * @param xColumn   The column to use for the X-axis (label column for PieChart).
+     * @param yColumns  The columns to use for the Y-axis (value column for PieChart - only the first is used).
+     * @param selection The rows to include (e.g., the result of a filter), or null for all rows.
+     * @return The created JavaFX Chart object, or null if the type is unknown or data is unsuitable.
+     */
+    public static Chart createChart(ChartType chartType, DataSet dataSet, String xColumn, List<String> yColumns, SelectionVector selection) {
+        return createChart(chartType, dataSet, xColumn, yColumns, selection, null);
+    }
+
+    /**
+     * Creates a chart over the selected rows of a DataSet.
+     * If the X column holds timestamps, Y values are summed per time bucket instead of per distinct X value.
+     *
+     * @param chartType  The type of chart to create.
+     * @param dataSet    The dataset to visualize.
+     * @param xColumn    The column to use for the X-axis (label column for PieChart).
+     * @param yColumns   The columns to use for the Y-axis (value column for PieChart - only the first is used).
+     * @param selection  The rows to include (e.g., the result of a filter), or null for all rows.
+     * @param timeBucket The granularity for a timestamp X column, or null to pick one from the data's time span.
+     * @return The created JavaFX Chart object, or null if the type is unknown or data is unsuitable.
+     */
+    public static Chart createChart(ChartType chartType, DataSet dataSet, String xColumn, List<String> yColumns,
+                                    SelectionVector selection, TimeBucket timeBucket) {
+        return createChart(chartType, dataSet, xColumn, yColumns, selection, timeBucket, Collections.emptyList());
+    }
+
+    /**
+     * Creates a chart over the selected rows of a DataSet, drawing the given overlays on line charts.
+     *
+     * @param chartType  The type of chart to create.
+     * @param dataSet    The dataset to visualize.
+     * @param xColumn    The column to use for the X-axis (label column for PieChart).
+     * @param yColumns   The columns to use for the Y-axis (value column for PieChart - only the first is used).
+     * @param selection  The rows to include (e.g., the result of a filter), or null for all rows.
+     * @param timeBucket The granularity for a timestamp X column, or null to pick one from the data's time span.
+     * @param overlays   The overlays to draw over each line chart series (ignored for other chart types).
+     * @return The created JavaFX Chart object, or null if the type is unknown or data is unsuitable.
+     */
+    public static Chart createChart(ChartType chartType, DataSet dataSet, String xColumn, List<String> yColumns,
+                                    SelectionVector selection, TimeBucket timeBucket, List<OverlaySpec> overlays) {
+        ChartCreateEvent event = new ChartCreateEvent();
+        event.begin();
+        Chart chart = buildChart(chartType, dataSet, xColumn, yColumns, selection, timeBucket, overlays);
+        if (event.shouldCommit()) {
+            event.chartType = String.valueOf(chartType);
+            event.xColumn = xColumn;
+            event.yColumns = yColumns != null ? yColumns.size() : 0;
+            event.rows = dataSet != null ? dataSet.getRowCount() : 0;
+            event.selectedRows = selection != null ? selection.cardinality() : event.rows;
+            event.points = countPoints(chart);
+            event.commit();
+        }
+        return chart;
+    }
+
+    private static Chart buildChart(ChartType chartType, DataSet dataSet, String xColumn, List<String> yColumns,
+                                    SelectionVector selection, TimeBucket timeBucket, List<OverlaySpec> overlays) {
         if (!validateInput(dataSet, xColumn, yColumns, chartType)) {
             return null;
         }
+        TimeBucket bucket = Aggregation.resolveTimeBucket(dataSet, xColumn, timeBucket);
+        // Sum every series in one pass; the per-series lookups below are then cache hits
+        Aggregation.prepare(dataSet, xColumn, chartType == ChartType.PIE ? yColumns.subList(0, 1) : yColumns, selection, bucket);
 
         switch (chartType) {
             case BAR:
-                return createBarChart(dataSet, xColumn, yColumns);
+                return createBarChart(dataSet, xColumn, yColumns, selection, bucket);
             case LINE:
-                return createLineChart(dataSet, xColumn, yColumns);
+                if (bucket != null) {
+                    return createTimeLineChart(dataSet, xColumn, yColumns, selection, bucket, overlays);
+                }
+                return createLineChart(dataSet, xColumn, yColumns, selection, overlays);
             case PIE:
                 // Pie chart uses the first Y column as the value column
-                return createPieChart(dataSet, xColumn, yColumns.get(0));
+                return createPieChart(dataSet, xColumn, yColumns.get(0), selection, bucket);
             default:
                 System.err.println("Unsupported chart type: " + chartType);
                 return null;
         }
     }
 
+    /**
+     * Counts the data points of all series of a chart, or the slices of a pie chart.
+     *
+     * @param chart The chart, or null.
+     * @return The number of points.
+     */
+    private static int countPoints(Chart chart) {
+        int points = 0;
+        if (chart instanceof XYChart) {
+            for (XYChart.Series<?, ?> series : ((XYChart<?, ?>) chart).getData()) {
+                points += series.getData().size();
+            }
+        } else if (chart instanceof PieChart) {
+            points = ((PieChart) chart).getData().size();
+        }
+        return points;
+    }
+
     /**
      * Validates the input parameters for chart creation.
      *
@@ -95,63 +199,84 @@ public class ChartFactory {
     /**
      * Aggregates data for XY charts (Bar, Line). Sums Y values for duplicate X categories.
      *
-     * @param dataSet The dataset.
-     * @param xColumn The X-axis column name.
-     * @param yColumn The Y-axis column name.
-     * @param chartTypeName Name of the chart type for logging purposes (e.g., "BarChart").
+     * @param dataSet   The dataset.
+     * @param xColumn   The X-axis column name.
+     * @param yColumn   The Y-axis column name.
+     * @param selection The rows to aggregate, or null for all rows.
      * @return A map where keys are X categories and values are aggregated Y values.
      */
-    private static Map<String, Double> aggregateXYData(DataSet dataSet, String xColumn, String yColumn, String chartTypeName) {
-        Map<String, Double> aggregatedData = new LinkedHashMap<>(); // Maintain order
-        List<Object> xData = dataSet.getColumnData(xColumn);
-        List<Object> yData = dataSet.getColumnData(yColumn);
-
-        int size = Math.min(xData.size(), yData.size()); // Process only matching pairs
-        for (int i = 0; i < size; i++) {
-            String category = xData.get(i) != null ? xData.get(i).toString() : "N/A";
-            Object yValueObj = yData.get(i);
-            if (yValueObj != null) {
-                try {
-                    double yValue = Double.parseDouble(yValueObj.toString());
-                    aggregatedData.merge(category, yValue, Double::sum);
-                } catch (NumberFormatException e) {
-                    System.err.println("Skipping non-numeric value in " + chartTypeName + " for column " + yColumn + ", category " + category + ": " + yValueObj);
-                }
-            } else {
-                 System.err.println("Skipping null value in " + chartTypeName + " for column " + yColumn + ", category " + category);
-            }
-        }
-        return aggregatedData;
+    private static Map<String, Double> aggregateXYData(DataSet dataSet, String xColumn, String yColumn, SelectionVector selection) {
+        return Aggregation.sumByX(dataSet, xColumn, yColumn, selection, null);
     }
 
     /**
-     * Creates a BarChart based on the DataSet.
+     * Creates a BarChart based on the DataSet, with error bars if the dataset holds estimates.
      *
      * @param dataSet  The dataset to visualize.
      * @param xColumn  The column for the X-axis categories.
      * @param yColumns The columns for the Y-axis values.
+     * @param selection The rows to include, or null for all rows.
+     * @param bucket   The time granularity, or null if the X column is not a timestamp column.
      * @return A configured BarChart.
      */
-    private static BarChart<String, Number> createBarChart(DataSet dataSet, String xColumn, List<String> yColumns) {
+    private static BarChart<String, Number> createBarChart(DataSet dataSet, String xColumn, List<String> yColumns, SelectionVector selection, TimeBucket bucket) {
         CategoryAxis xAxis = new CategoryAxis();
         NumberAxis yAxis = new NumberAxis();
-        BarChart<String, Number> barChart = new BarChart<>(xAxis, yAxis);
+        BarChart<String, Number> barChart = dataSet.getVariances() != null
+                ? new ErrorBarChart(xAxis, yAxis) : new BarChart<>(xAxis, yAxis);
         barChart.setTitle("Bar Chart");
-        xAxis.setLabel(xColumn);
+        xAxis.setLabel(bucket != null ? xColumn + " (" + bucket.name().toLowerCase() + ")" : xColumn);
+        barChart.getData().addAll(createBarSeries(dataSet, xColumn, yColumns, selection, bucket));
+        return barChart;
+    }
 
+    /**
+     * Aggregates the series of a bar chart. This is all the work of a bar chart except creating the chart itself,
+     * so it needs no JavaFX toolkit (e.g. in benchmarks). Call {@link Aggregation#prepare} first, as
+     * {@link #createChart} does, to sum every column in one pass; otherwise each column is summed separately.
+     *
+     * @param dataSet   The dataset to visualize.
+     * @param xColumn   The column for the X-axis categories.
+     * @param yColumns  The columns for the Y-axis values; missing columns are skipped.
+     * @param selection The rows to include, or null for all rows.
+     * @param bucket    The time granularity, or null if the X column is not a timestamp column.
+     * @return One non-empty series per Y column, with at most {@link SeriesReducer#MAX_CATEGORIES} categories
+     *         (or {@link SeriesReducer#MAX_POINTS} time buckets). For a dataset of estimates, the extra value of each
+     *         point is the margin of its 95% confidence interval.
+     */
+    public static List<XYChart.Series<String, Number>> createBarSeries(DataSet dataSet, String xColumn, List<String> yColumns,
+                                                                       SelectionVector selection, TimeBucket bucket) {
+        List<XYChart.Series<String, Number>> seriesList = new ArrayList<>();
+        Set<String> keptCategories = null; // Chosen from the first series so all bars share the same categories
         for (String yColumn : yColumns) {
             if (dataSet.getColumnNames().contains(yColumn)) {
-                Map<String, Double> aggregatedData = aggregateXYData(dataSet, xColumn, yColumn, "BarChart");
+                Map<String, Double> aggregatedData = Aggregation.sumByX(dataSet, xColumn, yColumn, selection, bucket);
+                if (bucket != null) {
+                    aggregatedData = SeriesReducer.downsample(aggregatedData, SeriesReducer.MAX_POINTS); // Keep the time order
+                } else {
+                    if (seriesList.isEmpty()) {
+                        keptCategories = SeriesReducer.topCategories(aggregatedData, SeriesReducer.MAX_CATEGORIES);
+                    }
+                    aggregatedData = SeriesReducer.foldCategories(aggregatedData, keptCategories);
+                }
+                Map<String, Double> variances = Aggregation.varianceByX(dataSet, xColumn, yColumn, selection, bucket);
+                Map<String, Double> pointVariances = variances != null && bucket == null
+                        ? SeriesReducer.foldCategories(variances, keptCategories) : variances; // "Other" adds the variances it folds
                 XYChart.Series<String, Number> series = new XYChart.Series<>();
                 series.setName(yColumn);
-                aggregatedData.forEach((category, value) -> series.getData().add(new XYChart.Data<>(category, value)));
+                aggregatedData.forEach((category, value) -> {
+                    Double variance = pointVariances != null ? pointVariances.get(category) : null;
+                    series.getData().add(variance != null
+                            ? new XYChart.Data<>(category, value, ApproximateAggregation.margin(variance))
+                            : new XYChart.Data<>(category, value));
+                });
 
                 if (!series.getData().isEmpty()) {
-                    barChart.getData().add(series);
+                    seriesList.add(series);
                 }
             }
         }
-        return barChart;
+        return seriesList;
     }
 
     /**
@@ -160,9 +285,12 @@ public class ChartFactory {
      * @param dataSet  The dataset to visualize.
      * @param xColumn  The column for the X-axis categories.
      * @param yColumns The columns for the Y-axis values.
+     * @param selection The rows to include, or null for all rows.
+     * @param overlays The overlays to draw over each series.
      * @return A configured LineChart.
      */
-    private static LineChart<String, Number> createLineChart(DataSet dataSet, String xColumn, List<String> yColumns) {
+    private static LineChart<String, Number> createLineChart(DataSet dataSet, String xColumn, List<String> yColumns,
+                                                             SelectionVector selection, List<OverlaySpec> overlays) {
         CategoryAxis xAxis = new CategoryAxis();
         NumberAxis yAxis = new NumberAxis();
         LineChart<String, Number> lineChart = new LineChart<>(xAxis, yAxis);
@@ -172,19 +300,165 @@ public class ChartFactory {
 
         for (String yColumn : yColumns) {
             if (dataSet.getColumnNames().contains(yColumn)) {
-                 Map<String, Double> aggregatedData = aggregateXYData(dataSet, xColumn, yColumn, "LineChart");
+                 Map<String, Double> aggregatedData = aggregateXYData(dataSet, xColumn, yColumn, selection);
+                 Map<String, Double> displayedData = SeriesReducer.downsample(aggregatedData, SeriesReducer.MAX_POINTS);
                  XYChart.Series<String, Number> series = new XYChart.Series<>();
                  series.setName(yColumn);
-                 aggregatedData.forEach((category, value) -> series.getData().add(new XYChart.Data<>(category, value)));
+                 displayedData.forEach((category, value) -> series.getData().add(new XYChart.Data<>(category, value)));
 
                  if (!series.getData().isEmpty()) {
                      lineChart.getData().add(series);
+                     // Overlays are computed over the full series but only drawn at the displayed categories
+                     addCategoryOverlays(lineChart, dataSet, xColumn, yColumn, selection, overlays, new ArrayList<>(aggregatedData.keySet()),
+                             aggregatedData.values().stream().mapToDouble(Double::doubleValue).toArray(), displayedData.keySet());
                  }
             }
         }
         return lineChart;
     }
 
+    /**
+     * Creates a LineChart over a timestamp X column, with one point per time bucket on a time axis.
+     *
+     * @param dataSet   The dataset to visualize.
+     * @param xColumn   The timestamp column for the X-axis.
+     * @param yColumns  The columns for the Y-axis values.
+     * @param selection The rows to include, or null for all rows.
+     * @param bucket    The time granularity.
+     * @param overlays  The overlays to draw over each series.
+     * @return A configured LineChart.
+     */
+    private static LineChart<Number, Number> createTimeLineChart(DataSet dataSet, String xColumn, List<String> yColumns,
+                                                                 SelectionVector selection, TimeBucket bucket, List<OverlaySpec> overlays) {
+        NumberAxis xAxis = TimeAxis.create(bucket);
+        NumberAxis yAxis = new NumberAxis();
+        LineChart<Number, Number> lineChart = new LineChart<>(xAxis, yAxis);
+        lineChart.setTitle("Line Chart");
+        xAxis.setLabel(xColumn + " (" + bucket.name().toLowerCase() + ")");
+        lineChart.setCreateSymbols(true); // Show symbols on data points
+
+        for (String yColumn : yColumns) {
+            if (dataSet.getColumnNames().contains(yColumn)) {
+                TimeRollup rollup = dataSet.getTimeRollups().get(dataSet, xColumn, yColumn, bucket, selection);
+                if (rollup == null) {
+                    continue;
+                }
+                XYChart.Series<Number, Number> series = new XYChart.Series<>();
+                series.setName(yColumn);
+                double[] starts = new double[rollup.size()];
+                double[] sums = new double[rollup.size()];
+                for (int i = 0; i < starts.length; i++) {
+                    starts[i] = rollup.getStart(i);
+                    sums[i] = rollup.getSum(i);
+                }
+                for (int i : SeriesReducer.downsample(starts, sums, starts.length, SeriesReducer.MAX_POINTS)) {
+                    series.getData().add(new XYChart.Data<>(starts[i], sums[i]));
+                }
+
+                if (!series.getData().isEmpty()) {
+                    lineChart.getData().add(series);
+                    addTimeOverlays(lineChart, dataSet, xColumn, yColumn, selection, bucket, overlays, starts, sums);
+                }
+            }
+        }
+        return lineChart;
+    }
+
+    /**
+     * Adds overlay series for one category series of a line chart. Overlays are computed over category positions.
+     *
+     * @param lineChart  The chart to add to.
+     * @param dataSet    The dataset (holds the overlay cache).
+     * @param xColumn    The X column.
+     * @param yColumn    The Y column of the series.
+     * @param selection  The rows the series was aggregated over, or null for all rows.
+     * @param overlays   The overlays to draw.
+     * @param categories The series categories, in order.
+     * @param values     The series values.
+     * @param displayed  The categories shown on the axis; overlay points at other categories are not drawn.
+     */
+    private static void addCategoryOverlays(LineChart<String, Number> lineChart, DataSet dataSet, String xColumn, String yColumn,
+                                            SelectionVector selection, List<OverlaySpec> overlays, List<String> categories, double[] values,
+                                            Set<String> displayed) {
+        if (overlays.isEmpty()) {
+            return;
+        }
+        double[] positions = new double[values.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        for (OverlaySpec spec : overlays) {
+            Overlay overlay = dataSet.getOverlays().get(xColumn, yColumn, null, selection, spec, positions, values);
+            XYChart.Series<String, Number> series = new XYChart.Series<>();
+            series.setName(yColumn + " " + spec.getLabel());
+            for (int i = 0; i < overlay.size(); i++) {
+                double y = overlay.getY(i);
+                String category = categories.get((int) overlay.getX(i));
+                if (!Double.isNaN(y) && displayed.contains(category)) {
+                    series.getData().add(withoutSymbol(new XYChart.Data<>(category, y)));
+                }
+            }
+            if (!series.getData().isEmpty()) {
+                lineChart.getData().add(series);
+            }
+        }
+    }
+
+    /**
+     * Adds overlay series for one time series of a line chart. Overlays are computed over bucket start times.
+     *
+     * @param lineChart The chart to add to.
+     * @param dataSet   The dataset (holds the overlay cache).
+     * @param xColumn   The timestamp column.
+     * @param yColumn   The Y column of the series.
+     * @param selection The rows the series was aggregated over, or null for all rows.
+     * @param bucket    The time granularity of the series.
+     * @param overlays  The overlays to draw.
+     * @param starts    The bucket start times of the full series.
+     * @param sums      The values of the full series.
+     */
+    private static void addTimeOverlays(LineChart<Number, Number> lineChart, DataSet dataSet, String xColumn, String yColumn,
+                                        SelectionVector selection, TimeBucket bucket, List<OverlaySpec> overlays,
+                                        double[] starts, double[] sums) {
+        if (overlays.isEmpty()) {
+            return;
+        }
+        for (OverlaySpec spec : overlays) {
+            Overlay overlay = dataSet.getOverlays().get(xColumn, yColumn, bucket, selection, spec, starts, sums);
+            XYChart.Series<Number, Number> series = new XYChart.Series<>();
+            series.setName(yColumn + " " + spec.getLabel());
+            double[] xs = new double[overlay.size()];
+            double[] ys = new double[overlay.size()];
+            int count = 0;
+            for (int i = 0; i < overlay.size(); i++) {
+                double y = overlay.getY(i);
+                if (!Double.isNaN(y)) {
+                    xs[count] = overlay.getX(i);
+                    ys[count++] = y;
+                }
+            }
+            for (int i : SeriesReducer.downsample(xs, ys, count, SeriesReducer.MAX_POINTS)) {
+                series.getData().add(withoutSymbol(new XYChart.Data<>(xs[i], ys[i])));
+            }
+            if (!series.getData().isEmpty()) {
+                lineChart.getData().add(series);
+            }
+        }
+    }
+
+    /**
+     * Hides the point symbol of an overlay data point so overlays are drawn as plain lines.
+     *
+     * @param data The data point.
+     * @return The same data point.
+     */
+    private static <X> XYChart.Data<X, Number> withoutSymbol(XYChart.Data<X, Number> data) {
+        Region symbol = new Region();
+        symbol.setVisible(false);
+        data.setNode(symbol);
+        return data;
+    }
+
     /**
      * Creates a PieChart based on the DataSet.
      * Aggregates values for duplicate labels.
@@ -192,11 +466,14 @@ public class ChartFactory {
      * @param dataSet     The dataset to visualize.
      * @param labelColumn The column containing the labels for the pie slices.
      * @param valueColumn The column containing the numeric values for the pie slices.
+     * @param selection   The rows to include, or null for all rows.
+     * @param bucket      The time granularity, or null if the label column is not a timestamp column.
      * @return A configured PieChart, or null if data is unsuitable.
      */
-    private static PieChart createPieChart(DataSet dataSet, String labelColumn, String valueColumn) {
+    private static PieChart createPieChart(DataSet dataSet, String labelColumn, String valueColumn, SelectionVector selection, TimeBucket bucket) {
         // Use the aggregation helper, treating labelColumn as xColumn and valueColumn as yColumn
-        Map<String, Double> aggregatedData = aggregateXYData(dataSet, labelColumn, valueColumn, "PieChart");
+        Map<String, Double> aggregatedData = SeriesReducer.topK(
+                Aggregation.sumByX(dataSet, labelColumn, valueColumn, selection, bucket), SeriesReducer.MAX_CATEGORIES);
 
         // Filter out non-positive values as they don't make sense in a standard PieChart
         Map<String, Double> positiveAggregatedData = new LinkedHashMap<>();
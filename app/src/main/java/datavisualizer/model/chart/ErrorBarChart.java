@@ -0,0 +1,97 @@
+package datavisualizer.model.chart;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.chart.Axis;
+import javafx.scene.chart.BarChart;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bar chart that draws an error bar on each bar whose data item carries a margin as its extra value, e.g. the
+ * 95% confidence interval of an estimated sum: a whisker from value - margin to value + margin.
+ * Bars without a margin are drawn as usual.
+ */
+public final class ErrorBarChart extends BarChart<String, Number> {
+
+    private static final double CAP_WIDTH = 0.3; // Relative to the bar width
+
+    private final Path whiskers = new Path();
+
+    /**
+     * Constructs the chart.
+     *
+     * @param xAxis The category axis.
+     * @param yAxis The value axis.
+     */
+    public ErrorBarChart(Axis<String> xAxis, Axis<Number> yAxis) {
+        super(xAxis, yAxis);
+        whiskers.setStroke(Color.web("#333333"));
+        whiskers.setStrokeWidth(1.5);
+        whiskers.setManaged(false);
+        whiskers.setViewOrder(-1); // Above the bars, without reordering the plot children the chart manages
+        getPlotChildren().add(whiskers);
+    }
+
+    /**
+     * Gets the margin of a data item.
+     *
+     * @param data The data item.
+     * @return The margin, or NaN if the item has none.
+     */
+    public static double getMargin(Data<String, Number> data) {
+        return data.getExtraValue() instanceof Number ? ((Number) data.getExtraValue()).doubleValue() : Double.NaN;
+    }
+
+    @Override
+    protected void updateAxisRange() {
+        super.updateAxisRange();
+        Axis<Number> yAxis = getYAxis();
+        if (!yAxis.isAutoRanging()) {
+            return;
+        }
+        List<Number> values = new ArrayList<>();
+        for (Series<String, Number> series : getData()) {
+            for (Data<String, Number> data : series.getData()) {
+                double value = data.getYValue().doubleValue();
+                values.add(value);
+                double margin = getMargin(data);
+                if (margin > 0) { // So the whiskers stay inside the plot
+                    values.add(value - margin);
+                    values.add(value + margin);
+                }
+            }
+        }
+        yAxis.invalidateRange(values);
+    }
+
+    @Override
+    protected void layoutPlotChildren() {
+        super.layoutPlotChildren();
+        whiskers.getElements().clear();
+        Axis<Number> yAxis = getYAxis();
+        for (Series<String, Number> series : getData()) {
+            for (Data<String, Number> data : series.getData()) {
+                double margin = getMargin(data);
+                Node bar = data.getNode();
+                if (!(margin > 0) || bar == null) {
+                    continue;
+                }
+                Bounds bounds = bar.getBoundsInParent();
+                double x = bounds.getMinX() + bounds.getWidth() / 2;
+                double cap = bounds.getWidth() * CAP_WIDTH / 2;
+                double value = data.getYValue().doubleValue();
+                double low = yAxis.getDisplayPosition(value - margin);
+                double high = yAxis.getDisplayPosition(value + margin);
+                whiskers.getElements().addAll(new MoveTo(x, low), new LineTo(x, high),
+                        new MoveTo(x - cap, low), new LineTo(x + cap, low),
+                        new MoveTo(x - cap, high), new LineTo(x + cap, high));
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package datavisualizer.model.chart;
+
+import datavisualizer.model.time.TimeBucket;
+
+import javafx.scene.chart.NumberAxis;
+import javafx.util.StringConverter;
+
+/**
+ * Creates numeric axes over epoch milliseconds that label their ticks as dates at a given granularity.
+ */
+public class TimeAxis {
+
+    /**
+     * Creates a time axis.
+     *
+     * @param bucket The granularity used to format tick labels.
+     * @return A NumberAxis with date tick labels.
+     */
+    public static NumberAxis create(TimeBucket bucket) {
+        NumberAxis axis = new NumberAxis();
+        axis.setForceZeroInRange(false);
+        axis.setTickLabelFormatter(new StringConverter<>() {
+            @Override
+            public String toString(Number millis) {
+                return bucket.format(millis.longValue());
+            }
+
+            @Override
+            public Number fromString(String text) {
+                return null; // Labels are display-only
+            }
+        });
+        return axis;
+    }
+}
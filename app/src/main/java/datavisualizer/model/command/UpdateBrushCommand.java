@@ -0,0 +1,41 @@
+package datavisualizer.model.command;
+
+import datavisualizer.model.dashboard.Dashboard;
+
+import java.util.Set;
+
+/**
+ * Command to change the brush of one dashboard dimension, i.e. which of its groups filter the other charts.
+ * Brushes are not persisted by the session journal.
+ */
+public class UpdateBrushCommand implements Command {
+    private final Dashboard dashboard;
+    private final String key;
+
+    private final Set<String> prevLabels, newLabels;
+
+    /**
+     * Constructs a command to update a brush.
+     *
+     * @param dashboard  The Dashboard to operate on.
+     * @param key        The dimension key.
+     * @param prevLabels The previous labels (for undo), or null if the dimension was not brushed.
+     * @param newLabels  The new labels, or null to remove the brush.
+     */
+    public UpdateBrushCommand(Dashboard dashboard, String key, Set<String> prevLabels, Set<String> newLabels) {
+        this.dashboard = dashboard;
+        this.key = key;
+        this.prevLabels = prevLabels;
+        this.newLabels = newLabels;
+    }
+
+    @Override
+    public void execute() {
+        dashboard.setBrush(key, newLabels);
+    }
+
+    @Override
+    public void undo() {
+        dashboard.setBrush(key, prevLabels);
+    }
+}
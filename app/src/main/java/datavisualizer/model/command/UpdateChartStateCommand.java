@@ -1,5 +1,6 @@
 package datavisualizer.model.command;
 
+import datavisualizer.model.ChartState;
 import datavisualizer.model.ChartStateModel;
 import datavisualizer.model.chart.ChartType;
 
@@ -7,46 +8,105 @@ import java.util.List;
 
 /**
  * Command to update the state of the ChartStateModel.
+ * The chart type and columns before and after are kept as immutable state snapshots, so no lists are copied.
  */
 public class UpdateChartStateCommand implements Command { // Changed to public
     private final ChartStateModel model; // Reference to the model
 
-    private final ChartType prevType, newType;
-    private final String prevX, newX;
-    private final List<String> prevY, newY;
+    private final ChartState prevState, newState; // Only type and columns are applied
 
     /**
      * Constructs a command to update the chart state.
      *
      * @param model      The ChartStateModel to operate on.
-     * @param prevType   The previous chart type (for undo).
+     * @param prevType   The previous chart type (for undo), or null for BAR.
      * @param prevX      The previous X-axis column (for undo).
      * @param prevY      The previous Y-axis columns (for undo).
-     * @param newType    The new chart type to set.
+     * @param newType    The new chart type to set, or null for BAR.
      * @param newX       The new X-axis column to set.
      * @param newY       The new Y-axis columns to set.
      */
     public UpdateChartStateCommand(ChartStateModel model,
                                    ChartType prevType, String prevX, List<String> prevY,
                                    ChartType newType, String newX, List<String> newY) {
+        this(model, ChartState.EMPTY.withChart(prevType, prevX, prevY), ChartState.EMPTY.withChart(newType, newX, newY));
+    }
+
+    /**
+     * Constructs a command that changes the chart type and columns from one state snapshot to another.
+     * Other parts of the snapshots (filter, overlays, dataset) are ignored.
+     *
+     * @param model     The ChartStateModel to operate on.
+     * @param prevState The state restored by undo, usually the model's current state.
+     * @param newState  The state applied by execute.
+     */
+    public UpdateChartStateCommand(ChartStateModel model, ChartState prevState, ChartState newState) {
         this.model = model;
-        this.prevType = prevType;
-        this.prevX = prevX;
-        // Store immutable copies for safety during undo/redo
-        this.prevY = (prevY != null) ? List.copyOf(prevY) : List.of();
-        this.newType = newType;
-        this.newX = newX;
-        // Store immutable copies for safety during undo/redo
-        this.newY = (newY != null) ? List.copyOf(newY) : List.of();
+        this.prevState = prevState;
+        this.newState = newState;
     }
 
     @Override
     public void execute() {
-        model.updateState(newType, newX, newY); // Only update model
+        model.updateState(newState.getChartType(), newState.getXColumn(), newState.getYColumns()); // Only update model
     }
 
     @Override
     public void undo() {
-        model.updateState(prevType, prevX, prevY); // Only update model
+        model.updateState(prevState.getChartType(), prevState.getXColumn(), prevState.getYColumns()); // Only update model
+    }
+
+    /**
+     * Gets the chart type restored by undo.
+     *
+     * @return The previous chart type.
+     */
+    public ChartType getPrevType() {
+        return prevState.getChartType();
+    }
+
+    /**
+     * Gets the X-axis column restored by undo.
+     *
+     * @return The previous X-axis column.
+     */
+    public String getPrevX() {
+        return prevState.getXColumn();
+    }
+
+    /**
+     * Gets the Y-axis columns restored by undo.
+     *
+     * @return The previous Y-axis columns (immutable).
+     */
+    public List<String> getPrevY() {
+        return prevState.getYColumns();
+    }
+
+    /**
+     * Gets the chart type set by execute.
+     *
+     * @return The new chart type.
+     */
+    public ChartType getNewType() {
+        return newState.getChartType();
+    }
+
+    /**
+     * Gets the X-axis column set by execute.
+     *
+     * @return The new X-axis column.
+     */
+    public String getNewX() {
+        return newState.getXColumn();
+    }
+
+    /**
+     * Gets the Y-axis columns set by execute.
+     *
+     * @return The new Y-axis columns (immutable).
+     */
+    public List<String> getNewY() {
+        return newState.getYColumns();
     }
-}
\ No newline at end of file
+}
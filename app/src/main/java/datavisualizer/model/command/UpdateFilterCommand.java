@@ -0,0 +1,55 @@
+package datavisualizer.model.command;
+
+import datavisualizer.model.ChartStateModel;
+import datavisualizer.model.filter.FilterPredicate;
+
+/**
+ * Command to change the row filter of the ChartStateModel.
+ * Predicates are immutable, so the previous and new filters can be stored by reference.
+ */
+public class UpdateFilterCommand implements Command {
+    private final ChartStateModel model;
+
+    private final FilterPredicate prevFilter, newFilter;
+
+    /**
+     * Constructs a command to update the row filter.
+     *
+     * @param model      The ChartStateModel to operate on.
+     * @param prevFilter The previous filter (for undo), or null if none.
+     * @param newFilter  The new filter to set, or null to clear filtering.
+     */
+    public UpdateFilterCommand(ChartStateModel model, FilterPredicate prevFilter, FilterPredicate newFilter) {
+        this.model = model;
+        this.prevFilter = prevFilter;
+        this.newFilter = newFilter;
+    }
+
+    @Override
+    public void execute() {
+        model.setFilter(newFilter);
+    }
+
+    @Override
+    public void undo() {
+        model.setFilter(prevFilter);
+    }
+
+    /**
+     * Gets the filter restored by undo.
+     *
+     * @return The previous filter, or null.
+     */
+    public FilterPredicate getPrevFilter() {
+        return prevFilter;
+    }
+
+    /**
+     * Gets the filter set by execute.
+     *
+     * @return The new filter, or null.
+     */
+    public FilterPredicate getNewFilter() {
+        return newFilter;
+    }
+}
@@ -0,0 +1,57 @@
+package datavisualizer.model.command;
+
+import datavisualizer.model.ChartStateModel;
+import datavisualizer.model.overlay.OverlaySpec;
+
+import java.util.List;
+
+/**
+ * Command to change the overlays drawn on line charts.
+ * Overlay lists are immutable, so the previous and new lists can be stored by reference.
+ */
+public class UpdateOverlaysCommand implements Command {
+    private final ChartStateModel model;
+
+    private final List<OverlaySpec> prevOverlays, newOverlays;
+
+    /**
+     * Constructs a command to update the overlays.
+     *
+     * @param model        The ChartStateModel to operate on.
+     * @param prevOverlays The previous overlays (for undo).
+     * @param newOverlays  The new overlays to set.
+     */
+    public UpdateOverlaysCommand(ChartStateModel model, List<OverlaySpec> prevOverlays, List<OverlaySpec> newOverlays) {
+        this.model = model;
+        this.prevOverlays = prevOverlays;
+        this.newOverlays = newOverlays;
+    }
+
+    @Override
+    public void execute() {
+        model.setOverlays(newOverlays);
+    }
+
+    @Override
+    public void undo() {
+        model.setOverlays(prevOverlays);
+    }
+
+    /**
+     * Gets the overlays restored by undo.
+     *
+     * @return The previous overlays.
+     */
+    public List<OverlaySpec> getPrevOverlays() {
+        return prevOverlays;
+    }
+
+    /**
+     * Gets the overlays set by execute.
+     *
+     * @return The new overlays.
+     */
+    public List<OverlaySpec> getNewOverlays() {
+        return newOverlays;
+    }
+}
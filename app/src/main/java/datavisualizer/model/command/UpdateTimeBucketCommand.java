@@ -0,0 +1,54 @@
+package datavisualizer.model.command;
+
+import datavisualizer.model.ChartStateModel;
+import datavisualizer.model.time.TimeBucket;
+
+/**
+ * Command to change the time granularity used for timestamp X columns.
+ */
+public class UpdateTimeBucketCommand implements Command {
+    private final ChartStateModel model;
+
+    private final TimeBucket prevBucket, newBucket;
+
+    /**
+     * Constructs a command to update the time granularity.
+     *
+     * @param model      The ChartStateModel to operate on.
+     * @param prevBucket The previous granularity (for undo), or null for automatic.
+     * @param newBucket  The new granularity, or null for automatic.
+     */
+    public UpdateTimeBucketCommand(ChartStateModel model, TimeBucket prevBucket, TimeBucket newBucket) {
+        this.model = model;
+        this.prevBucket = prevBucket;
+        this.newBucket = newBucket;
+    }
+
+    @Override
+    public void execute() {
+        model.setTimeBucket(newBucket);
+    }
+
+    @Override
+    public void undo() {
+        model.setTimeBucket(prevBucket);
+    }
+
+    /**
+     * Gets the granularity restored by undo.
+     *
+     * @return The previous granularity, or null for automatic.
+     */
+    public TimeBucket getPrevBucket() {
+        return prevBucket;
+    }
+
+    /**
+     * Gets the granularity set by execute.
+     *
+     * @return The new granularity, or null for automatic.
+     */
+    public TimeBucket getNewBucket() {
+        return newBucket;
+    }
+}
@@ -0,0 +1,516 @@
+package datavisualizer.model.dashboard;
+
+import datavisualizer.model.aggregate.Aggregation;
+import datavisualizer.model.dataset.CategoricalColumn;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.DoubleBlockIterator;
+import datavisualizer.model.dataset.NumericColumn;
+import datavisualizer.model.dataset.TimestampColumn;
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.time.TimeBucket;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+/**
+ * Linked aggregation of the charts of a dashboard, for brushing: selecting groups in one chart filters the others.
+ * <p>
+ * Every distinct (X column, time granularity) of the charts is a dimension. Each dimension keeps the group of every
+ * row, an index of the rows of each group, and the sums of all Y columns its charts draw, per group. A row counts
+ * towards a dimension's sums if it passes the brushes of all <em>other</em> dimensions (a chart is not filtered by its
+ * own brush), which is tracked with one bit per dimension in a per-row mask. Changing a brush only visits the rows of
+ * the groups that entered or left it, and adds them to or removes them from the other dimensions' sums, so the
+ * cost is proportional to the rows that changed, not to the dataset.
+ * <p>
+ * Built off the FX thread with one pass per dimension, in parallel; brushes are then changed and read from a
+ * single thread. Needs about 4 bytes per row for the masks, plus 4 (8 for time columns) per row and dimension.
+ */
+public class CrossFilter {
+
+    /** Maximum number of dimensions; one mask bit is reserved for rows outside the base selection. */
+    public static final int MAX_DIMENSIONS = 31;
+
+    private static final int OUTSIDE_SELECTION = 1 << 31;
+    private static final long DAY_MILLIS = TimeBucket.DAY.getWidth();
+    // Above this many possible time buckets, a time dimension is not built
+    private static final long MAX_DENSE_BUCKETS = 5_000_000L;
+    // Brushes moving at least this many rows update the other dimensions in parallel
+    private static final long PARALLEL_ROWS = 100_000L;
+
+    private final int[] masks; // Bit d: the row fails the brush of dimension d
+    private final List<Dimension> dimensions;
+    private final int[] chartDimensions; // Dimension of each chart, in dashboard order
+    private final Map<String, Integer> dimensionsByKey = new HashMap<>();
+
+    private CrossFilter(int[] masks, List<Dimension> dimensions, int[] chartDimensions) {
+        this.masks = masks;
+        this.dimensions = dimensions;
+        this.chartDimensions = chartDimensions;
+        for (int d = 0; d < dimensions.size(); d++) {
+            dimensionsByKey.put(dimensions.get(d).key, d);
+        }
+    }
+
+    /**
+     * Builds the cross-filter of a dashboard's charts over the selected rows of a dataset, without brushes.
+     * Dimensions are built in parallel, one pass over the rows each.
+     *
+     * @param dataSet   The dataset.
+     * @param selection The rows the dashboard shows, or null for all rows. Must not change until the future completes.
+     * @param charts    The charts.
+     * @param executor  The executor to build the dimensions on.
+     * @return A future completing with the cross-filter.
+     * @throws IllegalArgumentException If the charts have more than {@link #MAX_DIMENSIONS} dimensions.
+     */
+    public static CompletableFuture<CrossFilter> create(DataSet dataSet, SelectionVector selection, List<DashboardChart> charts,
+                                                        Executor executor) {
+        Map<String, Set<String>> yColumnsByKey = new LinkedHashMap<>();
+        Map<String, DashboardChart> firstChartByKey = new HashMap<>();
+        Map<String, TimeBucket> bucketsByKey = new HashMap<>();
+        int[] chartDimensions = new int[charts.size()];
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < charts.size(); i++) {
+            DashboardChart chart = charts.get(i);
+            TimeBucket bucket = dataSet.getColumnNames().contains(chart.getXColumn())
+                    ? Aggregation.resolveTimeBucket(dataSet, chart.getXColumn(), chart.getTimeBucket()) : null;
+            String key = dimensionKey(chart.getXColumn(), bucket);
+            if (!yColumnsByKey.containsKey(key)) {
+                keys.add(key);
+                firstChartByKey.put(key, chart);
+                bucketsByKey.put(key, bucket);
+            }
+            yColumnsByKey.computeIfAbsent(key, k -> new LinkedHashSet<>()).addAll(chart.getValueColumns());
+            chartDimensions[i] = keys.indexOf(key);
+        }
+        if (keys.size() > MAX_DIMENSIONS) {
+            throw new IllegalArgumentException("At most " + MAX_DIMENSIONS + " distinct X columns can be linked, got " + keys.size());
+        }
+
+        int rowCount = dataSet.getRowCount();
+        CompletableFuture<int[]> masks = CompletableFuture.supplyAsync(() -> {
+            int[] result = new int[rowCount];
+            if (selection != null) {
+                Arrays.fill(result, OUTSIDE_SELECTION);
+                for (int row = selection.nextSetBit(0); row >= 0 && row < rowCount; row = selection.nextSetBit(row + 1)) {
+                    result[row] = 0;
+                }
+            }
+            return result;
+        }, executor);
+        List<CompletableFuture<Dimension>> builds = new ArrayList<>();
+        for (String key : keys) {
+            String xColumn = firstChartByKey.get(key).getXColumn();
+            List<String> yColumns = new ArrayList<>(yColumnsByKey.get(key));
+            builds.add(CompletableFuture.supplyAsync(
+                    () -> new Dimension(key, dataSet, xColumn, bucketsByKey.get(key), yColumns, selection), executor));
+        }
+        return CompletableFuture.allOf(builds.toArray(new CompletableFuture<?>[0])).thenCombine(masks, (ignored, rowMasks) -> {
+            List<Dimension> dimensions = new ArrayList<>();
+            for (CompletableFuture<Dimension> build : builds) {
+                dimensions.add(build.join());
+            }
+            return new CrossFilter(rowMasks, dimensions, chartDimensions);
+        });
+    }
+
+    /**
+     * Gets the key identifying a dimension, used to keep brushes across rebuilds.
+     *
+     * @param xColumn The X column.
+     * @param bucket  The resolved time granularity, or null for category grouping.
+     * @return The key.
+     */
+    public static String dimensionKey(String xColumn, TimeBucket bucket) {
+        return bucket != null ? xColumn + " (" + bucket.name().toLowerCase() + ")" : xColumn;
+    }
+
+    /**
+     * Sets the brush of a dimension and updates the sums of every other dimension incrementally.
+     *
+     * @param dimension The dimension.
+     * @param labels    The group labels to keep, or null to remove the brush. Labels the dimension does not have are ignored.
+     */
+    public void setBrush(int dimension, Set<String> labels) {
+        Dimension changed = dimensions.get(dimension);
+        boolean[] passes = null;
+        if (labels != null) {
+            passes = new boolean[changed.labels.size() + 1]; // The last slot holds rows without a group
+            for (int g = 0; g < changed.labels.size(); g++) {
+                passes[g] = labels.contains(changed.labels.get(g));
+            }
+        }
+        // Groups entering or leaving the brush, and how many rows they hold
+        List<Integer> toggled = new ArrayList<>();
+        long toggledRows = 0;
+        for (int g = 0; g <= changed.labels.size(); g++) {
+            boolean before = changed.passes == null || changed.passes[g];
+            boolean after = passes == null || passes[g];
+            if (before != after) {
+                toggled.add(g);
+                toggledRows += changed.groupOffsets[g + 1] - changed.groupOffsets[g];
+            }
+        }
+        int bit = 1 << dimension;
+        boolean[] newPasses = passes;
+        // Each other dimension only updates its own sums, so they can be updated in parallel; masks change after
+        IntStream others = IntStream.range(0, dimensions.size()).filter(e -> e != dimension);
+        if (toggledRows >= PARALLEL_ROWS) {
+            others = others.parallel();
+        }
+        others.forEach(e -> {
+            Dimension other = dimensions.get(e);
+            int otherBits = ~(bit | 1 << e); // A dimension is not filtered by its own brush
+            for (int g : toggled) {
+                int sign = newPasses == null || newPasses[g] ? 1 : -1;
+                other.update(changed.rowsByGroup, changed.groupOffsets[g], changed.groupOffsets[g + 1], masks, otherBits, sign);
+            }
+        });
+        for (int g : toggled) {
+            boolean after = passes == null || passes[g];
+            for (int i = changed.groupOffsets[g]; i < changed.groupOffsets[g + 1]; i++) {
+                int row = changed.rowsByGroup[i];
+                masks[row] = after ? masks[row] & ~bit : masks[row] | bit;
+            }
+        }
+        changed.passes = passes;
+        changed.brush = labels != null ? Collections.unmodifiableSet(new LinkedHashSet<>(labels)) : null;
+    }
+
+    /**
+     * Gets the brush of a dimension.
+     *
+     * @param dimension The dimension.
+     * @return The labels kept, or null if the dimension is not brushed.
+     */
+    public Set<String> getBrush(int dimension) {
+        return dimensions.get(dimension).brush;
+    }
+
+    /**
+     * Checks whether a group passes the brush of its dimension.
+     *
+     * @param dimension The dimension.
+     * @param group     The group position.
+     * @return true if the dimension is not brushed or the group is in the brush.
+     */
+    public boolean isBrushed(int dimension, int group) {
+        boolean[] passes = dimensions.get(dimension).passes;
+        return passes == null || passes[group];
+    }
+
+    /**
+     * Gets the number of dimensions.
+     *
+     * @return The dimension count.
+     */
+    public int getDimensionCount() {
+        return dimensions.size();
+    }
+
+    /**
+     * Gets the dimension a chart belongs to.
+     *
+     * @param chart The position of the chart in the dashboard.
+     * @return The dimension.
+     */
+    public int getDimension(int chart) {
+        return chartDimensions[chart];
+    }
+
+    /**
+     * Finds a dimension by key.
+     *
+     * @param key The key, see {@link #dimensionKey(String, TimeBucket)}.
+     * @return The dimension, or -1 if there is none with this key.
+     */
+    public int findDimension(String key) {
+        return dimensionsByKey.getOrDefault(key, -1);
+    }
+
+    /**
+     * Gets the key of a dimension.
+     *
+     * @param dimension The dimension.
+     * @return The key.
+     */
+    public String getDimensionKey(int dimension) {
+        return dimensions.get(dimension).key;
+    }
+
+    /**
+     * Gets the time granularity of a dimension.
+     *
+     * @param dimension The dimension.
+     * @return The granularity, or null for category grouping.
+     */
+    public TimeBucket getBucket(int dimension) {
+        return dimensions.get(dimension).bucket;
+    }
+
+    /**
+     * Gets the group labels of a dimension: categories in order of first appearance, or time buckets in time order.
+     * Only groups with rows in the base selection are present.
+     *
+     * @param dimension The dimension.
+     * @return An unmodifiable list of labels; empty if the X column is missing or has too many time buckets.
+     */
+    public List<String> getLabels(int dimension) {
+        return dimensions.get(dimension).labels;
+    }
+
+    /**
+     * Gets the current sums of a Y column per group of a dimension, over the rows passing the other dimensions' brushes.
+     *
+     * @param dimension The dimension.
+     * @param yColumn   One of the Y columns of the dimension's charts.
+     * @return The live sums, one per group; must not be modified, and change with the next brush. Null if the column is missing.
+     */
+    public double[] getSums(int dimension, String yColumn) {
+        Dimension dim = dimensions.get(dimension);
+        int j = dim.yColumns.indexOf(yColumn);
+        return j >= 0 ? dim.sums[j] : null;
+    }
+
+    /**
+     * Gets the number of rows per group currently counted towards a dimension's sums.
+     *
+     * @param dimension The dimension.
+     * @return The live counts, one per group; must not be modified.
+     */
+    public int[] getCounts(int dimension) {
+        return dimensions.get(dimension).counts;
+    }
+
+    /**
+     * One grouping of the rows, with its row index and sums.
+     */
+    private static final class Dimension {
+        private final String key;
+        private final TimeBucket bucket;
+        private final List<String> labels;
+        private final List<String> yColumns = new ArrayList<>();
+        private final NumericColumn[] values;
+        // Readers of each Y column: the rows of a group are visited in ascending order, so a compressed column is
+        // decoded a block at a time instead of being inflated for the cross-filter's lifetime
+        private final DoubleBlockIterator[] blocks;
+        private final double[][] sums;
+        private final int[] counts;
+        // Group of each row: through the dictionary code for categories, stored per row for time buckets
+        private int[] codes;
+        private int[] codeToGroup;
+        private int[] rowGroups;
+        // Rows of group g are rowsByGroup[groupOffsets[g] .. groupOffsets[g + 1]); the last group holds rows without one
+        private int[] groupOffsets;
+        private int[] rowsByGroup;
+        private boolean[] passes; // Per group (plus the no-group slot), or null while not brushed
+        private Set<String> brush;
+
+        Dimension(String key, DataSet dataSet, String xColumn, TimeBucket bucket, List<String> yColumnNames, SelectionVector selection) {
+            this.key = key;
+            this.bucket = bucket;
+            int rowCount = dataSet.getRowCount();
+            List<String> groupLabels = bucket == null ? groupCategories(dataSet, xColumn, rowCount)
+                    : groupTimes(dataSet, xColumn, bucket, rowCount);
+            this.labels = Collections.unmodifiableList(groupLabels);
+            int groupCount = labels.size();
+
+            List<NumericColumn> columns = new ArrayList<>();
+            for (String yColumn : yColumnNames) {
+                NumericColumn column = dataSet.getNumericColumn(yColumn);
+                if (column != null) {
+                    yColumns.add(yColumn);
+                    columns.add(column);
+                }
+            }
+            values = columns.toArray(new NumericColumn[0]);
+            blocks = new DoubleBlockIterator[values.length];
+            for (int j = 0; j < values.length; j++) {
+                blocks[j] = values[j].blocks();
+            }
+            sums = new double[values.length][groupCount];
+            counts = new int[groupCount];
+
+            // Index the rows by group (counting sort), then sum the selected rows
+            groupOffsets = new int[groupCount + 2];
+            for (int row = 0; row < rowCount; row++) {
+                groupOffsets[slot(row, groupCount) + 1]++;
+            }
+            for (int g = 0; g <= groupCount; g++) {
+                groupOffsets[g + 1] += groupOffsets[g];
+            }
+            rowsByGroup = new int[rowCount];
+            int[] next = Arrays.copyOf(groupOffsets, groupCount + 1);
+            for (int row = 0; row < rowCount; row++) {
+                rowsByGroup[next[slot(row, groupCount)]++] = row;
+            }
+            int row = selection != null ? selection.nextSetBit(0) : 0;
+            while (row >= 0 && row < rowCount) {
+                add(row, 1);
+                row = selection != null ? selection.nextSetBit(row + 1) : row + 1;
+            }
+        }
+
+        private int slot(int row, int groupCount) {
+            int group = groupOf(row);
+            return group >= 0 ? group : groupCount;
+        }
+
+        private int groupOf(int row) {
+            if (codes != null) {
+                return row < codes.length ? codeToGroup[codes[row] + 1] : -1;
+            }
+            return rowGroups != null ? rowGroups[row] : -1;
+        }
+
+        /**
+         * Adds a row to (sign 1) or removes it from (sign -1) the sums of its group.
+         */
+        void add(int row, int sign) {
+            int group = groupOf(row);
+            if (group >= 0) {
+                add(row, group, sign);
+            }
+        }
+
+        /**
+         * Adds (sign 1) or removes (sign -1) the listed rows that pass every brush this dimension is filtered by,
+         * other than the one being changed.
+         *
+         * @param rows      Row numbers.
+         * @param from      The first position in rows.
+         * @param to        The position after the last one.
+         * @param masks     The per-row masks, before the change.
+         * @param otherBits The mask bits that must be clear for a row to be counted.
+         * @param sign      1 or -1.
+         */
+        void update(int[] rows, int from, int to, int[] masks, int otherBits, int sign) {
+            for (int i = from; i < to; i++) {
+                int row = rows[i];
+                if ((masks[row] & otherBits) == 0) {
+                    int group = codes != null ? (row < codes.length ? codeToGroup[codes[row] + 1] : -1)
+                            : rowGroups != null ? rowGroups[row] : -1;
+                    if (group >= 0) {
+                        add(row, group, sign);
+                    }
+                }
+            }
+        }
+
+        private void add(int row, int group, int sign) {
+            counts[group] += sign;
+            if (counts[group] == 0) {
+                for (double[] columnSums : sums) {
+                    columnSums[group] = 0; // Exactly zero, instead of what is left after adding and subtracting
+                }
+                return;
+            }
+            for (int j = 0; j < values.length; j++) {
+                NumericColumn column = values[j];
+                if (row < column.size() && !column.isNull(row)) {
+                    DoubleBlockIterator reader = blocks[j];
+                    double[] block = reader.seek(row); // Decodes only when the row is in another block
+                    sums[j][group] += sign * block[row - reader.offset()];
+                }
+            }
+        }
+
+        /**
+         * Groups rows by category, in order of first appearance. Null categories form their own group.
+         */
+        private List<String> groupCategories(DataSet dataSet, String xColumn, int rowCount) {
+            List<String> groupLabels = new ArrayList<>();
+            CategoricalColumn column = dataSet.getCategoricalColumn(xColumn);
+            if (column == null) {
+                return groupLabels;
+            }
+            codes = column.codes();
+            codeToGroup = new int[column.getCardinality() + 1]; // Code + 1, so null maps to slot 0
+            Arrays.fill(codeToGroup, -1);
+            int size = Math.min(rowCount, column.size());
+            for (int row = 0; row < size; row++) {
+                int code = codes[row];
+                if (codeToGroup[code + 1] < 0) {
+                    codeToGroup[code + 1] = groupLabels.size();
+                    groupLabels.add(code < 0 ? Aggregation.NULL_CATEGORY : column.getDictionary().get(code));
+                }
+            }
+            return groupLabels;
+        }
+
+        /**
+         * Groups rows by time bucket, in time order. Rows without a timestamp have no group.
+         */
+        private List<String> groupTimes(DataSet dataSet, String xColumn, TimeBucket bucket, int rowCount) {
+            List<String> groupLabels = new ArrayList<>();
+            TimestampColumn time = dataSet.getTimestampColumn(xColumn);
+            if (time == null || time.getMin() > time.getMax()) {
+                return groupLabels;
+            }
+            // Number the possible buckets densely from the first one
+            long first = bucket.floor(time.getMin());
+            long keyCount;
+            int[] monthOfDay = null; // Months are numbered through the day of each row
+            long firstDay = Math.floorDiv(time.getMin(), DAY_MILLIS);
+            if (bucket.isFixedWidth()) {
+                keyCount = (bucket.floor(time.getMax()) - first) / bucket.getWidth() + 1;
+            } else {
+                long dayCount = Math.floorDiv(time.getMax(), DAY_MILLIS) - firstDay + 1;
+                if (dayCount > MAX_DENSE_BUCKETS) {
+                    System.err.println("Cannot link " + xColumn + ": time span too long.");
+                    return groupLabels;
+                }
+                LocalDate firstMonth = LocalDate.ofEpochDay(firstDay).withDayOfMonth(1);
+                monthOfDay = new int[(int) dayCount];
+                for (int d = 0; d < dayCount; d++) {
+                    LocalDate date = LocalDate.ofEpochDay(firstDay + d);
+                    monthOfDay[d] = (date.getYear() - firstMonth.getYear()) * 12 + date.getMonthValue() - firstMonth.getMonthValue();
+                }
+                keyCount = monthOfDay[monthOfDay.length - 1] + 1;
+            }
+            if (keyCount > MAX_DENSE_BUCKETS) {
+                System.err.println("Cannot link " + xColumn + ": too many " + bucket.name().toLowerCase() + " buckets.");
+                return groupLabels;
+            }
+
+            long[] millis = time.millis();
+            int size = Math.min(rowCount, time.size());
+            rowGroups = new int[rowCount];
+            Arrays.fill(rowGroups, -1);
+            boolean[] present = new boolean[(int) keyCount];
+            for (int row = 0; row < size; row++) {
+                if (!time.isNull(row)) {
+                    int key = monthOfDay != null ? monthOfDay[(int) (Math.floorDiv(millis[row], DAY_MILLIS) - firstDay)]
+                            : (int) ((millis[row] - first) / bucket.getWidth());
+                    rowGroups[row] = key;
+                    present[key] = true;
+                }
+            }
+            int[] keyToGroup = new int[(int) keyCount];
+            for (int key = 0; key < keyCount; key++) {
+                if (present[key]) {
+                    keyToGroup[key] = groupLabels.size();
+                    long start = monthOfDay != null ? LocalDate.ofEpochDay(first / DAY_MILLIS).plusMonths(key).toEpochDay() * DAY_MILLIS
+                            : first + key * bucket.getWidth();
+                    groupLabels.add(bucket.format(start));
+                }
+            }
+            for (int row = 0; row < rowCount; row++) {
+                if (rowGroups[row] >= 0) {
+                    rowGroups[row] = keyToGroup[rowGroups[row]];
+                }
+            }
+            return groupLabels;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package datavisualizer.model.dashboard;
+
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.filter.SelectionVector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * A set of linked charts over the same dataset, evaluated together.
+ * <p>
+ * Charts are grouped by (X column, time granularity); each group is aggregated in one pass covering every Y column
+ * its charts need, and the groups are built in parallel (see {@link CrossFilter}). Selecting groups in one chart
+ * (brushing) filters all the others. Brushes are kept here by dimension key, so they survive rebuilding the
+ * cross-filter when charts are added or the base filter changes.
+ */
+public class Dashboard {
+
+    private final List<DashboardChart> charts = new ArrayList<>();
+    private final Map<String, Set<String>> brushes = new HashMap<>(); // Dimension key -> labels kept
+    private BiConsumer<String, Set<String>> brushListener = (key, labels) -> { };
+
+    /**
+     * Adds a chart.
+     *
+     * @param chart The chart.
+     */
+    public void add(DashboardChart chart) {
+        charts.add(Objects.requireNonNull(chart));
+    }
+
+    /**
+     * Removes the chart at a position.
+     *
+     * @param index The position.
+     */
+    public void remove(int index) {
+        charts.remove(index);
+    }
+
+    /**
+     * Removes every chart and brush.
+     */
+    public void clear() {
+        charts.clear();
+        brushes.clear();
+    }
+
+    /**
+     * Gets the charts.
+     *
+     * @return An immutable list of the charts, in the order they were added.
+     */
+    public List<DashboardChart> getCharts() {
+        return List.copyOf(charts);
+    }
+
+    /**
+     * Sets the listener notified whenever a brush changes through {@link #setBrush(String, Set)}.
+     *
+     * @param brushListener Receives the dimension key and the new labels (null when the brush is removed).
+     */
+    public void setBrushListener(BiConsumer<String, Set<String>> brushListener) {
+        this.brushListener = brushListener;
+    }
+
+    /**
+     * Sets the brush of a dimension and notifies the brush listener.
+     *
+     * @param key    The dimension key, see {@link CrossFilter#dimensionKey}.
+     * @param labels The group labels to keep, or null (or empty) to remove the brush.
+     */
+    public void setBrush(String key, Set<String> labels) {
+        if (labels == null || labels.isEmpty()) {
+            labels = null;
+            brushes.remove(key);
+        } else {
+            labels = Set.copyOf(labels);
+            brushes.put(key, labels);
+        }
+        brushListener.accept(key, labels);
+    }
+
+    /**
+     * Gets the brush of a dimension.
+     *
+     * @param key The dimension key.
+     * @return An immutable set of the labels kept, or null if the dimension is not brushed.
+     */
+    public Set<String> getBrush(String key) {
+        return brushes.get(key);
+    }
+
+    /**
+     * Gets every brush.
+     *
+     * @return An immutable copy of the brushes by dimension key.
+     */
+    public Map<String, Set<String>> getBrushes() {
+        return Map.copyOf(brushes);
+    }
+
+    /**
+     * Drops every brush without notifying the listener, e.g. when another dataset is shown.
+     */
+    public void clearBrushes() {
+        brushes.clear();
+    }
+
+    /**
+     * Builds the cross-filter of the charts over the selected rows, one parallel pass per dimension,
+     * with the current brushes applied. The selection must not change until the returned future completes.
+     *
+     * @param dataSet   The dataset.
+     * @param selection The selected rows, or null for all rows.
+     * @param executor  The executor to build the dimensions on.
+     * @return A future completing with the cross-filter.
+     * @throws IllegalArgumentException If the charts have more than {@link CrossFilter#MAX_DIMENSIONS} dimensions.
+     */
+    public CompletableFuture<CrossFilter> link(DataSet dataSet, SelectionVector selection, Executor executor) {
+        Map<String, Set<String>> current = getBrushes();
+        return CrossFilter.create(dataSet, selection, getCharts(), executor).thenApply(crossFilter -> {
+            applyBrushes(crossFilter, current);
+            return crossFilter;
+        });
+    }
+
+    /**
+     * Brings the brushes of a cross-filter in line with the dashboard's, e.g. after brushes changed while it was built.
+     *
+     * @param crossFilter The cross-filter of the charts.
+     */
+    public void applyBrushes(CrossFilter crossFilter) {
+        applyBrushes(crossFilter, brushes);
+    }
+
+    private static void applyBrushes(CrossFilter crossFilter, Map<String, Set<String>> brushes) {
+        for (int d = 0; d < crossFilter.getDimensionCount(); d++) {
+            Set<String> labels = brushes.get(crossFilter.getDimensionKey(d));
+            if (!Objects.equals(labels, crossFilter.getBrush(d))) {
+                crossFilter.setBrush(d, labels);
+            }
+        }
+    }
+}
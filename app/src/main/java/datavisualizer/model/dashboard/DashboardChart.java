@@ -0,0 +1,92 @@
+package datavisualizer.model.dashboard;
+
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.time.TimeBucket;
+
+import java.util.List;
+
+/**
+ * One chart of a dashboard: chart type, X column, Y columns and time granularity. Immutable.
+ */
+public final class DashboardChart {
+
+    private final ChartType chartType;
+    private final String xColumn;
+    private final List<String> yColumns;
+    private final TimeBucket timeBucket;
+
+    /**
+     * Constructs a dashboard chart.
+     *
+     * @param chartType  The type of chart.
+     * @param xColumn    The X column.
+     * @param yColumns   The Y columns (only the first is used for pie charts).
+     * @param timeBucket The granularity for a timestamp X column, or null for automatic.
+     */
+    public DashboardChart(ChartType chartType, String xColumn, List<String> yColumns, TimeBucket timeBucket) {
+        this.chartType = chartType;
+        this.xColumn = xColumn;
+        this.yColumns = List.copyOf(yColumns);
+        this.timeBucket = timeBucket;
+    }
+
+    /**
+     * Gets the chart type.
+     *
+     * @return The chart type.
+     */
+    public ChartType getChartType() {
+        return chartType;
+    }
+
+    /**
+     * Gets the X column.
+     *
+     * @return The column name.
+     */
+    public String getXColumn() {
+        return xColumn;
+    }
+
+    /**
+     * Gets the Y columns.
+     *
+     * @return An unmodifiable list of column names.
+     */
+    public List<String> getYColumns() {
+        return yColumns;
+    }
+
+    /**
+     * Gets the Y columns the chart actually draws.
+     *
+     * @return The first Y column for pie charts, otherwise all of them.
+     */
+    public List<String> getValueColumns() {
+        return chartType == ChartType.PIE ? yColumns.subList(0, 1) : yColumns;
+    }
+
+    /**
+     * Gets the requested time granularity.
+     *
+     * @return The time bucket, or null for automatic.
+     */
+    public TimeBucket getTimeBucket() {
+        return timeBucket;
+    }
+
+    /**
+     * Gets a short title for the chart's tile, e.g. "BAR: revenue, profit by region".
+     *
+     * @return The title.
+     */
+    public String getTitle() {
+        return chartType + ": " + String.join(", ", getValueColumns()) + " by " + xColumn
+                + (timeBucket != null ? " (" + timeBucket.name().toLowerCase() + ")" : "");
+    }
+
+    @Override
+    public String toString() {
+        return getTitle();
+    }
+}
@@ -0,0 +1,103 @@
+package datavisualizer.model.dataset;
+
+import java.util.Arrays;
+
+/**
+ * A growable sequence of bits, most significant bit first within each 64-bit word, for the compressed column
+ * encodings. Values are written with a fixed or variable number of bits and read back in the same order.
+ */
+final class BitStream {
+
+    private long[] words = new long[16];
+    private long length; // In bits
+
+    /**
+     * Appends the low bits of a value.
+     *
+     * @param value The value; bits above {@code bits} are ignored.
+     * @param bits  The number of bits to write, 0 to 64.
+     */
+    void write(long value, int bits) {
+        if (bits == 0) {
+            return;
+        }
+        if (bits < 64) {
+            value &= (1L << bits) - 1;
+        }
+        int word = (int) (length >>> 6);
+        int free = 64 - (int) (length & 63);
+        if (word + 1 >= words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        if (bits <= free) {
+            words[word] |= value << (free - bits);
+        } else {
+            words[word] |= value >>> (bits - free);
+            words[word + 1] |= value << (64 - (bits - free));
+        }
+        length += bits;
+    }
+
+    /**
+     * Gets the number of bits written.
+     *
+     * @return The length in bits.
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Gets the bits written, trimmed to size.
+     *
+     * @return The words, with one spare word so readers never index past the end.
+     */
+    long[] toWords() {
+        return Arrays.copyOf(words, (int) ((length + 63) >>> 6) + 1);
+    }
+
+    /**
+     * Reads bits from the words of a stream, from a position on.
+     */
+    static final class Reader {
+        private final long[] words;
+        private long position;
+
+        Reader(long[] words, long position) {
+            this.words = words;
+            this.position = position;
+        }
+
+        /**
+         * Reads the next bits as an unsigned value.
+         *
+         * @param bits The number of bits, 0 to 64.
+         * @return The value.
+         */
+        long read(int bits) {
+            if (bits == 0) {
+                return 0;
+            }
+            int word = (int) (position >>> 6);
+            int used = (int) (position & 63);
+            int free = 64 - used;
+            position += bits;
+            if (bits <= free) {
+                return (words[word] << used) >>> (64 - bits);
+            }
+            long high = (words[word] << used) >>> used;
+            return (high << (bits - free)) | (words[word + 1] >>> (64 - (bits - free)));
+        }
+
+        /**
+         * Reads the next bit.
+         *
+         * @return true for a one bit.
+         */
+        boolean readBit() {
+            long bit = (words[(int) (position >>> 6)] >>> (63 - (position & 63))) & 1L;
+            position++;
+            return bit != 0;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package datavisualizer.model.dataset;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed, dictionary-encoded view of a single dataset column.
+ * Every distinct text value gets an integer code in order of first appearance,
+ * and rows store only the code. Null cells use {@link #NULL_CODE}.
+ */
+public class CategoricalColumn {
+
+    /** Code used for rows without a value. */
+    public static final int NULL_CODE = -1;
+
+    private final String name;
+    private final int[] codes;
+    private final List<String> dictionary;
+    private final Map<String, Integer> codeLookup;
+
+    /**
+     * Constructs a categorical column from already encoded data.
+     *
+     * @param name       The column name.
+     * @param codes      The code of each row.
+     * @param dictionary The distinct values, indexed by code.
+     */
+    public CategoricalColumn(String name, int[] codes, List<String> dictionary) {
+        this.name = name;
+        this.codes = codes;
+        this.dictionary = Collections.unmodifiableList(dictionary);
+        this.codeLookup = new HashMap<>();
+        for (int code = 0; code < dictionary.size(); code++) {
+            codeLookup.put(dictionary.get(code), code);
+        }
+    }
+
+    /**
+     * Builds a categorical column from row-oriented data, using the text form of each value.
+     *
+     * @param name The column name.
+     * @param rows The data rows.
+     * @return The encoded column.
+     */
+    public static CategoricalColumn fromRows(String name, List<Map<String, Object>> rows) {
+        int size = rows.size();
+        int[] codes = new int[size];
+        List<String> dictionary = new ArrayList<>();
+        Map<String, Integer> lookup = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Object value = rows.get(i).get(name);
+            if (value == null) {
+                codes[i] = NULL_CODE;
+                continue;
+            }
+            String text = value.toString();
+            Integer code = lookup.get(text);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(text);
+                lookup.put(text, code);
+            }
+            codes[i] = code;
+        }
+        return new CategoricalColumn(name, codes, dictionary);
+    }
+
+    /**
+     * Builds a categorical column from a numeric view, e.g. of a computed column.
+     * Values are shown with up to 12 significant digits, so results like 0.1 + 0.2 read as "0.3".
+     *
+     * @param column The numeric column.
+     * @return The encoded column.
+     */
+    public static CategoricalColumn fromNumeric(NumericColumn column) {
+        int size = column.size();
+        int[] codes = new int[size];
+        List<String> dictionary = new ArrayList<>();
+        Map<String, Integer> lookup = new HashMap<>();
+        Map<Double, Integer> codeOfValue = new HashMap<>(); // Formats each distinct value once
+        double[] values = column.values();
+        for (int i = 0; i < size; i++) {
+            if (column.isNull(i)) {
+                codes[i] = NULL_CODE;
+                continue;
+            }
+            Integer code = codeOfValue.get(values[i]);
+            if (code == null) {
+                String text = new BigDecimal(values[i]).round(new MathContext(12)).stripTrailingZeros().toPlainString();
+                code = lookup.get(text); // Values that only differ beyond 12 digits share a category
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.add(text);
+                    lookup.put(text, code);
+                }
+                codeOfValue.put(values[i], code);
+            }
+            codes[i] = code;
+        }
+        return new CategoricalColumn(column.getName(), codes, dictionary);
+    }
+
+    /**
+     * Gets the column name.
+     *
+     * @return The column name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of rows in the column.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Gets the code of a row.
+     *
+     * @param row The row index.
+     * @return The dictionary code, or {@link #NULL_CODE} for null rows.
+     */
+    public int getCode(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Gets the text value of a row.
+     *
+     * @param row The row index.
+     * @return The value, or null for null rows.
+     */
+    public String getValue(int row) {
+        int code = codes[row];
+        return code == NULL_CODE ? null : dictionary.get(code);
+    }
+
+    /**
+     * Looks up the code of a value.
+     *
+     * @param value The text value.
+     * @return The code, or {@link #NULL_CODE} if the value does not occur in the column.
+     */
+    public int codeOf(String value) {
+        Integer code = codeLookup.get(value);
+        return code != null ? code : NULL_CODE;
+    }
+
+    /**
+     * Gets the distinct values, indexed by code.
+     *
+     * @return An unmodifiable list of distinct values.
+     */
+    public List<String> getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Gets the number of distinct non-null values.
+     *
+     * @return The dictionary size.
+     */
+    public int getCardinality() {
+        return dictionary.size();
+    }
+
+    /**
+     * Gets the backing code array for tight loops. Must not be modified.
+     *
+     * @return The codes array.
+     */
+    public int[] codes() {
+        return codes;
+    }
+}
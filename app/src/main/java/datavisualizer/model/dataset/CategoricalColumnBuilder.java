@@ -0,0 +1,71 @@
+package datavisualizer.model.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incrementally builds a CategoricalColumn while a file is being read, for loads that keep no row maps.
+ * Equal values share one dictionary entry, so repeated text is stored once.
+ */
+public class CategoricalColumnBuilder {
+
+    private final String name;
+    private int[] codes;
+    private int size;
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> lookup = new HashMap<>();
+
+    /**
+     * Constructs a builder.
+     *
+     * @param name            The column name.
+     * @param initialCapacity The expected number of rows.
+     */
+    public CategoricalColumnBuilder(String name, int initialCapacity) {
+        this.name = name;
+        this.codes = new int[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Appends a cell.
+     *
+     * @param value The text, or null for an empty cell.
+     */
+    public void append(String value) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size + (size >> 1));
+        }
+        if (value == null) {
+            codes[size++] = CategoricalColumn.NULL_CODE;
+            return;
+        }
+        Integer code = lookup.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            lookup.put(value, code);
+        }
+        codes[size++] = code;
+    }
+
+    /**
+     * Gets the number of cells appended so far.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Builds the column, trimming the codes to size.
+     *
+     * @return The categorical column.
+     */
+    public CategoricalColumn build() {
+        return new CategoricalColumn(name, Arrays.copyOf(codes, size), dictionary);
+    }
+}
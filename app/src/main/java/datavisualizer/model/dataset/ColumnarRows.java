@@ -0,0 +1,137 @@
+package datavisualizer.model.dataset;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Read-only rows over typed columns, for datasets loaded without row maps (see {@link LoadPlan}).
+ * Each row is a small view that reads its values from the columns on access: numeric columns give
+ * {@link Double}s, categorical columns their text. Code that iterates rows keeps working, while the memory
+ * needed is that of the columns alone.
+ */
+public final class ColumnarRows extends AbstractList<Map<String, Object>> implements RandomAccess {
+
+    private final List<String> columnNames;
+    private final Object[] columns; // NumericColumn or CategoricalColumn, in column order
+    private final int size;
+
+    /**
+     * Constructs the rows.
+     *
+     * @param columnNames The column names.
+     * @param columns     The column of each name, a NumericColumn or a CategoricalColumn, all of the same size.
+     * @param size        The number of rows.
+     */
+    public ColumnarRows(List<String> columnNames, List<Object> columns, int size) {
+        this.columnNames = List.copyOf(columnNames);
+        this.columns = columns.toArray();
+        this.size = size;
+        for (Object column : this.columns) {
+            if (!(column instanceof NumericColumn) && !(column instanceof CategoricalColumn)) {
+                throw new IllegalArgumentException("Unsupported column: " + column);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return new Row(row);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the typed columns backing the rows.
+     *
+     * @return The NumericColumn or CategoricalColumn of each column name, in column order.
+     */
+    public List<Object> getColumns() {
+        return List.of(columns);
+    }
+
+    /**
+     * Swaps in a different representation of a numeric column, e.g. a compressed one, holding the same values.
+     */
+    void replaceColumn(NumericColumn column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] instanceof NumericColumn && columnNames.get(i).equals(column.getName())) {
+                columns[i] = column;
+            }
+        }
+    }
+
+    private Object value(int column, int row) {
+        Object typed = columns[column];
+        if (typed instanceof NumericColumn) {
+            NumericColumn numeric = (NumericColumn) typed;
+            return numeric.isNull(row) ? null : numeric.getDouble(row);
+        }
+        return ((CategoricalColumn) typed).getValue(row);
+    }
+
+    /**
+     * One row, read from the columns on access.
+     */
+    private final class Row extends AbstractMap<String, Object> {
+        private final int row;
+
+        Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int column = columnNames.indexOf(key);
+            return column < 0 ? null : value(column, row);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return columnNames.contains(key);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int column;
+
+                        @Override
+                        public boolean hasNext() {
+                            return column < columns.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = column++;
+                            return new SimpleImmutableEntry<>(columnNames.get(current), value(current, row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columns.length;
+                }
+            };
+        }
+    }
+}
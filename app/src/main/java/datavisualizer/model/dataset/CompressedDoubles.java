@@ -0,0 +1,105 @@
+package datavisualizer.model.dataset;
+
+/**
+ * Numeric column values stored compressed in independent blocks of {@link DoubleBlockIterator#BLOCK_SIZE} rows, so
+ * scans decode one block at a time (see {@link DoubleBlockIterator}) and never inflate the whole column.
+ * <p>
+ * Two encodings are tried and the smaller one kept:
+ * <ul>
+ *     <li>{@link PackedDecimals}: values that are integers, or decimals with a few places (as read from text), are
+ *     scaled to integers and bit-packed per block relative to the block minimum (frame of reference).</li>
+ *     <li>{@link GorillaDoubles}: any doubles, each XORed with the previous one and stored as the meaningful bits
+ *     of the XOR, as in Facebook's Gorilla time-series store.</li>
+ * </ul>
+ * Both are lossless. Values of null rows are not kept: they decode as some other value of the column, which
+ * callers ignore as they do for plain columns.
+ */
+public abstract class CompressedDoubles {
+
+    // Compressing must save at least this share of the plain size to be worth the decoding
+    private static final double MIN_SAVING = 0.2;
+
+    /**
+     * Compresses column values with the smallest encoding, if that is worth it.
+     *
+     * @param values   The values, one per row.
+     * @param nullMask Bitmap where a set bit marks a null row.
+     * @param size     The number of rows.
+     * @return The compressed values, or null if no encoding is clearly smaller than the plain array.
+     */
+    public static CompressedDoubles encode(double[] values, long[] nullMask, int size) {
+        CompressedDoubles best = PackedDecimals.pack(values, nullMask, size); // Null if the values are not decimals
+        if (best == null || best.sizeInBytes() > 2L * size) { // Over 2 bytes per value, XOR encoding may do better
+            CompressedDoubles xor = GorillaDoubles.xorEncode(values, nullMask, size);
+            if (best == null || xor.sizeInBytes() < best.sizeInBytes()) {
+                best = xor;
+            }
+        }
+        return best.sizeInBytes() <= (1 - MIN_SAVING) * 8L * size ? best : null;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The row count.
+     */
+    public abstract int size();
+
+    /**
+     * Decodes one block.
+     *
+     * @param block The block number, from 0.
+     * @param out   Receives the values of the block's rows, from index 0.
+     * @return The number of rows in the block.
+     */
+    public abstract int decodeBlock(int block, double[] out);
+
+    /**
+     * Decodes the value of one row. Depending on the encoding this decodes part of its block; scans should use
+     * {@link #decodeBlock}.
+     *
+     * @param row The row index.
+     * @return The value.
+     */
+    public abstract double get(int row);
+
+    /**
+     * Estimates the heap used by the encoded values.
+     *
+     * @return The footprint in bytes.
+     */
+    public abstract long sizeInBytes();
+
+    /**
+     * Gets the name of the encoding, for footprint reports.
+     *
+     * @return The name.
+     */
+    public abstract String getEncoding();
+
+    /**
+     * Decodes every row into a new array.
+     *
+     * @return The values.
+     */
+    public double[] inflate() {
+        double[] values = new double[size()];
+        double[] block = new double[DoubleBlockIterator.BLOCK_SIZE];
+        for (int b = 0, start = 0; start < values.length; b++, start += block.length) {
+            int count = decodeBlock(b, block);
+            System.arraycopy(block, 0, values, start, count);
+        }
+        return values;
+    }
+
+    /**
+     * Gets the number of blocks over a number of rows.
+     */
+    static int blockCount(int size) {
+        return (size + DoubleBlockIterator.BLOCK_SIZE - 1) / DoubleBlockIterator.BLOCK_SIZE;
+    }
+
+    static boolean isNull(long[] nullMask, int row) {
+        return (nullMask[row >>> 6] & (1L << row)) != 0;
+    }
+}
@@ -0,0 +1,131 @@
+package datavisualizer.model.dataset;
+
+import datavisualizer.model.expression.Expression;
+
+import java.lang.invoke.MethodHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A numeric column derived from other columns by an {@link Expression}, e.g. {@code revenue - cost}.
+ * <p>
+ * The expression is parsed when the column is defined and compiled when the column is first used; the values
+ * are then computed a block of rows at a time over the source columns' typed arrays and cached by the dataset
+ * like any other numeric view. A row is null if any column the expression reads is null there, or if the result is
+ * not a finite number (e.g. a division by zero). Immutable.
+ */
+public final class ComputedColumn {
+
+    private final String name;
+    private final String expressionText;
+    private final Expression expression;
+
+    /**
+     * Defines a computed column.
+     *
+     * @param name           The column name.
+     * @param expressionText The expression, see {@link Expression} for the syntax.
+     * @throws IllegalArgumentException If the name is blank or the expression is not valid.
+     */
+    public ComputedColumn(String name, String expressionText) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Column name is empty.");
+        }
+        this.name = name.strip();
+        this.expressionText = expressionText;
+        this.expression = Expression.parse(expressionText);
+    }
+
+    /**
+     * Gets the column name.
+     *
+     * @return The column name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the expression as entered.
+     *
+     * @return The expression text.
+     */
+    public String getExpressionText() {
+        return expressionText;
+    }
+
+    /**
+     * Gets the columns the expression reads.
+     *
+     * @return The column names, in order of first use.
+     */
+    public Set<String> getSourceColumns() {
+        return expression.getColumns();
+    }
+
+    /**
+     * Computes the column's values over a dataset.
+     *
+     * @param dataSet The dataset holding the source columns.
+     * @return The numeric column.
+     * @throws IllegalStateException If a source column is missing or the expression cannot be evaluated.
+     */
+    NumericColumn materialize(DataSet dataSet) {
+        int size = dataSet.getRowCount();
+        Map<String, double[]> sources = new HashMap<>();
+        long[] nullMask = new long[NumericColumn.wordCount(size)];
+        for (String source : getSourceColumns()) {
+            NumericColumn column = dataSet.getNumericColumn(source);
+            if (column == null) {
+                throw new IllegalStateException("Column " + name + " reads missing column " + source + ".");
+            }
+            sources.put(source, column.values());
+            long[] sourceNulls = column.nullMask();
+            for (int i = 0; i < Math.min(nullMask.length, sourceNulls.length); i++) {
+                nullMask[i] |= sourceNulls[i];
+            }
+        }
+        MethodHandle compiled = expression.compile(sources::get);
+        double[] values = new double[size];
+        try {
+            for (int from = 0; from < size; from += Expression.BLOCK_SIZE) {
+                int count = Math.min(Expression.BLOCK_SIZE, size - from);
+                double[] block = (double[]) compiled.invokeExact(from, count);
+                System.arraycopy(block, 0, values, from, count);
+                for (int i = 0; i < count; i++) {
+                    if (!Double.isFinite(block[i])) {
+                        int row = from + i;
+                        nullMask[row >>> 6] |= 1L << row;
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not compute column " + name + ": " + e.getMessage(), e);
+        }
+        return new NumericColumn(name, values, nullMask, size);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ComputedColumn)) {
+            return false;
+        }
+        ComputedColumn column = (ComputedColumn) other;
+        return name.equals(column.name) && expressionText.equals(column.expressionText);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, expressionText);
+    }
+
+    @Override
+    public String toString() {
+        return name + " = " + expression;
+    }
+}
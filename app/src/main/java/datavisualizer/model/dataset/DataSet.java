@@ -1,8 +1,20 @@
 // DataVisualizerFX/src/main/java/datavisualizerfx/model/dataset/DataSet.java
 package datavisualizer.model.dataset;
 
+import datavisualizer.model.index.CategoricalIndex;
+import datavisualizer.model.aggregate.CategorySumCache;
+import datavisualizer.model.overlay.OverlayCache;
+import datavisualizer.model.time.TimeRollupCache;
+import datavisualizer.model.time.TimestampParser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Represents a dataset loaded from a file.
@@ -12,6 +24,28 @@ public class DataSet {
 
     private List<String> columnNames;
     private List<Map<String, Object>> data;
+    // Columns derived by expressions, and the source columns followed by them; only changed on the FX thread
+    private final Map<String, ComputedColumn> computedColumns = new ConcurrentHashMap<>();
+    private volatile List<String> allColumnNames;
+
+    // Typed column views, built lazily on first use and cached for repeated filtering/aggregation
+    private final Map<String, NumericColumn> numericColumns = new ConcurrentHashMap<>();
+    private final Map<String, CategoricalColumn> categoricalColumns = new ConcurrentHashMap<>();
+    // Optional bitmap indexes over low-cardinality columns, built once after loading
+    private final Map<String, CategoricalIndex> categoricalIndexes = new ConcurrentHashMap<>();
+    private final Map<String, TimestampColumn> timestampColumns = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> timestampDetection = new ConcurrentHashMap<>();
+    private final CategorySumCache categorySums = new CategorySumCache();
+    private final TimeRollupCache timeRollups = new TimeRollupCache();
+    private final OverlayCache overlays = new OverlayCache();
+    private LoadPlan loadPlan = LoadPlan.FULL; // How the rows were loaded; degraded plans keep no row maps or not every row
+    private DataSet variances; // For datasets of estimates, the sampling variance of each Y cell
+    private volatile boolean compressColumns; // Whether numeric and timestamp views are kept compressed
+
+    // Number of rows sampled when estimating the footprint of the row maps
+    private static final int ROW_SAMPLE = 1000;
+    // Number of non-empty values inspected when deciding whether a column holds timestamps
+    private static final int TIMESTAMP_DETECTION_SAMPLE = 100;
 
     /**
      * Constructs a new DataSet.
@@ -22,17 +56,170 @@ public class DataSet {
     public DataSet(List<String> columnNames, List<Map<String, Object>> data) {
         this.columnNames = columnNames;
         this.data = data;
+        this.allColumnNames = columnNames;
+    }
+
+    /**
+     * Creates a dataset from typed columns, without row maps. The rows are a view over the columns, see
+     * {@link ColumnarRows}.
+     *
+     * @param columnNames The names of the columns.
+     * @param columns     The column of each name, a NumericColumn or a CategoricalColumn.
+     * @param rowCount    The number of rows.
+     * @return The dataset, with the columns registered as its typed views.
+     */
+    public static DataSet fromColumns(List<String> columnNames, List<Object> columns, int rowCount) {
+        DataSet dataSet = new DataSet(columnNames, new ColumnarRows(columnNames, columns, rowCount));
+        for (Object column : columns) {
+            if (column instanceof NumericColumn) {
+                dataSet.putNumericColumn((NumericColumn) column);
+            } else {
+                dataSet.putCategoricalColumn((CategoricalColumn) column);
+            }
+        }
+        return dataSet;
+    }
+
+    /**
+     * Gets the plan the dataset was loaded with.
+     *
+     * @return The load plan; {@link LoadPlan#FULL} unless a degraded mode was chosen.
+     */
+    public LoadPlan getLoadPlan() {
+        return loadPlan;
+    }
+
+    /**
+     * Records the plan the dataset was loaded with.
+     *
+     * @param loadPlan The load plan.
+     */
+    public void setLoadPlan(LoadPlan loadPlan) {
+        this.loadPlan = loadPlan;
+    }
+
+    /**
+     * Gets the sampling variances of a dataset of estimates, e.g. one made by
+     * {@link datavisualizer.model.aggregate.ApproximateAggregation}.
+     *
+     * @return A dataset with the same rows and X column, holding the variance of each numeric cell under the
+     *         numeric column's name; null if the values are exact.
+     */
+    public DataSet getVariances() {
+        return variances;
+    }
+
+    /**
+     * Records the sampling variances of the dataset's values.
+     *
+     * @param variances The variances, see {@link #getVariances()}; null if the values are exact.
+     */
+    public void setVariances(DataSet variances) {
+        this.variances = variances;
+    }
+
+    /**
+     * Keeps the numeric and timestamp views compressed (see {@link NumericColumn#compress()} and
+     * {@link TimestampColumn#compress()}): the views built so far are compressed now, and views built later as
+     * they are built. Computed columns, which are rebuilt on every edit, and columns that would not shrink enough
+     * stay plain.
+     */
+    public void compressColumns() {
+        compressColumns = true;
+        for (NumericColumn column : numericColumns.values()) {
+            NumericColumn compressed = isComputedColumn(column.getName()) ? column : column.compress();
+            if (compressed != column) {
+                numericColumns.replace(column.getName(), column, compressed);
+                if (data instanceof ColumnarRows) {
+                    ((ColumnarRows) data).replaceColumn(compressed);
+                }
+            }
+        }
+        timestampColumns.replaceAll((name, column) -> column.compress());
     }
 
     /**
-     * Gets the list of column names.
+     * Checks whether the numeric and timestamp views are kept compressed.
+     *
+     * @return true after {@link #compressColumns()}.
+     */
+    public boolean isCompressingColumns() {
+        return compressColumns;
+    }
+
+    /**
+     * Checks whether the rows are a view over typed columns rather than row maps.
+     *
+     * @return true if the dataset was created with {@link #fromColumns}.
+     */
+    public boolean isColumnar() {
+        return data instanceof ColumnarRows;
+    }
+
+    /**
+     * Gets the list of column names, including computed columns (after the columns read from the file).
      *
      * @return The list of column names.
      */
     public List<String> getColumnNames() {
+        return allColumnNames;
+    }
+
+    /**
+     * Gets the names of the columns read from the file, without computed columns.
+     *
+     * @return The list of source column names.
+     */
+    List<String> getSourceColumnNames() {
         return columnNames;
     }
 
+    /**
+     * Adds a computed column. Its values are computed on first use and cached like any numeric view.
+     * Computed columns may read other computed columns defined before them.
+     *
+     * @param column The computed column.
+     * @throws IllegalArgumentException If a column with that name exists, or a column the expression reads is
+     *                                  missing or holds no numeric values.
+     */
+    public void addComputedColumn(ComputedColumn column) {
+        if (allColumnNames.contains(column.getName())) {
+            throw new IllegalArgumentException("Column " + column.getName() + " already exists.");
+        }
+        for (String source : column.getSourceColumns()) {
+            if (!allColumnNames.contains(source)) {
+                throw new IllegalArgumentException("Unknown column: " + source + ".");
+            }
+            NumericColumn numeric = getNumericColumn(source);
+            if (numeric.size() > 0 && numeric.getNullCount() == numeric.size()) {
+                throw new IllegalArgumentException("Column " + source + " holds no numbers.");
+            }
+        }
+        computedColumns.put(column.getName(), column);
+        List<String> names = new ArrayList<>(allColumnNames);
+        names.add(column.getName());
+        allColumnNames = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Checks whether a column is computed by an expression.
+     *
+     * @param columnName The name of the column.
+     * @return true if the column is computed.
+     */
+    public boolean isComputedColumn(String columnName) {
+        return computedColumns.containsKey(columnName);
+    }
+
+    /**
+     * Gets the computed columns.
+     *
+     * @return The computed columns, in the order they were added.
+     */
+    public List<ComputedColumn> getComputedColumns() {
+        return allColumnNames.stream().filter(computedColumns::containsKey).map(computedColumns::get).collect(Collectors.toList());
+    }
+
     /**
      * Gets the list of data rows.
      *
@@ -42,6 +229,311 @@ public class DataSet {
         return data;
     }
 
+    /**
+     * Gets the number of data rows.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return data.size();
+    }
+
+    /**
+     * Gets a typed numeric view of a column. Built on first access and cached.
+     * Values that are missing or not numeric are marked as null in the column.
+     *
+     * @param columnName The name of the column.
+     * @return The numeric column, or null if the column does not exist.
+     */
+    public NumericColumn getNumericColumn(String columnName) {
+        if (!allColumnNames.contains(columnName)) {
+            return null;
+        }
+        ComputedColumn computed = computedColumns.get(columnName);
+        if (computed != null) {
+            // Not computeIfAbsent: materializing reads other numeric views, which must not update this map re-entrantly
+            NumericColumn column = numericColumns.get(columnName);
+            if (column == null) {
+                column = computed.materialize(this);
+                NumericColumn raced = numericColumns.putIfAbsent(columnName, column);
+                column = raced != null ? raced : column;
+            }
+            return column;
+        }
+        return numericColumns.computeIfAbsent(columnName, name -> {
+            NumericColumn column = NumericColumn.fromRows(name, data);
+            return compressColumns ? column.compress() : column;
+        });
+    }
+
+    /**
+     * Registers a numeric view that was already built, e.g. by a parser while reading the file,
+     * so it does not have to be re-derived from the row maps.
+     *
+     * @param column The numeric column; its name must be one of the dataset's columns.
+     */
+    public void putNumericColumn(NumericColumn column) {
+        if (columnNames.contains(column.getName()) && column.size() == data.size()) {
+            numericColumns.put(column.getName(), column);
+        }
+    }
+
+    /**
+     * Registers a dictionary-encoded view that was already built, e.g. when restoring a cached dataset,
+     * so it does not have to be re-derived from the row maps.
+     *
+     * @param column The categorical column; its name must be one of the dataset's columns.
+     */
+    public void putCategoricalColumn(CategoricalColumn column) {
+        if (columnNames.contains(column.getName()) && column.size() == data.size()) {
+            categoricalColumns.put(column.getName(), column);
+        }
+    }
+
+    /**
+     * Gets the numeric views built so far, e.g. to persist them alongside the rows.
+     *
+     * @return The numeric columns, in no particular order.
+     */
+    Collection<NumericColumn> getBuiltNumericColumns() {
+        return numericColumns.values().stream().filter(column -> !isComputedColumn(column.getName())).collect(Collectors.toList());
+    }
+
+    /**
+     * Gets a dictionary-encoded view of a column. Built on first access and cached.
+     *
+     * @param columnName The name of the column.
+     * @return The categorical column, or null if the column does not exist.
+     */
+    public CategoricalColumn getCategoricalColumn(String columnName) {
+        if (!allColumnNames.contains(columnName)) {
+            return null;
+        }
+        if (isComputedColumn(columnName)) {
+            NumericColumn values = getNumericColumn(columnName); // Outside computeIfAbsent, see getNumericColumn
+            return categoricalColumns.computeIfAbsent(columnName, name -> CategoricalColumn.fromNumeric(values));
+        }
+        return categoricalColumns.computeIfAbsent(columnName, name -> CategoricalColumn.fromRows(name, data));
+    }
+
+    /**
+     * Checks whether a column holds timestamps, by trying to parse a sample of its non-empty values.
+     * The result is cached.
+     *
+     * @param columnName The name of the column.
+     * @return true if every sampled value is a timestamp.
+     */
+    public boolean isTimestampColumn(String columnName) {
+        if (!columnNames.contains(columnName)) {
+            return false; // Computed columns are numeric
+        }
+        return timestampDetection.computeIfAbsent(columnName, name -> {
+            long[] millis = new long[1];
+            int sampled = 0;
+            for (Map<String, Object> row : data) {
+                Object value = row.get(name);
+                if (!(value instanceof CharSequence) || ((CharSequence) value).length() == 0) {
+                    continue; // Numbers and empty cells never count as timestamps
+                }
+                if (TimestampParser.parse((CharSequence) value, millis) != TimestampParser.OK) {
+                    return false;
+                }
+                if (++sampled == TIMESTAMP_DETECTION_SAMPLE) {
+                    break;
+                }
+            }
+            return sampled > 0;
+        });
+    }
+
+    /**
+     * Gets a typed timestamp view of a column (epoch milliseconds). Built on first access and cached.
+     *
+     * @param columnName The name of the column.
+     * @return The timestamp column, or null if the column does not exist or does not hold timestamps.
+     */
+    public TimestampColumn getTimestampColumn(String columnName) {
+        if (!isTimestampColumn(columnName)) {
+            return null;
+        }
+        return timestampColumns.computeIfAbsent(columnName, name -> {
+            TimestampColumn column = TimestampColumn.fromRows(name, data);
+            return compressColumns ? column.compress() : column;
+        });
+    }
+
+    /**
+     * Gets the cache of per-category sums computed over this dataset.
+     *
+     * @return The category sum cache.
+     */
+    public CategorySumCache getCategorySums() {
+        return categorySums;
+    }
+
+    /**
+     * Gets the cache of time-bucketed rollups computed over this dataset.
+     *
+     * @return The rollup cache.
+     */
+    public TimeRollupCache getTimeRollups() {
+        return timeRollups;
+    }
+
+    /**
+     * Gets the cache of chart overlays computed over this dataset's aggregated series.
+     *
+     * @return The overlay cache.
+     */
+    public OverlayCache getOverlays() {
+        return overlays;
+    }
+
+    /**
+     * Builds bitmap indexes for every column with at most the given number of distinct values.
+     * Columns that are (nearly) unique per row are skipped, since an index would not help there.
+     *
+     * @param maxCardinality The largest number of distinct values to index; 0 disables indexing.
+     */
+    public void buildCategoricalIndexes(int maxCardinality) {
+        if (maxCardinality <= 0) {
+            return;
+        }
+        for (String columnName : columnNames) {
+            if (isColumnar() && !categoricalColumns.containsKey(columnName)) {
+                continue; // A numbers-only column; a dictionary of its values would cost what the columnar load saved
+            }
+            CategoricalColumn categorical = getCategoricalColumn(columnName);
+            int cardinality = categorical.getCardinality();
+            if (cardinality <= maxCardinality && cardinality <= Math.max(1, categorical.size() / 2)) {
+                categoricalIndexes.computeIfAbsent(columnName, name -> CategoricalIndex.build(categorical));
+            }
+        }
+    }
+
+    /**
+     * Gets the bitmap index of a column, if one was built.
+     *
+     * @param columnName The name of the column.
+     * @return The index, or null if the column is not indexed.
+     */
+    public CategoricalIndex getCategoricalIndex(String columnName) {
+        return categoricalIndexes.get(columnName);
+    }
+
+    /**
+     * Estimates the heap used by the row data and the typed column views.
+     * Row sizes are extrapolated from a sample of rows; rows that are a view over the columns cost nothing extra.
+     *
+     * @return The approximate footprint in bytes.
+     */
+    public long estimateMemoryFootprint() {
+        long bytes = 0;
+        if (!isColumnar()) {
+            bytes += 16L + 16L + 4L * data.size(); // Row list
+            int sampleSize = Math.min(data.size(), ROW_SAMPLE);
+            if (sampleSize > 0) {
+                long sampleBytes = 0;
+                int step = Math.max(1, data.size() / sampleSize);
+                for (int i = 0, sampled = 0; i < data.size() && sampled < sampleSize; i += step, sampled++) {
+                    sampleBytes += estimateRowBytes(data.get(i));
+                }
+                bytes += sampleBytes * data.size() / sampleSize;
+            }
+        }
+        for (NumericColumn numeric : numericColumns.values()) {
+            bytes += numericBytes(numeric);
+        }
+        for (TimestampColumn timestamps : timestampColumns.values()) {
+            bytes += timestamps.sizeInBytes();
+        }
+        for (CategoricalColumn categorical : categoricalColumns.values()) {
+            bytes += categoricalBytes(categorical);
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the heap used by each column: its share of the row maps, its typed views and its bitmap index.
+     * Row shares are extrapolated from a sample of rows. The shared cost of the row maps themselves (map headers
+     * and tables) is not attributed to any column.
+     *
+     * @return The approximate footprint in bytes of each column, in column order including computed columns.
+     */
+    public Map<String, Long> estimateColumnFootprints() {
+        Map<String, Long> footprints = new LinkedHashMap<>();
+        int sampleSize = isColumnar() ? 0 : Math.min(data.size(), ROW_SAMPLE);
+        int step = Math.max(1, data.size() / Math.max(1, sampleSize));
+        for (String name : allColumnNames) {
+            long bytes = 0;
+            if (sampleSize > 0 && columnNames.contains(name)) {
+                long sampleBytes = 0;
+                for (int i = 0, sampled = 0; i < data.size() && sampled < sampleSize; i += step, sampled++) {
+                    sampleBytes += 32L + estimateValueBytes(data.get(i).get(name)); // Map entry and value
+                }
+                bytes += sampleBytes * data.size() / sampleSize;
+            }
+            NumericColumn numeric = numericColumns.get(name);
+            if (numeric != null) {
+                bytes += numericBytes(numeric);
+            }
+            TimestampColumn timestamps = timestampColumns.get(name);
+            if (timestamps != null) {
+                bytes += timestamps.sizeInBytes();
+            }
+            CategoricalColumn categorical = categoricalColumns.get(name);
+            if (categorical != null) {
+                bytes += categoricalBytes(categorical);
+            }
+            CategoricalIndex index = categoricalIndexes.get(name);
+            if (index != null) {
+                bytes += index.sizeInBytes();
+            }
+            footprints.put(name, bytes);
+        }
+        return footprints;
+    }
+
+    private static long numericBytes(NumericColumn numeric) {
+        return numeric.sizeInBytes();
+    }
+
+    private static long categoricalBytes(CategoricalColumn categorical) {
+        long bytes = 4L * categorical.size();
+        for (String value : categorical.getDictionary()) {
+            bytes += 40L + value.length() + 32L; // String, plus its lookup entry
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the heap used by the bitmap indexes.
+     *
+     * @return The approximate index footprint in bytes.
+     */
+    public long getIndexFootprint() {
+        long bytes = 0;
+        for (CategoricalIndex index : categoricalIndexes.values()) {
+            bytes += index.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static long estimateRowBytes(Map<String, Object> row) {
+        long bytes = 48L + 16L + 4L * Math.max(16, row.size() * 2); // HashMap and its table
+        for (Object value : row.values()) {
+            bytes += 32L + estimateValueBytes(value); // Map entry and value
+        }
+        return bytes;
+    }
+
+    private static long estimateValueBytes(Object value) {
+        if (value instanceof String) {
+            return 40L + ((String) value).length();
+        }
+        return value != null ? 16L : 0L;
+    }
+
     /**
      * Gets a specific column of data.
      *
@@ -49,8 +541,15 @@ public class DataSet {
      * @return A list containing the values of the specified column, or null if the column does not exist.
      */
     public List<Object> getColumnData(String columnName) {
+        if (isComputedColumn(columnName)) {
+            NumericColumn column = getNumericColumn(columnName);
+            List<Object> columnData = new java.util.ArrayList<>();
+            for (int row = 0; row < column.size(); row++) {
+                columnData.add(column.isNull(row) ? null : column.getDouble(row));
+            }
+            return columnData;
+        }
         if (columnNames.contains(columnName)) {
-            int columnIndex = columnNames.indexOf(columnName);
             List<Object> columnData = new java.util.ArrayList<>();
             for (Map<String, Object> row : data) {
                 columnData.add(row.get(columnName));
@@ -0,0 +1,267 @@
+package datavisualizer.model.dataset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary cache format for a parsed DataSet, so an evicted dataset can be brought back without re-parsing its source.
+ * <p>
+ * Every column is stored dictionary-encoded: its distinct values (with their type) followed by one code per row,
+ * 1, 2 or 4 bytes wide depending on the dictionary size. Numeric views that were already built are stored as raw
+ * doubles plus their null mask. On reading, rows share one instance per distinct value, which also makes the
+ * reloaded dataset smaller than the freshly parsed one, and text columns get their categorical view straight
+ * from the stored codes. Values other than strings, numbers and booleans
+ * (e.g. nested JSON) are stored as their text.
+ */
+public class DataSetCodec {
+
+    private static final int MAGIC = 0x44564453; // "DVDS"
+    private static final int VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+
+    /**
+     * Writes a dataset to a file, replacing it if it exists.
+     *
+     * @param dataSet The dataset.
+     * @param file    The target file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(DataSet dataSet, Path file) throws IOException {
+        List<String> columnNames = dataSet.getSourceColumnNames(); // Computed columns are not stored
+        List<Map<String, Object>> rows = dataSet.getData();
+        int rowCount = rows.size();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(columnNames.size());
+            for (String name : columnNames) {
+                writeString(out, name);
+            }
+            out.writeInt(rowCount);
+
+            int[] codes = new int[rowCount];
+            for (String name : columnNames) {
+                Map<Object, Integer> dictionary = new HashMap<>();
+                List<Object> values = new ArrayList<>();
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = normalize(rows.get(row).get(name));
+                    Integer code = dictionary.get(value);
+                    if (code == null) {
+                        code = values.size();
+                        dictionary.put(value, code);
+                        values.add(value);
+                    }
+                    codes[row] = code;
+                }
+                out.writeInt(values.size());
+                for (Object value : values) {
+                    writeValue(out, value);
+                }
+                int width = codeWidth(values.size());
+                ByteBuffer buffer = ByteBuffer.allocate(rowCount * width);
+                for (int row = 0; row < rowCount; row++) {
+                    if (width == 1) {
+                        buffer.put((byte) codes[row]);
+                    } else if (width == 2) {
+                        buffer.putShort((short) codes[row]);
+                    } else {
+                        buffer.putInt(codes[row]);
+                    }
+                }
+                out.write(buffer.array());
+            }
+
+            List<NumericColumn> numericColumns = new ArrayList<>(dataSet.getBuiltNumericColumns());
+            out.writeInt(numericColumns.size());
+            for (NumericColumn column : numericColumns) {
+                writeString(out, column.getName());
+                out.writeInt(column.size());
+                ByteBuffer values = ByteBuffer.allocate(column.size() * 8);
+                values.asDoubleBuffer().put(column.values(), 0, column.size());
+                out.write(values.array());
+                long[] nullMask = column.nullMask();
+                out.writeInt(nullMask.length);
+                ByteBuffer mask = ByteBuffer.allocate(nullMask.length * 8);
+                mask.asLongBuffer().put(nullMask);
+                out.write(mask.array());
+            }
+        }
+    }
+
+    /**
+     * Reads a dataset written by {@link #write(DataSet, Path)}.
+     * Bitmap indexes are not stored and have to be rebuilt by the caller if needed.
+     *
+     * @param file The cache file.
+     * @return The dataset.
+     * @throws IOException If the file cannot be read or is not a dataset cache file.
+     */
+    public static DataSet read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a dataset cache file: " + file);
+            }
+            int columnCount = in.readInt();
+            List<String> columnNames = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                columnNames.add(readString(in));
+            }
+            int rowCount = in.readInt();
+            List<Map<String, Object>> rows = new ArrayList<>(rowCount);
+            int capacity = (int) (columnCount / 0.75f) + 1;
+            for (int row = 0; row < rowCount; row++) {
+                rows.add(new HashMap<>(capacity));
+            }
+            List<CategoricalColumn> categoricalColumns = new ArrayList<>();
+
+            for (String name : columnNames) {
+                int dictionarySize = in.readInt();
+                Object[] values = new Object[dictionarySize];
+                for (int i = 0; i < dictionarySize; i++) {
+                    values[i] = readValue(in);
+                }
+                // A text-only column is already dictionary-encoded; keep the codes as its categorical view
+                List<String> categories = new ArrayList<>(dictionarySize);
+                int[] categoryCodes = new int[dictionarySize];
+                boolean textOnly = true;
+                for (int i = 0; i < dictionarySize && textOnly; i++) {
+                    if (values[i] == null) {
+                        categoryCodes[i] = CategoricalColumn.NULL_CODE;
+                    } else if (values[i] instanceof String) {
+                        categoryCodes[i] = categories.size();
+                        categories.add((String) values[i]);
+                    } else {
+                        textOnly = false;
+                    }
+                }
+                int[] rowCodes = textOnly ? new int[rowCount] : null;
+
+                int width = codeWidth(dictionarySize);
+                byte[] bytes = new byte[rowCount * width];
+                in.readFully(bytes);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                for (int row = 0; row < rowCount; row++) {
+                    int code = width == 1 ? buffer.get() & 0xFF : width == 2 ? buffer.getShort() & 0xFFFF : buffer.getInt();
+                    Object value = values[code];
+                    if (value != null) {
+                        rows.get(row).put(name, value); // Absent and null read back the same way
+                    }
+                    if (rowCodes != null) {
+                        rowCodes[row] = categoryCodes[code];
+                    }
+                }
+                if (rowCodes != null) {
+                    categoricalColumns.add(new CategoricalColumn(name, rowCodes, categories));
+                }
+            }
+
+            DataSet dataSet = new DataSet(columnNames, rows);
+            for (CategoricalColumn column : categoricalColumns) {
+                dataSet.putCategoricalColumn(column);
+            }
+            int numericCount = in.readInt();
+            for (int i = 0; i < numericCount; i++) {
+                String name = readString(in);
+                int size = in.readInt();
+                byte[] valueBytes = new byte[size * 8];
+                in.readFully(valueBytes);
+                double[] values = new double[size];
+                ByteBuffer.wrap(valueBytes).asDoubleBuffer().get(values);
+                byte[] maskBytes = new byte[in.readInt() * 8];
+                in.readFully(maskBytes);
+                long[] nullMask = new long[maskBytes.length / 8];
+                ByteBuffer.wrap(maskBytes).asLongBuffer().get(nullMask);
+                dataSet.putNumericColumn(new NumericColumn(name, values, nullMask, size));
+            }
+            return dataSet;
+        }
+    }
+
+    /**
+     * Maps a cell value to one of the stored types.
+     *
+     * @param value The cell value.
+     * @return The value, with unsupported types replaced by their text and integral numbers widened to Long.
+     */
+    private static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Double || value instanceof Boolean || value instanceof Long) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value.toString();
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case DOUBLE:
+                return in.readDouble();
+            case LONG:
+                return in.readLong();
+            case BOOLEAN:
+                return in.readBoolean();
+            default:
+                throw new IOException("Corrupt dataset cache: unknown value type " + type);
+        }
+    }
+
+    // Strings are length-prefixed UTF-8, since writeUTF cannot hold values over 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int codeWidth(int dictionarySize) {
+        return dictionarySize <= 0x100 ? 1 : dictionarySize <= 0x10000 ? 2 : 4;
+    }
+}
@@ -0,0 +1,165 @@
+package datavisualizer.model.dataset;
+
+/**
+ * Delta-of-delta encoding of timestamps (as in Gorilla), in independent blocks of
+ * {@link DoubleBlockIterator#BLOCK_SIZE} rows. Each block starts with its first value in full; every later value
+ * is stored as the change of its delta to the previous value, zigzag-encoded:
+ * <ul>
+ *     <li>{@code 0} if the delta did not change, as for readings at a fixed interval;</li>
+ *     <li>{@code 10}, {@code 110} or {@code 1110} and 7, 9 or 12 bits for small changes;</li>
+ *     <li>{@code 1111} and 64 bits otherwise.</li>
+ * </ul>
+ * Values of null rows are not kept: they decode as the value before them.
+ */
+public final class DeltaOfDeltaLongs {
+
+    // Compressing must save at least this share of the plain size to be worth the decoding
+    private static final double MIN_SAVING = 0.2;
+
+    private final long[] words;
+    private final long[] blockOffsets; // Bit position of each block
+    private final int size;
+
+    private DeltaOfDeltaLongs(long[] words, long[] blockOffsets, int size) {
+        this.words = words;
+        this.blockOffsets = blockOffsets;
+        this.size = size;
+    }
+
+    /**
+     * Compresses timestamps, if that is worth it.
+     *
+     * @param values   The values, one per row.
+     * @param nullMask Bitmap where a set bit marks a null row.
+     * @param size     The number of rows.
+     * @return The compressed values, or null if they are not clearly smaller than the plain array.
+     */
+    public static DeltaOfDeltaLongs encode(long[] values, long[] nullMask, int size) {
+        BitStream stream = new BitStream();
+        long[] offsets = new long[CompressedDoubles.blockCount(size)];
+        long previous = 0;
+        for (int b = 0; b < offsets.length; b++) {
+            offsets[b] = stream.length();
+            int start = b * DoubleBlockIterator.BLOCK_SIZE;
+            int end = Math.min(size, start + DoubleBlockIterator.BLOCK_SIZE);
+            long previousDelta = 0;
+            for (int row = start; row < end; row++) {
+                long value = CompressedDoubles.isNull(nullMask, row) ? previous : values[row];
+                if (row == start) {
+                    stream.write(value, 64);
+                } else {
+                    long delta = value - previous; // Wraps around consistently with decoding
+                    long change = delta - previousDelta;
+                    long zigzag = (change << 1) ^ (change >> 63);
+                    if (zigzag == 0) {
+                        stream.write(0, 1);
+                    } else if (zigzag >>> 7 == 0) {
+                        stream.write(0b10, 2);
+                        stream.write(zigzag, 7);
+                    } else if (zigzag >>> 9 == 0) {
+                        stream.write(0b110, 3);
+                        stream.write(zigzag, 9);
+                    } else if (zigzag >>> 12 == 0) {
+                        stream.write(0b1110, 4);
+                        stream.write(zigzag, 12);
+                    } else {
+                        stream.write(0b1111, 4);
+                        stream.write(zigzag, 64);
+                    }
+                    previousDelta = delta;
+                }
+                previous = value;
+            }
+        }
+        DeltaOfDeltaLongs encoded = new DeltaOfDeltaLongs(stream.toWords(), offsets, size);
+        return encoded.sizeInBytes() <= (1 - MIN_SAVING) * 8L * size ? encoded : null;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decodes one block.
+     *
+     * @param block The block number, from 0.
+     * @param out   Receives the values of the block's rows, from index 0.
+     * @return The number of rows in the block.
+     */
+    public int decodeBlock(int block, long[] out) {
+        int count = Math.min(DoubleBlockIterator.BLOCK_SIZE, size - block * DoubleBlockIterator.BLOCK_SIZE);
+        BitStream.Reader reader = new BitStream.Reader(words, blockOffsets[block]);
+        long value = reader.read(64);
+        long delta = 0;
+        out[0] = value;
+        for (int i = 1; i < count; i++) {
+            delta += readChange(reader);
+            value += delta;
+            out[i] = value;
+        }
+        return count;
+    }
+
+    /**
+     * Decodes the value of one row, from the start of its block.
+     *
+     * @param row The row index.
+     * @return The value.
+     */
+    public long get(int row) {
+        BitStream.Reader reader = new BitStream.Reader(words, blockOffsets[row / DoubleBlockIterator.BLOCK_SIZE]);
+        long value = reader.read(64);
+        long delta = 0;
+        for (int i = row % DoubleBlockIterator.BLOCK_SIZE; i > 0; i--) {
+            delta += readChange(reader);
+            value += delta;
+        }
+        return value;
+    }
+
+    private static long readChange(BitStream.Reader reader) {
+        if (!reader.readBit()) {
+            return 0;
+        }
+        long zigzag;
+        if (!reader.readBit()) {
+            zigzag = reader.read(7);
+        } else if (!reader.readBit()) {
+            zigzag = reader.read(9);
+        } else if (!reader.readBit()) {
+            zigzag = reader.read(12);
+        } else {
+            zigzag = reader.read(64);
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Decodes every row into a new array.
+     *
+     * @return The values.
+     */
+    public long[] inflate() {
+        long[] values = new long[size];
+        long[] block = new long[DoubleBlockIterator.BLOCK_SIZE];
+        for (int b = 0, start = 0; start < size; b++, start += block.length) {
+            int count = decodeBlock(b, block);
+            System.arraycopy(block, 0, values, start, count);
+        }
+        return values;
+    }
+
+    /**
+     * Estimates the heap used by the encoded values.
+     *
+     * @return The footprint in bytes.
+     */
+    public long sizeInBytes() {
+        return 16L + 8L * words.length + 8L * blockOffsets.length;
+    }
+}
@@ -0,0 +1,113 @@
+package datavisualizer.model.dataset;
+
+/**
+ * Reads a numeric column block by block, for scans that should not inflate a compressed column. Blocks cover
+ * {@link #BLOCK_SIZE} rows each (a multiple of 64, so they line up with null mask and selection words); the last
+ * one may be shorter.
+ * <p>
+ * The value of a row of the current block is {@code values()[row - offset()]}. For a plain column that is the
+ * backing array itself with an offset of 0, so iterating costs nothing; for a compressed column it is a buffer
+ * that each block is decoded into, and reused.
+ * <pre>{@code
+ * DoubleBlockIterator blocks = column.blocks();
+ * while (blocks.next()) {
+ *     double[] values = blocks.values();
+ *     for (int row = blocks.start(); row < blocks.end(); row++) {
+ *         sum += values[row - blocks.offset()];
+ *     }
+ * }
+ * }</pre>
+ * An iterator is not thread-safe; every scan creates its own.
+ */
+public final class DoubleBlockIterator {
+
+    /** Rows per block, of every compressed encoding and of block iteration. */
+    public static final int BLOCK_SIZE = 512;
+
+    private final double[] plain;
+    private final CompressedDoubles compressed;
+    private final int size;
+    private final double[] buffer;
+    private int block = -1;
+    private int start;
+    private int end;
+
+    DoubleBlockIterator(double[] plain, CompressedDoubles compressed, int size) {
+        this.plain = plain;
+        this.compressed = compressed;
+        this.size = size;
+        this.buffer = compressed != null ? new double[BLOCK_SIZE] : null;
+    }
+
+    /**
+     * Moves to the next block, decoding it.
+     *
+     * @return false if there are no more blocks.
+     */
+    public boolean next() {
+        if ((block + 1) * BLOCK_SIZE >= size) {
+            return false;
+        }
+        load(block + 1);
+        return true;
+    }
+
+    /**
+     * Moves to the block holding a row, decoding it unless it is the current block. Use this for scans that skip
+     * rows, e.g. over a selection.
+     *
+     * @param row The row index.
+     * @return The values of the block, see {@link #values()}.
+     */
+    public double[] seek(int row) {
+        if (row < start || row >= end) {
+            load(row / BLOCK_SIZE);
+        }
+        return values();
+    }
+
+    private void load(int target) {
+        block = target;
+        start = target * BLOCK_SIZE;
+        end = Math.min(size, start + BLOCK_SIZE);
+        if (compressed != null) {
+            compressed.decodeBlock(target, buffer);
+        }
+    }
+
+    /**
+     * Gets the values of the current block.
+     *
+     * @return The array holding them, indexed by row minus {@link #offset()}.
+     */
+    public double[] values() {
+        return plain != null ? plain : buffer;
+    }
+
+    /**
+     * Gets the row that index 0 of {@link #values()} stands for.
+     *
+     * @return The offset.
+     */
+    public int offset() {
+        return plain != null ? 0 : start;
+    }
+
+    /**
+     * Gets the first row of the current block.
+     *
+     * @return The row index.
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Gets the end of the current block.
+     *
+     * @return The row index after the last row.
+     */
+    public int end() {
+        return end;
+    }
+}
@@ -0,0 +1,130 @@
+package datavisualizer.model.dataset;
+
+/**
+ * XOR encoding of doubles (Gorilla). Each block starts with its first value in full; every later value is XORed
+ * with the one before it and written as:
+ * <ul>
+ *     <li>{@code 0} if it is the same value;</li>
+ *     <li>{@code 10} and the meaningful bits, if they fit within the leading and trailing zeros of the previous
+ *     XOR;</li>
+ *     <li>{@code 11}, 5 bits of leading zeros, 6 bits of meaningful length and the meaningful bits otherwise.</li>
+ * </ul>
+ * Slowly changing readings share sign, exponent and high mantissa bits, so most values take a few bits.
+ */
+final class GorillaDoubles extends CompressedDoubles {
+
+    private final long[] words;
+    private final long[] blockOffsets; // Bit position of each block
+    private final int size;
+
+    private GorillaDoubles(long[] words, long[] blockOffsets, int size) {
+        this.words = words;
+        this.blockOffsets = blockOffsets;
+        this.size = size;
+    }
+
+    /**
+     * Encodes any values.
+     *
+     * @return The encoded values.
+     */
+    static GorillaDoubles xorEncode(double[] values, long[] nullMask, int size) {
+        BitStream stream = new BitStream();
+        long[] offsets = new long[blockCount(size)];
+        long previous = 0;
+        for (int b = 0; b < offsets.length; b++) {
+            offsets[b] = stream.length();
+            int start = b * DoubleBlockIterator.BLOCK_SIZE;
+            int end = Math.min(size, start + DoubleBlockIterator.BLOCK_SIZE);
+            int previousLeading = -1;
+            int previousTrailing = 0;
+            for (int row = start; row < end; row++) {
+                long bits = isNull(nullMask, row) ? previous : Double.doubleToRawLongBits(values[row]); // Nulls repeat
+                if (row == start) {
+                    stream.write(bits, 64);
+                } else {
+                    long xor = bits ^ previous;
+                    if (xor == 0) {
+                        stream.write(0, 1);
+                    } else {
+                        int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+                        int trailing = Long.numberOfTrailingZeros(xor);
+                        if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                            stream.write(0b10, 2);
+                            stream.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                        } else {
+                            int length = 64 - leading - trailing;
+                            stream.write(0b11, 2);
+                            stream.write(leading, 5);
+                            stream.write(length - 1, 6);
+                            stream.write(xor >>> trailing, length);
+                            previousLeading = leading;
+                            previousTrailing = trailing;
+                        }
+                    }
+                }
+                previous = bits;
+            }
+        }
+        return new GorillaDoubles(stream.toWords(), offsets, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int decodeBlock(int block, double[] out) {
+        int count = Math.min(DoubleBlockIterator.BLOCK_SIZE, size - block * DoubleBlockIterator.BLOCK_SIZE);
+        decode(block, out, count);
+        return count;
+    }
+
+    @Override
+    public double get(int row) {
+        // Decode up to the row without a buffer
+        BitStream.Reader reader = new BitStream.Reader(words, blockOffsets[row / DoubleBlockIterator.BLOCK_SIZE]);
+        long bits = reader.read(64);
+        int leading = 0;
+        int length = 0;
+        for (int i = row % DoubleBlockIterator.BLOCK_SIZE; i > 0; i--) {
+            if (reader.readBit()) {
+                if (reader.readBit()) {
+                    leading = (int) reader.read(5);
+                    length = (int) reader.read(6) + 1;
+                }
+                bits ^= reader.read(length) << (64 - leading - length);
+            }
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    private void decode(int block, double[] out, int count) {
+        BitStream.Reader reader = new BitStream.Reader(words, blockOffsets[block]);
+        long bits = reader.read(64);
+        out[0] = Double.longBitsToDouble(bits);
+        int leading = 0;
+        int length = 0;
+        for (int i = 1; i < count; i++) {
+            if (reader.readBit()) {
+                if (reader.readBit()) {
+                    leading = (int) reader.read(5);
+                    length = (int) reader.read(6) + 1;
+                }
+                bits ^= reader.read(length) << (64 - leading - length);
+            }
+            out[i] = Double.longBitsToDouble(bits);
+        }
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 16L + 8L * words.length + 8L * blockOffsets.length;
+    }
+
+    @Override
+    public String getEncoding() {
+        return "xor";
+    }
+}
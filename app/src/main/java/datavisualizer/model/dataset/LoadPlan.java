@@ -0,0 +1,209 @@
+package datavisualizer.model.dataset;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * How a file is loaded, chosen from its projected memory footprint and the load budget.
+ * <ul>
+ *     <li>{@link Strategy#FULL}: every row, as row maps plus typed columns.</li>
+ *     <li>{@link Strategy#TYPED_ONLY}: every row, but only as typed columns (numbers and dictionary codes); the
+ *     rows are a view over the columns, see {@link ColumnarRows}.</li>
+ *     <li>{@link Strategy#SAMPLED}: typed columns of every n-th row only.</li>
+ *     <li>{@link Strategy#STREAMED}: no rows at all, only the sums of one chart, aggregated in a single pass over the
+ *     file (see {@link datavisualizer.model.aggregate.StreamingAggregation}).</li>
+ *     <li>{@link Strategy#APPROXIMATE}: no rows either, only estimates of the sums of one chart from a random sample
+ *     of the file (see {@link datavisualizer.model.aggregate.ApproximateAggregation}).</li>
+ * </ul>
+ */
+public final class LoadPlan {
+
+    /**
+     * Ways to load a file, from most to least complete.
+     */
+    public enum Strategy {
+        FULL, TYPED_ONLY, SAMPLED, STREAMED, APPROXIMATE
+    }
+
+    /** Loads every row fully, without a projection. */
+    public static final LoadPlan FULL = new LoadPlan(Strategy.FULL, 1, Integer.MAX_VALUE, Collections.emptySet(), -1, -1, -1, -1);
+
+    private static final int MAX_SAMPLE_STRIDE = 1 << 16;
+
+    private final Strategy strategy;
+    private final int sampleStride;
+    private final int maxRows;
+    private final Set<String> numericColumns;
+    private final long projectedRows;
+    private final long fullBytes;
+    private final long projectedBytes;
+    private final long budget;
+    private final long sampledRows;
+
+    /**
+     * Constructs a plan.
+     *
+     * @param strategy       The strategy.
+     * @param sampleStride   For SAMPLED, keep every n-th row, starting with the first; 1 otherwise.
+     * @param maxRows        The maximum number of rows to read (before sampling), e.g. to sample the head of a file.
+     * @param numericColumns For the typed strategies, the columns stored as numbers only; others are stored as
+     *                       dictionary-encoded text.
+     * @param projectedRows  The projected number of rows in the file, or -1 if unknown.
+     * @param fullBytes      The projected footprint of a full load in bytes, or -1 if unknown.
+     * @param projectedBytes The projected footprint with this strategy in bytes, or -1 if unknown.
+     * @param budget         The load budget the plan was made for in bytes, or -1 if none.
+     */
+    public LoadPlan(Strategy strategy, int sampleStride, int maxRows, Set<String> numericColumns, long projectedRows,
+                    long fullBytes, long projectedBytes, long budget) {
+        this(strategy, sampleStride, maxRows, numericColumns, projectedRows, fullBytes, projectedBytes, budget, -1);
+    }
+
+    private LoadPlan(Strategy strategy, int sampleStride, int maxRows, Set<String> numericColumns, long projectedRows,
+                     long fullBytes, long projectedBytes, long budget, long sampledRows) {
+        this.strategy = strategy;
+        this.sampleStride = Math.max(1, sampleStride);
+        this.maxRows = maxRows;
+        this.numericColumns = Collections.unmodifiableSet(numericColumns);
+        this.projectedRows = projectedRows;
+        this.fullBytes = fullBytes;
+        this.projectedBytes = projectedBytes;
+        this.budget = budget;
+        this.sampledRows = sampledRows;
+    }
+
+    /**
+     * Creates a plan that reads only the first rows of a file, fully.
+     *
+     * @param rows The number of rows to read.
+     * @return The plan.
+     */
+    public static LoadPlan head(int rows) {
+        return new LoadPlan(Strategy.FULL, 1, rows, Collections.emptySet(), -1, -1, -1, -1);
+    }
+
+    public Strategy getStrategy() { return strategy; }
+    public int getSampleStride() { return sampleStride; }
+    public int getMaxRows() { return maxRows; }
+    public Set<String> getNumericColumns() { return numericColumns; }
+    public long getProjectedRows() { return projectedRows; }
+    public long getFullBytes() { return fullBytes; }
+    public long getProjectedBytes() { return projectedBytes; }
+    public long getBudget() { return budget; }
+    public long getSampledRows() { return sampledRows; }
+
+    /**
+     * Creates the plan of a dataset that holds the aggregates of a streamed file.
+     *
+     * @param rows The number of rows read from the file.
+     * @return The plan.
+     */
+    public static LoadPlan streamed(long rows) {
+        return new LoadPlan(Strategy.STREAMED, 1, Integer.MAX_VALUE, Collections.emptySet(), rows, -1, -1, -1);
+    }
+
+    /**
+     * Creates the plan of a dataset that holds estimates of the aggregates of a file, made from a sample.
+     *
+     * @param sampledRows   The number of rows read from the file.
+     * @param projectedRows The estimated number of rows in the file.
+     * @return The plan.
+     */
+    public static LoadPlan approximate(long sampledRows, long projectedRows) {
+        return new LoadPlan(Strategy.APPROXIMATE, 1, Integer.MAX_VALUE, Collections.emptySet(), projectedRows, -1, -1, -1, sampledRows);
+    }
+
+    /**
+     * Checks whether the plan loads every row with its row map.
+     *
+     * @return true for the FULL strategy.
+     */
+    public boolean isFull() {
+        return strategy == Strategy.FULL;
+    }
+
+    /**
+     * Checks whether a row is kept.
+     *
+     * @param row The row number in the file, from 0.
+     * @return true if the row is loaded.
+     */
+    public boolean keeps(int row) {
+        return sampleStride == 1 || row % sampleStride == 0;
+    }
+
+    /**
+     * Gets the next, more economical plan, e.g. after the projection turned out too low and loading ran out of
+     * memory: FULL becomes TYPED_ONLY, TYPED_ONLY becomes SAMPLED every 2nd row, and sampling halves its rate.
+     *
+     * @return The degraded plan, or null if the sample would become too sparse (or the plan is STREAMED or APPROXIMATE).
+     */
+    public LoadPlan degrade() {
+        switch (strategy) {
+            case STREAMED:
+            case APPROXIMATE:
+                return null;
+            case FULL:
+                return new LoadPlan(Strategy.TYPED_ONLY, 1, maxRows, numericColumns, projectedRows, fullBytes, -1, budget);
+            case TYPED_ONLY:
+                return new LoadPlan(Strategy.SAMPLED, 2, maxRows, numericColumns, projectedRows, fullBytes,
+                        projectedBytes < 0 ? -1 : projectedBytes / 2, budget);
+            default:
+                if (sampleStride >= MAX_SAMPLE_STRIDE) {
+                    return null;
+                }
+                return new LoadPlan(Strategy.SAMPLED, sampleStride * 2, maxRows, numericColumns, projectedRows, fullBytes,
+                        projectedBytes < 0 ? -1 : projectedBytes / 2, budget);
+        }
+    }
+
+    /**
+     * Describes the plan for the user, e.g. as a notice when a file was loaded in a degraded mode.
+     *
+     * @return A sentence or two.
+     */
+    public String describe() {
+        String reason = fullBytes > 0 && budget > 0
+                ? String.format(Locale.ROOT, " The file needs about %s in memory, over the load budget of %s.", formatBytes(fullBytes), formatBytes(budget))
+                : "";
+        switch (strategy) {
+            case TYPED_ONLY:
+                return "Loaded in typed-only mode: values are kept as numbers and dictionary codes instead of text rows."
+                        + reason + " Numeric columns read non-numeric cells as empty.";
+            case SAMPLED:
+                return String.format(Locale.ROOT, "Loaded a sample of every %d%s row (%.2f%% of the rows) in typed-only mode.",
+                        sampleStride, ordinalSuffix(sampleStride), 100.0 / sampleStride) + reason + " Charts show the sample, not totals.";
+            case STREAMED:
+                return String.format(Locale.ROOT, "Aggregated %,d rows in one pass without loading them; only the sums of the chart were kept.",
+                        projectedRows);
+            case APPROXIMATE:
+                return String.format(Locale.ROOT, "Estimated from a random sample of %,d of about %,d rows (%.2f%%); "
+                                + "the bars show 95%% confidence intervals.", sampledRows, projectedRows,
+                        100.0 * sampledRows / Math.max(1, projectedRows));
+            default:
+                return "Loaded fully.";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return strategy == Strategy.SAMPLED ? "SAMPLED(1/" + sampleStride + ")" : strategy.name();
+    }
+
+    private static String ordinalSuffix(int n) {
+        if (n % 100 >= 11 && n % 100 <= 13) {
+            return "th";
+        }
+        switch (n % 10) {
+            case 1: return "st";
+            case 2: return "nd";
+            case 3: return "rd";
+            default: return "th";
+        }
+    }
+
+    private static String formatBytes(long bytes) {
+        double mb = bytes / (1024.0 * 1024.0);
+        return mb >= 1024 ? String.format(Locale.ROOT, "%.1f GB", mb / 1024) : String.format(Locale.ROOT, "%.0f MB", mb);
+    }
+}
@@ -0,0 +1,98 @@
+package datavisualizer.model.dataset;
+
+/**
+ * Reads a timestamp column block by block, like {@link DoubleBlockIterator} does a numeric column: the epoch
+ * milliseconds of a row of the current block are {@code values()[row - offset()]}, and blocks line up with those
+ * of numeric columns, so a scan can step through both together.
+ */
+public final class LongBlockIterator {
+
+    private static final int BLOCK_SIZE = DoubleBlockIterator.BLOCK_SIZE;
+
+    private final long[] plain;
+    private final DeltaOfDeltaLongs compressed;
+    private final int size;
+    private final long[] buffer;
+    private int block = -1;
+    private int start;
+    private int end;
+
+    LongBlockIterator(long[] plain, DeltaOfDeltaLongs compressed, int size) {
+        this.plain = plain;
+        this.compressed = compressed;
+        this.size = size;
+        this.buffer = compressed != null ? new long[BLOCK_SIZE] : null;
+    }
+
+    /**
+     * Moves to the next block, decoding it.
+     *
+     * @return false if there are no more blocks.
+     */
+    public boolean next() {
+        if ((block + 1) * BLOCK_SIZE >= size) {
+            return false;
+        }
+        load(block + 1);
+        return true;
+    }
+
+    /**
+     * Moves to the block holding a row, decoding it unless it is the current block. Use this for scans that skip
+     * rows, e.g. over a selection.
+     *
+     * @param row The row index.
+     * @return The values of the block, see {@link #values()}.
+     */
+    public long[] seek(int row) {
+        if (row < start || row >= end) {
+            load(row / BLOCK_SIZE);
+        }
+        return values();
+    }
+
+    private void load(int target) {
+        block = target;
+        start = target * BLOCK_SIZE;
+        end = Math.min(size, start + BLOCK_SIZE);
+        if (compressed != null) {
+            compressed.decodeBlock(target, buffer);
+        }
+    }
+
+    /**
+     * Gets the values of the current block.
+     *
+     * @return The array holding them, indexed by row minus {@link #offset()}.
+     */
+    public long[] values() {
+        return plain != null ? plain : buffer;
+    }
+
+    /**
+     * Gets the row that index 0 of {@link #values()} stands for.
+     *
+     * @return The offset.
+     */
+    public int offset() {
+        return plain != null ? 0 : start;
+    }
+
+    /**
+     * Gets the first row of the current block.
+     *
+     * @return The row index.
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Gets the end of the current block.
+     *
+     * @return The row index after the last row.
+     */
+    public int end() {
+        return end;
+    }
+}
@@ -0,0 +1,204 @@
+package datavisualizer.model.dataset;
+
+import datavisualizer.util.FastDoubleParser;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed, column-oriented view of a single dataset column holding numeric values.
+ * Values are stored in a primitive array, and missing or non-numeric cells are
+ * tracked in a null mask with one bit per row (same word layout as a SelectionVector).
+ * A column can also hold its values compressed (see {@link #compress()}); scans then read them
+ * block by block through {@link #blocks()}.
+ */
+public class NumericColumn {
+
+    private final String name;
+    private final double[] values; // Null if compressed
+    private final CompressedDoubles compressed; // Null unless compressed
+    private final long[] nullMask;
+    private final int size;
+    private final int nullCount;
+
+    /**
+     * Constructs a numeric column from already typed data.
+     *
+     * @param name     The column name.
+     * @param values   The values, one per row (entries for null rows are ignored).
+     * @param nullMask Bitmap where a set bit marks a null or non-numeric row.
+     * @param size     The number of rows.
+     */
+    public NumericColumn(String name, double[] values, long[] nullMask, int size) {
+        this(name, values, null, nullMask, size);
+    }
+
+    private NumericColumn(String name, double[] values, CompressedDoubles compressed, long[] nullMask, int size) {
+        this.name = name;
+        this.values = values;
+        this.compressed = compressed;
+        this.nullMask = nullMask;
+        this.size = size;
+        int nulls = 0;
+        for (long word : nullMask) {
+            nulls += Long.bitCount(word);
+        }
+        this.nullCount = nulls;
+    }
+
+    /**
+     * Builds a numeric column from row-oriented data.
+     * Numbers are taken as-is, other values are parsed from their text;
+     * anything that cannot be parsed is marked as null.
+     *
+     * @param name The column name.
+     * @param rows The data rows.
+     * @return The typed column.
+     */
+    public static NumericColumn fromRows(String name, List<Map<String, Object>> rows) {
+        int size = rows.size();
+        double[] values = new double[size];
+        long[] nullMask = new long[wordCount(size)];
+        for (int i = 0; i < size; i++) {
+            Object value = rows.get(i).get(name);
+            if (value instanceof Number) {
+                values[i] = ((Number) value).doubleValue();
+            } else if (value != null) {
+                CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+                if (FastDoubleParser.parse(text, 0, text.length(), values, i) != FastDoubleParser.OK) {
+                    nullMask[i >>> 6] |= 1L << i;
+                }
+            } else {
+                nullMask[i >>> 6] |= 1L << i;
+            }
+        }
+        return new NumericColumn(name, values, nullMask, size);
+    }
+
+    /**
+     * Gets a compressed copy of the column, see {@link CompressedDoubles}.
+     *
+     * @return The compressed column, or this column if it is compressed already or compression would not save
+     *         enough memory.
+     */
+    public NumericColumn compress() {
+        if (compressed != null) {
+            return this;
+        }
+        CompressedDoubles encoded = CompressedDoubles.encode(values, nullMask, size);
+        return encoded != null ? new NumericColumn(name, null, encoded, nullMask, size) : this;
+    }
+
+    /**
+     * Checks whether the values are stored compressed.
+     *
+     * @return true if the column was compressed.
+     */
+    public boolean isCompressed() {
+        return compressed != null;
+    }
+
+    /**
+     * Gets the name of the value encoding, for footprint reports.
+     *
+     * @return "plain", or the name of the compressed encoding.
+     */
+    public String getEncoding() {
+        return compressed != null ? compressed.getEncoding() : "plain";
+    }
+
+    /**
+     * Estimates the heap used by the values and the null mask.
+     *
+     * @return The footprint in bytes.
+     */
+    public long sizeInBytes() {
+        return (compressed != null ? compressed.sizeInBytes() : 8L * size) + 8L * nullMask.length;
+    }
+
+    /**
+     * Gets an iterator over the values block by block, which decodes a compressed column one block at a time.
+     *
+     * @return A new iterator.
+     */
+    public DoubleBlockIterator blocks() {
+        return new DoubleBlockIterator(values, compressed, size);
+    }
+
+    /**
+     * Gets the column name.
+     *
+     * @return The column name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of rows in the column.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of null or non-numeric rows.
+     *
+     * @return The null count.
+     */
+    public int getNullCount() {
+        return nullCount;
+    }
+
+    /**
+     * Checks whether the given row holds no numeric value.
+     *
+     * @param row The row index.
+     * @return true if the row is null or non-numeric.
+     */
+    public boolean isNull(int row) {
+        return (nullMask[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Gets the value of a row. Only meaningful if {@link #isNull(int)} is false.
+     * For a compressed column this may decode part of the row's block; scans should use {@link #blocks()}.
+     *
+     * @param row The row index.
+     * @return The numeric value.
+     */
+    public double getDouble(int row) {
+        return values != null ? values[row] : compressed.get(row);
+    }
+
+    /**
+     * Gets the backing value array for tight loops. Must not be modified.
+     * For a compressed column this decodes a full copy of the values; scans should use {@link #blocks()}.
+     *
+     * @return The values array.
+     */
+    public double[] values() {
+        return values != null ? values : compressed.inflate();
+    }
+
+    /**
+     * Gets the backing null mask for tight loops. Must not be modified.
+     *
+     * @return The null mask words.
+     */
+    public long[] nullMask() {
+        return nullMask;
+    }
+
+    /**
+     * Gets the number of 64-bit words needed for a bitmap over the given number of rows.
+     *
+     * @param size The number of rows.
+     * @return The word count.
+     */
+    static int wordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+}
@@ -0,0 +1,103 @@
+package datavisualizer.model.dataset;
+
+import datavisualizer.util.FastDoubleParser;
+
+import java.util.Arrays;
+
+/**
+ * Incrementally builds a NumericColumn while a file is being read,
+ * parsing cells straight from the source characters.
+ */
+public class NumericColumnBuilder {
+
+    private final String name;
+    private double[] values;
+    private long[] nullMask;
+    private int size;
+    private int validCount;
+
+    /**
+     * Constructs a builder.
+     *
+     * @param name            The column name.
+     * @param initialCapacity The expected number of rows.
+     */
+    public NumericColumnBuilder(String name, int initialCapacity) {
+        this.name = name;
+        this.values = new double[Math.max(16, initialCapacity)];
+        this.nullMask = new long[NumericColumn.wordCount(values.length)];
+    }
+
+    /**
+     * Appends a cell, parsing it from a range of characters. Empty or non-numeric cells become null.
+     *
+     * @param text The source characters (e.g., the current line).
+     * @param from The start of the cell (inclusive).
+     * @param to   The end of the cell (exclusive).
+     */
+    public void append(CharSequence text, int from, int to) {
+        ensureCapacity(size + 1);
+        if (FastDoubleParser.parse(text, from, to, values, size) == FastDoubleParser.OK) {
+            validCount++;
+        } else {
+            nullMask[size >>> 6] |= 1L << size;
+        }
+        size++;
+    }
+
+    /**
+     * Appends a numeric value.
+     *
+     * @param value The value.
+     */
+    public void appendValue(double value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+        validCount++;
+    }
+
+    /**
+     * Appends a null cell.
+     */
+    public void appendNull() {
+        ensureCapacity(size + 1);
+        nullMask[size >>> 6] |= 1L << size;
+        size++;
+    }
+
+    /**
+     * Gets the number of cells appended so far that held a number.
+     *
+     * @return The non-null count.
+     */
+    public int getValidCount() {
+        return validCount;
+    }
+
+    /**
+     * Gets the number of cells appended so far.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Builds the column, trimming the backing arrays to size.
+     *
+     * @return The numeric column.
+     */
+    public NumericColumn build() {
+        return new NumericColumn(name, Arrays.copyOf(values, size),
+                Arrays.copyOf(nullMask, NumericColumn.wordCount(size)), size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            int newLength = Math.max(capacity, values.length + (values.length >> 1));
+            values = Arrays.copyOf(values, newLength);
+            nullMask = Arrays.copyOf(nullMask, NumericColumn.wordCount(newLength));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package datavisualizer.model.dataset;
+
+import java.util.Arrays;
+
+/**
+ * Frame-of-reference bit packing of integer values. Values with up to {@value #MAX_SCALE} decimal places are
+ * first scaled by a power of ten to integers, but only if every value converts back to exactly the same double.
+ * Each block stores its minimum and packs every value as its offset from it, in as many bits as the block's range
+ * needs, so any row decodes in constant time. The few negative zeros text may hold (e.g. "-0.00") would decode as
+ * positive zero, so their rows are kept aside and patched after decoding.
+ */
+final class PackedDecimals extends CompressedDoubles {
+
+    static final int MAX_SCALE = 4;
+    private static final double[] POWERS = {1, 10, 100, 1_000, 10_000};
+    private static final double[] INVERSES = {1, 0.1, 0.01, 0.001, 0.0001};
+    private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+    private static final long MAX_EXACT = 1L << 53; // Larger integers are not all representable as doubles
+    private static final int NEGATIVE_ZERO_RATIO = 64; // At most one row in this many may be a negative zero
+
+    private final long[] words;
+    private final long[] blockOffsets; // Bit position of each block
+    private final long[] bases; // Minimum scaled value of each block
+    private final byte[] widths; // Bits per value of each block
+    private final int[] negativeZeros; // Rows holding -0.0, ascending
+    private final int scale;
+    private final int size;
+
+    private PackedDecimals(long[] words, long[] blockOffsets, long[] bases, byte[] widths, int[] negativeZeros,
+                           int scale, int size) {
+        this.words = words;
+        this.blockOffsets = blockOffsets;
+        this.bases = bases;
+        this.widths = widths;
+        this.negativeZeros = negativeZeros;
+        this.scale = scale;
+        this.size = size;
+    }
+
+    /**
+     * Packs the values, if they are all decimals with few enough places.
+     *
+     * @return The packed values, or null if some value is not such a decimal.
+     */
+    static PackedDecimals pack(double[] values, long[] nullMask, int size) {
+        int scale = findScale(values, nullMask, size);
+        if (scale < 0) {
+            return null;
+        }
+        int[] negativeZeros = findNegativeZeros(values, nullMask, size);
+        if (negativeZeros == null) {
+            return null;
+        }
+        double power = POWERS[scale];
+        int blockCount = blockCount(size);
+        long[] offsets = new long[blockCount];
+        long[] bases = new long[blockCount];
+        byte[] widths = new byte[blockCount];
+        BitStream stream = new BitStream();
+        for (int b = 0; b < blockCount; b++) {
+            int start = b * DoubleBlockIterator.BLOCK_SIZE;
+            int end = Math.min(size, start + DoubleBlockIterator.BLOCK_SIZE);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int row = start; row < end; row++) {
+                if (!isNull(nullMask, row)) {
+                    long scaled = Math.round(values[row] * power);
+                    min = Math.min(min, scaled);
+                    max = Math.max(max, scaled);
+                }
+            }
+            if (min > max) {
+                min = max = 0; // Every row is null
+            }
+            int width = 64 - Long.numberOfLeadingZeros(max - min);
+            offsets[b] = stream.length();
+            bases[b] = min;
+            widths[b] = (byte) width;
+            for (int row = start; row < end; row++) {
+                stream.write(isNull(nullMask, row) ? 0 : Math.round(values[row] * power) - min, width); // Nulls as the minimum
+            }
+        }
+        return new PackedDecimals(stream.toWords(), offsets, bases, widths, negativeZeros, scale, size);
+    }
+
+    /**
+     * Finds the rows holding negative zeros.
+     *
+     * @return The rows, ascending, or null if there are too many to keep aside.
+     */
+    private static int[] findNegativeZeros(double[] values, long[] nullMask, int size) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (!isNull(nullMask, row) && Double.doubleToRawLongBits(values[row]) == NEGATIVE_ZERO_BITS) {
+                if (count >= size / NEGATIVE_ZERO_RATIO + 1) {
+                    return null;
+                }
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Finds the fewest decimal places that represent every non-null value exactly.
+     * A value that fits at a lower scale may not fit at a higher one (e.g. an integer that exceeds the exact range
+     * once scaled), so every value is checked again at the scale found.
+     *
+     * @return The number of places, or -1 if more than {@link #MAX_SCALE} would be needed or no scale fits all.
+     */
+    private static int findScale(double[] values, long[] nullMask, int size) {
+        int scale = 0;
+        for (int row = 0; row < size; row++) {
+            if (isNull(nullMask, row)) {
+                continue;
+            }
+            double value = values[row];
+            while (!representable(value, scale)) {
+                if (++scale > MAX_SCALE) {
+                    return -1;
+                }
+            }
+        }
+        if (scale > 0) {
+            for (int row = 0; row < size; row++) {
+                if (!isNull(nullMask, row) && !representable(values[row], scale)) {
+                    return -1;
+                }
+            }
+        }
+        return scale;
+    }
+
+    private static boolean representable(double value, int scale) {
+        double scaled = value * POWERS[scale];
+        if (!(Math.abs(scaled) < MAX_EXACT)) {
+            return false; // Too large, infinite or NaN
+        }
+        return toDouble(Math.round(scaled), scale) == value;
+    }
+
+    private static double toDouble(long scaled, int scale) {
+        return divide(scaled, POWERS[scale], INVERSES[scale]);
+    }
+
+    /**
+     * Divides by a power of ten with multiplications and one fused correction step, several times faster than a
+     * division. The quotient is the correctly rounded one in all but rare cases; encoding checks that every value
+     * converts back exactly this way, so decoding stays lossless.
+     */
+    private static double divide(double scaled, double power, double inverse) {
+        double quotient = scaled * inverse;
+        return Math.fma(Math.fma(-quotient, power, scaled), inverse, quotient);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int decodeBlock(int block, double[] out) {
+        int count = Math.min(DoubleBlockIterator.BLOCK_SIZE, size - block * DoubleBlockIterator.BLOCK_SIZE);
+        long base = bases[block];
+        int width = widths[block];
+        double power = POWERS[scale];
+        double inverse = INVERSES[scale];
+        if (width == 0) {
+            Arrays.fill(out, 0, count, toDouble(base, scale));
+        } else {
+            // Unpacks inline rather than through a BitStream.Reader: this loop is what every scan of the column runs
+            long position = blockOffsets[block];
+            int shift = 64 - width;
+            for (int i = 0; i < count; i++, position += width) {
+                int word = (int) (position >>> 6);
+                int used = (int) (position & 63);
+                long bits = (words[word] << used) | ((words[word + 1] >>> 1) >>> (63 - used)); // 64 bits from position
+                out[i] = divide(base + (bits >>> shift), power, inverse);
+            }
+        }
+        if (negativeZeros.length > 0) {
+            int start = block * DoubleBlockIterator.BLOCK_SIZE;
+            int k = Arrays.binarySearch(negativeZeros, start);
+            for (k = k < 0 ? -k - 1 : k; k < negativeZeros.length && negativeZeros[k] < start + count; k++) {
+                out[negativeZeros[k] - start] = -0.0;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public double get(int row) {
+        int block = row / DoubleBlockIterator.BLOCK_SIZE;
+        int width = widths[block];
+        long position = blockOffsets[block] + (long) (row % DoubleBlockIterator.BLOCK_SIZE) * width;
+        if (negativeZeros.length > 0 && Arrays.binarySearch(negativeZeros, row) >= 0) {
+            return -0.0;
+        }
+        return toDouble(bases[block] + new BitStream.Reader(words, position).read(width), scale);
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 32L + 8L * words.length + 17L * blockOffsets.length + 4L * negativeZeros.length;
+    }
+
+    @Override
+    public String getEncoding() {
+        return scale == 0 ? "packed" : "packed decimal(" + scale + ")";
+    }
+}
@@ -0,0 +1,186 @@
+package datavisualizer.model.dataset;
+
+import datavisualizer.model.time.TimestampParser;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed view of a timestamp column: epoch milliseconds (UTC) in a primitive array,
+ * with a null mask for cells that are missing or not timestamps.
+ * The milliseconds can also be stored delta-of-delta encoded (see {@link #compress()}); scans then read them
+ * block by block through {@link #blocks()}.
+ */
+public class TimestampColumn {
+
+    private final String name;
+    private final long[] millis; // Null if compressed
+    private final DeltaOfDeltaLongs compressed; // Null unless compressed
+    private final long[] nullMask;
+    private final int size;
+    private final long min;
+    private final long max;
+
+    /**
+     * Constructs a timestamp column from already typed data.
+     *
+     * @param name     The column name.
+     * @param millis   The epoch milliseconds of each row.
+     * @param nullMask Bitmap where a set bit marks a null row.
+     * @param size     The number of rows.
+     */
+    public TimestampColumn(String name, long[] millis, long[] nullMask, int size) {
+        this.name = name;
+        this.millis = millis;
+        this.compressed = null;
+        this.nullMask = nullMask;
+        this.size = size;
+        long lowest = Long.MAX_VALUE;
+        long highest = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            if ((nullMask[i >>> 6] & (1L << i)) == 0) {
+                lowest = Math.min(lowest, millis[i]);
+                highest = Math.max(highest, millis[i]);
+            }
+        }
+        this.min = lowest;
+        this.max = highest;
+    }
+
+    private TimestampColumn(TimestampColumn plain, DeltaOfDeltaLongs compressed) {
+        this.name = plain.name;
+        this.millis = null;
+        this.compressed = compressed;
+        this.nullMask = plain.nullMask;
+        this.size = plain.size;
+        this.min = plain.min;
+        this.max = plain.max;
+    }
+
+    /**
+     * Builds a timestamp column from row-oriented data by parsing each cell's text.
+     *
+     * @param name The column name.
+     * @param rows The data rows.
+     * @return The typed column.
+     */
+    public static TimestampColumn fromRows(String name, List<Map<String, Object>> rows) {
+        int size = rows.size();
+        long[] millis = new long[size];
+        long[] nullMask = new long[NumericColumn.wordCount(size)];
+        for (int i = 0; i < size; i++) {
+            Object value = rows.get(i).get(name);
+            CharSequence text = value == null ? "" : value instanceof CharSequence ? (CharSequence) value : value.toString();
+            if (TimestampParser.parse(text, 0, text.length(), millis, i) != TimestampParser.OK) {
+                nullMask[i >>> 6] |= 1L << i;
+            }
+        }
+        return new TimestampColumn(name, millis, nullMask, size);
+    }
+
+    /**
+     * Gets a delta-of-delta encoded copy of the column, see {@link DeltaOfDeltaLongs}.
+     *
+     * @return The compressed column, or this column if it is compressed already or compression would not save
+     *         enough memory (e.g. for timestamps in random order).
+     */
+    public TimestampColumn compress() {
+        if (compressed != null) {
+            return this;
+        }
+        DeltaOfDeltaLongs encoded = DeltaOfDeltaLongs.encode(millis, nullMask, size);
+        return encoded != null ? new TimestampColumn(this, encoded) : this;
+    }
+
+    /**
+     * Checks whether the milliseconds are stored compressed.
+     *
+     * @return true if the column was compressed.
+     */
+    public boolean isCompressed() {
+        return compressed != null;
+    }
+
+    /**
+     * Estimates the heap used by the milliseconds and the null mask.
+     *
+     * @return The footprint in bytes.
+     */
+    public long sizeInBytes() {
+        return (compressed != null ? compressed.sizeInBytes() : 8L * size) + 8L * nullMask.length;
+    }
+
+    /**
+     * Gets an iterator over the milliseconds block by block, which decodes a compressed column one block at a time.
+     *
+     * @return A new iterator.
+     */
+    public LongBlockIterator blocks() {
+        return new LongBlockIterator(millis, compressed, size);
+    }
+
+    /**
+     * Gets the column name.
+     *
+     * @return The column name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of rows in the column.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the given row holds no timestamp.
+     *
+     * @param row The row index.
+     * @return true if the row is null.
+     */
+    public boolean isNull(int row) {
+        return (nullMask[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Gets the earliest timestamp.
+     *
+     * @return The minimum epoch milliseconds, or Long.MAX_VALUE if every row is null.
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the latest timestamp.
+     *
+     * @return The maximum epoch milliseconds, or Long.MIN_VALUE if every row is null.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the backing millisecond array for tight loops. Must not be modified.
+     * For a compressed column this decodes a full copy; scans should use {@link #blocks()}.
+     *
+     * @return The millis array.
+     */
+    public long[] millis() {
+        return millis != null ? millis : compressed.inflate();
+    }
+
+    /**
+     * Gets the backing null mask for tight loops. Must not be modified.
+     *
+     * @return The null mask words.
+     */
+    public long[] nullMask() {
+        return nullMask;
+    }
+}
@@ -0,0 +1,529 @@
+package datavisualizer.model.expression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A parsed arithmetic expression over numeric columns, e.g. {@code (revenue - cost) / qty}.
+ * <p>
+ * Expressions are parsed once and compiled into a tree of method handles that evaluates a block of
+ * {@link #BLOCK_SIZE} rows per call, reading the columns' double arrays directly. Each node runs one tight loop
+ * over its block; the loops are shared by all expressions, so the JIT compiles them once, and the handles are
+ * invoked once per block rather than per row, with no per-row lookups or boxing.
+ * Constant subexpressions are folded at compile time.
+ * <p>
+ * Syntax: numbers, column names (identifiers, or any name in square brackets such as {@code [unit price]}),
+ * {@code + - * / %}, unary minus, parentheses, and the functions listed in {@link #FUNCTIONS}.
+ */
+public abstract class Expression {
+
+    /** Supported functions and their number of arguments. */
+    public static final Map<String, Integer> FUNCTIONS = Map.ofEntries(
+            Map.entry("abs", 1), Map.entry("sqrt", 1), Map.entry("ln", 1), Map.entry("log10", 1), Map.entry("exp", 1),
+            Map.entry("floor", 1), Map.entry("ceil", 1), Map.entry("round", 1),
+            Map.entry("pow", 2), Map.entry("min", 2), Map.entry("max", 2));
+
+    /** Rows evaluated per call of a compiled expression. */
+    public static final int BLOCK_SIZE = 512;
+
+    private static final MethodType BLOCK_TYPE = MethodType.methodType(double[].class, int.class, int.class);
+    private static final MethodType UNARY_TYPE = MethodType.methodType(double.class, double.class);
+    private static final MethodType BINARY_TYPE = MethodType.methodType(double.class, double.class, double.class);
+    private static final MethodHandle LOAD = find(Expression.class, "load",
+            MethodType.methodType(double[].class, double[].class, double[].class, int.class, int.class));
+    private static final MethodHandle UNARY = find(Expression.class, "unary",
+            MethodType.methodType(double[].class, int.class, double[].class, double[].class, int.class));
+    private static final MethodHandle BINARY = find(Expression.class, "binary",
+            MethodType.methodType(double[].class, int.class, double[].class, double[].class, double[].class, int.class));
+
+    // Operations of the block loops
+    private static final int NEGATE = 0, ABS = 1, SQRT = 2, LN = 3, LOG10 = 4, EXP = 5, FLOOR = 6, CEIL = 7, ROUND = 8;
+    private static final int ADD = 0, SUBTRACT = 1, MULTIPLY = 2, DIVIDE = 3, REMAINDER = 4, POW = 5, MIN = 6, MAX = 7;
+
+    /**
+     * Parses an expression.
+     *
+     * @param text The expression text.
+     * @return The parsed expression.
+     * @throws IllegalArgumentException If the text is not a valid expression; the message gives the position.
+     */
+    public static Expression parse(String text) {
+        return new ExpressionParser(text).parse();
+    }
+
+    /**
+     * Gets the names of the columns the expression reads.
+     *
+     * @return The column names, in order of first use.
+     */
+    public Set<String> getColumns() {
+        Set<String> columns = new LinkedHashSet<>();
+        collectColumns(columns);
+        return columns;
+    }
+
+    /**
+     * Compiles the expression into a method handle of type {@code (int from, int count) -> double[]}, which
+     * evaluates rows {@code from} to {@code from + count - 1} ({@code count} at most {@link #BLOCK_SIZE}) into
+     * indices 0 to {@code count - 1} of the returned array. The handle reuses its arrays from call to call, so it
+     * must not be shared between threads, and the result must be read before the next call.
+     *
+     * @param columns Gets the values of a column by name, one per row (values of null rows are ignored by the caller).
+     * @return The compiled expression.
+     * @throws IllegalArgumentException If a column cannot be resolved.
+     */
+    public MethodHandle compile(Function<String, double[]> columns) {
+        if (isConstant()) {
+            return constant(evaluateConstant());
+        }
+        return compileNode(columns);
+    }
+
+    abstract void collectColumns(Set<String> columns);
+
+    abstract boolean isConstant();
+
+    abstract double evaluateConstant();
+
+    abstract MethodHandle compileNode(Function<String, double[]> columns);
+
+    /**
+     * Gets the expression as text that parses back to an equal expression.
+     *
+     * @return The canonical text.
+     */
+    @Override
+    public abstract String toString();
+
+    private static MethodHandle constant(double value) {
+        double[] block = new double[BLOCK_SIZE];
+        Arrays.fill(block, value);
+        return MethodHandles.dropArguments(MethodHandles.constant(double[].class, block), 0, int.class, int.class);
+    }
+
+    private static MethodHandle find(Class<?> owner, String name, MethodType type) {
+        try {
+            return MethodHandles.lookup().findStatic(owner, name, type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Missing expression operator " + name, e);
+        }
+    }
+
+    /**
+     * Compiles a child, folding it to a constant handle if it has no columns.
+     */
+    private static MethodHandle compileChild(Expression child, Function<String, double[]> columns) {
+        return child.isConstant() ? constant(child.evaluateConstant()) : child.compileNode(columns);
+    }
+
+    private static double round(double a) {
+        return Math.round(a);
+    }
+
+    /**
+     * Copies a block of a column's values.
+     */
+    private static double[] load(double[] values, double[] out, int from, int count) {
+        System.arraycopy(values, from, out, 0, count);
+        return out;
+    }
+
+    /**
+     * Applies a unary operation to a block.
+     */
+    private static double[] unary(int operation, double[] a, double[] out, int count) {
+        switch (operation) {
+            case NEGATE:
+                for (int i = 0; i < count; i++) {
+                    out[i] = -a[i];
+                }
+                break;
+            case ABS:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.abs(a[i]);
+                }
+                break;
+            case SQRT:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.sqrt(a[i]);
+                }
+                break;
+            case LN:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.log(a[i]);
+                }
+                break;
+            case LOG10:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.log10(a[i]);
+                }
+                break;
+            case EXP:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.exp(a[i]);
+                }
+                break;
+            case FLOOR:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.floor(a[i]);
+                }
+                break;
+            case CEIL:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.ceil(a[i]);
+                }
+                break;
+            default:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.round(a[i]);
+                }
+                break;
+        }
+        return out;
+    }
+
+    /**
+     * Applies a binary operation to two blocks.
+     */
+    private static double[] binary(int operation, double[] a, double[] b, double[] out, int count) {
+        switch (operation) {
+            case ADD:
+                for (int i = 0; i < count; i++) {
+                    out[i] = a[i] + b[i];
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < count; i++) {
+                    out[i] = a[i] - b[i];
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < count; i++) {
+                    out[i] = a[i] * b[i];
+                }
+                break;
+            case DIVIDE:
+                for (int i = 0; i < count; i++) {
+                    out[i] = a[i] / b[i];
+                }
+                break;
+            case REMAINDER:
+                for (int i = 0; i < count; i++) {
+                    out[i] = a[i] % b[i];
+                }
+                break;
+            case POW:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.pow(a[i], b[i]);
+                }
+                break;
+            case MIN:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.min(a[i], b[i]);
+                }
+                break;
+            default:
+                for (int i = 0; i < count; i++) {
+                    out[i] = Math.max(a[i], b[i]);
+                }
+                break;
+        }
+        return out;
+    }
+
+    /**
+     * Binds a unary block loop to the handle computing its operand.
+     *
+     * @param operation The operation, e.g. {@link #NEGATE}.
+     * @param operand   The {@code (int from, int count) -> double[]} handle computing the operand.
+     * @return A {@code (int from, int count) -> double[]} handle.
+     */
+    private static MethodHandle unary(int operation, MethodHandle operand) {
+        MethodHandle loop = MethodHandles.insertArguments(UNARY, 0, operation); // (a, out, count)
+        loop = MethodHandles.insertArguments(loop, 1, (Object) new double[BLOCK_SIZE]); // (a, count)
+        MethodHandle fed = MethodHandles.collectArguments(loop, 0, operand); // (from, count, count)
+        return MethodHandles.permuteArguments(fed, BLOCK_TYPE, 0, 1, 1);
+    }
+
+    /**
+     * Binds a binary block loop to the handles computing its operands.
+     *
+     * @param operation The operation, e.g. {@link #ADD}.
+     * @param left      The handle computing the first operand.
+     * @param right     The handle computing the second operand.
+     * @return A {@code (int from, int count) -> double[]} handle.
+     */
+    private static MethodHandle binary(int operation, MethodHandle left, MethodHandle right) {
+        MethodHandle loop = MethodHandles.insertArguments(BINARY, 0, operation); // (a, b, out, count)
+        loop = MethodHandles.insertArguments(loop, 2, (Object) new double[BLOCK_SIZE]); // (a, b, count)
+        MethodHandle fed = MethodHandles.collectArguments(loop, 0, left); // (from, count, b, count)
+        fed = MethodHandles.collectArguments(fed, 2, right); // (from, count, from, count, count)
+        return MethodHandles.permuteArguments(fed, BLOCK_TYPE, 0, 1, 0, 1, 1);
+    }
+
+    /**
+     * A number literal.
+     */
+    static final class Literal extends Expression {
+        private final double value;
+
+        Literal(double value) {
+            this.value = value;
+        }
+
+        @Override
+        void collectColumns(Set<String> columns) {
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+
+        @Override
+        double evaluateConstant() {
+            return value;
+        }
+
+        @Override
+        MethodHandle compileNode(Function<String, double[]> columns) {
+            return constant(value);
+        }
+
+        @Override
+        public String toString() {
+            return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+        }
+    }
+
+    /**
+     * A reference to a numeric column.
+     */
+    static final class ColumnRef extends Expression {
+        private final String name;
+
+        ColumnRef(String name) {
+            this.name = name;
+        }
+
+        @Override
+        void collectColumns(Set<String> columns) {
+            columns.add(name);
+        }
+
+        @Override
+        boolean isConstant() {
+            return false;
+        }
+
+        @Override
+        double evaluateConstant() {
+            throw new IllegalStateException("Column " + name + " is not constant");
+        }
+
+        @Override
+        MethodHandle compileNode(Function<String, double[]> columns) {
+            double[] values = columns.apply(name);
+            if (values == null) {
+                throw new IllegalArgumentException("Unknown column: " + name);
+            }
+            return MethodHandles.insertArguments(LOAD, 0, values, new double[BLOCK_SIZE]);
+        }
+
+        @Override
+        public String toString() {
+            return ExpressionParser.isIdentifier(name) && !FUNCTIONS.containsKey(name.toLowerCase(Locale.ROOT))
+                    ? name : "[" + name + "]";
+        }
+    }
+
+    /**
+     * Unary minus.
+     */
+    static final class Negation extends Expression {
+        private final Expression operand;
+
+        Negation(Expression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        void collectColumns(Set<String> columns) {
+            operand.collectColumns(columns);
+        }
+
+        @Override
+        boolean isConstant() {
+            return operand.isConstant();
+        }
+
+        @Override
+        double evaluateConstant() {
+            return -operand.evaluateConstant();
+        }
+
+        @Override
+        MethodHandle compileNode(Function<String, double[]> columns) {
+            return unary(NEGATE, compileChild(operand, columns));
+        }
+
+        @Override
+        public String toString() {
+            return "-" + operand;
+        }
+    }
+
+    /**
+     * A binary arithmetic operator.
+     */
+    static final class Binary extends Expression {
+        private final char operator;
+        private final Expression left;
+        private final Expression right;
+
+        Binary(char operator, Expression left, Expression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void collectColumns(Set<String> columns) {
+            left.collectColumns(columns);
+            right.collectColumns(columns);
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+
+        @Override
+        double evaluateConstant() {
+            double a = left.evaluateConstant();
+            double b = right.evaluateConstant();
+            switch (operator) {
+                case '+':
+                    return a + b;
+                case '-':
+                    return a - b;
+                case '*':
+                    return a * b;
+                case '/':
+                    return a / b;
+                default:
+                    return a % b;
+            }
+        }
+
+        @Override
+        MethodHandle compileNode(Function<String, double[]> columns) {
+            int operation = operator == '+' ? ADD : operator == '-' ? SUBTRACT : operator == '*' ? MULTIPLY
+                    : operator == '/' ? DIVIDE : REMAINDER;
+            return binary(operation, compileChild(left, columns), compileChild(right, columns));
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + operator + " " + right + ")";
+        }
+    }
+
+    /**
+     * A call of one of the {@link #FUNCTIONS}.
+     */
+    static final class Call extends Expression {
+        private final String function;
+        private final List<Expression> arguments;
+
+        Call(String function, List<Expression> arguments) {
+            this.function = function;
+            this.arguments = List.copyOf(arguments);
+        }
+
+        @Override
+        void collectColumns(Set<String> columns) {
+            for (Expression argument : arguments) {
+                argument.collectColumns(columns);
+            }
+        }
+
+        @Override
+        boolean isConstant() {
+            return arguments.stream().allMatch(Expression::isConstant);
+        }
+
+        @Override
+        double evaluateConstant() {
+            try {
+                MethodHandle handle = operation();
+                return arguments.size() == 1 ? (double) handle.invokeExact(arguments.get(0).evaluateConstant())
+                        : (double) handle.invokeExact(arguments.get(0).evaluateConstant(), arguments.get(1).evaluateConstant());
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not evaluate " + this, e);
+            }
+        }
+
+        @Override
+        MethodHandle compileNode(Function<String, double[]> columns) {
+            switch (function) {
+                case "pow":
+                    return binary(POW, compileChild(arguments.get(0), columns), compileChild(arguments.get(1), columns));
+                case "min":
+                    return binary(MIN, compileChild(arguments.get(0), columns), compileChild(arguments.get(1), columns));
+                case "max":
+                    return binary(MAX, compileChild(arguments.get(0), columns), compileChild(arguments.get(1), columns));
+                default:
+                    return unary(unaryOperation(), compileChild(arguments.get(0), columns));
+            }
+        }
+
+        private int unaryOperation() {
+            switch (function) {
+                case "abs": return ABS;
+                case "sqrt": return SQRT;
+                case "ln": return LN;
+                case "log10": return LOG10;
+                case "exp": return EXP;
+                case "floor": return FLOOR;
+                case "ceil": return CEIL;
+                default: return ROUND;
+            }
+        }
+
+        /**
+         * Gets the scalar operation, for folding constant calls.
+         */
+        private MethodHandle operation() {
+            switch (function) {
+                case "ln":
+                    return find(Math.class, "log", UNARY_TYPE);
+                case "round":
+                    return find(Expression.class, "round", UNARY_TYPE);
+                case "pow":
+                case "min":
+                case "max":
+                    return find(Math.class, function, BINARY_TYPE);
+                default:
+                    return find(Math.class, function, UNARY_TYPE);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(function).append('(');
+            for (int i = 0; i < arguments.size(); i++) {
+                text.append(i > 0 ? ", " : "").append(arguments.get(i));
+            }
+            return text.append(')').toString();
+        }
+    }
+}
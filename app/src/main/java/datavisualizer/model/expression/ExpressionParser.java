@@ -0,0 +1,203 @@
+package datavisualizer.model.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recursive-descent parser for {@link Expression}s.
+ * <pre>
+ * expression := term (('+' | '-') term)*
+ * term       := factor (('*' | '/' | '%') factor)*
+ * factor     := '-' factor | number | column | function '(' expression (',' expression)* ')' | '(' expression ')'
+ * column     := identifier | '[' any text but ']' ']'
+ * </pre>
+ */
+class ExpressionParser {
+
+    private final String text;
+    private int position;
+
+    /**
+     * Constructs a parser for one expression.
+     *
+     * @param text The expression text.
+     */
+    ExpressionParser(String text) {
+        this.text = text != null ? text : "";
+    }
+
+    /**
+     * Parses the whole text.
+     *
+     * @return The expression.
+     * @throws IllegalArgumentException If the text is not a valid expression.
+     */
+    Expression parse() {
+        skipSpaces();
+        if (position == text.length()) {
+            throw new IllegalArgumentException("Expression is empty.");
+        }
+        Expression expression = parseExpression();
+        if (position < text.length()) {
+            throw error("Unexpected '" + text.charAt(position) + "'");
+        }
+        return expression;
+    }
+
+    /**
+     * Checks whether a column name can be written without brackets.
+     *
+     * @param name The column name.
+     * @return true if the name is an identifier.
+     */
+    static boolean isIdentifier(String name) {
+        if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Expression parseExpression() {
+        Expression left = parseTerm();
+        while (peek('+') || peek('-')) {
+            char operator = text.charAt(position++);
+            skipSpaces();
+            left = new Expression.Binary(operator, left, parseTerm());
+        }
+        return left;
+    }
+
+    private Expression parseTerm() {
+        Expression left = parseFactor();
+        while (peek('*') || peek('/') || peek('%')) {
+            char operator = text.charAt(position++);
+            skipSpaces();
+            left = new Expression.Binary(operator, left, parseFactor());
+        }
+        return left;
+    }
+
+    private Expression parseFactor() {
+        if (position == text.length()) {
+            throw error("Unexpected end of expression");
+        }
+        char c = text.charAt(position);
+        Expression factor;
+        if (c == '-') {
+            position++;
+            skipSpaces();
+            return new Expression.Negation(parseFactor());
+        } else if (c == '(') {
+            position++;
+            skipSpaces();
+            factor = parseExpression();
+            expect(')');
+        } else if (c == '[') {
+            int end = text.indexOf(']', position + 1);
+            if (end < 0) {
+                throw error("Missing ']'");
+            }
+            String name = text.substring(position + 1, end);
+            if (name.isBlank()) {
+                throw error("Empty column name");
+            }
+            position = end + 1;
+            factor = new Expression.ColumnRef(name);
+        } else if (Character.isDigit(c) || c == '.') {
+            factor = new Expression.Literal(parseNumber());
+        } else if (Character.isJavaIdentifierStart(c)) {
+            int start = position;
+            while (position < text.length() && Character.isJavaIdentifierPart(text.charAt(position))) {
+                position++;
+            }
+            String name = text.substring(start, position);
+            skipSpaces();
+            if (peek('(')) {
+                factor = parseCall(name, start);
+            } else {
+                factor = new Expression.ColumnRef(name);
+            }
+        } else {
+            throw error("Unexpected '" + c + "'");
+        }
+        skipSpaces();
+        return factor;
+    }
+
+    private Expression parseCall(String name, int start) {
+        String function = name.toLowerCase(Locale.ROOT);
+        Integer arity = Expression.FUNCTIONS.get(function);
+        if (arity == null) {
+            position = start;
+            throw error("Unknown function " + name + "()");
+        }
+        position++; // '('
+        skipSpaces();
+        List<Expression> arguments = new ArrayList<>();
+        arguments.add(parseExpression());
+        while (peek(',')) {
+            position++;
+            skipSpaces();
+            arguments.add(parseExpression());
+        }
+        expect(')');
+        if (arguments.size() != arity) {
+            position = start;
+            throw error(function + "() takes " + arity + (arity == 1 ? " argument" : " arguments"));
+        }
+        return new Expression.Call(function, arguments);
+    }
+
+    private double parseNumber() {
+        int start = position;
+        while (position < text.length() && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+            position++;
+        }
+        if (position < text.length() && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+            int exponent = position++;
+            if (position < text.length() && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+                position++;
+            }
+            if (position == text.length() || !Character.isDigit(text.charAt(position))) {
+                position = exponent; // Not an exponent after all
+            }
+            while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                position++;
+            }
+        }
+        try {
+            return Double.parseDouble(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Invalid number");
+        }
+    }
+
+    private boolean peek(char c) {
+        return position < text.length() && text.charAt(position) == c;
+    }
+
+    private void expect(char c) {
+        if (!peek(c)) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+        skipSpaces();
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + (position + 1) + ".");
+    }
+}
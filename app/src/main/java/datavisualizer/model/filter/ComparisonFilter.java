@@ -0,0 +1,137 @@
+package datavisualizer.model.filter;
+
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.DoubleBlockIterator;
+import datavisualizer.model.dataset.NumericColumn;
+
+import java.util.Set;
+
+/**
+ * Filter comparing a numeric column against a constant (e.g., "price > 10").
+ * Rows with null or non-numeric values never match.
+ */
+public class ComparisonFilter implements FilterPredicate {
+
+    /**
+     * Supported comparison operators.
+     */
+    public enum Operator {
+        LESS_THAN("<"),
+        LESS_OR_EQUAL("<="),
+        GREATER_THAN(">"),
+        GREATER_OR_EQUAL(">=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Gets the symbol of the operator.
+         *
+         * @return The symbol (e.g., "<=").
+         */
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    private final String column;
+    private final Operator operator;
+    private final double value;
+
+    /**
+     * Constructs a comparison filter.
+     *
+     * @param column   The numeric column to compare.
+     * @param operator The comparison operator.
+     * @param value    The constant to compare against.
+     */
+    public ComparisonFilter(String column, Operator operator, double value) {
+        this.column = column;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    @Override
+    public void evaluate(DataSet dataSet, SelectionVector out, FilterEngine engine) {
+        NumericColumn numeric = dataSet.getNumericColumn(column);
+        if (numeric == null) {
+            out.clearAll();
+            return;
+        }
+        DoubleBlockIterator blocks = numeric.blocks(); // Decodes a compressed column a block at a time
+        double[] values = null;
+        int offset = 0;
+        int blockEnd = 0;
+        long[] nulls = numeric.nullMask();
+        long[] words = out.words();
+        int size = numeric.size();
+        int wordCount = out.wordCount();
+
+        // One operator switch per evaluation; the inner loops only compare and shift
+        for (int w = 0; w < wordCount; w++) {
+            int base = w << 6;
+            int end = Math.min(base + 64, size);
+            if (base >= blockEnd && base < size) { // Blocks are whole words
+                values = blocks.seek(base);
+                offset = blocks.offset();
+                blockEnd = blocks.end();
+            }
+            long bits = 0L;
+            switch (operator) {
+                case LESS_THAN:
+                    for (int i = base; i < end; i++) bits |= (values[i - offset] < value ? 1L : 0L) << (i - base);
+                    break;
+                case LESS_OR_EQUAL:
+                    for (int i = base; i < end; i++) bits |= (values[i - offset] <= value ? 1L : 0L) << (i - base);
+                    break;
+                case GREATER_THAN:
+                    for (int i = base; i < end; i++) bits |= (values[i - offset] > value ? 1L : 0L) << (i - base);
+                    break;
+                case GREATER_OR_EQUAL:
+                    for (int i = base; i < end; i++) bits |= (values[i - offset] >= value ? 1L : 0L) << (i - base);
+                    break;
+            }
+            words[w] = bits & ~nulls[w];
+        }
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+        columns.add(column);
+    }
+
+    @Override
+    public String describe() {
+        return column + " " + operator.getSymbol() + " " + FilterOperator.formatNumber(value);
+    }
+
+    /**
+     * Gets the filtered column.
+     *
+     * @return The column name.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the comparison operator.
+     *
+     * @return The operator.
+     */
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * Gets the constant compared against.
+     *
+     * @return The value.
+     */
+    public double getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,69 @@
+package datavisualizer.model.filter;
+
+import datavisualizer.model.dataset.DataSet;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Evaluates filter predicates into selection bitmaps.
+ * Keeps the result selection and a pool of scratch selections so that re-filtering
+ * the same dataset does not allocate new bitmaps. Not thread-safe; use one engine per thread.
+ */
+public class FilterEngine {
+
+    private final SelectionVector result = new SelectionVector(0);
+    private final Deque<SelectionVector> scratchPool = new ArrayDeque<>();
+    private FilterPredicate lastPredicate;
+    private DataSet lastDataSet;
+
+    /**
+     * Evaluates a predicate over the dataset.
+     * The returned selection is owned by the engine and is only valid until the next call.
+     * Re-evaluating the same predicate on the same dataset returns the previous result unchanged
+     * (with the same stamp), so caches keyed on the selection stay valid.
+     *
+     * @param predicate The predicate to evaluate, or null to select all rows.
+     * @param dataSet   The dataset to filter.
+     * @return The selection of matching rows.
+     */
+    public SelectionVector evaluate(FilterPredicate predicate, DataSet dataSet) {
+        if (predicate == lastPredicate && dataSet == lastDataSet && result.size() == dataSet.getRowCount()) {
+            return result; // Predicates and datasets are immutable, so the result is still valid
+        }
+        result.reset(dataSet.getRowCount());
+        if (predicate == null) {
+            result.setAll();
+        } else {
+            predicate.evaluate(dataSet, result, this);
+        }
+        result.markChanged();
+        lastPredicate = predicate;
+        lastDataSet = dataSet;
+        return result;
+    }
+
+    /**
+     * Borrows a cleared scratch selection of the given size. Must be returned with {@link #release(SelectionVector)}.
+     *
+     * @param size The number of rows.
+     * @return A cleared selection.
+     */
+    public SelectionVector borrow(int size) {
+        SelectionVector scratch = scratchPool.poll();
+        if (scratch == null) {
+            return new SelectionVector(size);
+        }
+        scratch.reset(size);
+        return scratch;
+    }
+
+    /**
+     * Returns a scratch selection to the pool.
+     *
+     * @param scratch The selection previously obtained from {@link #borrow(int)}.
+     */
+    public void release(SelectionVector scratch) {
+        scratchPool.push(scratch);
+    }
+}
@@ -0,0 +1,108 @@
+package datavisualizer.model.filter;
+
+import datavisualizer.util.FastDoubleParser;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Operators offered in the filter UI, each able to build the matching predicate
+ * from the value text typed by the user.
+ */
+public enum FilterOperator {
+    EQUALS("="),
+    NOT_EQUALS("!="),
+    LESS_THAN("<"),
+    LESS_OR_EQUAL("<="),
+    GREATER_THAN(">"),
+    GREATER_OR_EQUAL(">="),
+    IN("in"),
+    BETWEEN("between");
+
+    private final String symbol;
+
+    FilterOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Creates a predicate for this operator.
+     * IN takes a comma-separated list of values, BETWEEN takes "lower, upper".
+     *
+     * @param column    The column to filter.
+     * @param valueText The value text entered by the user.
+     * @return The predicate.
+     * @throws IllegalArgumentException If the value text is empty or not valid for the operator.
+     */
+    public FilterPredicate createPredicate(String column, String valueText) {
+        if (column == null) {
+            throw new IllegalArgumentException("Please select a column to filter.");
+        }
+        String text = valueText != null ? valueText.trim() : "";
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("Please enter a filter value.");
+        }
+
+        switch (this) {
+            case EQUALS:
+                return new InFilter(column, Set.of(text), false);
+            case NOT_EQUALS:
+                return new InFilter(column, Set.of(text), true);
+            case IN:
+                return new InFilter(column, splitValues(text), false);
+            case LESS_THAN:
+                return new ComparisonFilter(column, ComparisonFilter.Operator.LESS_THAN, parseNumber(text));
+            case LESS_OR_EQUAL:
+                return new ComparisonFilter(column, ComparisonFilter.Operator.LESS_OR_EQUAL, parseNumber(text));
+            case GREATER_THAN:
+                return new ComparisonFilter(column, ComparisonFilter.Operator.GREATER_THAN, parseNumber(text));
+            case GREATER_OR_EQUAL:
+                return new ComparisonFilter(column, ComparisonFilter.Operator.GREATER_OR_EQUAL, parseNumber(text));
+            case BETWEEN:
+                String[] parts = text.split(",");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Enter a range as \"lower, upper\".");
+                }
+                double lower = parseNumber(parts[0]);
+                double upper = parseNumber(parts[1]);
+                return new RangeFilter(column, Math.min(lower, upper), Math.max(lower, upper));
+            default:
+                throw new IllegalArgumentException("Unsupported filter operator: " + this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+
+    /**
+     * Formats a filter constant for display, without a trailing ".0" for whole numbers.
+     *
+     * @param value The value.
+     * @return The formatted value.
+     */
+    static String formatNumber(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static Set<String> splitValues(String text) {
+        return Arrays.stream(text.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static double parseNumber(String text) {
+        double[] value = new double[1];
+        if (FastDoubleParser.parse(text, value) != FastDoubleParser.OK) {
+            throw new IllegalArgumentException("'" + text.trim() + "' is not a number.");
+        }
+        return value[0];
+    }
+}
@@ -0,0 +1,49 @@
+package datavisualizer.model.filter;
+
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.index.RoaringBitmap;
+
+import java.util.Set;
+
+/**
+ * Interface for row filters that can be evaluated over a DataSet.
+ * Implementations evaluate column-at-a-time into a selection bitmap instead of testing rows one by one.
+ * Predicates are immutable, so they can be stored in commands for undo/redo.
+ */
+public interface FilterPredicate {
+
+    /**
+     * Evaluates the predicate over every row of the dataset.
+     *
+     * @param dataSet The dataset to evaluate against.
+     * @param out     The selection to write into; it is sized to the dataset and fully overwritten.
+     * @param engine  The engine providing reusable scratch selections for composite predicates.
+     */
+    void evaluate(DataSet dataSet, SelectionVector out, FilterEngine engine);
+
+    /**
+     * Gets the matching rows as a compressed bitmap, if bitmap indexes answer the predicate without a scan.
+     * Composite predicates intersect or unite these bitmaps before evaluating their other children.
+     *
+     * @param dataSet The dataset to evaluate against.
+     * @return A new bitmap of the matching rows, or null if the predicate must be evaluated into a selection.
+     */
+    default RoaringBitmap indexedRows(DataSet dataSet) {
+        return null;
+    }
+
+    /**
+     * Adds the names of the columns the predicate reads, e.g. to read only those columns of a file that is
+     * streamed rather than loaded.
+     *
+     * @param columns The set to add to.
+     */
+    void collectColumns(Set<String> columns);
+
+    /**
+     * Gets a short, human-readable description of the predicate (e.g., "price > 10").
+     *
+     * @return The description.
+     */
+    String describe();
+}
@@ -0,0 +1,136 @@
+package datavisualizer.model.filter;
+
+import datavisualizer.model.dataset.CategoricalColumn;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.index.CategoricalIndex;
+import datavisualizer.model.index.RoaringBitmap;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Filter keeping rows whose text value is one of a set of values (e.g., "region in (north, south)").
+ * Equality is the single-value case. Uses the column's bitmap index when one exists;
+ * otherwise evaluated over the dictionary-encoded column, testing rows by code.
+ */
+public class InFilter implements FilterPredicate {
+
+    private final String column;
+    private final Set<String> values;
+    private final boolean negated;
+
+    /**
+     * Constructs an IN filter.
+     *
+     * @param column  The column to test.
+     * @param values  The accepted values.
+     * @param negated true to keep rows NOT matching any value (nulls never match either way).
+     */
+    public InFilter(String column, Set<String> values, boolean negated) {
+        this.column = column;
+        this.values = Collections.unmodifiableSet(new LinkedHashSet<>(values));
+        this.negated = negated;
+    }
+
+    @Override
+    public void evaluate(DataSet dataSet, SelectionVector out, FilterEngine engine) {
+        CategoricalColumn categorical = dataSet.getCategoricalColumn(column);
+        if (categorical == null) {
+            out.clearAll();
+            return;
+        }
+        boolean[] accepted = acceptedCodes(categorical);
+        CategoricalIndex index = dataSet.getCategoricalIndex(column);
+        if (index != null && index.getRowCount() == out.size()) {
+            index.select(accepted, out);
+            return;
+        }
+
+        int[] codes = categorical.codes();
+        long[] words = out.words();
+        int size = categorical.size();
+        int wordCount = out.wordCount();
+        for (int w = 0; w < wordCount; w++) {
+            int base = w << 6;
+            int end = Math.min(base + 64, size);
+            long bits = 0L;
+            for (int i = base; i < end; i++) {
+                int code = codes[i];
+                if (code != CategoricalColumn.NULL_CODE && accepted[code]) {
+                    bits |= 1L << (i - base);
+                }
+            }
+            words[w] = bits;
+        }
+    }
+
+    @Override
+    public RoaringBitmap indexedRows(DataSet dataSet) {
+        CategoricalColumn categorical = dataSet.getCategoricalColumn(column);
+        CategoricalIndex index = dataSet.getCategoricalIndex(column);
+        if (categorical == null || index == null || index.getRowCount() != dataSet.getRowCount()) {
+            return null;
+        }
+        return index.bitmapOf(acceptedCodes(categorical));
+    }
+
+    /**
+     * Resolves the accepted values to a lookup table over dictionary codes.
+     */
+    private boolean[] acceptedCodes(CategoricalColumn categorical) {
+        boolean[] accepted = new boolean[categorical.getCardinality()];
+        for (String value : values) {
+            int code = categorical.codeOf(value);
+            if (code != CategoricalColumn.NULL_CODE) {
+                accepted[code] = true;
+            }
+        }
+        if (negated) {
+            for (int code = 0; code < accepted.length; code++) {
+                accepted[code] = !accepted[code];
+            }
+        }
+        return accepted;
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+        columns.add(column);
+    }
+
+    @Override
+    public String describe() {
+        if (values.size() == 1) {
+            return column + (negated ? " != " : " = ") + values.iterator().next();
+        }
+        return column + (negated ? " not in " : " in ") + "(" + String.join(", ", values) + ")";
+    }
+
+    /**
+     * Gets the filtered column.
+     *
+     * @return The column name.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the accepted values.
+     *
+     * @return An unmodifiable set of values.
+     */
+    public Set<String> getValues() {
+        return values;
+    }
+
+    /**
+     * Checks whether the filter is negated.
+     *
+     * @return true for NOT IN / not-equals filters.
+     */
+    public boolean isNegated() {
+        return negated;
+    }
+}
@@ -0,0 +1,119 @@
+package datavisualizer.model.filter;
+
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.index.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Composite filter keeping rows that match any of its child predicates.
+ * Children answered by bitmap indexes (see {@link FilterPredicate#indexedRows}) are united as compressed bitmaps;
+ * the others are evaluated one at a time into a pooled scratch selection and combined word by word.
+ */
+public class OrFilter implements FilterPredicate {
+
+    private final List<FilterPredicate> children;
+
+    /**
+     * Constructs a composite filter.
+     *
+     * @param children The child predicates (at least one).
+     */
+    public OrFilter(List<FilterPredicate> children) {
+        if (children == null || children.isEmpty()) {
+            throw new IllegalArgumentException("OrFilter requires at least one child predicate.");
+        }
+        this.children = List.copyOf(children);
+    }
+
+    /**
+     * Combines two predicates, flattening nested OrFilters so the tree stays shallow.
+     *
+     * @param left  The first predicate.
+     * @param right The second predicate.
+     * @return The combined predicate.
+     */
+    public static OrFilter of(FilterPredicate left, FilterPredicate right) {
+        List<FilterPredicate> combined = new ArrayList<>();
+        for (FilterPredicate predicate : List.of(left, right)) {
+            if (predicate instanceof OrFilter) {
+                combined.addAll(((OrFilter) predicate).children);
+            } else {
+                combined.add(predicate);
+            }
+        }
+        return new OrFilter(combined);
+    }
+
+    @Override
+    public void evaluate(DataSet dataSet, SelectionVector out, FilterEngine engine) {
+        // Children answered by bitmap indexes are united as compressed bitmaps; only the others are scanned
+        RoaringBitmap indexed = null;
+        List<FilterPredicate> scanned = new ArrayList<>();
+        for (FilterPredicate child : children) {
+            RoaringBitmap rows = child.indexedRows(dataSet);
+            if (rows == null) {
+                scanned.add(child);
+            } else {
+                indexed = indexed == null ? rows : indexed.or(rows);
+            }
+        }
+        int next = 0;
+        if (indexed != null) {
+            indexed.writeTo(out);
+        } else {
+            scanned.get(next++).evaluate(dataSet, out, engine);
+        }
+        if (next == scanned.size()) {
+            return;
+        }
+        SelectionVector scratch = engine.borrow(out.size());
+        try {
+            for (int i = next; i < scanned.size(); i++) {
+                scanned.get(i).evaluate(dataSet, scratch, engine);
+                out.or(scratch);
+            }
+        } finally {
+            engine.release(scratch);
+        }
+    }
+
+    @Override
+    public RoaringBitmap indexedRows(DataSet dataSet) {
+        RoaringBitmap indexed = null;
+        for (FilterPredicate child : children) {
+            RoaringBitmap rows = child.indexedRows(dataSet);
+            if (rows == null) {
+                return null; // Some child needs a scan, so the whole predicate does
+            }
+            indexed = indexed == null ? rows : indexed.or(rows);
+        }
+        return indexed;
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+        for (FilterPredicate child : children) {
+            child.collectColumns(columns);
+        }
+    }
+
+    @Override
+    public String describe() {
+        return children.stream()
+                .map(child -> child instanceof AndFilter || child instanceof OrFilter ? "(" + child.describe() + ")" : child.describe())
+                .collect(Collectors.joining(" OR "));
+    }
+
+    /**
+     * Gets the child predicates.
+     *
+     * @return An unmodifiable list of children.
+     */
+    public List<FilterPredicate> getChildren() {
+        return children;
+    }
+}
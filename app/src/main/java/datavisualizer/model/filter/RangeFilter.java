@@ -0,0 +1,101 @@
+package datavisualizer.model.filter;
+
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.DoubleBlockIterator;
+import datavisualizer.model.dataset.NumericColumn;
+
+import java.util.Set;
+
+/**
+ * Filter keeping rows whose numeric value lies within an inclusive range (e.g., "price between 10, 20").
+ * Rows with null or non-numeric values never match.
+ */
+public class RangeFilter implements FilterPredicate {
+
+    private final String column;
+    private final double lower;
+    private final double upper;
+
+    /**
+     * Constructs a range filter.
+     *
+     * @param column The numeric column to test.
+     * @param lower  The inclusive lower bound.
+     * @param upper  The inclusive upper bound.
+     */
+    public RangeFilter(String column, double lower, double upper) {
+        this.column = column;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    @Override
+    public void evaluate(DataSet dataSet, SelectionVector out, FilterEngine engine) {
+        NumericColumn numeric = dataSet.getNumericColumn(column);
+        if (numeric == null) {
+            out.clearAll();
+            return;
+        }
+        DoubleBlockIterator blocks = numeric.blocks(); // Decodes a compressed column a block at a time
+        double[] values = null;
+        int offset = 0;
+        int blockEnd = 0;
+        long[] nulls = numeric.nullMask();
+        long[] words = out.words();
+        int size = numeric.size();
+        int wordCount = out.wordCount();
+
+        for (int w = 0; w < wordCount; w++) {
+            int base = w << 6;
+            int end = Math.min(base + 64, size);
+            if (base >= blockEnd && base < size) { // Blocks are whole words
+                values = blocks.seek(base);
+                offset = blocks.offset();
+                blockEnd = blocks.end();
+            }
+            long bits = 0L;
+            for (int i = base; i < end; i++) {
+                double v = values[i - offset];
+                bits |= (v >= lower & v <= upper ? 1L : 0L) << (i - base);
+            }
+            words[w] = bits & ~nulls[w];
+        }
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+        columns.add(column);
+    }
+
+    @Override
+    public String describe() {
+        return column + " between " + FilterOperator.formatNumber(lower) + " and " + FilterOperator.formatNumber(upper);
+    }
+
+    /**
+     * Gets the filtered column.
+     *
+     * @return The column name.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the inclusive lower bound.
+     *
+     * @return The lower bound.
+     */
+    public double getLower() {
+        return lower;
+    }
+
+    /**
+     * Gets the inclusive upper bound.
+     *
+     * @return The upper bound.
+     */
+    public double getUpper() {
+        return upper;
+    }
+}
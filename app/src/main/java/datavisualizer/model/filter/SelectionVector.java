@@ -0,0 +1,236 @@
+package datavisualizer.model.filter;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reusable bitmap of selected rows, one bit per row packed into 64-bit words.
+ * Filters write whole words at a time, and the aggregation path walks the set bits.
+ * The backing storage is kept when the vector is reset, so it can be reused across re-filters.
+ */
+public class SelectionVector {
+
+    private static final AtomicLong STAMPS = new AtomicLong();
+
+    private long[] words;
+    private int size;
+    private long stamp = STAMPS.incrementAndGet();
+
+    /**
+     * Constructs an empty selection over the given number of rows.
+     *
+     * @param size The number of rows.
+     */
+    public SelectionVector(int size) {
+        this.words = new long[wordCount(size)];
+        this.size = size;
+    }
+
+    /**
+     * Resizes the selection to the given number of rows and clears all bits.
+     * Reuses the existing storage when it is large enough.
+     *
+     * @param size The number of rows.
+     */
+    public void reset(int size) {
+        int needed = wordCount(size);
+        if (words.length < needed) {
+            words = new long[needed];
+        } else {
+            Arrays.fill(words, 0, needed, 0L);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Gets the number of rows covered by this selection.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the stamp identifying the current contents, for caching results derived from this selection.
+     * The stamp changes whenever {@link #markChanged()} is called, e.g. by the FilterEngine after re-filtering;
+     * lower-level mutators do not update it.
+     *
+     * @return The content stamp, unique within this JVM.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Gives the selection a new stamp after its contents were rewritten.
+     */
+    public void markChanged() {
+        stamp = STAMPS.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of words in use.
+     *
+     * @return The word count.
+     */
+    public int wordCount() {
+        return wordCount(size);
+    }
+
+    /**
+     * Gets the backing words for tight loops. Only the first {@link #wordCount()} words are in use.
+     *
+     * @return The words array.
+     */
+    public long[] words() {
+        return words;
+    }
+
+    /**
+     * Selects every row.
+     */
+    public void setAll() {
+        int count = wordCount();
+        Arrays.fill(words, 0, count, -1L);
+        clearTail();
+    }
+
+    /**
+     * Deselects every row.
+     */
+    public void clearAll() {
+        Arrays.fill(words, 0, wordCount(), 0L);
+    }
+
+    /**
+     * Selects a row.
+     *
+     * @param row The row index.
+     */
+    public void set(int row) {
+        words[row >>> 6] |= 1L << row;
+    }
+
+    /**
+     * Checks whether a row is selected.
+     *
+     * @param row The row index.
+     * @return true if the row is selected.
+     */
+    public boolean get(int row) {
+        return (words[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Keeps only rows selected in both this and the other selection.
+     *
+     * @param other The other selection (same size).
+     */
+    public void and(SelectionVector other) {
+        int count = wordCount();
+        long[] otherWords = other.words;
+        for (int i = 0; i < count; i++) {
+            words[i] &= otherWords[i];
+        }
+    }
+
+    /**
+     * Adds rows selected in the other selection.
+     *
+     * @param other The other selection (same size).
+     */
+    public void or(SelectionVector other) {
+        int count = wordCount();
+        long[] otherWords = other.words;
+        for (int i = 0; i < count; i++) {
+            words[i] |= otherWords[i];
+        }
+    }
+
+    /**
+     * Inverts the selection.
+     */
+    public void not() {
+        int count = wordCount();
+        for (int i = 0; i < count; i++) {
+            words[i] = ~words[i];
+        }
+        clearTail();
+    }
+
+    /**
+     * Copies the contents of another selection into this one.
+     *
+     * @param other The selection to copy.
+     */
+    public void copyFrom(SelectionVector other) {
+        reset(other.size);
+        System.arraycopy(other.words, 0, words, 0, other.wordCount());
+    }
+
+    /**
+     * Creates an independent copy with the same contents and stamp, so results cached for this selection
+     * are found for the copy too. Used to hand a selection that will be reused to another thread.
+     *
+     * @return The copy.
+     */
+    public SelectionVector snapshot() {
+        SelectionVector copy = new SelectionVector(size);
+        System.arraycopy(words, 0, copy.words, 0, wordCount());
+        copy.stamp = stamp;
+        return copy;
+    }
+
+    /**
+     * Counts the selected rows.
+     *
+     * @return The number of selected rows.
+     */
+    public int cardinality() {
+        int count = 0;
+        int wordCount = wordCount();
+        for (int i = 0; i < wordCount; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the next selected row at or after the given index.
+     *
+     * @param from The row to start from.
+     * @return The next selected row, or -1 if there is none.
+     */
+    public int nextSetBit(int from) {
+        if (from >= size) {
+            return -1;
+        }
+        int wordIndex = from >>> 6;
+        long word = words[wordIndex] & (-1L << from);
+        int wordCount = wordCount();
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == wordCount) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    /**
+     * Clears the unused bits of the last word so that counts stay exact.
+     */
+    private void clearTail() {
+        int tailBits = size & 63;
+        if (tailBits != 0) {
+            words[wordCount() - 1] &= (1L << tailBits) - 1;
+        }
+    }
+
+    private static int wordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+}
@@ -0,0 +1,133 @@
+package datavisualizer.model.index;
+
+import java.util.Arrays;
+
+/**
+ * Container storing a sorted array of values; used for sparse chunks (up to 4096 values).
+ */
+class ArrayContainer extends Container {
+
+    char[] values;
+    int size;
+
+    ArrayContainer() {
+        this(new char[4], 0);
+    }
+
+    ArrayContainer(char[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    Container add(char value) {
+        if (size > 0 && values[size - 1] >= value) {
+            // Out-of-order insert: fall back to a binary-search insert
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position >= 0) {
+                return this;
+            }
+            position = -position - 1;
+            if (size == ARRAY_MAX_SIZE) {
+                return toBitmap().add(value);
+            }
+            ensureCapacity(size + 1);
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = value;
+            size++;
+            return this;
+        }
+        if (size == ARRAY_MAX_SIZE) {
+            return toBitmap().add(value);
+        }
+        ensureCapacity(size + 1);
+        values[size++] = value;
+        return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    @Override
+    int cardinality() {
+        return size;
+    }
+
+    @Override
+    long sizeInBytes() {
+        return 24L + 16L + 2L * values.length;
+    }
+
+    @Override
+    void orInto(long[] words, int offset) {
+        for (int i = 0; i < size; i++) {
+            char value = values[i];
+            words[offset + (value >>> 6)] |= 1L << value;
+        }
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+        BitmapContainer bitmap = new BitmapContainer();
+        orInto(bitmap.words, 0);
+        bitmap.cardinality = size;
+        return bitmap;
+    }
+
+    @Override
+    Container copy() {
+        return new ArrayContainer(Arrays.copyOf(values, values.length), size);
+    }
+
+    /**
+     * Merges two sorted arrays, switching to a bitmap if the result is too large.
+     */
+    Container orArray(ArrayContainer other) {
+        if (size + other.size > ARRAY_MAX_SIZE) {
+            BitmapContainer result = toBitmap();
+            other.orInto(result.words, 0);
+            return result.normalize();
+        }
+        char[] merged = new char[size + other.size];
+        int i = 0, j = 0, k = 0;
+        while (i < size && j < other.size) {
+            char a = values[i], b = other.values[j];
+            if (a < b) {
+                merged[k++] = a;
+                i++;
+            } else if (a > b) {
+                merged[k++] = b;
+                j++;
+            } else {
+                merged[k++] = a;
+                i++;
+                j++;
+            }
+        }
+        while (i < size) merged[k++] = values[i++];
+        while (j < other.size) merged[k++] = other.values[j++];
+        return new ArrayContainer(merged, k);
+    }
+
+    /**
+     * Intersects with any container by probing each array value.
+     */
+    Container andAny(Container other) {
+        char[] result = new char[size];
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            if (other.contains(values[i])) {
+                result[k++] = values[i];
+            }
+        }
+        return new ArrayContainer(result, k);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, Math.max(capacity, values.length * 2)));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package datavisualizer.model.index;
+
+/**
+ * Container storing a plain 65536-bit bitmap; used for dense chunks.
+ */
+class BitmapContainer extends Container {
+
+    final long[] words = new long[CHUNK_WORDS];
+    int cardinality = -1; // Lazily recomputed after bulk word operations
+
+    @Override
+    Container add(char value) {
+        long bit = 1L << value;
+        int index = value >>> 6;
+        if ((words[index] & bit) == 0) {
+            words[index] |= bit;
+            if (cardinality >= 0) {
+                cardinality++;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    int cardinality() {
+        if (cardinality < 0) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            cardinality = count;
+        }
+        return cardinality;
+    }
+
+    @Override
+    long sizeInBytes() {
+        return 24L + 16L + 8L * CHUNK_WORDS;
+    }
+
+    @Override
+    void orInto(long[] destination, int offset) {
+        for (int i = 0; i < CHUNK_WORDS; i++) {
+            destination[offset + i] |= words[i];
+        }
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+        BitmapContainer copy = new BitmapContainer();
+        System.arraycopy(words, 0, copy.words, 0, CHUNK_WORDS);
+        copy.cardinality = cardinality;
+        return copy;
+    }
+
+    @Override
+    Container copy() {
+        return toBitmap();
+    }
+
+    /**
+     * Converts to an array container if the bitmap has become sparse after an operation.
+     *
+     * @return This container, or an equivalent array container.
+     */
+    Container normalize() {
+        cardinality = -1;
+        int count = cardinality();
+        if (count > ARRAY_MAX_SIZE) {
+            return this;
+        }
+        char[] values = new char[count];
+        int k = 0;
+        for (int i = 0; i < CHUNK_WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                values[k++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return new ArrayContainer(values, count);
+    }
+}
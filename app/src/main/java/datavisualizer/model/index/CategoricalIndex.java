@@ -0,0 +1,134 @@
+package datavisualizer.model.index;
+
+import datavisualizer.model.dataset.CategoricalColumn;
+import datavisualizer.model.filter.SelectionVector;
+
+/**
+ * Bitmap index over a dictionary-encoded column: one compressed bitmap of rows per distinct value.
+ * Equality and IN filters become unions of a few bitmaps instead of a scan over every row.
+ */
+public class CategoricalIndex {
+
+    private final String column;
+    private final RoaringBitmap[] bitmaps; // Indexed by dictionary code
+    private final RoaringBitmap nullRows;
+    private final int rowCount;
+
+    private CategoricalIndex(String column, RoaringBitmap[] bitmaps, RoaringBitmap nullRows, int rowCount) {
+        this.column = column;
+        this.bitmaps = bitmaps;
+        this.nullRows = nullRows;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Builds the index in a single pass over the column codes.
+     *
+     * @param categorical The encoded column.
+     * @return The index.
+     */
+    public static CategoricalIndex build(CategoricalColumn categorical) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[categorical.getCardinality()];
+        for (int code = 0; code < bitmaps.length; code++) {
+            bitmaps[code] = new RoaringBitmap();
+        }
+        RoaringBitmap nullRows = new RoaringBitmap();
+        int[] codes = categorical.codes();
+        for (int row = 0; row < codes.length; row++) {
+            int code = codes[row];
+            if (code != CategoricalColumn.NULL_CODE) {
+                bitmaps[code].add(row);
+            } else {
+                nullRows.add(row);
+            }
+        }
+        for (RoaringBitmap bitmap : bitmaps) {
+            bitmap.runOptimize();
+        }
+        nullRows.runOptimize();
+        return new CategoricalIndex(categorical.getName(), bitmaps, nullRows, codes.length);
+    }
+
+    /**
+     * Writes the rows whose code is accepted into a selection.
+     * ORs in the bitmaps of the accepted codes, or of the rejected codes and inverts,
+     * whichever needs fewer bitmaps.
+     *
+     * @param accepted  Flags over dictionary codes; null rows never match.
+     * @param selection The selection to fill.
+     */
+    public void select(boolean[] accepted, SelectionVector selection) {
+        int acceptedCount = 0;
+        for (boolean flag : accepted) {
+            if (flag) acceptedCount++;
+        }
+        boolean invert = acceptedCount > accepted.length / 2;
+        selection.clearAll();
+        for (int code = 0; code < accepted.length; code++) {
+            if (accepted[code] != invert) {
+                bitmaps[code].orInto(selection);
+            }
+        }
+        if (invert) {
+            // Null rows never match, so they are rejected together with the rejected codes
+            nullRows.orInto(selection);
+            selection.not();
+        }
+    }
+
+    /**
+     * Gets the rows whose code is accepted as a new bitmap, the union of the accepted codes' bitmaps, so that
+     * composite filters can intersect or unite it with others without a selection.
+     *
+     * @param accepted Flags over dictionary codes; null rows never match.
+     * @return The matching rows, or null if more than half of the codes are accepted: the union would then be
+     *         dense, and {@link #select} inverts the rejected codes instead.
+     */
+    public RoaringBitmap bitmapOf(boolean[] accepted) {
+        int acceptedCount = 0;
+        for (boolean flag : accepted) {
+            if (flag) acceptedCount++;
+        }
+        if (acceptedCount > accepted.length / 2) {
+            return null;
+        }
+        RoaringBitmap rows = new RoaringBitmap();
+        for (int code = 0; code < accepted.length; code++) {
+            if (accepted[code]) {
+                rows = rows.or(bitmaps[code]);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Gets the indexed column name.
+     *
+     * @return The column name.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the number of rows the index was built over.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Estimates the heap size of the index.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long sizeInBytes() {
+        long bytes = 16L + 16L + 4L * bitmaps.length + nullRows.sizeInBytes();
+        for (RoaringBitmap bitmap : bitmaps) {
+            bytes += bitmap.sizeInBytes();
+        }
+        return bytes;
+    }
+}
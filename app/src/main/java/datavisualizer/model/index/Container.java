@@ -0,0 +1,114 @@
+package datavisualizer.model.index;
+
+/**
+ * A set of 16-bit values (the low bits of row numbers) within one 65536-row chunk of a RoaringBitmap.
+ * Implementations trade space for speed depending on density: sorted arrays for sparse chunks,
+ * plain bitmaps for dense chunks, and runs for long consecutive stretches.
+ */
+abstract class Container {
+
+    /** Number of 64-bit words needed to cover one chunk. */
+    static final int CHUNK_WORDS = 1 << 10;
+
+    /** Largest cardinality stored as an array; beyond this a bitmap is smaller. */
+    static final int ARRAY_MAX_SIZE = 4096;
+
+    /**
+     * Adds a value. Values are expected in increasing order during index building,
+     * which keeps array and run appends O(1).
+     *
+     * @param value The low 16 bits of a row number.
+     * @return The container holding the value (may be a new, converted container).
+     */
+    abstract Container add(char value);
+
+    /**
+     * Checks whether a value is present.
+     *
+     * @param value The low 16 bits of a row number.
+     * @return true if present.
+     */
+    abstract boolean contains(char value);
+
+    /**
+     * Counts the values in this container.
+     *
+     * @return The cardinality.
+     */
+    abstract int cardinality();
+
+    /**
+     * Estimates the heap size of this container.
+     *
+     * @return The approximate size in bytes.
+     */
+    abstract long sizeInBytes();
+
+    /**
+     * ORs the values of this container into a chunk of a word array.
+     *
+     * @param words  The destination words.
+     * @param offset The index of the first word of this chunk.
+     */
+    abstract void orInto(long[] words, int offset);
+
+    /**
+     * Converts this container to a bitmap container (a copy if it already is one).
+     *
+     * @return A bitmap container with the same values.
+     */
+    abstract BitmapContainer toBitmap();
+
+    /**
+     * Copies this container, so that adding to the copy leaves this one unchanged.
+     *
+     * @return A container of the same kind with the same values.
+     */
+    abstract Container copy();
+
+    /**
+     * Computes the union of two containers.
+     *
+     * @param other The other container.
+     * @return A new container with the union.
+     */
+    Container or(Container other) {
+        if (this instanceof ArrayContainer && other instanceof ArrayContainer) {
+            return ((ArrayContainer) this).orArray((ArrayContainer) other);
+        }
+        BitmapContainer result = toBitmap();
+        other.orInto(result.words, 0);
+        return result.normalize();
+    }
+
+    /**
+     * Computes the intersection of two containers.
+     *
+     * @param other The other container.
+     * @return A new container with the intersection.
+     */
+    Container and(Container other) {
+        if (this instanceof ArrayContainer) {
+            return ((ArrayContainer) this).andAny(other);
+        }
+        if (other instanceof ArrayContainer) {
+            return ((ArrayContainer) other).andAny(this);
+        }
+        BitmapContainer result = toBitmap();
+        BitmapContainer right = other.toBitmap();
+        for (int i = 0; i < CHUNK_WORDS; i++) {
+            result.words[i] &= right.words[i];
+        }
+        return result.normalize();
+    }
+
+    /**
+     * Converts to a run container if that representation is smaller.
+     *
+     * @return The smallest representation of this container.
+     */
+    Container runOptimize() {
+        RunContainer runs = RunContainer.fromContainer(this);
+        return runs.sizeInBytes() < sizeInBytes() ? runs : this;
+    }
+}
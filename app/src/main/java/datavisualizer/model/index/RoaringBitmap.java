@@ -0,0 +1,184 @@
+package datavisualizer.model.index;
+
+import datavisualizer.model.filter.SelectionVector;
+
+import java.util.Arrays;
+
+/**
+ * Compressed bitmap of row numbers, organised the way Roaring bitmaps are:
+ * rows are split into 65536-row chunks keyed by their high 16 bits, and each chunk
+ * picks the smallest of an array, bitmap or run container for its low 16 bits.
+ * Intersections and unions work chunk by chunk, so sparse values stay cheap.
+ */
+public class RoaringBitmap {
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /**
+     * Adds a row number. Adding rows in increasing order (as the index builder does) is fastest.
+     *
+     * @param row The row number (non-negative).
+     */
+    public void add(int row) {
+        char key = (char) (row >>> 16);
+        char low = (char) row;
+        int position = size > 0 && keys[size - 1] == key ? size - 1 : findKey(key);
+        if (position < 0) {
+            position = -position - 1;
+            insertContainer(position, key, new ArrayContainer());
+        }
+        containers[position] = containers[position].add(low);
+    }
+
+    /**
+     * Checks whether a row number is present.
+     *
+     * @param row The row number.
+     * @return true if present.
+     */
+    public boolean contains(int row) {
+        int position = findKey((char) (row >>> 16));
+        return position >= 0 && containers[position].contains((char) row);
+    }
+
+    /**
+     * Counts the row numbers in the bitmap.
+     *
+     * @return The cardinality.
+     */
+    public long cardinality() {
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            count += containers[i].cardinality();
+        }
+        return count;
+    }
+
+    /**
+     * Computes the union with another bitmap.
+     *
+     * @param other The other bitmap.
+     * @return A new bitmap with rows present in either; it shares no containers with the inputs.
+     */
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            char a = keys[i], b = other.keys[j];
+            if (a < b) {
+                result.append(a, containers[i++].copy());
+            } else if (a > b) {
+                result.append(b, other.containers[j++].copy());
+            } else {
+                result.append(a, containers[i++].or(other.containers[j++]));
+            }
+        }
+        while (i < size) result.append(keys[i], containers[i++].copy());
+        while (j < other.size) result.append(other.keys[j], other.containers[j++].copy());
+        return result;
+    }
+
+    /**
+     * Computes the intersection with another bitmap.
+     *
+     * @param other The other bitmap.
+     * @return A new bitmap with rows present in both.
+     */
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            char a = keys[i], b = other.keys[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                Container intersection = containers[i++].and(other.containers[j++]);
+                if (intersection.cardinality() > 0) {
+                    result.append(a, intersection);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the bitmap into a selection, replacing its previous contents.
+     *
+     * @param selection The selection to fill; must cover every row in the bitmap.
+     */
+    public void writeTo(SelectionVector selection) {
+        selection.clearAll();
+        orInto(selection);
+    }
+
+    /**
+     * Adds the rows of this bitmap to a selection, word by word.
+     * Only chunks present in the bitmap are touched.
+     *
+     * @param selection The selection to add to; must cover every row in the bitmap.
+     */
+    public void orInto(SelectionVector selection) {
+        long[] words = selection.words();
+        int wordCount = selection.wordCount();
+        for (int i = 0; i < size; i++) {
+            int offset = keys[i] << 10; // 1024 words per chunk
+            Container container = containers[i];
+            if (offset + Container.CHUNK_WORDS <= wordCount || !(container instanceof BitmapContainer)) {
+                // Array and run containers only touch words holding their own rows
+                container.orInto(words, offset);
+            } else {
+                // Last, partial chunk of a bitmap container: copy only the words in range
+                long[] chunk = ((BitmapContainer) container).words;
+                for (int w = 0; offset + w < wordCount; w++) {
+                    words[offset + w] |= chunk[w];
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts containers to run encoding where that is smaller. Call once after building.
+     */
+    public void runOptimize() {
+        for (int i = 0; i < size; i++) {
+            containers[i] = containers[i].runOptimize();
+        }
+    }
+
+    /**
+     * Estimates the heap size of the bitmap.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long sizeInBytes() {
+        long bytes = 16L + 16L + 2L * keys.length + 16L + 4L * containers.length;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private void append(char key, Container container) {
+        insertContainer(size, key, container);
+    }
+
+    private void insertContainer(int position, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(containers, position, containers, position + 1, size - position);
+        keys[position] = key;
+        containers[position] = container;
+        size++;
+    }
+
+    private int findKey(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+}
@@ -0,0 +1,171 @@
+package datavisualizer.model.index;
+
+import java.util.Arrays;
+
+/**
+ * Container storing runs of consecutive values as (start, length - 1) pairs.
+ * Efficient for sorted or clustered categorical columns, where a value covers long row stretches.
+ */
+class RunContainer extends Container {
+
+    char[] runs; // Pairs of start and length-minus-one
+    int runCount;
+
+    RunContainer(char[] runs, int runCount) {
+        this.runs = runs;
+        this.runCount = runCount;
+    }
+
+    /**
+     * Builds a run container with the same values as another container.
+     *
+     * @param container The source container.
+     * @return The run-encoded container.
+     */
+    static RunContainer fromContainer(Container container) {
+        if (container instanceof RunContainer) {
+            return (RunContainer) container;
+        }
+        BitmapContainer bitmap = container instanceof BitmapContainer
+                ? (BitmapContainer) container
+                : container.toBitmap();
+        char[] runs = new char[8];
+        int runCount = 0;
+        int value = nextSet(bitmap.words, 0);
+        while (value >= 0) {
+            int end = nextClear(bitmap.words, value);
+            if (2 * runCount + 2 > runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            runs[2 * runCount] = (char) value;
+            runs[2 * runCount + 1] = (char) (end - value - 1);
+            runCount++;
+            value = end < 65536 ? nextSet(bitmap.words, end) : -1;
+        }
+        return new RunContainer(Arrays.copyOf(runs, 2 * runCount), runCount);
+    }
+
+    @Override
+    Container add(char value) {
+        if (runCount > 0) {
+            int lastStart = runs[2 * runCount - 2];
+            int lastEnd = lastStart + runs[2 * runCount - 1];
+            if (value == lastEnd + 1) {
+                runs[2 * runCount - 1]++;
+                return this;
+            }
+            if (value <= lastEnd) {
+                if (contains(value)) {
+                    return this;
+                }
+                // Out-of-order insert into a run container is rare; rebuild via a bitmap
+                return toBitmap().add(value);
+            }
+        }
+        if (2 * runCount + 2 > runs.length) {
+            runs = Arrays.copyOf(runs, Math.max(4, runs.length * 2));
+        }
+        runs[2 * runCount] = value;
+        runs[2 * runCount + 1] = 0;
+        runCount++;
+        return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+        int low = 0, high = runCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int start = runs[2 * mid];
+            if (value < start) {
+                high = mid - 1;
+            } else if (value > start + runs[2 * mid + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    int cardinality() {
+        int count = 0;
+        for (int i = 0; i < runCount; i++) {
+            count += runs[2 * i + 1] + 1;
+        }
+        return count;
+    }
+
+    @Override
+    long sizeInBytes() {
+        return 24L + 16L + 2L * runs.length;
+    }
+
+    @Override
+    void orInto(long[] words, int offset) {
+        for (int i = 0; i < runCount; i++) {
+            int start = runs[2 * i];
+            int end = start + runs[2 * i + 1] + 1; // Exclusive
+            setRange(words, offset, start, end);
+        }
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+        BitmapContainer bitmap = new BitmapContainer();
+        orInto(bitmap.words, 0);
+        return bitmap;
+    }
+
+    @Override
+    Container copy() {
+        return new RunContainer(Arrays.copyOf(runs, runs.length), runCount);
+    }
+
+    /**
+     * Sets bits [start, end) of a chunk, filling whole words where possible.
+     */
+    private static void setRange(long[] words, int offset, int start, int end) {
+        int firstWord = start >>> 6;
+        int lastWord = (end - 1) >>> 6;
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> -end;
+        if (firstWord == lastWord) {
+            words[offset + firstWord] |= firstMask & lastMask;
+            return;
+        }
+        words[offset + firstWord] |= firstMask;
+        for (int w = firstWord + 1; w < lastWord; w++) {
+            words[offset + w] = -1L;
+        }
+        words[offset + lastWord] |= lastMask;
+    }
+
+    private static int nextSet(long[] words, int from) {
+        int index = from >>> 6;
+        if (index >= words.length) {
+            return -1;
+        }
+        long word = words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static int nextClear(long[] words, int from) {
+        int index = from >>> 6;
+        long word = ~words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == words.length) {
+                return 65536;
+            }
+            word = ~words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
@@ -0,0 +1,20 @@
+package datavisualizer.model.overlay;
+
+/**
+ * Simple exponential smoothing: s = alpha * y + (1 - alpha) * s, seeded with the first value.
+ */
+class ExponentialSmoothingOverlay extends Overlay {
+
+    private final double alpha;
+    private double smoothed = Double.NaN;
+
+    ExponentialSmoothingOverlay(double alpha) {
+        this.alpha = alpha;
+    }
+
+    @Override
+    protected double next(double x, double y) {
+        smoothed = Double.isNaN(smoothed) ? y : alpha * y + (1 - alpha) * smoothed;
+        return smoothed;
+    }
+}
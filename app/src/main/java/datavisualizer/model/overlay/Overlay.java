@@ -0,0 +1,69 @@
+package datavisualizer.model.overlay;
+
+import java.util.Arrays;
+
+/**
+ * A derived series computed point by point over an aggregated chart series (e.g. a moving average).
+ * Points are appended in X order and each update is O(1), so an overlay computed once can be
+ * extended in place when new points arrive instead of being recomputed.
+ */
+public abstract class Overlay {
+
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    private int size;
+
+    /**
+     * Appends the next point of the underlying series and computes the overlay value for it.
+     *
+     * @param x The X position (category index or epoch milliseconds).
+     * @param y The series value.
+     */
+    public void append(double x, double y) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = next(x, y);
+        size++;
+    }
+
+    /**
+     * Updates the overlay state with the next point.
+     *
+     * @param x The X position.
+     * @param y The series value.
+     * @return The overlay value at this point, or NaN if it is not defined yet (e.g. the window is not full).
+     */
+    protected abstract double next(double x, double y);
+
+    /**
+     * Gets the number of points appended so far.
+     *
+     * @return The point count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the X position of a point.
+     *
+     * @param i The point index.
+     * @return The X position.
+     */
+    public double getX(int i) {
+        return xs[i];
+    }
+
+    /**
+     * Gets the overlay value at a point.
+     *
+     * @param i The point index.
+     * @return The overlay value, or NaN if it is not defined at this point.
+     */
+    public double getY(int i) {
+        return ys[i];
+    }
+}
@@ -0,0 +1,99 @@
+package datavisualizer.model.overlay;
+
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.time.TimeBucket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of overlays computed over the aggregated series of one dataset.
+ * An overlay is computed once per (X column, Y column, granularity, selection stamp, specification);
+ * re-rendering the same chart reuses it, and callers that receive new points can append them to the
+ * cached overlay instead of recomputing it. Entries are evicted least-recently-used.
+ */
+public class OverlayCache {
+
+    private static final int MAX_ENTRIES = 128;
+
+    private final Map<Key, Overlay> overlays = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Overlay> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Gets the overlay of an aggregated series, computing it from the given points if it is not cached.
+     * If the cached overlay covers fewer points than given, only the extra points are appended;
+     * this assumes the earlier points are unchanged, as when new rows extend a series at its end.
+     *
+     * @param xColumn   The X column of the series.
+     * @param yColumn   The Y column of the series.
+     * @param bucket    The time granularity of the series, or null for a category series.
+     * @param selection The selected rows the series was aggregated over, or null for all rows.
+     * @param spec      The overlay specification.
+     * @param xs        The X positions of the series points, in order.
+     * @param ys        The series values.
+     * @return The overlay.
+     */
+    public synchronized Overlay get(String xColumn, String yColumn, TimeBucket bucket, SelectionVector selection,
+                                    OverlaySpec spec, double[] xs, double[] ys) {
+        Key key = new Key(xColumn, yColumn, bucket, selection != null ? selection.getStamp() : 0L, spec);
+        Overlay overlay = overlays.get(key);
+        if (overlay == null || overlay.size() > xs.length) {
+            overlay = spec.createOverlay();
+            for (int i = 0; i < xs.length; i++) {
+                overlay.append(xs[i], ys[i]);
+            }
+            overlays.put(key, overlay);
+        } else {
+            // The series grew since the overlay was computed: only the new points need updating
+            for (int i = overlay.size(); i < xs.length; i++) {
+                overlay.append(xs[i], ys[i]);
+            }
+        }
+        return overlay;
+    }
+
+    /**
+     * Drops every cached overlay.
+     */
+    public synchronized void clear() {
+        overlays.clear();
+    }
+
+    /**
+     * Cache key of one overlay.
+     */
+    private static final class Key {
+        private final String xColumn;
+        private final String yColumn;
+        private final TimeBucket bucket;
+        private final long selectionStamp;
+        private final OverlaySpec spec;
+
+        Key(String xColumn, String yColumn, TimeBucket bucket, long selectionStamp, OverlaySpec spec) {
+            this.xColumn = xColumn;
+            this.yColumn = yColumn;
+            this.bucket = bucket;
+            this.selectionStamp = selectionStamp;
+            this.spec = spec;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return selectionStamp == other.selectionStamp && bucket == other.bucket && spec.equals(other.spec)
+                    && xColumn.equals(other.xColumn) && yColumn.equals(other.yColumn);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(xColumn, yColumn, bucket, selectionStamp, spec);
+        }
+    }
+}
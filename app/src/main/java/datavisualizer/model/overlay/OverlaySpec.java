@@ -0,0 +1,89 @@
+package datavisualizer.model.overlay;
+
+import java.util.Objects;
+
+/**
+ * Immutable description of an overlay: its type and parameter (window size or smoothing factor).
+ * Specifications are value objects, so they can be stored in the chart state and used as cache keys.
+ */
+public final class OverlaySpec {
+
+    private final OverlayType type;
+    private final double parameter;
+
+    /**
+     * Constructs an overlay specification. Prefer {@link OverlayType#createSpec(String)} for validated input.
+     *
+     * @param type      The overlay type.
+     * @param parameter The window size for window overlays, alpha for exponential smoothing, ignored for trends.
+     */
+    public OverlaySpec(OverlayType type, double parameter) {
+        this.type = Objects.requireNonNull(type);
+        this.parameter = type.hasParameter() ? parameter : 0;
+    }
+
+    /**
+     * Creates a new, empty overlay for this specification.
+     *
+     * @return The overlay, ready to have points appended.
+     */
+    public Overlay createOverlay() {
+        switch (type) {
+            case EXPONENTIAL:
+                return new ExponentialSmoothingOverlay(parameter);
+            case TREND:
+                return new TrendOverlay();
+            default:
+                return new WindowOverlay(type, (int) parameter);
+        }
+    }
+
+    /**
+     * Gets the overlay type.
+     *
+     * @return The type.
+     */
+    public OverlayType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the overlay parameter.
+     *
+     * @return The window size or smoothing factor (0 for trends).
+     */
+    public double getParameter() {
+        return parameter;
+    }
+
+    /**
+     * Gets a short label for legends, e.g. "MA(7)".
+     *
+     * @return The label.
+     */
+    public String getLabel() {
+        if (!type.hasParameter()) {
+            return type.getShortName();
+        }
+        String value = parameter == Math.rint(parameter) ? String.valueOf((long) parameter) : String.valueOf(parameter);
+        return type.getShortName() + "(" + value + ")";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OverlaySpec)) return false;
+        OverlaySpec other = (OverlaySpec) o;
+        return type == other.type && Double.compare(parameter, other.parameter) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, parameter);
+    }
+
+    @Override
+    public String toString() {
+        return getLabel();
+    }
+}
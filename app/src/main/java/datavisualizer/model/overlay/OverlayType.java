@@ -0,0 +1,85 @@
+package datavisualizer.model.overlay;
+
+/**
+ * Overlays that can be drawn on top of line chart series, each able to build its specification
+ * from the parameter text typed by the user.
+ */
+public enum OverlayType {
+    MOVING_AVERAGE("Moving average", "MA"),
+    ROLLING_SUM("Rolling sum", "Sum"),
+    ROLLING_MIN("Rolling min", "Min"),
+    ROLLING_MAX("Rolling max", "Max"),
+    EXPONENTIAL("Exp. smoothing", "EMA"),
+    TREND("Linear trend", "Trend");
+
+    private final String displayName;
+    private final String shortName;
+
+    OverlayType(String displayName, String shortName) {
+        this.displayName = displayName;
+        this.shortName = shortName;
+    }
+
+    /**
+     * Creates an overlay specification of this type.
+     * Window overlays take a window size (number of points), exponential smoothing takes alpha in (0, 1],
+     * and the trend line takes no parameter.
+     *
+     * @param parameterText The parameter text entered by the user.
+     * @return The specification.
+     * @throws IllegalArgumentException If the parameter is missing or out of range.
+     */
+    public OverlaySpec createSpec(String parameterText) {
+        String text = parameterText != null ? parameterText.trim() : "";
+        switch (this) {
+            case TREND:
+                return new OverlaySpec(this, 0);
+            case EXPONENTIAL:
+                double alpha = parseParameter(text, "Please enter a smoothing factor between 0 and 1.");
+                if (!(alpha > 0 && alpha <= 1)) {
+                    throw new IllegalArgumentException("Smoothing factor must be in (0, 1].");
+                }
+                return new OverlaySpec(this, alpha);
+            default:
+                double window = parseParameter(text, "Please enter a window size.");
+                if (window < 1 || window != Math.rint(window)) {
+                    throw new IllegalArgumentException("Window size must be a positive whole number.");
+                }
+                return new OverlaySpec(this, window);
+        }
+    }
+
+    /**
+     * Checks whether this overlay type takes a parameter.
+     *
+     * @return true if a window size or smoothing factor is required.
+     */
+    public boolean hasParameter() {
+        return this != TREND;
+    }
+
+    /**
+     * Gets the abbreviation used in series names.
+     *
+     * @return The short name.
+     */
+    public String getShortName() {
+        return shortName;
+    }
+
+    private static double parseParameter(String text, String emptyMessage) {
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException(emptyMessage);
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + text);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,140 @@
+package datavisualizer.model.overlay;
+
+/**
+ * Fixed-size sliding window over a stream of values with O(1) amortized updates.
+ * The sum is kept with Kahan compensation so that adding and evicting values over long streams does not drift;
+ * minimum and maximum are tracked with monotonic deques of window positions.
+ */
+public class SlidingWindow {
+
+    private final int capacity;
+    private final double[] values; // Ring buffer of the last `capacity` values
+    private long count; // Total number of values added
+
+    private double sum;
+    private double compensation; // Kahan running error
+
+    // Monotonic deques of absolute positions: values increasing (min) / decreasing (max) from head to tail
+    private final long[] minDeque;
+    private final long[] maxDeque;
+    private int minHead, minSize;
+    private int maxHead, maxSize;
+
+    /**
+     * Constructs an empty window.
+     *
+     * @param capacity The number of most recent values the window covers (at least 1).
+     */
+    public SlidingWindow(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1.");
+        }
+        this.capacity = capacity;
+        this.values = new double[capacity];
+        this.minDeque = new long[capacity];
+        this.maxDeque = new long[capacity];
+    }
+
+    /**
+     * Adds a value, evicting the oldest one once the window is full.
+     *
+     * @param value The value to add.
+     */
+    public void add(double value) {
+        long position = count;
+        int slot = (int) (position % capacity);
+        if (count >= capacity) {
+            addToSum(-values[slot]);
+            long expired = position - capacity;
+            if (minSize > 0 && minDeque[minHead] == expired) {
+                minHead = (minHead + 1) % capacity;
+                minSize--;
+            }
+            if (maxSize > 0 && maxDeque[maxHead] == expired) {
+                maxHead = (maxHead + 1) % capacity;
+                maxSize--;
+            }
+        }
+        values[slot] = value;
+        addToSum(value);
+        count++;
+
+        while (minSize > 0 && valueAt(minDeque[(minHead + minSize - 1) % capacity]) >= value) {
+            minSize--;
+        }
+        minDeque[(minHead + minSize++) % capacity] = position;
+        while (maxSize > 0 && valueAt(maxDeque[(maxHead + maxSize - 1) % capacity]) <= value) {
+            maxSize--;
+        }
+        maxDeque[(maxHead + maxSize++) % capacity] = position;
+    }
+
+    /**
+     * Checks whether the window holds {@code capacity} values.
+     *
+     * @return true if the window is full.
+     */
+    public boolean isFull() {
+        return count >= capacity;
+    }
+
+    /**
+     * Gets the number of values currently in the window.
+     *
+     * @return The value count.
+     */
+    public int size() {
+        return (int) Math.min(count, capacity);
+    }
+
+    /**
+     * Gets the sum of the values in the window.
+     *
+     * @return The sum, or 0 if empty.
+     */
+    public double sum() {
+        return sum - compensation;
+    }
+
+    /**
+     * Gets the mean of the values in the window.
+     *
+     * @return The mean, or NaN if empty.
+     */
+    public double mean() {
+        int size = size();
+        return size > 0 ? sum() / size : Double.NaN;
+    }
+
+    /**
+     * Gets the smallest value in the window.
+     *
+     * @return The minimum, or NaN if empty.
+     */
+    public double min() {
+        return minSize > 0 ? valueAt(minDeque[minHead]) : Double.NaN;
+    }
+
+    /**
+     * Gets the largest value in the window.
+     *
+     * @return The maximum, or NaN if empty.
+     */
+    public double max() {
+        return maxSize > 0 ? valueAt(maxDeque[maxHead]) : Double.NaN;
+    }
+
+    private double valueAt(long position) {
+        return values[(int) (position % capacity)];
+    }
+
+    /**
+     * Kahan-compensated addition to the running sum.
+     */
+    private void addToSum(double value) {
+        double y = value - compensation;
+        double t = sum + y;
+        compensation = (t - sum) - y; // Low-order bits lost in this addition
+        sum = t;
+    }
+}
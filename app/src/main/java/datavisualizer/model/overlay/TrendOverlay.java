@@ -0,0 +1,39 @@
+package datavisualizer.model.overlay;
+
+/**
+ * Least-squares trend line over all points so far.
+ * Only the running sums are updated per point; values are evaluated from the current fit,
+ * so appending a point moves the whole line without revisiting earlier points.
+ */
+class TrendOverlay extends Overlay {
+
+    // Sums are taken relative to the first X to keep them well-conditioned for epoch-millisecond positions
+    private double origin = Double.NaN;
+    private long n;
+    private double sumX, sumY, sumXX, sumXY;
+
+    @Override
+    protected double next(double x, double y) {
+        if (Double.isNaN(origin)) {
+            origin = x;
+        }
+        double dx = x - origin;
+        n++;
+        sumX += dx;
+        sumY += y;
+        sumXX += dx * dx;
+        sumXY += dx * y;
+        return Double.NaN; // Values come from the current fit, see getY
+    }
+
+    @Override
+    public double getY(int i) {
+        if (n == 0) {
+            return Double.NaN;
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        double slope = denominator != 0 ? (n * sumXY - sumX * sumY) / denominator : 0;
+        double intercept = (sumY - slope * sumX) / n;
+        return intercept + slope * (getX(i) - origin);
+    }
+}
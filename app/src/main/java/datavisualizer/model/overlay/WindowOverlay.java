@@ -0,0 +1,35 @@
+package datavisualizer.model.overlay;
+
+/**
+ * Rolling statistic over the last N points: moving average, rolling sum, minimum or maximum.
+ */
+class WindowOverlay extends Overlay {
+
+    private final OverlayType type;
+    private final SlidingWindow window;
+
+    WindowOverlay(OverlayType type, int windowSize) {
+        this.type = type;
+        this.window = new SlidingWindow(windowSize);
+    }
+
+    @Override
+    protected double next(double x, double y) {
+        window.add(y);
+        if (!window.isFull()) {
+            return Double.NaN;
+        }
+        switch (type) {
+            case MOVING_AVERAGE:
+                return window.mean();
+            case ROLLING_SUM:
+                return window.sum();
+            case ROLLING_MIN:
+                return window.min();
+            case ROLLING_MAX:
+                return window.max();
+            default:
+                throw new IllegalStateException("Not a window overlay: " + type);
+        }
+    }
+}
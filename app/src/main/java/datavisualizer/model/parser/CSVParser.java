@@ -1,17 +1,22 @@
 // DataVisualizerFX/src/main/java/datavisualizerfx/model/parser/CSVParser.java
 package datavisualizer.model.parser;
 
+import datavisualizer.model.dataset.CategoricalColumnBuilder;
 import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.model.dataset.NumericColumnBuilder;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of DataParser for parsing CSV files.
@@ -21,6 +26,8 @@ public class CSVParser implements DataParser {
     /**
      * Parses a CSV file and returns a DataSet.
      * Assumes the first row contains column headers.
+     * Each line is scanned for field boundaries once; numeric cells are parsed straight from the
+     * line's characters into typed columns, so the DataSet does not have to re-parse the strings later.
      *
      * @param file The CSV file to parse.
      * @return A DataSet containing the parsed data.
@@ -28,27 +35,203 @@ public class CSVParser implements DataParser {
      */
     @Override
     public DataSet parse(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            return parse(reader, LoadPlan.FULL);
+        }
+    }
+
+    @Override
+    public boolean supportsLoadPlans() {
+        return true;
+    }
+
+    /**
+     * Parses CSV data as the plan says. Typed-only and sampled loads keep no row maps: the plan's numeric columns
+     * are parsed into numbers only, and every other column is dictionary-encoded.
+     *
+     * @param source The CSV data, starting with the header line; not closed.
+     * @param plan   The load plan.
+     * @return A DataSet containing the parsed data.
+     * @throws IOException If an error occurs during reading.
+     */
+    @Override
+    public DataSet parse(Reader source, LoadPlan plan) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
         List<String> columnNames = new ArrayList<>();
+        String headerLine = reader.readLine();
+        if (headerLine != null) {
+            columnNames.addAll(Arrays.asList(headerLine.split(",")));
+        }
+        return plan.isFull() ? parseRows(reader, columnNames, plan) : parseColumns(reader, columnNames, plan);
+    }
+
+    private static DataSet parseRows(BufferedReader reader, List<String> columnNames, LoadPlan plan) throws IOException {
         List<Map<String, Object>> data = new ArrayList<>();
+        int columnCount = columnNames.size();
+        NumericColumnBuilder[] numericBuilders = new NumericColumnBuilder[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            numericBuilders[i] = new NumericColumnBuilder(columnNames.get(i), 1024);
+        }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String headerLine = reader.readLine();
-            if (headerLine != null) {
-                columnNames.addAll(Arrays.asList(headerLine.split(",")));
-            }
-
-            String dataLine;
-            while ((dataLine = reader.readLine()) != null) {
-                String[] values = dataLine.split(",");
-                if (values.length == columnNames.size()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int i = 0; i < columnNames.size(); i++) {
-                        row.put(columnNames.get(i), values[i].trim());
+        int[] fieldStarts = new int[columnCount];
+        int[] fieldEnds = new int[columnCount];
+        String dataLine;
+        while (data.size() < plan.getMaxRows() && (dataLine = reader.readLine()) != null) {
+            if (findFields(dataLine, fieldStarts, fieldEnds) != columnCount) {
+                continue; // Skip rows with a mismatched number of fields
+            }
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 0; i < columnCount; i++) {
+                int start = fieldStarts[i];
+                int end = fieldEnds[i];
+                row.put(columnNames.get(i), dataLine.substring(start, end).trim());
+                numericBuilders[i].append(dataLine, start, end);
+            }
+            data.add(row);
+        }
+
+        DataSet dataSet = new DataSet(columnNames, data);
+        for (NumericColumnBuilder builder : numericBuilders) {
+            if (builder.getValidCount() > 0) {
+                dataSet.putNumericColumn(builder.build()); // Only keep columns that hold numbers
+            }
+        }
+        return dataSet;
+    }
+
+    private static DataSet parseColumns(BufferedReader reader, List<String> columnNames, LoadPlan plan) throws IOException {
+        int columnCount = columnNames.size();
+        NumericColumnBuilder[] numericBuilders = new NumericColumnBuilder[columnCount];
+        CategoricalColumnBuilder[] categoricalBuilders = new CategoricalColumnBuilder[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            if (plan.getNumericColumns().contains(columnNames.get(i))) {
+                numericBuilders[i] = new NumericColumnBuilder(columnNames.get(i), 1024);
+            } else {
+                categoricalBuilders[i] = new CategoricalColumnBuilder(columnNames.get(i), 1024);
+            }
+        }
+
+        int[] fieldStarts = new int[columnCount];
+        int[] fieldEnds = new int[columnCount];
+        int rows = 0; // Rows read, including those the sample skips
+        int kept = 0;
+        String dataLine;
+        while (rows < plan.getMaxRows() && (dataLine = reader.readLine()) != null) {
+            if (findFields(dataLine, fieldStarts, fieldEnds) != columnCount) {
+                continue; // Skip rows with a mismatched number of fields
+            }
+            if (!plan.keeps(rows++)) {
+                continue;
+            }
+            for (int i = 0; i < columnCount; i++) {
+                if (numericBuilders[i] != null) {
+                    numericBuilders[i].append(dataLine, fieldStarts[i], fieldEnds[i]);
+                } else {
+                    categoricalBuilders[i].append(dataLine.substring(fieldStarts[i], fieldEnds[i]).trim());
+                }
+            }
+            kept++;
+        }
+
+        List<Object> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(numericBuilders[i] != null ? numericBuilders[i].build() : categoricalBuilders[i].build());
+        }
+        return DataSet.fromColumns(columnNames, columns, kept);
+    }
+
+    @Override
+    public void parseChunks(Reader source, Set<String> numericColumns, Set<String> textColumns, int chunkRows,
+                            ChunkConsumer consumer) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return;
+        }
+        String[] header = headerLine.split(",");
+        List<String> names = new ArrayList<>(); // The requested columns, in file order
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < header.length; i++) {
+            if (numericColumns.contains(header[i]) || textColumns.contains(header[i])) {
+                names.add(header[i]);
+                positions.add(i);
+            }
+        }
+
+        int[] fieldStarts = new int[header.length];
+        int[] fieldEnds = new int[header.length];
+        NumericColumnBuilder[] numericBuilders = new NumericColumnBuilder[names.size()];
+        CategoricalColumnBuilder[] categoricalBuilders = new CategoricalColumnBuilder[names.size()];
+        int rows = 0;
+        String dataLine;
+        while ((dataLine = reader.readLine()) != null) {
+            if (findFields(dataLine, fieldStarts, fieldEnds) != header.length) {
+                continue; // Skip rows with a mismatched number of fields
+            }
+            if (rows == 0) {
+                for (int i = 0; i < names.size(); i++) {
+                    if (textColumns.contains(names.get(i))) {
+                        categoricalBuilders[i] = new CategoricalColumnBuilder(names.get(i), chunkRows);
+                    } else {
+                        numericBuilders[i] = new NumericColumnBuilder(names.get(i), chunkRows);
                     }
-                    data.add(row);
                 }
             }
+            for (int i = 0; i < names.size(); i++) {
+                int field = positions.get(i);
+                if (numericBuilders[i] != null) {
+                    numericBuilders[i].append(dataLine, fieldStarts[field], fieldEnds[field]);
+                } else {
+                    categoricalBuilders[i].append(dataLine.substring(fieldStarts[field], fieldEnds[field]).trim());
+                }
+            }
+            if (++rows == chunkRows) {
+                consumer.accept(buildChunk(names, numericBuilders, categoricalBuilders, rows));
+                rows = 0;
+            }
+        }
+        if (rows > 0) {
+            consumer.accept(buildChunk(names, numericBuilders, categoricalBuilders, rows));
+        }
+    }
+
+    /**
+     * Builds a chunk of typed columns and clears the builders for the next one.
+     */
+    static DataSet buildChunk(List<String> names, NumericColumnBuilder[] numericBuilders,
+                              CategoricalColumnBuilder[] categoricalBuilders, int rows) {
+        List<Object> columns = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            columns.add(numericBuilders[i] != null ? numericBuilders[i].build() : categoricalBuilders[i].build());
+            numericBuilders[i] = null;
+            categoricalBuilders[i] = null;
+        }
+        return DataSet.fromColumns(names, columns, rows);
+    }
+
+    /**
+     * Finds the comma-separated field boundaries of a line.
+     *
+     * @param line   The line to scan.
+     * @param starts Receives the start of each field (inclusive).
+     * @param ends   Receives the end of each field (exclusive).
+     * @return The number of fields in the line (may exceed the array length, in which case extra fields are not recorded).
+     */
+    private static int findFields(String line, int[] starts, int[] ends) {
+        int count = 0;
+        int start = 0;
+        while (true) {
+            int comma = line.indexOf(',', start);
+            int end = comma >= 0 ? comma : line.length();
+            if (count < starts.length) {
+                starts[count] = start;
+                ends[count] = end;
+            }
+            count++;
+            if (comma < 0) {
+                return count;
+            }
+            start = comma + 1;
         }
-        return new DataSet(columnNames, data);
     }
-}
\ No newline at end of file
+}
@@ -2,9 +2,12 @@
 package datavisualizer.model.parser;
 
 import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.Set;
 
 /**
  * Interface for parsing data from different file formats.
@@ -20,4 +23,59 @@ public interface DataParser {
      * @throws IOException If an error occurs during file reading or parsing.
      */
     DataSet parse(File file) throws IOException;
-}
\ No newline at end of file
+
+    /**
+     * Checks whether the parser can load data in the degraded modes of a {@link LoadPlan}, and read samples of a
+     * file to plan with. Files of other parsers are always loaded fully.
+     *
+     * @return true if {@link #parse(Reader, LoadPlan)} is supported.
+     */
+    default boolean supportsLoadPlans() {
+        return false;
+    }
+
+    /**
+     * Parses data from a reader as the plan says: fully, as typed columns only, or sampled, and at most the
+     * plan's maximum number of rows.
+     *
+     * @param reader The source of the data; not closed.
+     * @param plan   The load plan.
+     * @return A DataSet containing the parsed data.
+     * @throws IOException If an error occurs during reading or parsing, or the parser does not support load plans.
+     */
+    default DataSet parse(Reader reader, LoadPlan plan) throws IOException {
+        throw new IOException(getClass().getSimpleName() + " does not support load plans.");
+    }
+
+    /**
+     * Reads data in chunks of typed columns, for a single pass over a file that is too large to load, see
+     * {@link datavisualizer.model.aggregate.StreamingAggregation}. Only the requested columns are kept, and each
+     * chunk is handed over before the next one is read, so memory is bounded by the chunk size.
+     *
+     * @param reader         The source of the data; not closed.
+     * @param numericColumns Columns to read as numbers only.
+     * @param textColumns    Columns to read as dictionary-encoded text.
+     * @param chunkRows      The number of rows per chunk (the last one may be smaller).
+     * @param consumer       Receives each chunk, a dataset of the requested columns found in the data, in file order.
+     * @throws IOException If an error occurs during reading or parsing, or the consumer fails, or the parser does
+     *                     not support load plans.
+     */
+    default void parseChunks(Reader reader, Set<String> numericColumns, Set<String> textColumns, int chunkRows,
+                             ChunkConsumer consumer) throws IOException {
+        throw new IOException(getClass().getSimpleName() + " does not support streaming.");
+    }
+
+    /**
+     * Receives the chunks of {@link #parseChunks}.
+     */
+    @FunctionalInterface
+    interface ChunkConsumer {
+        /**
+         * Processes one chunk; it is not used by the parser afterwards.
+         *
+         * @param chunk The rows of the chunk, as a dataset.
+         * @throws IOException If processing fails, which stops the parse.
+         */
+        void accept(DataSet chunk) throws IOException;
+    }
+}
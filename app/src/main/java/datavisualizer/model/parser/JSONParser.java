@@ -3,15 +3,23 @@ package datavisualizer.model.parser;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import datavisualizer.model.dataset.CategoricalColumnBuilder;
 import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.model.dataset.NumericColumnBuilder;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.Set;
 
 /**
  * Implementation of DataParser for parsing JSON files.
@@ -20,7 +28,15 @@ import java.util.ArrayList;
  */
 public class JSONParser implements DataParser {
 
-    private final Gson gson = new Gson();
+    private static final Type ROW_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+
+    /**
+     * Holds the shared Gson instance, which is created when the first JSON file is parsed rather than at startup.
+     * Gson is thread-safe.
+     */
+    private static final class GsonHolder {
+        static final Gson GSON = new Gson();
+    }
 
     /**
      * Parses a JSON file and returns a DataSet.
@@ -33,7 +49,7 @@ public class JSONParser implements DataParser {
     public DataSet parse(File file) throws IOException {
         try (FileReader reader = new FileReader(file)) {
             Type type = new TypeToken<List<Map<String, Object>>>() {}.getType();
-            List<Map<String, Object>> data = gson.fromJson(reader, type);
+            List<Map<String, Object>> data = GsonHolder.GSON.fromJson(reader, type);
 
             if (data != null && !data.isEmpty()) {
                 List<String> columnNames = new ArrayList<>(data.get(0).keySet());
@@ -43,4 +59,223 @@ public class JSONParser implements DataParser {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean supportsLoadPlans() {
+        return true;
+    }
+
+    /**
+     * Parses JSON data as the plan says, streaming one row object at a time. Typed-only and sampled loads keep
+     * no row maps: the plan's numeric columns are read as numbers only, and every other column is
+     * dictionary-encoded, with numbers in the text form a full load would show.
+     *
+     * @param reader The JSON data, an array of objects; not closed.
+     * @param plan   The load plan.
+     * @return A DataSet containing the parsed data.
+     * @throws IOException If an error occurs during reading or parsing.
+     */
+    @Override
+    public DataSet parse(Reader reader, LoadPlan plan) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        try {
+            json.beginArray();
+            if (!json.hasNext()) {
+                return new DataSet(new ArrayList<>(), new ArrayList<>());
+            }
+            Map<String, Object> first = GsonHolder.GSON.fromJson(json, ROW_TYPE);
+            List<String> columnNames = new ArrayList<>(first.keySet());
+            if (plan.isFull()) {
+                List<Map<String, Object>> data = new ArrayList<>();
+                data.add(first);
+                while (data.size() < plan.getMaxRows() && json.hasNext()) {
+                    data.add(GsonHolder.GSON.fromJson(json, ROW_TYPE));
+                }
+                return new DataSet(columnNames, data);
+            }
+            return parseColumns(json, columnNames, first, plan);
+        } catch (RuntimeException e) { // Gson reports malformed input with unchecked exceptions
+            throw new IOException("Invalid JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private static DataSet parseColumns(JsonReader json, List<String> columnNames, Map<String, Object> first, LoadPlan plan)
+            throws IOException {
+        int columnCount = columnNames.size();
+        NumericColumnBuilder[] numericBuilders = new NumericColumnBuilder[columnCount];
+        CategoricalColumnBuilder[] categoricalBuilders = new CategoricalColumnBuilder[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            if (plan.getNumericColumns().contains(columnNames.get(i))) {
+                numericBuilders[i] = new NumericColumnBuilder(columnNames.get(i), 1024);
+            } else {
+                categoricalBuilders[i] = new CategoricalColumnBuilder(columnNames.get(i), 1024);
+            }
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            appendObject(first.get(columnNames.get(i)), numericBuilders[i], categoricalBuilders[i]);
+        }
+        int rows = 1; // Rows read, including those the sample skips
+        int kept = 1;
+
+        boolean[] seen = new boolean[columnCount];
+        while (rows < plan.getMaxRows() && json.hasNext()) {
+            if (!plan.keeps(rows++)) {
+                json.skipValue();
+                continue;
+            }
+            Arrays.fill(seen, false);
+            json.beginObject();
+            while (json.hasNext()) {
+                int column = columnNames.indexOf(json.nextName());
+                if (column < 0 || seen[column]) {
+                    json.skipValue(); // Not a column of the first row, or repeated
+                    continue;
+                }
+                seen[column] = true;
+                if (numericBuilders[column] != null) {
+                    appendNumeric(json, numericBuilders[column]);
+                } else {
+                    appendText(json, categoricalBuilders[column]);
+                }
+            }
+            json.endObject();
+            for (int i = 0; i < columnCount; i++) {
+                if (!seen[i]) {
+                    if (numericBuilders[i] != null) {
+                        numericBuilders[i].appendNull();
+                    } else {
+                        categoricalBuilders[i].append(null);
+                    }
+                }
+            }
+            kept++;
+        }
+
+        List<Object> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(numericBuilders[i] != null ? numericBuilders[i].build() : categoricalBuilders[i].build());
+        }
+        return DataSet.fromColumns(columnNames, columns, kept);
+    }
+
+    @Override
+    public void parseChunks(Reader reader, Set<String> numericColumns, Set<String> textColumns, int chunkRows,
+                            ChunkConsumer consumer) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        try {
+            json.beginArray();
+            if (!json.hasNext()) {
+                return;
+            }
+            Map<String, Object> first = GsonHolder.GSON.fromJson(json, ROW_TYPE);
+            List<String> names = new ArrayList<>(); // The requested columns, in the order of the first row
+            for (String name : first.keySet()) {
+                if (numericColumns.contains(name) || textColumns.contains(name)) {
+                    names.add(name);
+                }
+            }
+
+            NumericColumnBuilder[] numericBuilders = new NumericColumnBuilder[names.size()];
+            CategoricalColumnBuilder[] categoricalBuilders = new CategoricalColumnBuilder[names.size()];
+            boolean[] seen = new boolean[names.size()];
+            int rows = 0;
+            boolean firstRow = true;
+            while (firstRow || json.hasNext()) {
+                if (rows == 0) {
+                    for (int i = 0; i < names.size(); i++) {
+                        if (textColumns.contains(names.get(i))) {
+                            categoricalBuilders[i] = new CategoricalColumnBuilder(names.get(i), chunkRows);
+                        } else {
+                            numericBuilders[i] = new NumericColumnBuilder(names.get(i), chunkRows);
+                        }
+                    }
+                }
+                Arrays.fill(seen, false);
+                if (firstRow) {
+                    for (int i = 0; i < names.size(); i++) {
+                        appendObject(first.get(names.get(i)), numericBuilders[i], categoricalBuilders[i]);
+                        seen[i] = true;
+                    }
+                    firstRow = false;
+                } else {
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        int column = names.indexOf(json.nextName());
+                        if (column < 0 || seen[column]) {
+                            json.skipValue(); // Not requested, or repeated
+                            continue;
+                        }
+                        seen[column] = true;
+                        if (numericBuilders[column] != null) {
+                            appendNumeric(json, numericBuilders[column]);
+                        } else {
+                            appendText(json, categoricalBuilders[column]);
+                        }
+                    }
+                    json.endObject();
+                }
+                for (int i = 0; i < names.size(); i++) {
+                    if (!seen[i]) {
+                        appendObject(null, numericBuilders[i], categoricalBuilders[i]);
+                    }
+                }
+                if (++rows == chunkRows) {
+                    consumer.accept(CSVParser.buildChunk(names, numericBuilders, categoricalBuilders, rows));
+                    rows = 0;
+                }
+            }
+            if (rows > 0) {
+                consumer.accept(CSVParser.buildChunk(names, numericBuilders, categoricalBuilders, rows));
+            }
+        } catch (RuntimeException e) { // Gson reports malformed input with unchecked exceptions
+            throw new IOException("Invalid JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Appends a value read by Gson, e.g. of the first row, the way the streaming reads below would append it.
+     */
+    private static void appendObject(Object value, NumericColumnBuilder numeric, CategoricalColumnBuilder categorical) {
+        if (numeric == null) {
+            categorical.append(value != null ? value.toString() : null);
+        } else if (value instanceof Number) {
+            numeric.appendValue(((Number) value).doubleValue());
+        } else if (value instanceof String) {
+            numeric.append((String) value, 0, ((String) value).length());
+        } else {
+            numeric.appendNull();
+        }
+    }
+
+    private static void appendNumeric(JsonReader json, NumericColumnBuilder builder) throws IOException {
+        JsonToken token = json.peek();
+        if (token == JsonToken.NUMBER) {
+            builder.appendValue(json.nextDouble());
+        } else if (token == JsonToken.STRING) {
+            String text = json.nextString();
+            builder.append(text, 0, text.length());
+        } else {
+            json.skipValue(); // null, booleans and nested values
+            builder.appendNull();
+        }
+    }
+
+    private static void appendText(JsonReader json, CategoricalColumnBuilder builder) throws IOException {
+        switch (json.peek()) {
+            case NUMBER:
+                builder.append(String.valueOf(json.nextDouble())); // As Gson reads numbers in a full load
+                break;
+            case STRING:
+                builder.append(json.nextString());
+                break;
+            case BOOLEAN:
+                builder.append(String.valueOf(json.nextBoolean()));
+                break;
+            default:
+                json.skipValue(); // null and nested values
+                builder.append(null);
+                break;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package datavisualizer.model.parser;
+
+import datavisualizer.model.dataset.CategoricalColumn;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.model.dataset.NumericColumn;
+import datavisualizer.model.index.CategoricalIndex;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chooses how to load a file so that it fits a memory budget.
+ * <p>
+ * The head of the file is parsed fully, and the footprint of each of its columns is measured and extrapolated to
+ * the projected row count of the whole file. Dictionaries of low-cardinality columns are not scaled, since their
+ * distinct values have mostly been seen in the head already. If a full load fits the budget the file is loaded
+ * fully, else as typed columns only, else as a sample of every n-th row with n chosen to fit.
+ */
+final class LoadPlanner {
+
+    private static final int SAMPLE_ROWS = 10_000;
+    // Files this many times smaller than the budget are loaded fully without measuring; row maps take ~10x the file size
+    private static final int SMALL_FILE_FACTOR = 32;
+    private static final int MAX_SAMPLE_STRIDE = 1 << 16;
+    private static final double NUMERIC_BYTES_PER_ROW = 8.125; // Value plus null mask bit
+    private static final int CODE_BYTES_PER_ROW = 4;
+
+    private LoadPlanner() {
+    }
+
+    /**
+     * Plans the load of a file.
+     *
+     * @param file   The file.
+     * @param parser The parser for its format.
+     * @param budget The memory the dataset may take, in bytes; 0 or less to always load fully.
+     * @return The plan.
+     * @throws IOException If the head of the file cannot be read or parsed.
+     */
+    static LoadPlan plan(File file, DataParser parser, long budget) throws IOException {
+        long length = file.length();
+        if (budget <= 0 || !parser.supportsLoadPlans() || length <= budget / SMALL_FILE_FACTOR) {
+            return LoadPlan.FULL;
+        }
+
+        DataSet sample;
+        long charsRead;
+        try (CountingReader reader = new CountingReader(new FileReader(file))) {
+            sample = parser.parse(reader, LoadPlan.head(SAMPLE_ROWS));
+            charsRead = reader.count;
+        }
+        int sampleRows = sample.getRowCount();
+        if (sampleRows == 0) {
+            return LoadPlan.FULL;
+        }
+        ParserFactory.prepare(sample);
+        boolean complete = sampleRows < SAMPLE_ROWS; // The head was the whole file
+        double scale = complete ? 1.0 : Math.max(1.0, (double) length / Math.max(1, charsRead));
+        long projectedRows = Math.round(sampleRows * scale);
+
+        Set<String> numericColumns = new HashSet<>();
+        long dictionaryBytes = 0; // In the sample
+        long projectedDictionaryBytes = 0;
+        double typedBytes = 0;
+        for (String name : sample.getColumnNames()) {
+            CategoricalColumn categorical = sample.getCategoricalColumn(name);
+            long dictionary = dictionaryBytes(categorical);
+            long projectedDictionary = categorical.getCardinality() > sampleRows / 2 ? Math.round(dictionary * scale) : dictionary;
+            dictionaryBytes += dictionary;
+            projectedDictionaryBytes += projectedDictionary;
+            if (isNumeric(sample, name)) {
+                numericColumns.add(name);
+                typedBytes += NUMERIC_BYTES_PER_ROW * projectedRows;
+            } else {
+                CategoricalIndex index = sample.getCategoricalIndex(name);
+                typedBytes += (double) CODE_BYTES_PER_ROW * projectedRows + projectedDictionary
+                        + (index != null ? index.sizeInBytes() * scale : 0);
+            }
+        }
+        long sampleBytes = sample.estimateMemoryFootprint() + sample.getIndexFootprint();
+        long fullBytes = Math.round((sampleBytes - dictionaryBytes) * scale) + projectedDictionaryBytes;
+        long typed = Math.round(typedBytes);
+
+        if (fullBytes <= budget) {
+            return new LoadPlan(LoadPlan.Strategy.FULL, 1, Integer.MAX_VALUE, numericColumns, projectedRows, fullBytes, fullBytes, budget);
+        }
+        if (typed <= budget) {
+            return new LoadPlan(LoadPlan.Strategy.TYPED_ONLY, 1, Integer.MAX_VALUE, numericColumns, projectedRows, fullBytes, typed, budget);
+        }
+        int stride = (int) Math.min(MAX_SAMPLE_STRIDE, (typed + budget - 1) / budget);
+        return new LoadPlan(LoadPlan.Strategy.SAMPLED, Math.max(2, stride), Integer.MAX_VALUE, numericColumns, projectedRows,
+                fullBytes, typed / Math.max(2, stride), budget);
+    }
+
+    /**
+     * Checks whether every non-empty cell of a column is a number, so a typed load can keep the numbers only.
+     */
+    private static boolean isNumeric(DataSet sample, String name) {
+        NumericColumn numeric = sample.getNumericColumn(name);
+        int nonEmpty = 0;
+        for (Map<String, Object> row : sample.getData()) {
+            Object value = row.get(name);
+            if (value != null && !value.toString().trim().isEmpty()) {
+                nonEmpty++;
+            }
+        }
+        return nonEmpty > 0 && numeric.size() - numeric.getNullCount() == nonEmpty;
+    }
+
+    /**
+     * Estimates the heap used by a column's dictionary, as DataSet does: each string plus its lookup entry.
+     */
+    private static long dictionaryBytes(CategoricalColumn categorical) {
+        long bytes = 0;
+        for (String value : categorical.getDictionary()) {
+            bytes += 40L + value.length() + 32L;
+        }
+        return bytes;
+    }
+
+    /**
+     * Counts the characters read, to tell how much of the file the head took.
+     */
+    private static final class CountingReader extends FilterReader {
+        private long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
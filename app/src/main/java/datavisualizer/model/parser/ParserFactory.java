@@ -0,0 +1,193 @@
+package datavisualizer.model.parser;
+
+import datavisualizer.diagnostics.ParseEvent;
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.util.FileUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Factory class for choosing the DataParser that matches a file's format.
+ */
+public class ParserFactory {
+
+    // Columns with at most this many distinct values get a bitmap index at load time (0 disables indexing)
+    private static final int INDEX_MAX_CARDINALITY = Integer.getInteger("datavisualizer.index.maxCardinality", 1000);
+    // Whether numeric and timestamp columns are kept compressed, trading some scan speed for memory
+    private static final boolean COMPRESS_COLUMNS = Boolean.getBoolean("datavisualizer.columns.compress");
+    private static final long MB = 1024L * 1024L;
+    // Memory one loaded file may take before it is loaded in a degraded mode; defaults to half the maximum heap
+    private static final long DEFAULT_LOAD_BUDGET = Long.getLong("datavisualizer.load.budgetMB",
+            Runtime.getRuntime().maxMemory() / 2 / MB) * MB;
+
+    /**
+     * Creates a parser for the given file based on its extension.
+     *
+     * @param file The file to parse.
+     * @return A parser for the file, or null if the format is not supported.
+     */
+    public static DataParser forFile(File file) {
+        switch (FileUtils.getFileExtension(file)) {
+            case "csv":
+                return new CSVParser();
+            case "json":
+                return new JSONParser();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the default load budget (system property {@code datavisualizer.load.budgetMB}, or half the maximum heap).
+     *
+     * @return The budget in bytes.
+     */
+    public static long getLoadBudget() {
+        return DEFAULT_LOAD_BUDGET;
+    }
+
+    /**
+     * Plans how to load a file within a memory budget, by measuring the head of the file and projecting its
+     * footprint. Small files, and files whose parser does not support load plans, are always loaded fully.
+     *
+     * @param file   The file to load.
+     * @param budget The memory the dataset may take, in bytes; 0 or less to always load fully.
+     * @return The load plan.
+     * @throws IOException If the format is not supported or the head of the file cannot be read or parsed.
+     */
+    public static LoadPlan plan(File file, long budget) throws IOException {
+        return LoadPlanner.plan(file, requireParser(file), budget);
+    }
+
+    /**
+     * Loads a file with the parser matching its format, within the default load budget, and prepares the dataset
+     * for filtering. The plan chosen is recorded on the dataset, see {@link DataSet#getLoadPlan()}.
+     *
+     * @param file The file to load.
+     * @return The loaded DataSet.
+     * @throws IOException If the format is not supported or the file cannot be read or parsed.
+     */
+    public static DataSet load(File file) throws IOException {
+        DataParser parser = requireParser(file);
+        return load(file, parser, LoadPlanner.plan(file, parser, DEFAULT_LOAD_BUDGET));
+    }
+
+    /**
+     * Loads a file with the parser matching its format as planned, and prepares the dataset for filtering.
+     *
+     * @param file The file to load.
+     * @param plan The load plan, e.g. from {@link #plan(File, long)}.
+     * @return The loaded DataSet.
+     * @throws IOException If the format is not supported or the file cannot be read or parsed.
+     */
+    public static DataSet load(File file, LoadPlan plan) throws IOException {
+        return load(file, requireParser(file), plan);
+    }
+
+    /**
+     * Loads a file fully with the given parser and prepares the dataset for filtering.
+     *
+     * @param file   The file to load.
+     * @param parser The parser to use.
+     * @return The loaded DataSet.
+     * @throws IOException If the file cannot be read or parsed.
+     */
+    public static DataSet load(File file, DataParser parser) throws IOException {
+        return load(file, parser, LoadPlan.FULL);
+    }
+
+    /**
+     * Loads a file with the given parser as planned, and prepares the dataset for filtering.
+     * If the heap runs out while loading, e.g. because the projection was too low, the partial dataset is dropped
+     * and the file is loaded again with the next, more economical plan (see {@link LoadPlan#degrade()}).
+     *
+     * @param file   The file to load.
+     * @param parser The parser to use.
+     * @param plan   The load plan.
+     * @return The loaded DataSet.
+     * @throws IOException If the file cannot be read or parsed, or does not fit in memory even sparsely sampled.
+     */
+    public static DataSet load(File file, DataParser parser, LoadPlan plan) throws IOException {
+        LoadPlan attempt = plan;
+        while (true) {
+            try {
+                DataSet dataSet = parse(file, parser, attempt);
+                dataSet.setLoadPlan(attempt);
+                prepare(dataSet);
+                return dataSet;
+            } catch (OutOfMemoryError e) {
+                LoadPlan degraded = parser.supportsLoadPlans() ? degrade(file, parser, attempt) : null;
+                if (degraded == null) {
+                    throw new IOException("Not enough memory to load " + file.getName() + ".", e);
+                }
+                System.err.println("Ran out of memory loading " + file.getName() + " (" + attempt + "), retrying as " + degraded + ".");
+                attempt = degraded;
+            }
+        }
+    }
+
+    /**
+     * Gets the plan to retry with after a load ran out of memory. A plan made without measuring the file (e.g. for
+     * a file that looked small) does not know its numeric columns, so the file is measured first.
+     */
+    private static LoadPlan degrade(File file, DataParser parser, LoadPlan failed) throws IOException {
+        LoadPlan degraded = failed.degrade();
+        if (degraded == null || failed.getProjectedRows() >= 0) {
+            return degraded;
+        }
+        LoadPlan measured = LoadPlanner.plan(file, parser, 1); // Any budget it cannot meet, so it measures
+        return new LoadPlan(degraded.getStrategy(), degraded.getSampleStride(), degraded.getMaxRows(), measured.getNumericColumns(),
+                measured.getProjectedRows(), measured.getFullBytes(), -1, degraded.getBudget());
+    }
+
+    private static DataSet parse(File file, DataParser parser, LoadPlan plan) throws IOException {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        PerformanceMetrics.Timer timer = PerformanceMetrics.start(PerformanceMetrics.Phase.PARSE);
+        DataSet dataSet;
+        if (plan.isFull() && plan.getMaxRows() == Integer.MAX_VALUE) {
+            dataSet = parser.parse(file);
+        } else {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                dataSet = parser.parse(reader, plan);
+            }
+        }
+        PerformanceMetrics.recordParse(file.length(), dataSet.getRowCount(), timer.stop());
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.format = FileUtils.getFileExtension(file);
+            event.bytes = file.length();
+            event.rows = dataSet.getRowCount();
+            event.columns = dataSet.getColumnNames().size();
+            event.commit();
+        }
+        return dataSet;
+    }
+
+    private static DataParser requireParser(File file) throws IOException {
+        DataParser parser = forFile(file);
+        if (parser == null) {
+            throw new IOException("Unsupported file type: ." + FileUtils.getFileExtension(file));
+        }
+        return parser;
+    }
+
+    /**
+     * Prepares a dataset for filtering by building bitmap indexes over its low-cardinality columns, and compresses
+     * its numeric and timestamp columns if the {@code datavisualizer.columns.compress} property is set.
+     * Called for every freshly parsed dataset; datasets restored from elsewhere (e.g. a binary cache) need it too.
+     *
+     * @param dataSet The dataset.
+     */
+    public static void prepare(DataSet dataSet) {
+        dataSet.buildCategoricalIndexes(INDEX_MAX_CARDINALITY);
+        if (COMPRESS_COLUMNS) {
+            dataSet.compressColumns();
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package datavisualizer.model.registry;
+
+import datavisualizer.model.dataset.ComputedColumn;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.DataSetCodec;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.model.parser.ParserFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps several datasets open at once within a global memory budget.
+ * <p>
+ * Each open file's DataSet footprint is estimated, and when the resident total goes over the budget the
+ * least-recently-used datasets are evicted: they are written to a binary cache file (see {@link DataSetCodec})
+ * and their in-memory copy is dropped. Asking for an evicted dataset reloads it transparently, from the cache
+ * file if the source has not changed since, otherwise by parsing the source again, and gets its computed columns
+ * back. The dataset being accessed is never evicted, even if it alone exceeds the budget.
+ * <p>
+ * Before a file is parsed its footprint is projected (see {@link ParserFactory#plan(File, long)}), and other
+ * datasets are evicted up front to make room for it. A file that would not fit the budget on its own is loaded
+ * in a degraded mode, as typed columns only or sampled, and keeps that plan when it is reloaded.
+ */
+public class DataSetRegistry {
+
+    private static final long MB = 1024L * 1024L;
+    // Global budget for resident datasets; defaults to half the maximum heap
+    private static final long DEFAULT_BUDGET = Long.getLong("datavisualizer.registry.budgetMB",
+            Runtime.getRuntime().maxMemory() / 2 / MB) * MB;
+
+    private final long budget;
+    private final Map<File, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // Least recently used first
+    private final List<File> openFiles = new ArrayList<>(); // In opening order, for display
+    private Path cacheDirectory;
+    private int cacheFileCounter;
+
+    /**
+     * Constructs a registry with the default budget (system property {@code datavisualizer.registry.budgetMB},
+     * or half the maximum heap).
+     */
+    public DataSetRegistry() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Constructs a registry with the given budget.
+     *
+     * @param budgetBytes The maximum estimated footprint of all resident datasets, in bytes.
+     */
+    public DataSetRegistry(long budgetBytes) {
+        this.budget = budgetBytes;
+    }
+
+    /**
+     * Opens a file, parsing it unless it is already open. The load is planned to fit the budget (and the load
+     * budget of {@link ParserFactory#getLoadBudget()}), and least-recently-used datasets are evicted first if the
+     * projected footprint would not fit next to them.
+     *
+     * @param file The data file.
+     * @return The dataset; see {@link DataSet#getLoadPlan()} for how it was loaded.
+     * @throws IOException If the file type is not supported or the file cannot be read or parsed.
+     */
+    public synchronized DataSet open(File file) throws IOException {
+        File key = file.getAbsoluteFile();
+        if (entries.containsKey(key)) {
+            return get(key);
+        }
+        Entry entry = new Entry(key);
+        entry.plan = ParserFactory.plan(key, Math.min(budget, ParserFactory.getLoadBudget()));
+        if (entry.plan.getProjectedBytes() > 0) {
+            makeRoom(entry.plan.getProjectedBytes());
+        }
+        entry.load();
+        entries.put(key, entry);
+        openFiles.add(key);
+        enforceBudget(entry);
+        return entry.dataSet;
+    }
+
+    /**
+     * Opens a file whose dataset was already loaded elsewhere, e.g. restored from a session cache.
+     * If the file is already open, its existing dataset is kept.
+     *
+     * @param file    The data file.
+     * @param dataSet The dataset loaded from it, prepared for filtering.
+     * @return The dataset registered for the file.
+     * @throws IOException If the file is already open but its evicted dataset cannot be reloaded.
+     */
+    public synchronized DataSet open(File file, DataSet dataSet) throws IOException {
+        File key = file.getAbsoluteFile();
+        if (entries.containsKey(key)) {
+            return get(key);
+        }
+        Entry entry = new Entry(key);
+        entry.lastModified = key.lastModified();
+        entry.length = key.length();
+        entry.dataSet = dataSet;
+        entry.plan = dataSet.getLoadPlan();
+        entry.footprint = estimate(dataSet);
+        entries.put(key, entry);
+        openFiles.add(key);
+        enforceBudget(entry);
+        return dataSet;
+    }
+
+    /**
+     * Gets the dataset of an open file, reloading it if it was evicted.
+     * Marks the file as most recently used.
+     *
+     * @param file The data file.
+     * @return The dataset, or null if the file is not open.
+     * @throws IOException If an evicted dataset cannot be reloaded.
+     */
+    public synchronized DataSet get(File file) throws IOException {
+        Entry entry = entries.get(file.getAbsoluteFile());
+        if (entry == null) {
+            return null;
+        }
+        if (entry.dataSet == null) {
+            entry.reload();
+        }
+        enforceBudget(entry);
+        return entry.dataSet;
+    }
+
+    /**
+     * Closes a file, dropping its dataset and its cache file.
+     *
+     * @param file The data file.
+     */
+    public synchronized void close(File file) {
+        File key = file.getAbsoluteFile();
+        Entry entry = entries.remove(key);
+        openFiles.remove(key);
+        if (entry != null) {
+            entry.deleteCacheFile();
+        }
+    }
+
+    /**
+     * Closes every open file.
+     */
+    public synchronized void closeAll() {
+        for (File file : new ArrayList<>(openFiles)) {
+            close(file);
+        }
+    }
+
+    /**
+     * Gets the open files in the order they were opened.
+     *
+     * @return An immutable list of absolute files.
+     */
+    public synchronized List<File> getOpenFiles() {
+        return List.copyOf(openFiles);
+    }
+
+    /**
+     * Checks whether a file's dataset is currently held in memory.
+     *
+     * @param file The data file.
+     * @return true if the file is open and its dataset is resident.
+     */
+    public synchronized boolean isResident(File file) {
+        File key = file.getAbsoluteFile();
+        for (Entry entry : entries.values()) { // Not entries.get(), which would count as a use
+            if (entry.file.equals(key)) {
+                return entry.dataSet != null;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of open files whose datasets are held in memory.
+     *
+     * @return The resident count.
+     */
+    public synchronized int getResidentCount() {
+        int count = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.dataSet != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the estimated footprint of all resident datasets, as of the last access.
+     *
+     * @return The resident footprint in bytes.
+     */
+    public synchronized long getResidentBytes() {
+        long total = 0;
+        for (Entry entry : entries.values()) {
+            total += entry.footprint;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the memory budget.
+     *
+     * @return The budget in bytes.
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Evicts least-recently-used datasets until the resident total fits the budget.
+     * Footprints are re-estimated first, since typed columns and indexes are added to datasets as they are used.
+     *
+     * @param keep The entry being accessed, which is never evicted.
+     */
+    private void enforceBudget(Entry keep) {
+        long resident = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.dataSet != null) {
+                entry.footprint = estimate(entry.dataSet);
+                resident += entry.footprint;
+            }
+        }
+        for (Entry entry : entries.values()) { // Eldest first
+            if (resident <= budget) {
+                break;
+            }
+            if (entry != keep && entry.dataSet != null) {
+                resident -= entry.footprint;
+                evict(entry);
+            }
+        }
+    }
+
+    /**
+     * Evicts least-recently-used datasets until a dataset of the given size fits next to the rest.
+     *
+     * @param bytes The projected footprint of the dataset about to be loaded.
+     */
+    private void makeRoom(long bytes) {
+        long resident = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.dataSet != null) {
+                entry.footprint = estimate(entry.dataSet);
+                resident += entry.footprint;
+            }
+        }
+        for (Entry entry : entries.values()) { // Eldest first
+            if (resident + bytes <= budget) {
+                break;
+            }
+            if (entry.dataSet != null) {
+                resident -= entry.footprint;
+                evict(entry);
+            }
+        }
+    }
+
+    /**
+     * Drops a dataset from memory, writing it to the binary cache first unless a current cache file exists.
+     * If the cache file cannot be written, the dataset will be parsed from its source again instead.
+     * Datasets loaded in a degraded mode are not cached: they are parsed again with their plan, which is about as
+     * fast and keeps them out of a cache file that reads back as a full load.
+     *
+     * @param entry The entry to evict.
+     */
+    private void evict(Entry entry) {
+        if (entry.cacheFile == null && entry.dataSet.getLoadPlan().isFull()) {
+            try {
+                Path cacheFile = nextCacheFile(entry.file);
+                DataSetCodec.write(entry.dataSet, cacheFile);
+                entry.cacheFile = cacheFile;
+            } catch (IOException e) {
+                System.err.println("Could not cache " + entry.file.getName() + ", it will be re-parsed on access: " + e.getMessage());
+            }
+        }
+        entry.computedColumns = entry.dataSet.getComputedColumns(); // Not part of the cache file
+        System.out.println("Evicted " + entry.file.getName() + " from memory ("
+                + entry.footprint / MB + " MB, budget " + budget / MB + " MB).");
+        entry.dataSet = null;
+        entry.footprint = 0;
+    }
+
+    private Path nextCacheFile(File source) throws IOException {
+        if (cacheDirectory == null) {
+            cacheDirectory = Files.createTempDirectory("datavisualizer-cache");
+            cacheDirectory.toFile().deleteOnExit();
+        }
+        Path cacheFile = cacheDirectory.resolve((cacheFileCounter++) + "-" + source.getName() + ".dvds");
+        cacheFile.toFile().deleteOnExit();
+        return cacheFile;
+    }
+
+    private static long estimate(DataSet dataSet) {
+        return dataSet.estimateMemoryFootprint() + dataSet.getIndexFootprint();
+    }
+
+    /**
+     * An open file and, while it is resident, its dataset.
+     */
+    private static class Entry {
+        private final File file;
+        private DataSet dataSet; // Null while evicted
+        private long footprint; // Zero while evicted
+        private long lastModified; // Source state when it was last parsed, to tell whether the cache file is current
+        private long length;
+        private Path cacheFile; // Binary copy of the last parse, or null if none was written
+        private LoadPlan plan = LoadPlan.FULL; // How the source is parsed
+        private List<ComputedColumn> computedColumns = List.of(); // Defined on the dataset when it was evicted
+
+        Entry(File file) {
+            this.file = file;
+        }
+
+        /**
+         * Parses the source file.
+         *
+         * @throws IOException If the file cannot be read or parsed.
+         */
+        void load() throws IOException {
+            long modified = file.lastModified();
+            long size = file.length();
+            dataSet = ParserFactory.load(file, plan);
+            plan = dataSet.getLoadPlan(); // Degraded further if the heap ran out
+            lastModified = modified;
+            length = size;
+            footprint = estimate(dataSet);
+        }
+
+        /**
+         * Brings an evicted dataset back, from the cache file if the source is unchanged.
+         *
+         * @throws IOException If neither the cache file nor the source can be read.
+         */
+        void reload() throws IOException {
+            dataSet = null;
+            if (cacheFile != null && file.lastModified() == lastModified && file.length() == length) {
+                try {
+                    dataSet = DataSetCodec.read(cacheFile);
+                    ParserFactory.prepare(dataSet);
+                } catch (IOException e) {
+                    System.err.println("Could not read cached " + file.getName() + ", re-parsing: " + e.getMessage());
+                    dataSet = null;
+                }
+            }
+            if (dataSet == null) {
+                deleteCacheFile(); // Stale or unreadable
+                load();
+            }
+            for (ComputedColumn column : computedColumns) {
+                try {
+                    dataSet.addComputedColumn(column);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Dropped computed column " + column.getName() + " of " + file.getName() + ": " + e.getMessage());
+                }
+            }
+            footprint = estimate(dataSet);
+        }
+
+        void deleteCacheFile() {
+            if (cacheFile != null) {
+                try {
+                    Files.deleteIfExists(cacheFile);
+                } catch (IOException e) {
+                    System.err.println("Could not delete cache file " + cacheFile + ": " + e.getMessage());
+                }
+                cacheFile = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package datavisualizer.model.render;
+
+import java.util.Locale;
+
+/**
+ * Linear value axis with "nice" tick spacing (1, 2 or 5 times a power of ten), shared by the render backends.
+ */
+class AxisScale {
+
+    private static final int TARGET_TICKS = 6;
+
+    final double min;
+    final double max;
+    final double step;
+
+    private AxisScale(double min, double max, double step) {
+        this.min = min;
+        this.max = max;
+        this.step = step;
+    }
+
+    /**
+     * Creates a scale covering the given data range, widened outwards to whole ticks.
+     *
+     * @param dataMin      The smallest data value.
+     * @param dataMax      The largest data value.
+     * @param includeZero  true to always include 0 (e.g. for bar charts).
+     * @return The scale.
+     */
+    static AxisScale of(double dataMin, double dataMax, boolean includeZero) {
+        if (!(dataMin <= dataMax)) { // Also catches NaN
+            dataMin = 0;
+            dataMax = 1;
+        }
+        if (includeZero) {
+            dataMin = Math.min(dataMin, 0);
+            dataMax = Math.max(dataMax, 0);
+        }
+        if (dataMin == dataMax) {
+            double pad = dataMin == 0 ? 1 : Math.abs(dataMin) * 0.1;
+            dataMin -= pad;
+            dataMax += pad;
+        }
+        double rough = (dataMax - dataMin) / TARGET_TICKS;
+        double magnitude = Math.pow(10, Math.floor(Math.log10(rough)));
+        double normalized = rough / magnitude;
+        double step = (normalized <= 1 ? 1 : normalized <= 2 ? 2 : normalized <= 5 ? 5 : 10) * magnitude;
+        return new AxisScale(Math.floor(dataMin / step) * step, Math.ceil(dataMax / step) * step, step);
+    }
+
+    /**
+     * Maps a value to a position between two pixel coordinates.
+     *
+     * @param value The value.
+     * @param from  The pixel coordinate of the scale minimum.
+     * @param to    The pixel coordinate of the scale maximum.
+     * @return The pixel coordinate.
+     */
+    double map(double value, double from, double to) {
+        return from + (value - min) / (max - min) * (to - from);
+    }
+
+    /**
+     * Gets the number of ticks, including both ends.
+     *
+     * @return The tick count.
+     */
+    int tickCount() {
+        return (int) Math.round((max - min) / step) + 1;
+    }
+
+    /**
+     * Gets the value of a tick.
+     *
+     * @param i The tick index.
+     * @return The tick value.
+     */
+    double tick(int i) {
+        return min + i * step;
+    }
+
+    /**
+     * Formats a tick value without spurious digits.
+     *
+     * @param value The tick value.
+     * @return The label.
+     */
+    String format(double value) {
+        if (Math.abs(value) < step * 1e-9) {
+            return "0";
+        }
+        double absolute = Math.abs(value);
+        if (absolute >= 1e7 || absolute < 1e-3) {
+            return String.format(Locale.ROOT, "%.3g", value);
+        }
+        int decimals = Math.max(0, (int) -Math.floor(Math.log10(step)));
+        return String.format(Locale.ROOT, "%,." + decimals + "f", value);
+    }
+}
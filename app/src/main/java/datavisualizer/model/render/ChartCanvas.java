@@ -0,0 +1,30 @@
+package datavisualizer.model.render;
+
+/**
+ * Minimal drawing surface used by {@link ChartPainter}, implemented once per output format.
+ * Coordinates are in pixels with the origin at the top left; colors are 0xRRGGBB.
+ */
+interface ChartCanvas {
+
+    /** Horizontal alignment of text relative to its anchor point. */
+    enum Anchor { START, MIDDLE, END }
+
+    void fillRect(double x, double y, double width, double height, int rgb);
+
+    void line(double x1, double y1, double x2, double y2, int rgb, double strokeWidth);
+
+    /**
+     * Draws a connected line through the first {@code count} points.
+     */
+    void polyline(double[] xs, double[] ys, int count, int rgb, double strokeWidth);
+
+    /**
+     * Fills a pie wedge. Angles are in degrees, counter-clockwise from the positive X axis.
+     */
+    void wedge(double centerX, double centerY, double radius, double startAngle, double extent, int rgb);
+
+    /**
+     * Draws a single line of text with its baseline at {@code y}.
+     */
+    void text(String text, double x, double y, Anchor anchor, double fontSize, int rgb);
+}
@@ -0,0 +1,212 @@
+package datavisualizer.model.render;
+
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.time.TimeBucket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Toolkit-independent description of a chart: its type, axis labels and aggregated series.
+ * Built once from a dataset and then drawn by any backend (Java2D raster, SVG, ...),
+ * without a JavaFX scene graph.
+ */
+public class ChartData {
+
+    private final ChartType type;
+    private final String title;
+    private final String xLabel;
+    private final TimeBucket timeBucket;
+    private final List<Series> series = new ArrayList<>();
+
+    /**
+     * Constructs an empty chart description.
+     *
+     * @param type       The chart type.
+     * @param title      The chart title.
+     * @param xLabel     The X-axis label.
+     * @param timeBucket The granularity if the series have time X positions, or null for category series.
+     */
+    public ChartData(ChartType type, String title, String xLabel, TimeBucket timeBucket) {
+        this.type = type;
+        this.title = title;
+        this.xLabel = xLabel;
+        this.timeBucket = timeBucket;
+    }
+
+    /**
+     * Adds a series.
+     *
+     * @param s The series to add.
+     */
+    public void addSeries(Series s) {
+        series.add(s);
+    }
+
+    /**
+     * Gets the chart type.
+     *
+     * @return The chart type.
+     */
+    public ChartType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the chart title.
+     *
+     * @return The title.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the X-axis label.
+     *
+     * @return The label.
+     */
+    public String getXLabel() {
+        return xLabel;
+    }
+
+    /**
+     * Gets the time granularity of the X positions.
+     *
+     * @return The granularity, or null if the series are category series.
+     */
+    public TimeBucket getTimeBucket() {
+        return timeBucket;
+    }
+
+    /**
+     * Checks whether the series use numeric (time) X positions rather than category labels.
+     *
+     * @return true for time series.
+     */
+    public boolean hasTimeAxis() {
+        return timeBucket != null && type == ChartType.LINE;
+    }
+
+    /**
+     * Gets the series in drawing order.
+     *
+     * @return An unmodifiable list of series.
+     */
+    public List<Series> getSeries() {
+        return Collections.unmodifiableList(series);
+    }
+
+    /**
+     * One named series of points. Category series have a label per point; time series have X positions
+     * in epoch milliseconds.
+     */
+    public static class Series {
+        private final String name;
+        private final List<String> labels; // Null for time series
+        private final double[] xs; // Null for category series
+        private final double[] ys;
+        private final double[] margins; // Null unless the values are estimates
+
+        private Series(String name, List<String> labels, double[] xs, double[] ys, double[] margins) {
+            this.name = name;
+            this.labels = labels;
+            this.xs = xs;
+            this.ys = ys;
+            this.margins = margins;
+        }
+
+        /**
+         * Creates a category series.
+         *
+         * @param name   The series name.
+         * @param labels The category label of each point.
+         * @param ys     The value of each point.
+         * @return The series.
+         */
+        public static Series ofCategories(String name, List<String> labels, double[] ys) {
+            return new Series(name, List.copyOf(labels), null, ys, null);
+        }
+
+        /**
+         * Creates a series with numeric X positions.
+         *
+         * @param name The series name.
+         * @param xs   The X position of each point, ascending.
+         * @param ys   The value of each point.
+         * @return The series.
+         */
+        public static Series ofPoints(String name, double[] xs, double[] ys) {
+            return new Series(name, null, xs, ys, null);
+        }
+
+        /**
+         * Creates a copy of the series whose values are estimates with the given confidence margins, drawn as error bars.
+         *
+         * @param margins The half-width of the confidence interval of each point; NaN for none.
+         * @return The series with margins.
+         */
+        public Series withMargins(double[] margins) {
+            return new Series(name, labels, xs, ys, margins);
+        }
+
+        /**
+         * Gets the series name.
+         *
+         * @return The name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of points.
+         *
+         * @return The point count.
+         */
+        public int size() {
+            return ys.length;
+        }
+
+        /**
+         * Gets the category label of a point (category series only).
+         *
+         * @param i The point index.
+         * @return The label.
+         */
+        public String getLabel(int i) {
+            return labels.get(i);
+        }
+
+        /**
+         * Gets the X position of a point (time series only).
+         *
+         * @param i The point index.
+         * @return The X position in epoch milliseconds.
+         */
+        public double getX(int i) {
+            return xs[i];
+        }
+
+        /**
+         * Gets the value of a point.
+         *
+         * @param i The point index.
+         * @return The value.
+         */
+        public double getY(int i) {
+            return ys[i];
+        }
+
+        /**
+         * Gets the confidence margin of a point.
+         *
+         * @param i The point index.
+         * @return The half-width of the interval, or NaN if the value is exact.
+         */
+        public double getMargin(int i) {
+            return margins != null ? margins[i] : Double.NaN;
+        }
+    }
+}
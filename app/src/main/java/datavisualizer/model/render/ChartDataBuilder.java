@@ -0,0 +1,238 @@
+package datavisualizer.model.render;
+
+import datavisualizer.model.aggregate.Aggregation;
+import datavisualizer.model.aggregate.ApproximateAggregation;
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.overlay.Overlay;
+import datavisualizer.model.overlay.OverlaySpec;
+import datavisualizer.model.time.TimeBucket;
+import datavisualizer.model.time.TimeRollup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds toolkit-independent chart descriptions from a dataset, using the same aggregation
+ * as the on-screen charts (sum of Y per X category, or per time bucket for timestamp X columns)
+ * and the same {@link SeriesReducer} limits, so exported files stay bounded in size.
+ */
+public class ChartDataBuilder {
+
+    /**
+     * Builds the description of a chart over the selected rows of a DataSet.
+     *
+     * @param chartType  The type of chart.
+     * @param dataSet    The dataset to visualize.
+     * @param xColumn    The column to use for the X-axis (label column for pie charts).
+     * @param yColumns   The columns to use for the Y-axis (only the first is used for pie charts).
+     * @param selection  The rows to include, or null for all rows.
+     * @param timeBucket The granularity for a timestamp X column, or null to pick one from the data's time span.
+     * @return The chart description, or null if the columns are invalid or there is nothing to draw.
+     */
+    public static ChartData build(ChartType chartType, DataSet dataSet, String xColumn, List<String> yColumns,
+                                  SelectionVector selection, TimeBucket timeBucket) {
+        return build(chartType, dataSet, xColumn, yColumns, selection, timeBucket, Collections.emptyList());
+    }
+
+    /**
+     * Builds the description of a chart over the selected rows of a DataSet, including line chart overlays.
+     * Overlays are taken from the dataset's overlay cache, so they match the on-screen chart.
+     *
+     * @param chartType  The type of chart.
+     * @param dataSet    The dataset to visualize.
+     * @param xColumn    The column to use for the X-axis (label column for pie charts).
+     * @param yColumns   The columns to use for the Y-axis (only the first is used for pie charts).
+     * @param selection  The rows to include, or null for all rows.
+     * @param timeBucket The granularity for a timestamp X column, or null to pick one from the data's time span.
+     * @param overlays   The overlays to add after each line chart series (ignored for other chart types).
+     * @return The chart description, or null if the columns are invalid or there is nothing to draw.
+     */
+    public static ChartData build(ChartType chartType, DataSet dataSet, String xColumn, List<String> yColumns,
+                                  SelectionVector selection, TimeBucket timeBucket, List<OverlaySpec> overlays) {
+        if (dataSet == null || chartType == null || xColumn == null || yColumns == null || yColumns.isEmpty()) {
+            System.err.println("Cannot build chart: DataSet, chart type or columns are invalid.");
+            return null;
+        }
+        if (!dataSet.getColumnNames().contains(xColumn)) {
+            System.err.println("Cannot build chart: X-axis column '" + xColumn + "' not found in DataSet.");
+            return null;
+        }
+
+        TimeBucket bucket = Aggregation.resolveTimeBucket(dataSet, xColumn, timeBucket);
+        String xLabel = bucket != null ? xColumn + " (" + bucket.name().toLowerCase() + ")" : xColumn;
+        List<String> valueColumns = chartType == ChartType.PIE ? yColumns.subList(0, 1) : yColumns;
+        String title;
+        switch (chartType) {
+            case BAR:
+                title = "Bar Chart";
+                break;
+            case LINE:
+                title = "Line Chart";
+                break;
+            default:
+                title = "Pie Chart: " + valueColumns.get(0) + " by " + xColumn;
+                break;
+        }
+        ChartData chartData = new ChartData(chartType, title, xLabel, bucket);
+        Aggregation.prepare(dataSet, xColumn, valueColumns, selection, bucket); // One pass for all series
+
+        Set<String> keptCategories = null; // Chosen from the first series so all bars share the same categories
+        for (String yColumn : valueColumns) {
+            if (!dataSet.getColumnNames().contains(yColumn)) {
+                System.err.println("Warning: Y-axis column '" + yColumn + "' not found in DataSet. Skipping this column.");
+                continue;
+            }
+            if (chartData.hasTimeAxis()) {
+                addTimeSeries(chartData, dataSet, xColumn, yColumn, selection, bucket, overlays);
+                continue;
+            }
+            Map<String, Double> aggregated = Aggregation.sumByX(dataSet, xColumn, yColumn, selection, bucket);
+            Map<String, Double> displayed;
+            if (chartType == ChartType.LINE || (chartType == ChartType.BAR && bucket != null)) {
+                displayed = SeriesReducer.downsample(aggregated, SeriesReducer.MAX_POINTS); // Keep the axis order
+            } else {
+                if (chartData.getSeries().isEmpty()) {
+                    keptCategories = SeriesReducer.topCategories(aggregated, SeriesReducer.MAX_CATEGORIES);
+                }
+                displayed = SeriesReducer.foldCategories(aggregated, keptCategories);
+            }
+            ChartData.Series series = categorySeries(yColumn, displayed, chartType == ChartType.PIE);
+            if (chartType == ChartType.BAR) {
+                series = withMargins(series, dataSet, xColumn, yColumn, selection, bucket, keptCategories);
+            }
+            if (series.size() > 0) {
+                chartData.addSeries(series);
+                if (chartType == ChartType.LINE) {
+                    addCategoryOverlays(chartData, dataSet, xColumn, yColumn, selection, overlays, aggregated, displayed.keySet());
+                }
+            }
+        }
+        if (chartData.getSeries().isEmpty()) {
+            System.err.println("Cannot build chart: No data to draw for '" + xColumn + "'.");
+            return null;
+        }
+        return chartData;
+    }
+
+    /**
+     * Converts aggregated values to a category series.
+     */
+    private static ChartData.Series categorySeries(String yColumn, Map<String, Double> aggregated, boolean positiveOnly) {
+        List<String> labels = new ArrayList<>(aggregated.size());
+        double[] values = new double[aggregated.size()];
+        int count = 0;
+        for (Map.Entry<String, Double> entry : aggregated.entrySet()) {
+            if (positiveOnly && !(entry.getValue() > 0)) {
+                continue; // Pie slices need positive values
+            }
+            labels.add(entry.getKey());
+            values[count++] = entry.getValue();
+        }
+        return ChartData.Series.ofCategories(yColumn, labels, Arrays.copyOf(values, count));
+    }
+
+    /**
+     * Adds the confidence margins of a dataset of estimates to a bar series, the same as on screen.
+     */
+    private static ChartData.Series withMargins(ChartData.Series series, DataSet dataSet, String xColumn, String yColumn,
+                                                SelectionVector selection, TimeBucket bucket, Set<String> keptCategories) {
+        Map<String, Double> variances = Aggregation.varianceByX(dataSet, xColumn, yColumn, selection, bucket);
+        if (variances == null) {
+            return series;
+        }
+        if (bucket == null) {
+            variances = SeriesReducer.foldCategories(variances, keptCategories);
+        }
+        double[] margins = new double[series.size()];
+        for (int i = 0; i < margins.length; i++) {
+            Double variance = variances.get(series.getLabel(i));
+            margins[i] = variance != null ? ApproximateAggregation.margin(variance) : Double.NaN;
+        }
+        return series.withMargins(margins);
+    }
+
+    /**
+     * Adds a time series of bucket start times and sums, followed by its overlays.
+     */
+    private static void addTimeSeries(ChartData chartData, DataSet dataSet, String xColumn, String yColumn, SelectionVector selection,
+                                      TimeBucket bucket, List<OverlaySpec> overlays) {
+        TimeRollup rollup = dataSet.getTimeRollups().get(dataSet, xColumn, yColumn, bucket, selection);
+        if (rollup == null || rollup.size() == 0) {
+            return;
+        }
+        double[] xs = new double[rollup.size()];
+        double[] ys = new double[rollup.size()];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = rollup.getStart(i);
+            ys[i] = rollup.getSum(i);
+        }
+        chartData.addSeries(reducedPoints(yColumn, xs, ys, xs.length));
+        for (OverlaySpec spec : overlays) {
+            Overlay overlay = dataSet.getOverlays().get(xColumn, yColumn, bucket, selection, spec, xs, ys);
+            double[] overlayXs = new double[overlay.size()];
+            double[] overlayYs = new double[overlay.size()];
+            int count = 0;
+            for (int i = 0; i < overlay.size(); i++) {
+                if (!Double.isNaN(overlay.getY(i))) {
+                    overlayXs[count] = overlay.getX(i);
+                    overlayYs[count++] = overlay.getY(i);
+                }
+            }
+            if (count > 0) {
+                chartData.addSeries(reducedPoints(yColumn + " " + spec.getLabel(), overlayXs, overlayYs, count));
+            }
+        }
+    }
+
+    /**
+     * Adds the overlays of a category line series, computed over the full series and kept at the displayed categories.
+     */
+    private static void addCategoryOverlays(ChartData chartData, DataSet dataSet, String xColumn, String yColumn, SelectionVector selection,
+                                            List<OverlaySpec> overlays, Map<String, Double> aggregated, Set<String> displayed) {
+        if (overlays.isEmpty()) {
+            return;
+        }
+        List<String> categories = new ArrayList<>(aggregated.keySet());
+        double[] positions = new double[categories.size()];
+        double[] values = new double[categories.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+            values[i] = aggregated.get(categories.get(i));
+        }
+        for (OverlaySpec spec : overlays) {
+            Overlay overlay = dataSet.getOverlays().get(xColumn, yColumn, null, selection, spec, positions, values);
+            List<String> labels = new ArrayList<>();
+            double[] ys = new double[overlay.size()];
+            for (int i = 0; i < overlay.size(); i++) {
+                String category = categories.get((int) overlay.getX(i));
+                if (!Double.isNaN(overlay.getY(i)) && displayed.contains(category)) {
+                    ys[labels.size()] = overlay.getY(i);
+                    labels.add(category);
+                }
+            }
+            if (!labels.isEmpty()) {
+                chartData.addSeries(ChartData.Series.ofCategories(yColumn + " " + spec.getLabel(), labels, Arrays.copyOf(ys, labels.size())));
+            }
+        }
+    }
+
+    /**
+     * Creates a point series downsampled to at most {@link SeriesReducer#MAX_POINTS} points.
+     */
+    private static ChartData.Series reducedPoints(String name, double[] xs, double[] ys, int count) {
+        int[] kept = SeriesReducer.downsample(xs, ys, count, SeriesReducer.MAX_POINTS);
+        double[] keptXs = new double[kept.length];
+        double[] keptYs = new double[kept.length];
+        for (int i = 0; i < kept.length; i++) {
+            keptXs[i] = xs[kept[i]];
+            keptYs[i] = ys[kept[i]];
+        }
+        return ChartData.Series.ofPoints(name, keptXs, keptYs);
+    }
+}
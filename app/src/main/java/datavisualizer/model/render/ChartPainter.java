@@ -0,0 +1,266 @@
+package datavisualizer.model.render;
+
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.time.TimeBucket;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lays out and draws a chart description onto a {@link ChartCanvas}.
+ * All geometry lives here, so the raster and vector backends produce the same picture.
+ */
+class ChartPainter {
+
+    // Default series colors of the JavaFX Modena theme, so exported charts look like the on-screen ones
+    static final int[] PALETTE = {0xF3622D, 0xFBA71B, 0x57B757, 0x41A9C9, 0x4258C9, 0x9A42C8, 0xC84164, 0x888888};
+
+    private static final int BACKGROUND = 0xFFFFFF;
+    private static final int TEXT = 0x333333;
+    private static final int AXIS = 0x888888;
+    private static final int GRID = 0xE6E6E6;
+    private static final double TITLE_SIZE = 16;
+    private static final double LABEL_SIZE = 11;
+    private static final double CHAR_WIDTH = 0.6; // Approximate glyph width relative to the font size
+    private static final int MAX_LABEL_CHARS = 14;
+
+    private ChartPainter() {
+    }
+
+    /**
+     * Draws a chart filling the given area.
+     *
+     * @param chart  The chart description.
+     * @param canvas The surface to draw on.
+     * @param width  The width in pixels.
+     * @param height The height in pixels.
+     */
+    static void paint(ChartData chart, ChartCanvas canvas, int width, int height) {
+        canvas.fillRect(0, 0, width, height, BACKGROUND);
+        canvas.text(chart.getTitle(), width / 2.0, 28, ChartCanvas.Anchor.MIDDLE, TITLE_SIZE, TEXT);
+
+        boolean legend = chart.getType() == ChartType.PIE || chart.getSeries().size() > 1;
+        double right = width - (legend ? 170 : 45);
+        if (chart.getType() == ChartType.PIE) {
+            paintPie(chart, canvas, 20, 45, right, height - 20);
+            return;
+        }
+        double left = 75;
+        double top = 45;
+        double bottom = height - 55;
+        if (right - left < 10 || bottom - top < 10) {
+            return; // Too small to draw anything meaningful
+        }
+
+        AxisScale yScale = valueScale(chart);
+        for (int i = 0; i < yScale.tickCount(); i++) {
+            double value = yScale.tick(i);
+            double y = yScale.map(value, bottom, top);
+            canvas.line(left, y, right, y, GRID, 1);
+            canvas.text(yScale.format(value), left - 6, y + 4, ChartCanvas.Anchor.END, LABEL_SIZE, TEXT);
+        }
+        canvas.text(chart.getXLabel(), (left + right) / 2, height - 12, ChartCanvas.Anchor.MIDDLE, LABEL_SIZE + 1, TEXT);
+
+        if (chart.hasTimeAxis()) {
+            paintTimeLines(chart, canvas, yScale, left, top, right, bottom);
+        } else {
+            List<String> categories = categories(chart);
+            paintCategoryAxis(categories, canvas, left, right, bottom);
+            if (chart.getType() == ChartType.BAR) {
+                paintBars(chart, categories, canvas, yScale, left, right, bottom, top);
+            } else {
+                paintCategoryLines(chart, categories, canvas, yScale, left, right, bottom, top);
+            }
+        }
+        canvas.line(left, bottom, right, bottom, AXIS, 1);
+        canvas.line(left, top, left, bottom, AXIS, 1);
+
+        if (legend) {
+            List<String> names = new ArrayList<>();
+            chart.getSeries().forEach(s -> names.add(s.getName()));
+            paintLegend(names, canvas, right + 15, top);
+        }
+    }
+
+    /**
+     * Gets the color of the i-th series or slice.
+     *
+     * @param i The index.
+     * @return The color as 0xRRGGBB.
+     */
+    static int color(int i) {
+        return PALETTE[i % PALETTE.length];
+    }
+
+    private static AxisScale valueScale(ChartData chart) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (ChartData.Series series : chart.getSeries()) {
+            for (int i = 0; i < series.size(); i++) {
+                double y = series.getY(i);
+                if (!Double.isNaN(y)) {
+                    double margin = series.getMargin(i) > 0 ? series.getMargin(i) : 0; // Keep error bars inside the plot
+                    min = Math.min(min, y - margin);
+                    max = Math.max(max, y + margin);
+                }
+            }
+        }
+        return AxisScale.of(min, max, chart.getType() == ChartType.BAR);
+    }
+
+    /**
+     * Collects the categories of all series in order of first appearance.
+     */
+    private static List<String> categories(ChartData chart) {
+        Map<String, Boolean> seen = new LinkedHashMap<>();
+        for (ChartData.Series series : chart.getSeries()) {
+            for (int i = 0; i < series.size(); i++) {
+                seen.putIfAbsent(series.getLabel(i), Boolean.TRUE);
+            }
+        }
+        return new ArrayList<>(seen.keySet());
+    }
+
+    private static Map<String, Integer> positions(List<String> categories) {
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < categories.size(); i++) {
+            positions.put(categories.get(i), i);
+        }
+        return positions;
+    }
+
+    private static void paintCategoryAxis(List<String> categories, ChartCanvas canvas, double left, double right, double bottom) {
+        int count = categories.size();
+        if (count == 0) {
+            return;
+        }
+        double band = (right - left) / count;
+        double labelWidth = MAX_LABEL_CHARS * LABEL_SIZE * CHAR_WIDTH;
+        int every = Math.max(1, (int) Math.ceil(labelWidth / band)); // Skip labels that would overlap
+        int maxChars = (int) Math.max(3, Math.min(MAX_LABEL_CHARS, band * every / (LABEL_SIZE * CHAR_WIDTH)));
+        for (int i = 0; i < count; i += every) {
+            double x = left + (i + 0.5) * band;
+            canvas.line(x, bottom, x, bottom + 4, AXIS, 1);
+            canvas.text(truncate(categories.get(i), maxChars), x, bottom + 17, ChartCanvas.Anchor.MIDDLE, LABEL_SIZE, TEXT);
+        }
+    }
+
+    private static void paintBars(ChartData chart, List<String> categories, ChartCanvas canvas, AxisScale yScale,
+                                  double left, double right, double bottom, double top) {
+        Map<String, Integer> positions = positions(categories);
+        List<ChartData.Series> seriesList = chart.getSeries();
+        double band = (right - left) / Math.max(1, categories.size());
+        double groupWidth = band * 0.8;
+        double barWidth = groupWidth / seriesList.size();
+        double base = yScale.map(0, bottom, top); // Bar scales always include zero
+        for (int s = 0; s < seriesList.size(); s++) {
+            ChartData.Series series = seriesList.get(s);
+            for (int i = 0; i < series.size(); i++) {
+                int position = positions.get(series.getLabel(i));
+                double x = left + position * band + (band - groupWidth) / 2 + s * barWidth;
+                double end = yScale.map(series.getY(i), bottom, top);
+                canvas.fillRect(x, Math.min(base, end), barWidth > 3 ? barWidth - 1 : barWidth, Math.abs(base - end), color(s));
+                double margin = series.getMargin(i);
+                if (margin > 0) {
+                    double center = x + barWidth / 2;
+                    double cap = barWidth * 0.15;
+                    double low = yScale.map(series.getY(i) - margin, bottom, top);
+                    double high = yScale.map(series.getY(i) + margin, bottom, top);
+                    canvas.line(center, low, center, high, TEXT, 1.5);
+                    canvas.line(center - cap, low, center + cap, low, TEXT, 1.5);
+                    canvas.line(center - cap, high, center + cap, high, TEXT, 1.5);
+                }
+            }
+        }
+    }
+
+    private static void paintCategoryLines(ChartData chart, List<String> categories, ChartCanvas canvas, AxisScale yScale,
+                                           double left, double right, double bottom, double top) {
+        Map<String, Integer> positions = positions(categories);
+        double band = (right - left) / Math.max(1, categories.size());
+        List<ChartData.Series> seriesList = chart.getSeries();
+        for (int s = 0; s < seriesList.size(); s++) {
+            ChartData.Series series = seriesList.get(s);
+            double[] xs = new double[series.size()];
+            double[] ys = new double[series.size()];
+            for (int i = 0; i < series.size(); i++) {
+                xs[i] = left + (positions.get(series.getLabel(i)) + 0.5) * band;
+                ys[i] = yScale.map(series.getY(i), bottom, top);
+            }
+            canvas.polyline(xs, ys, xs.length, color(s), 2);
+        }
+    }
+
+    private static void paintTimeLines(ChartData chart, ChartCanvas canvas, AxisScale yScale,
+                                       double left, double top, double right, double bottom) {
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        for (ChartData.Series series : chart.getSeries()) {
+            if (series.size() > 0) {
+                minX = Math.min(minX, series.getX(0));
+                maxX = Math.max(maxX, series.getX(series.size() - 1));
+            }
+        }
+        if (maxX <= minX) {
+            maxX = minX + 1;
+        }
+        TimeBucket bucket = chart.getTimeBucket();
+        int ticks = 6;
+        for (int i = 0; i <= ticks; i++) {
+            double value = minX + (maxX - minX) * i / ticks;
+            double x = left + (right - left) * i / ticks;
+            canvas.line(x, bottom, x, bottom + 4, AXIS, 1);
+            canvas.text(bucket.format(bucket.floor((long) value)), x, bottom + 17, ChartCanvas.Anchor.MIDDLE, LABEL_SIZE, TEXT);
+        }
+        List<ChartData.Series> seriesList = chart.getSeries();
+        for (int s = 0; s < seriesList.size(); s++) {
+            ChartData.Series series = seriesList.get(s);
+            double[] xs = new double[series.size()];
+            double[] ys = new double[series.size()];
+            for (int i = 0; i < series.size(); i++) {
+                xs[i] = left + (series.getX(i) - minX) / (maxX - minX) * (right - left);
+                ys[i] = yScale.map(series.getY(i), bottom, top);
+            }
+            canvas.polyline(xs, ys, xs.length, color(s), 2);
+        }
+    }
+
+    private static void paintPie(ChartData chart, ChartCanvas canvas, double left, double top, double right, double bottom) {
+        ChartData.Series series = chart.getSeries().get(0);
+        double total = 0;
+        for (int i = 0; i < series.size(); i++) {
+            total += series.getY(i);
+        }
+        double radius = Math.min(right - left, bottom - top) / 2 - 5;
+        if (radius <= 0 || total <= 0) {
+            return;
+        }
+        double centerX = (left + right) / 2;
+        double centerY = (top + bottom) / 2;
+        double angle = 90; // Start at twelve o'clock and go clockwise, like JavaFX
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < series.size(); i++) {
+            double value = series.getY(i);
+            double extent = -360 * value / total;
+            canvas.wedge(centerX, centerY, radius, angle, extent, color(i));
+            angle += extent;
+            names.add(String.format(Locale.ROOT, "%s (%.1f%%)", series.getLabel(i), value / total * 100));
+        }
+        paintLegend(names, canvas, right + 15, top);
+    }
+
+    private static void paintLegend(List<String> names, ChartCanvas canvas, double x, double y) {
+        for (int i = 0; i < names.size(); i++) {
+            double rowY = y + i * 18;
+            canvas.fillRect(x, rowY, 10, 10, color(i));
+            canvas.text(truncate(names.get(i), 22), x + 16, rowY + 9, ChartCanvas.Anchor.START, LABEL_SIZE, TEXT);
+        }
+    }
+
+    private static String truncate(String text, int maxChars) {
+        return text.length() <= maxChars ? text : text.substring(0, Math.max(1, maxChars - 1)) + "…";
+    }
+}
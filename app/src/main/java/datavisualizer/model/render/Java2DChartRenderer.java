@@ -0,0 +1,114 @@
+package datavisualizer.model.render;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Headless raster backend: draws chart descriptions into a Java2D BufferedImage and writes PNG files.
+ * Needs no JavaFX toolkit or stage, so it can run in batch jobs and on servers (with java.awt.headless=true).
+ * Instances are stateless and safe to share between threads.
+ */
+public class Java2DChartRenderer {
+
+    /**
+     * Renders a chart into a new image.
+     *
+     * @param chart  The chart description.
+     * @param width  The image width in pixels.
+     * @param height The image height in pixels.
+     * @return The rendered image.
+     */
+    public BufferedImage render(ChartData chart, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            ChartPainter.paint(chart, new Java2DCanvas(graphics), width, height);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Renders a chart and writes it as a PNG file.
+     *
+     * @param chart  The chart description.
+     * @param width  The image width in pixels.
+     * @param height The image height in pixels.
+     * @param output The PNG file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writePng(ChartData chart, int width, int height, File output) throws IOException {
+        if (!ImageIO.write(render(chart, width, height), "png", output)) {
+            throw new IOException("No PNG writer available.");
+        }
+    }
+
+    /**
+     * ChartCanvas backed by a Graphics2D.
+     */
+    private static final class Java2DCanvas implements ChartCanvas {
+        private final Graphics2D graphics;
+
+        Java2DCanvas(Graphics2D graphics) {
+            this.graphics = graphics;
+        }
+
+        @Override
+        public void fillRect(double x, double y, double width, double height, int rgb) {
+            graphics.setColor(new Color(rgb));
+            graphics.fill(new Rectangle2D.Double(x, y, width, height));
+        }
+
+        @Override
+        public void line(double x1, double y1, double x2, double y2, int rgb, double strokeWidth) {
+            graphics.setColor(new Color(rgb));
+            graphics.setStroke(new BasicStroke((float) strokeWidth));
+            graphics.draw(new Line2D.Double(x1, y1, x2, y2));
+        }
+
+        @Override
+        public void polyline(double[] xs, double[] ys, int count, int rgb, double strokeWidth) {
+            if (count == 0) {
+                return;
+            }
+            Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, count);
+            path.moveTo(xs[0], ys[0]);
+            for (int i = 1; i < count; i++) {
+                path.lineTo(xs[i], ys[i]);
+            }
+            graphics.setColor(new Color(rgb));
+            graphics.setStroke(new BasicStroke((float) strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            graphics.draw(path);
+        }
+
+        @Override
+        public void wedge(double centerX, double centerY, double radius, double startAngle, double extent, int rgb) {
+            graphics.setColor(new Color(rgb));
+            graphics.fill(new Arc2D.Double(centerX - radius, centerY - radius, 2 * radius, 2 * radius,
+                    startAngle, extent, Arc2D.PIE));
+        }
+
+        @Override
+        public void text(String text, double x, double y, Anchor anchor, double fontSize, int rgb) {
+            graphics.setColor(new Color(rgb));
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, (int) Math.round(fontSize)));
+            double width = graphics.getFontMetrics().stringWidth(text);
+            double start = anchor == Anchor.START ? x : anchor == Anchor.MIDDLE ? x - width / 2 : x - width;
+            graphics.drawString(text, (float) start, (float) y);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package datavisualizer.model.render;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounds the size of chart series before drawing, so that neither the on-screen charts nor exports
+ * grow with the number of distinct X values.
+ * Category charts keep their largest categories and fold the rest into {@link #OTHER_CATEGORY};
+ * line charts are downsampled with Largest-Triangle-Three-Buckets, which keeps peaks and the overall shape.
+ */
+public class SeriesReducer {
+
+    /** Label of the category that collects the values of categories beyond the limit. */
+    public static final String OTHER_CATEGORY = "Other";
+
+    /** Maximum number of categories drawn in bar and pie charts (including "Other"). */
+    public static final int MAX_CATEGORIES = Integer.getInteger("datavisualizer.render.maxCategories", 50);
+
+    /** Maximum number of points drawn per line series. */
+    public static final int MAX_POINTS = Integer.getInteger("datavisualizer.render.maxPoints", 2000);
+
+    /**
+     * Picks the categories to keep: the ones with the largest absolute values.
+     *
+     * @param values The aggregated values per category.
+     * @param limit  The maximum number of categories to draw, including "Other".
+     * @return The categories to keep, or null if all of them fit.
+     */
+    public static Set<String> topCategories(Map<String, Double> values, int limit) {
+        if (values.size() <= limit) {
+            return null;
+        }
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(values.entrySet());
+        entries.sort((a, b) -> Double.compare(Math.abs(b.getValue()), Math.abs(a.getValue())));
+        Set<String> keep = new HashSet<>();
+        for (int i = 0; i < Math.max(1, limit - 1); i++) {
+            keep.add(entries.get(i).getKey());
+        }
+        return keep;
+    }
+
+    /**
+     * Keeps the given categories in their original order and sums all others into "Other".
+     *
+     * @param values The aggregated values per category.
+     * @param keep   The categories to keep, or null to keep all.
+     * @return The reduced values.
+     */
+    public static Map<String, Double> foldCategories(Map<String, Double> values, Set<String> keep) {
+        if (keep == null) {
+            return values;
+        }
+        Map<String, Double> reduced = new LinkedHashMap<>();
+        double other = 0;
+        boolean hasOther = false;
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            if (keep.contains(entry.getKey())) {
+                reduced.merge(entry.getKey(), entry.getValue(), Double::sum);
+            } else {
+                other += entry.getValue();
+                hasOther = true;
+            }
+        }
+        if (hasOther) {
+            reduced.merge(OTHER_CATEGORY, other, Double::sum);
+        }
+        return reduced;
+    }
+
+    /**
+     * Reduces a category series to at most {@code limit} categories.
+     *
+     * @param values The aggregated values per category.
+     * @param limit  The maximum number of categories, including "Other".
+     * @return The reduced values.
+     */
+    public static Map<String, Double> topK(Map<String, Double> values, int limit) {
+        return foldCategories(values, topCategories(values, limit));
+    }
+
+    /**
+     * Selects the points to draw with Largest-Triangle-Three-Buckets downsampling.
+     * The first and last points are always kept; from each bucket in between, the point forming the
+     * largest triangle with the previously kept point and the next bucket's average is kept.
+     *
+     * @param xs        The X positions, ascending.
+     * @param ys        The values.
+     * @param count     The number of points.
+     * @param threshold The maximum number of points to keep (at least 3 to have any effect).
+     * @return The indices of the kept points, ascending.
+     */
+    public static int[] downsample(double[] xs, double[] ys, int count, int threshold) {
+        if (threshold >= count || threshold < 3) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        int[] kept = new int[threshold];
+        int keptCount = 0;
+        kept[keptCount++] = 0;
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int previous = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            // Average of the next bucket (the last point for the final bucket)
+            int nextStart = end;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, count);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += xs[i];
+                averageY += ys[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            double previousX = xs[previous];
+            double previousY = ys[previous];
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previousX - averageX) * (ys[i] - previousY) - (previousX - xs[i]) * (averageY - previousY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            kept[keptCount++] = chosen;
+            previous = chosen;
+        }
+        kept[keptCount++] = count - 1;
+        return kept;
+    }
+
+    /**
+     * Downsamples a category series for a line chart, treating category positions as X.
+     *
+     * @param values The aggregated values per category, in axis order.
+     * @param limit  The maximum number of points.
+     * @return The reduced values, in the same order.
+     */
+    public static Map<String, Double> downsample(Map<String, Double> values, int limit) {
+        if (values.size() <= limit) {
+            return values;
+        }
+        List<String> labels = new ArrayList<>(values.keySet());
+        double[] xs = new double[labels.size()];
+        double[] ys = new double[labels.size()];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = i;
+            ys[i] = values.get(labels.get(i));
+        }
+        Map<String, Double> reduced = new LinkedHashMap<>();
+        for (int index : downsample(xs, ys, xs.length, limit)) {
+            reduced.put(labels.get(index), ys[index]);
+        }
+        return reduced;
+    }
+}
@@ -0,0 +1,206 @@
+package datavisualizer.model.render;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Vector backend: writes chart descriptions as SVG.
+ * Elements are streamed through a fixed-size buffer straight into a FileChannel as they are drawn;
+ * no DOM or whole-document string is built, so memory use does not depend on the chart size.
+ * Series should already be bounded by {@link SeriesReducer} (as {@link ChartDataBuilder} does).
+ */
+public class SvgChartWriter implements ChartCanvas {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private SvgChartWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a chart to an SVG file, replacing any existing file.
+     *
+     * @param chart  The chart description.
+     * @param width  The width in pixels.
+     * @param height The height in pixels.
+     * @param output The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(ChartData chart, int width, int height, Path output) throws IOException {
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SvgChartWriter writer = new SvgChartWriter(channel);
+            try {
+                writer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"")
+                        .append(width).append("\" height=\"").append(height)
+                        .append("\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                        .append("\" font-family=\"sans-serif\">\n");
+                ChartPainter.paint(chart, writer, width, height);
+                writer.append("</svg>\n");
+                writer.flush();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Override
+    public void fillRect(double x, double y, double width, double height, int rgb) {
+        append("<rect x=\"").append(x).append("\" y=\"").append(y)
+                .append("\" width=\"").append(width).append("\" height=\"").append(height)
+                .append("\" fill=\"").appendColor(rgb).append("\"/>\n");
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, int rgb, double strokeWidth) {
+        append("<line x1=\"").append(x1).append("\" y1=\"").append(y1)
+                .append("\" x2=\"").append(x2).append("\" y2=\"").append(y2)
+                .append("\" stroke=\"").appendColor(rgb).append("\" stroke-width=\"").append(strokeWidth).append("\"/>\n");
+    }
+
+    @Override
+    public void polyline(double[] xs, double[] ys, int count, int rgb, double strokeWidth) {
+        if (count == 0) {
+            return;
+        }
+        append("<polyline fill=\"none\" stroke=\"").appendColor(rgb).append("\" stroke-width=\"").append(strokeWidth)
+                .append("\" stroke-linejoin=\"round\" points=\"");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                append(' ');
+            }
+            append(xs[i]).append(',').append(ys[i]);
+        }
+        append("\"/>\n");
+    }
+
+    @Override
+    public void wedge(double centerX, double centerY, double radius, double startAngle, double extent, int rgb) {
+        if (Math.abs(extent) >= 360) {
+            append("<circle cx=\"").append(centerX).append("\" cy=\"").append(centerY).append("\" r=\"").append(radius)
+                    .append("\" fill=\"").appendColor(rgb).append("\"/>\n");
+            return;
+        }
+        // Angles are counter-clockwise with Y pointing up, as in Java2D; SVG's Y axis points down
+        double start = Math.toRadians(startAngle);
+        double end = Math.toRadians(startAngle + extent);
+        append("<path d=\"M").append(centerX).append(',').append(centerY)
+                .append(" L").append(centerX + radius * Math.cos(start)).append(',').append(centerY - radius * Math.sin(start))
+                .append(" A").append(radius).append(',').append(radius)
+                .append(" 0 ").append(Math.abs(extent) > 180 ? '1' : '0').append(' ').append(extent < 0 ? '1' : '0').append(' ')
+                .append(centerX + radius * Math.cos(end)).append(',').append(centerY - radius * Math.sin(end))
+                .append(" Z\" fill=\"").appendColor(rgb).append("\"/>\n");
+    }
+
+    @Override
+    public void text(String text, double x, double y, Anchor anchor, double fontSize, int rgb) {
+        append("<text x=\"").append(x).append("\" y=\"").append(y).append("\" font-size=\"").append(fontSize)
+                .append("\" fill=\"").appendColor(rgb).append('"');
+        if (anchor != Anchor.START) {
+            append(anchor == Anchor.MIDDLE ? " text-anchor=\"middle\"" : " text-anchor=\"end\"");
+        }
+        append('>').appendEscaped(text).append("</text>\n");
+    }
+
+    /**
+     * Appends ASCII markup.
+     */
+    private SvgChartWriter append(String markup) {
+        for (int i = 0; i < markup.length(); i++) {
+            put((byte) markup.charAt(i));
+        }
+        return this;
+    }
+
+    private SvgChartWriter append(char c) {
+        put((byte) c);
+        return this;
+    }
+
+    private SvgChartWriter append(int value) {
+        return append(Integer.toString(value));
+    }
+
+    /**
+     * Appends a coordinate with at most two decimals, without going through String.format.
+     */
+    private SvgChartWriter append(double value) {
+        if (!Double.isFinite(value)) {
+            return append('0');
+        }
+        long hundredths = Math.round(value * 100);
+        if (hundredths < 0) {
+            put((byte) '-');
+            hundredths = -hundredths;
+        }
+        append(Long.toString(hundredths / 100));
+        int fraction = (int) (hundredths % 100);
+        if (fraction != 0) {
+            put((byte) '.');
+            put((byte) ('0' + fraction / 10));
+            if (fraction % 10 != 0) {
+                put((byte) ('0' + fraction % 10));
+            }
+        }
+        return this;
+    }
+
+    private SvgChartWriter appendColor(int rgb) {
+        put((byte) '#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            put((byte) Character.forDigit((rgb >>> shift) & 0xF, 16));
+        }
+        return this;
+    }
+
+    /**
+     * Appends user text, escaping XML special characters and encoding it as UTF-8.
+     */
+    private SvgChartWriter appendEscaped(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '&': escaped.append("&amp;"); break;
+                case '"': escaped.append("&quot;"); break;
+                default:
+                    if (c >= 0x20 || c == '\t') {
+                        escaped.append(c); // Other control characters are not allowed in XML
+                    }
+            }
+        }
+        for (byte b : escaped.toString().getBytes(StandardCharsets.UTF_8)) {
+            put(b);
+        }
+        return this;
+    }
+
+    private void put(byte b) {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,296 @@
+package datavisualizer.model.session;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import datavisualizer.model.ChartStateModel;
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.command.Command;
+import datavisualizer.model.command.UpdateChartStateCommand;
+import datavisualizer.model.command.UpdateFilterCommand;
+import datavisualizer.model.command.UpdateOverlaysCommand;
+import datavisualizer.model.command.UpdateTimeBucketCommand;
+import datavisualizer.model.dataset.ComputedColumn;
+import datavisualizer.model.filter.AndFilter;
+import datavisualizer.model.filter.ComparisonFilter;
+import datavisualizer.model.filter.FilterPredicate;
+import datavisualizer.model.filter.InFilter;
+import datavisualizer.model.filter.OrFilter;
+import datavisualizer.model.filter.RangeFilter;
+import datavisualizer.model.overlay.OverlaySpec;
+import datavisualizer.model.overlay.OverlayType;
+import datavisualizer.model.time.TimeBucket;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts chart state, filters, computed columns and commands to and from JSON for the session journal.
+ */
+public class SessionCodec {
+
+    /**
+     * Encodes the chart configuration held by the model (not the dataset).
+     *
+     * @param model The model.
+     * @return The encoded state.
+     */
+    public static JsonObject encodeState(ChartStateModel model) {
+        JsonObject state = new JsonObject();
+        state.addProperty("type", model.getChartType().name());
+        state.addProperty("x", model.getXColumn());
+        state.add("y", encodeStrings(model.getYColumns()));
+        state.add("filter", encodeFilter(model.getFilter()));
+        state.addProperty("bucket", model.getTimeBucket() != null ? model.getTimeBucket().name() : null);
+        state.add("overlays", encodeOverlays(model.getOverlays()));
+        return state;
+    }
+
+    /**
+     * Applies an encoded chart configuration to the model. The model notifies its observers once for all parts.
+     *
+     * @param state The encoded state.
+     * @param model The model to update.
+     */
+    public static void applyState(JsonObject state, ChartStateModel model) {
+        model.beginUpdate();
+        try {
+            model.updateState(ChartType.valueOf(state.get("type").getAsString()), getString(state, "x"),
+                    decodeStrings(state.getAsJsonArray("y")));
+            model.setFilter(decodeFilter(state.get("filter")));
+            model.setTimeBucket(decodeBucket(state.get("bucket")));
+            model.setOverlays(decodeOverlays(state.getAsJsonArray("overlays")));
+        } finally {
+            model.endUpdate();
+        }
+    }
+
+    /**
+     * Encodes computed column definitions.
+     *
+     * @param columns The computed columns.
+     * @return The encoded columns.
+     */
+    static JsonArray encodeComputedColumns(List<ComputedColumn> columns) {
+        JsonArray array = new JsonArray();
+        for (ComputedColumn column : columns) {
+            JsonObject json = new JsonObject();
+            json.addProperty("name", column.getName());
+            json.addProperty("expression", column.getExpressionText());
+            array.add(json);
+        }
+        return array;
+    }
+
+    /**
+     * Decodes computed column definitions written by {@link #encodeComputedColumns(List)}.
+     * Snapshots written before computed columns existed have none.
+     *
+     * @param array The encoded columns, or null.
+     * @return The computed columns.
+     */
+    static List<ComputedColumn> decodeComputedColumns(JsonArray array) {
+        List<ComputedColumn> columns = new ArrayList<>();
+        if (array != null) {
+            for (JsonElement element : array) {
+                JsonObject json = element.getAsJsonObject();
+                columns.add(new ComputedColumn(json.get("name").getAsString(), json.get("expression").getAsString()));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Encodes an undoable command.
+     *
+     * @param command The command.
+     * @return The encoded command, or null if it is of a type the journal does not persist.
+     */
+    public static JsonObject encodeCommand(Command command) {
+        JsonObject json = new JsonObject();
+        if (command instanceof UpdateChartStateCommand) {
+            UpdateChartStateCommand chart = (UpdateChartStateCommand) command;
+            json.addProperty("kind", "chart");
+            json.addProperty("prevType", chart.getPrevType() != null ? chart.getPrevType().name() : null);
+            json.addProperty("prevX", chart.getPrevX());
+            json.add("prevY", encodeStrings(chart.getPrevY()));
+            json.addProperty("newType", chart.getNewType() != null ? chart.getNewType().name() : null);
+            json.addProperty("newX", chart.getNewX());
+            json.add("newY", encodeStrings(chart.getNewY()));
+        } else if (command instanceof UpdateFilterCommand) {
+            UpdateFilterCommand filter = (UpdateFilterCommand) command;
+            json.addProperty("kind", "filter");
+            json.add("prev", encodeFilter(filter.getPrevFilter()));
+            json.add("new", encodeFilter(filter.getNewFilter()));
+        } else if (command instanceof UpdateTimeBucketCommand) {
+            UpdateTimeBucketCommand bucket = (UpdateTimeBucketCommand) command;
+            json.addProperty("kind", "bucket");
+            json.addProperty("prev", bucket.getPrevBucket() != null ? bucket.getPrevBucket().name() : null);
+            json.addProperty("new", bucket.getNewBucket() != null ? bucket.getNewBucket().name() : null);
+        } else if (command instanceof UpdateOverlaysCommand) {
+            UpdateOverlaysCommand overlays = (UpdateOverlaysCommand) command;
+            json.addProperty("kind", "overlays");
+            json.add("prev", encodeOverlays(overlays.getPrevOverlays()));
+            json.add("new", encodeOverlays(overlays.getNewOverlays()));
+        } else {
+            return null;
+        }
+        return json;
+    }
+
+    /**
+     * Decodes a command written by {@link #encodeCommand(Command)}.
+     *
+     * @param json  The encoded command.
+     * @param model The model the command operates on.
+     * @return The command.
+     * @throws IllegalArgumentException If the command kind is unknown.
+     */
+    public static Command decodeCommand(JsonObject json, ChartStateModel model) {
+        String kind = json.get("kind").getAsString();
+        switch (kind) {
+            case "chart":
+                return new UpdateChartStateCommand(model,
+                        decodeChartType(json.get("prevType")), getString(json, "prevX"), decodeStrings(json.getAsJsonArray("prevY")),
+                        decodeChartType(json.get("newType")), getString(json, "newX"), decodeStrings(json.getAsJsonArray("newY")));
+            case "filter":
+                return new UpdateFilterCommand(model, decodeFilter(json.get("prev")), decodeFilter(json.get("new")));
+            case "bucket":
+                return new UpdateTimeBucketCommand(model, decodeBucket(json.get("prev")), decodeBucket(json.get("new")));
+            case "overlays":
+                return new UpdateOverlaysCommand(model, decodeOverlays(json.getAsJsonArray("prev")), decodeOverlays(json.getAsJsonArray("new")));
+            default:
+                throw new IllegalArgumentException("Unknown command kind: " + kind);
+        }
+    }
+
+    /**
+     * Encodes a filter predicate tree.
+     *
+     * @param filter The filter, or null.
+     * @return The encoded filter, or JSON null.
+     * @throws IllegalArgumentException If the tree contains an unknown predicate type.
+     */
+    static JsonElement encodeFilter(FilterPredicate filter) {
+        if (filter == null) {
+            return JsonNull.INSTANCE;
+        }
+        JsonObject json = new JsonObject();
+        if (filter instanceof InFilter) {
+            InFilter in = (InFilter) filter;
+            json.addProperty("op", "in");
+            json.addProperty("column", in.getColumn());
+            json.add("values", encodeStrings(new ArrayList<>(in.getValues())));
+            json.addProperty("negated", in.isNegated());
+        } else if (filter instanceof ComparisonFilter) {
+            ComparisonFilter comparison = (ComparisonFilter) filter;
+            json.addProperty("op", "compare");
+            json.addProperty("column", comparison.getColumn());
+            json.addProperty("operator", comparison.getOperator().name());
+            json.addProperty("value", comparison.getValue());
+        } else if (filter instanceof RangeFilter) {
+            RangeFilter range = (RangeFilter) filter;
+            json.addProperty("op", "range");
+            json.addProperty("column", range.getColumn());
+            json.addProperty("lower", range.getLower());
+            json.addProperty("upper", range.getUpper());
+        } else if (filter instanceof AndFilter || filter instanceof OrFilter) {
+            List<FilterPredicate> children = filter instanceof AndFilter
+                    ? ((AndFilter) filter).getChildren() : ((OrFilter) filter).getChildren();
+            json.addProperty("op", filter instanceof AndFilter ? "and" : "or");
+            JsonArray encoded = new JsonArray();
+            for (FilterPredicate child : children) {
+                encoded.add(encodeFilter(child));
+            }
+            json.add("children", encoded);
+        } else {
+            throw new IllegalArgumentException("Cannot journal filter " + filter.getClass().getSimpleName());
+        }
+        return json;
+    }
+
+    /**
+     * Decodes a filter written by {@link #encodeFilter(FilterPredicate)}.
+     *
+     * @param element The encoded filter, or JSON null.
+     * @return The filter, or null.
+     */
+    static FilterPredicate decodeFilter(JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        JsonObject json = element.getAsJsonObject();
+        String op = json.get("op").getAsString();
+        switch (op) {
+            case "in":
+                Set<String> values = new LinkedHashSet<>(decodeStrings(json.getAsJsonArray("values")));
+                return new InFilter(json.get("column").getAsString(), values, json.get("negated").getAsBoolean());
+            case "compare":
+                return new ComparisonFilter(json.get("column").getAsString(),
+                        ComparisonFilter.Operator.valueOf(json.get("operator").getAsString()), json.get("value").getAsDouble());
+            case "range":
+                return new RangeFilter(json.get("column").getAsString(), json.get("lower").getAsDouble(), json.get("upper").getAsDouble());
+            case "and":
+            case "or":
+                List<FilterPredicate> children = new ArrayList<>();
+                for (JsonElement child : json.getAsJsonArray("children")) {
+                    children.add(decodeFilter(child));
+                }
+                return op.equals("and") ? new AndFilter(children) : new OrFilter(children);
+            default:
+                throw new IllegalArgumentException("Unknown filter op: " + op);
+        }
+    }
+
+    private static JsonArray encodeOverlays(List<OverlaySpec> overlays) {
+        JsonArray array = new JsonArray();
+        for (OverlaySpec spec : overlays) {
+            JsonObject json = new JsonObject();
+            json.addProperty("type", spec.getType().name());
+            json.addProperty("parameter", spec.getParameter());
+            array.add(json);
+        }
+        return array;
+    }
+
+    private static List<OverlaySpec> decodeOverlays(JsonArray array) {
+        List<OverlaySpec> overlays = new ArrayList<>();
+        for (JsonElement element : array) {
+            JsonObject json = element.getAsJsonObject();
+            overlays.add(new OverlaySpec(OverlayType.valueOf(json.get("type").getAsString()), json.get("parameter").getAsDouble()));
+        }
+        return overlays;
+    }
+
+    private static JsonArray encodeStrings(List<String> values) {
+        JsonArray array = new JsonArray();
+        for (String value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    private static List<String> decodeStrings(JsonArray array) {
+        List<String> values = new ArrayList<>();
+        for (JsonElement element : array) {
+            values.add(element.getAsString());
+        }
+        return values;
+    }
+
+    private static ChartType decodeChartType(JsonElement element) {
+        return element == null || element.isJsonNull() ? null : ChartType.valueOf(element.getAsString());
+    }
+
+    private static TimeBucket decodeBucket(JsonElement element) {
+        return element == null || element.isJsonNull() ? null : TimeBucket.valueOf(element.getAsString());
+    }
+
+    private static String getString(JsonObject json, String name) {
+        JsonElement element = json.get(name);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+}
@@ -0,0 +1,534 @@
+package datavisualizer.model.session;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import datavisualizer.model.ChartStateModel;
+import datavisualizer.model.command.Command;
+import datavisualizer.model.dataset.ComputedColumn;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.DataSetCodec;
+import datavisualizer.model.parser.ParserFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe, append-only journal of the exploration session.
+ * <p>
+ * Every executed, undone and redone command is appended as a record; every so often (and whenever another dataset
+ * is shown) a snapshot of the chart state, the undo/redo stacks and the current file replaces the whole journal,
+ * so it never grows without bound. Each record is framed with its length and a CRC32, so a record torn by a crash
+ * is detected and dropped on recovery. The dataset of the latest snapshot is kept as a binary cache file
+ * (see {@link DataSetCodec}), so restoring a session does not need to re-parse the source.
+ * <p>
+ * Records are encoded on the caller's thread (cheap), but writing, fsync and snapshot compaction happen on a
+ * single background thread that batches whatever has queued up into one fsync.
+ */
+public class SessionJournal {
+
+    // Number of command records after which the journal is compacted into a new snapshot
+    private static final int SNAPSHOT_INTERVAL = Integer.getInteger("datavisualizer.session.snapshotInterval", 200);
+    private static final String JOURNAL_FILE = "session.journal";
+    private static final String DATASET_PREFIX = "dataset-";
+    private static final String DATASET_SUFFIX = ".dvds";
+
+    private final Path directory;
+    private final Path journalFile;
+    private final ChartStateModel model;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private Thread writer;
+    private int recordsSinceSnapshot;
+
+    /**
+     * Constructs a journal stored in the given directory.
+     *
+     * @param directory The session directory (created if needed).
+     * @param model     The model whose state is snapshotted.
+     */
+    public SessionJournal(Path directory, ChartStateModel model) {
+        this.directory = directory;
+        this.journalFile = directory.resolve(JOURNAL_FILE);
+        this.model = model;
+    }
+
+    /**
+     * Gets the default session directory: the {@code datavisualizer.session.dir} system property,
+     * or {@code .datavisualizer/session} in the user's home directory.
+     *
+     * @return The directory.
+     */
+    public static Path defaultDirectory() {
+        String configured = System.getProperty("datavisualizer.session.dir");
+        return configured != null ? Paths.get(configured) : Paths.get(System.getProperty("user.home"), ".datavisualizer", "session");
+    }
+
+    /**
+     * Reads the journal left by the previous run. Must be called before {@link #start()}.
+     * A torn or corrupt tail is ignored; everything before it is recovered.
+     *
+     * @return The recovered session, or null if there is none.
+     */
+    public RecoveredSession recover() {
+        if (!Files.isRegularFile(journalFile)) {
+            return null;
+        }
+        JsonObject snapshot = null;
+        List<JsonObject> events = new ArrayList<>();
+        long validLength = 0;
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            ByteBuffer contents = ByteBuffer.allocate((int) channel.size());
+            while (contents.hasRemaining() && channel.read(contents) >= 0) {
+                // Read the whole journal; it is compacted regularly, so it stays small
+            }
+            contents.flip();
+            while (contents.remaining() >= 8) {
+                int length = contents.getInt();
+                int checksum = contents.getInt();
+                if (length < 0 || length > contents.remaining()) {
+                    break; // Torn write at the end
+                }
+                byte[] payload = new byte[length];
+                contents.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                JsonObject record = JsonParser.parseString(new String(payload, StandardCharsets.UTF_8)).getAsJsonObject();
+                if (record.get("t").getAsString().equals("snapshot")) {
+                    snapshot = record;
+                    events.clear();
+                } else {
+                    events.add(record);
+                }
+                validLength = contents.position();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not read session journal, starting a new session: " + e.getMessage());
+            return null;
+        }
+        if (validLength < journalFile.toFile().length()) {
+            System.err.println("Ignored a torn record at the end of the session journal.");
+        }
+        return snapshot != null ? new RecoveredSession(snapshot, events) : null;
+    }
+
+    /**
+     * Loads the dataset of a recovered session, from the binary cache if the source is unchanged,
+     * otherwise by parsing the source.
+     *
+     * @param session The recovered session.
+     * @return The dataset, prepared for filtering.
+     * @throws IOException If the file cannot be read.
+     */
+    public DataSet loadDataSet(RecoveredSession session) throws IOException {
+        File file = session.getFile();
+        Path cached = directory.resolve(cacheFileName(file, session.getLastModified(), session.getLength()));
+        DataSet dataSet = null;
+        if (file.lastModified() == session.getLastModified() && file.length() == session.getLength() && Files.isRegularFile(cached)) {
+            try {
+                dataSet = DataSetCodec.read(cached);
+                ParserFactory.prepare(dataSet);
+            } catch (IOException e) {
+                System.err.println("Could not read cached dataset, re-parsing: " + e.getMessage());
+            }
+        }
+        if (dataSet == null) {
+            dataSet = ParserFactory.load(file);
+        }
+        session.addComputedColumns(dataSet);
+        return dataSet;
+    }
+
+    /**
+     * Starts the background writer. Recovery must have happened before, since the journal is appended to.
+     */
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(this::writeLoop, "session-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Appends an executed command. Commands the codec cannot encode are not persisted, but if executing one
+     * cleared the redo stack that is recorded, so replay does not leave commands redoable that were not.
+     *
+     * @param command     The command.
+     * @param redoCleared Whether executing it dropped commands from the redo stack.
+     */
+    public void recordExecute(Command command, boolean redoCleared) {
+        JsonObject encoded = SessionCodec.encodeCommand(command);
+        if (encoded == null) {
+            if (redoCleared) {
+                JsonObject record = new JsonObject();
+                record.addProperty("t", "clearRedo");
+                append(record);
+            }
+            return;
+        }
+        JsonObject record = new JsonObject();
+        record.addProperty("t", "execute");
+        record.add("command", encoded);
+        append(record);
+    }
+
+    /**
+     * Appends an undo of the most recent command. Undoing a command that is not persisted is not recorded either.
+     *
+     * @param command The command undone.
+     */
+    public void recordUndo(Command command) {
+        if (SessionCodec.encodeCommand(command) == null) {
+            return;
+        }
+        JsonObject record = new JsonObject();
+        record.addProperty("t", "undo");
+        append(record);
+    }
+
+    /**
+     * Appends a redo of the most recently undone command. Redoing a command that is not persisted is not recorded either.
+     *
+     * @param command The command redone.
+     */
+    public void recordRedo(Command command) {
+        if (SessionCodec.encodeCommand(command) == null) {
+            return;
+        }
+        JsonObject record = new JsonObject();
+        record.addProperty("t", "redo");
+        append(record);
+    }
+
+    /**
+     * Replaces the journal with a snapshot of the current session.
+     * Must be called on the thread that owns the model; the file IO happens in the background.
+     *
+     * @param file      The file shown, or null if none is open.
+     * @param dataSet   The dataset of that file, cached so the session can be restored without parsing; may be null.
+     * @param history   The undo stack, oldest first.
+     * @param redoStack The redo stack, oldest first.
+     */
+    public void snapshot(File file, DataSet dataSet, List<Command> history, List<Command> redoStack) {
+        JsonObject record = new JsonObject();
+        record.addProperty("t", "snapshot");
+        if (file != null) {
+            record.addProperty("file", file.getAbsolutePath());
+            record.addProperty("modified", file.lastModified());
+            record.addProperty("length", file.length());
+        }
+        record.add("state", SessionCodec.encodeState(model));
+        record.add("computed", SessionCodec.encodeComputedColumns(dataSet != null ? dataSet.getComputedColumns() : List.of()));
+        record.add("history", encodeCommands(history));
+        record.add("redo", encodeCommands(redoStack));
+        recordsSinceSnapshot = 0;
+        String cacheName = file != null ? cacheFileName(file, file.lastModified(), file.length()) : null;
+        queue.add(new Pending(encode(record), true, dataSet, cacheName));
+    }
+
+    /**
+     * Checks whether enough records were appended since the last snapshot that a new one is due.
+     *
+     * @return true if the caller should take a snapshot.
+     */
+    public boolean isSnapshotDue() {
+        return recordsSinceSnapshot >= SNAPSHOT_INTERVAL;
+    }
+
+    /**
+     * Writes everything queued so far and stops the background writer.
+     */
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        queue.add(Pending.STOP);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    private void append(JsonObject record) {
+        recordsSinceSnapshot++;
+        queue.add(new Pending(encode(record), false, null, null));
+    }
+
+    private static JsonArray encodeCommands(List<Command> commands) {
+        JsonArray array = new JsonArray();
+        for (Command command : commands) {
+            JsonObject encoded = SessionCodec.encodeCommand(command);
+            if (encoded != null) {
+                array.add(encoded);
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Frames a record as length, CRC32 and UTF-8 JSON payload.
+     *
+     * @param record The record.
+     * @return The framed bytes.
+     */
+    private static byte[] encode(JsonObject record) {
+        byte[] payload = record.toString().getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer framed = ByteBuffer.allocate(8 + payload.length);
+        framed.putInt(payload.length);
+        framed.putInt((int) crc.getValue());
+        framed.put(payload);
+        return framed.array();
+    }
+
+    private static String cacheFileName(File file, long lastModified, long length) {
+        CRC32 crc = new CRC32();
+        crc.update((file.getAbsolutePath() + '|' + lastModified + '|' + length).getBytes(StandardCharsets.UTF_8));
+        return DATASET_PREFIX + Long.toHexString(crc.getValue()) + DATASET_SUFFIX;
+    }
+
+    /**
+     * Background loop: drains the queue, appends records, and fsyncs once per batch.
+     */
+    private void writeLoop() {
+        FileChannel channel = null;
+        List<Pending> batch = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            channel = openForAppend();
+            while (true) {
+                batch.clear();
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                boolean stop = false;
+                boolean dirty = false;
+                for (Pending pending : batch) {
+                    if (pending == Pending.STOP) {
+                        stop = true;
+                        break;
+                    }
+                    if (pending.snapshot) {
+                        if (dirty) {
+                            channel.force(false);
+                            dirty = false;
+                        }
+                        channel.close();
+                        compact(pending);
+                        channel = openForAppend();
+                    } else {
+                        channel.write(ByteBuffer.wrap(pending.bytes));
+                        dirty = true;
+                    }
+                }
+                if (dirty) {
+                    channel.force(false);
+                }
+                if (stop) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Session journal disabled after write error: " + e.getMessage());
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing session journal: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        return FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Writes the snapshot's dataset cache if needed, then atomically replaces the journal with the snapshot record.
+     *
+     * @param snapshot The queued snapshot.
+     * @throws IOException If the new journal cannot be written.
+     */
+    private void compact(Pending snapshot) throws IOException {
+        // Degraded loads are not cached: the cache reads back as a full load, so they are re-parsed with a new plan
+        if (snapshot.cacheName != null && snapshot.dataSet != null && snapshot.dataSet.getLoadPlan().isFull()) {
+            Path cacheFile = directory.resolve(snapshot.cacheName);
+            if (!Files.exists(cacheFile)) {
+                try {
+                    Path temporary = directory.resolve(snapshot.cacheName + ".tmp");
+                    DataSetCodec.write(snapshot.dataSet, temporary);
+                    Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    System.err.println("Could not cache dataset for the session, it will be re-parsed on restore: " + e.getMessage());
+                }
+            }
+        }
+        deleteOtherCaches(snapshot.cacheName);
+
+        Path temporary = directory.resolve(JOURNAL_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(snapshot.bytes));
+            channel.force(false);
+        }
+        Files.move(temporary, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true); // Make the rename durable
+        } catch (IOException e) {
+            // Not supported on every platform; the rename is still atomic
+        }
+    }
+
+    private void deleteOtherCaches(String keep) {
+        try (DirectoryStream<Path> caches = Files.newDirectoryStream(directory, DATASET_PREFIX + "*" + DATASET_SUFFIX)) {
+            for (Path cache : caches) {
+                if (!cache.getFileName().toString().equals(keep)) {
+                    Files.deleteIfExists(cache);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not remove old session caches: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A framed record waiting to be written, or a snapshot replacing the journal.
+     */
+    private static class Pending {
+        static final Pending STOP = new Pending(new byte[0], false, null, null);
+
+        final byte[] bytes;
+        final boolean snapshot;
+        final DataSet dataSet;
+        final String cacheName;
+
+        Pending(byte[] bytes, boolean snapshot, DataSet dataSet, String cacheName) {
+            this.bytes = bytes;
+            this.snapshot = snapshot;
+            this.dataSet = dataSet;
+            this.cacheName = cacheName;
+        }
+    }
+
+    /**
+     * The state left by a previous run: the latest snapshot and the records appended after it.
+     */
+    public static class RecoveredSession {
+        private final JsonObject snapshot;
+        private final List<JsonObject> events;
+
+        RecoveredSession(JsonObject snapshot, List<JsonObject> events) {
+            this.snapshot = snapshot;
+            this.events = events;
+        }
+
+        /**
+         * Gets the file that was shown.
+         *
+         * @return The file, or null if none was open.
+         */
+        public File getFile() {
+            JsonElement file = snapshot.get("file");
+            return file != null && !file.isJsonNull() ? new File(file.getAsString()) : null;
+        }
+
+        long getLastModified() {
+            return snapshot.get("modified").getAsLong();
+        }
+
+        long getLength() {
+            return snapshot.get("length").getAsLong();
+        }
+
+        /**
+         * Adds the computed columns defined in the session to its dataset. Columns that no longer apply
+         * (e.g. the source file lost a column they read) are skipped.
+         *
+         * @param dataSet The dataset loaded for the session.
+         */
+        void addComputedColumns(DataSet dataSet) {
+            for (ComputedColumn column : SessionCodec.decodeComputedColumns(snapshot.getAsJsonArray("computed"))) {
+                try {
+                    dataSet.addComputedColumn(column);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Could not restore computed column " + column.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Restores the snapshot's chart state into the model.
+         *
+         * @param model The model.
+         */
+        public void applyState(ChartStateModel model) {
+            SessionCodec.applyState(snapshot.getAsJsonObject("state"), model);
+        }
+
+        /**
+         * Decodes the snapshot's undo stack.
+         *
+         * @param model The model the commands operate on.
+         * @return The commands, oldest first.
+         */
+        public List<Command> getHistory(ChartStateModel model) {
+            return decodeCommands(snapshot.getAsJsonArray("history"), model);
+        }
+
+        /**
+         * Decodes the snapshot's redo stack.
+         *
+         * @param model The model the commands operate on.
+         * @return The commands, oldest first.
+         */
+        public List<Command> getRedoStack(ChartStateModel model) {
+            return decodeCommands(snapshot.getAsJsonArray("redo"), model);
+        }
+
+        /**
+         * Gets the records appended after the snapshot, in order.
+         * Each has a type {@code t} of "execute" (with a {@code command}), "undo", "redo" or "clearRedo".
+         * A "clearRedo" record stands for a command that is not persisted but emptied the redo stack.
+         *
+         * @return The records.
+         */
+        public List<JsonObject> getEvents() {
+            return events;
+        }
+
+        private static List<Command> decodeCommands(JsonArray array, ChartStateModel model) {
+            List<Command> commands = new ArrayList<>();
+            if (array != null) {
+                for (JsonElement element : array) {
+                    commands.add(SessionCodec.decodeCommand(element.getAsJsonObject(), model));
+                }
+            }
+            return commands;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package datavisualizer.model.time;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Granularities for rolling up timestamp columns. Buckets are aligned in UTC;
+ * weeks start on Monday.
+ */
+public enum TimeBucket {
+    MINUTE(60_000L, "yyyy-MM-dd HH:mm"),
+    HOUR(3_600_000L, "yyyy-MM-dd HH:00"),
+    DAY(86_400_000L, "yyyy-MM-dd"),
+    WEEK(7 * 86_400_000L, "'Week of' yyyy-MM-dd"),
+    MONTH(0L, "yyyy-MM"); // Variable width
+
+    /** Target upper bound on the number of buckets when the granularity is chosen automatically. */
+    private static final int AUTO_MAX_BUCKETS = 500;
+
+    // 1970-01-01 was a Thursday; shifting by 3 days aligns week floors to Mondays
+    private static final long WEEK_ALIGNMENT = 3 * 86_400_000L;
+
+    private final long width;
+    private final DateTimeFormatter formatter;
+
+    TimeBucket(long width, String pattern) {
+        this.width = width;
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+    }
+
+    /**
+     * Rounds a timestamp down to the start of its bucket.
+     *
+     * @param millis The epoch milliseconds.
+     * @return The bucket start in epoch milliseconds.
+     */
+    public long floor(long millis) {
+        switch (this) {
+            case WEEK:
+                return Math.floorDiv(millis + WEEK_ALIGNMENT, width) * width - WEEK_ALIGNMENT;
+            case MONTH:
+                LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(millis, DAY.width));
+                return date.withDayOfMonth(1).toEpochDay() * DAY.width;
+            default:
+                return Math.floorDiv(millis, width) * width;
+        }
+    }
+
+    /**
+     * Checks whether buckets of this granularity have a fixed width.
+     *
+     * @return false for MONTH.
+     */
+    public boolean isFixedWidth() {
+        return width > 0;
+    }
+
+    /**
+     * Gets the fixed bucket width.
+     *
+     * @return The width in milliseconds, or 0 for MONTH.
+     */
+    public long getWidth() {
+        return width;
+    }
+
+    /**
+     * Checks whether rollups of this granularity can be re-bucketed into the given coarser granularity,
+     * i.e. every bucket of this granularity lies inside a single bucket of the other.
+     *
+     * @param coarser The target granularity.
+     * @return true if this granularity is finer and aligned with the target.
+     */
+    public boolean canRollUpTo(TimeBucket coarser) {
+        return ordinal() < coarser.ordinal() && this != WEEK;
+    }
+
+    /**
+     * Formats a bucket start for display.
+     *
+     * @param bucketStart The bucket start in epoch milliseconds.
+     * @return The label.
+     */
+    public String format(long bucketStart) {
+        return formatter.format(Instant.ofEpochMilli(bucketStart));
+    }
+
+    /**
+     * Picks the finest granularity that keeps the number of buckets over a time span manageable.
+     *
+     * @param spanMillis The time span covered by the data.
+     * @return The chosen granularity.
+     */
+    public static TimeBucket choose(long spanMillis) {
+        for (TimeBucket bucket : values()) {
+            long width = bucket.isFixedWidth() ? bucket.width : 30 * DAY.width;
+            if (spanMillis / width <= AUTO_MAX_BUCKETS) {
+                return bucket;
+            }
+        }
+        return MONTH;
+    }
+}
@@ -0,0 +1,102 @@
+package datavisualizer.model.time;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sums of a numeric column per time bucket, ordered by bucket start. Only non-empty buckets are kept.
+ */
+public class TimeRollup {
+
+    private final TimeBucket bucket;
+    private final long[] starts;
+    private final double[] sums;
+
+    /**
+     * Constructs a rollup.
+     *
+     * @param bucket The granularity.
+     * @param starts The bucket starts in increasing order.
+     * @param sums   The sum per bucket.
+     */
+    public TimeRollup(TimeBucket bucket, long[] starts, double[] sums) {
+        this.bucket = bucket;
+        this.starts = starts;
+        this.sums = sums;
+    }
+
+    /**
+     * Re-buckets this rollup into a coarser granularity without touching the rows.
+     *
+     * @param coarser The target granularity; {@link TimeBucket#canRollUpTo(TimeBucket)} must hold.
+     * @return The coarser rollup.
+     */
+    public TimeRollup rollUp(TimeBucket coarser) {
+        long[] coarseStarts = new long[starts.length];
+        double[] coarseSums = new double[starts.length];
+        int count = 0;
+        for (int i = 0; i < starts.length; i++) {
+            long start = coarser.floor(starts[i]);
+            // Starts are sorted, so equal coarse buckets are adjacent
+            if (count > 0 && coarseStarts[count - 1] == start) {
+                coarseSums[count - 1] += sums[i];
+            } else {
+                coarseStarts[count] = start;
+                coarseSums[count++] = sums[i];
+            }
+        }
+        return new TimeRollup(coarser, Arrays.copyOf(coarseStarts, count), Arrays.copyOf(coarseSums, count));
+    }
+
+    /**
+     * Gets the granularity.
+     *
+     * @return The bucket granularity.
+     */
+    public TimeBucket getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Gets the number of non-empty buckets.
+     *
+     * @return The bucket count.
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Gets the start of a bucket.
+     *
+     * @param i The bucket position.
+     * @return The bucket start in epoch milliseconds.
+     */
+    public long getStart(int i) {
+        return starts[i];
+    }
+
+    /**
+     * Gets the sum of a bucket.
+     *
+     * @param i The bucket position.
+     * @return The summed value.
+     */
+    public double getSum(int i) {
+        return sums[i];
+    }
+
+    /**
+     * Converts the rollup to labelled values in time order, for category-based charts.
+     *
+     * @return A map from bucket label to sum.
+     */
+    public Map<String, Double> toLabelledMap() {
+        Map<String, Double> labelled = new LinkedHashMap<>();
+        for (int i = 0; i < starts.length; i++) {
+            labelled.put(bucket.format(starts[i]), sums[i]);
+        }
+        return labelled;
+    }
+}
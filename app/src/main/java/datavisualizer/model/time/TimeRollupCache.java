@@ -0,0 +1,285 @@
+package datavisualizer.model.time;
+
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.DoubleBlockIterator;
+import datavisualizer.model.dataset.LongBlockIterator;
+import datavisualizer.model.dataset.NumericColumn;
+import datavisualizer.model.dataset.TimestampColumn;
+import datavisualizer.model.filter.SelectionVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lazily computed, cached time rollups of one dataset.
+ * A rollup is built on first request; coarser granularities are then derived from an already
+ * cached finer rollup instead of rescanning the rows, so switching from hourly to daily is cheap.
+ * Entries are keyed by (X column, Y column, granularity, selection stamp) and evicted least-recently-used.
+ * Several Y columns requested together are rolled up in one pass over the rows.
+ */
+public class TimeRollupCache {
+
+    private static final int MAX_ENTRIES = 64;
+    // Above this many fixed-width buckets, fall back to hashing instead of a dense array
+    private static final long MAX_DENSE_BUCKETS = 5_000_000L;
+
+    private final Map<Key, TimeRollup> rollups = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, TimeRollup> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Gets the rollup of a numeric column over a timestamp column, computing it if needed.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The timestamp column.
+     * @param yColumn   The numeric column to sum.
+     * @param bucket    The granularity.
+     * @param selection The selected rows (its stamp is part of the cache key), or null for all rows.
+     * @return The rollup, or null if the columns are missing.
+     */
+    public TimeRollup get(DataSet dataSet, String xColumn, String yColumn, TimeBucket bucket, SelectionVector selection) {
+        return getAll(dataSet, xColumn, List.of(yColumn), bucket, selection).get(yColumn);
+    }
+
+    /**
+     * Gets the rollups of several numeric columns over a timestamp column. Rollups that are neither cached nor
+     * derivable from a cached finer rollup are computed together, with a single pass over the rows.
+     * The scan runs outside the lock, so independent requests can be computed in parallel.
+     *
+     * @param dataSet   The dataset.
+     * @param xColumn   The timestamp column.
+     * @param yColumns  The numeric columns to sum.
+     * @param bucket    The granularity.
+     * @param selection The selected rows (its stamp is part of the cache key), or null for all rows.
+     * @return A map from Y column to its rollup (null if the columns are missing).
+     */
+    public Map<String, TimeRollup> getAll(DataSet dataSet, String xColumn, List<String> yColumns, TimeBucket bucket, SelectionVector selection) {
+        long stamp = selection != null ? selection.getStamp() : 0L;
+        Map<String, TimeRollup> results = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (this) {
+            for (String yColumn : yColumns) {
+                TimeRollup rollup = lookup(xColumn, yColumn, bucket, stamp);
+                results.put(yColumn, rollup);
+                if (rollup == null) {
+                    missing.add(yColumn);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        Map<String, TimeRollup> computed;
+        if (bucket.isFixedWidth()) {
+            computed = scan(dataSet, xColumn, missing, bucket, selection);
+        } else {
+            // Variable-width buckets are always derived from the daily rollup
+            computed = new LinkedHashMap<>();
+            getAll(dataSet, xColumn, missing, TimeBucket.DAY, selection).forEach((yColumn, daily) ->
+                    computed.put(yColumn, daily != null ? daily.rollUp(bucket) : null));
+        }
+        synchronized (this) {
+            computed.forEach((yColumn, rollup) -> {
+                if (rollup != null) {
+                    rollups.put(new Key(xColumn, yColumn, bucket, stamp), rollup);
+                }
+                results.put(yColumn, rollup);
+            });
+        }
+        return results;
+    }
+
+    /**
+     * Drops every cached rollup.
+     */
+    public synchronized void clear() {
+        rollups.clear();
+    }
+
+    /**
+     * Gets a cached rollup, or derives it from the coarsest cached rollup that is still finer than the requested one.
+     *
+     * @return The rollup, or null if it has to be computed from the rows.
+     */
+    private TimeRollup lookup(String xColumn, String yColumn, TimeBucket bucket, long stamp) {
+        Key key = new Key(xColumn, yColumn, bucket, stamp);
+        TimeRollup rollup = rollups.get(key);
+        if (rollup != null) {
+            return rollup;
+        }
+        TimeBucket[] buckets = TimeBucket.values();
+        for (int i = bucket.ordinal() - 1; i >= 0 && rollup == null; i--) {
+            if (buckets[i].canRollUpTo(bucket)) {
+                TimeRollup finer = rollups.get(new Key(xColumn, yColumn, buckets[i], stamp));
+                if (finer != null) {
+                    rollup = finer.rollUp(bucket);
+                }
+            }
+        }
+        if (rollup != null) {
+            rollups.put(key, rollup);
+        }
+        return rollup;
+    }
+
+    /**
+     * Builds fixed-width rollups of several columns with one pass over the selected rows.
+     */
+    private static Map<String, TimeRollup> scan(DataSet dataSet, String xColumn, List<String> yColumns, TimeBucket bucket,
+                                                SelectionVector selection) {
+        Map<String, TimeRollup> results = new LinkedHashMap<>();
+        TimestampColumn time = dataSet.getTimestampColumn(xColumn);
+        List<NumericColumn> columns = new ArrayList<>();
+        for (String yColumn : yColumns) {
+            NumericColumn value = time != null ? dataSet.getNumericColumn(yColumn) : null;
+            results.put(yColumn, null);
+            if (value != null) {
+                columns.add(value);
+            }
+        }
+        if (columns.isEmpty()) {
+            return results;
+        }
+        if (time.getMin() > time.getMax()) {
+            for (NumericColumn value : columns) {
+                results.put(value.getName(), new TimeRollup(bucket, new long[0], new double[0]));
+            }
+            return results;
+        }
+        long width = bucket.getWidth();
+        long first = bucket.floor(time.getMin());
+        long bucketCount = (bucket.floor(time.getMax()) - first) / width + 1;
+        // Values are read block by block, so compressed columns are decoded one block at a time
+        LongBlockIterator timeBlocks = time.blocks();
+        long[] millis = null;
+        int timeOffset = 0;
+        int columnCount = columns.size();
+        DoubleBlockIterator[] blocks = new DoubleBlockIterator[columnCount];
+        double[][] values = new double[columnCount][];
+        int[] offsets = new int[columnCount];
+        int size = time.size();
+        for (int j = 0; j < columnCount; j++) {
+            blocks[j] = columns.get(j).blocks();
+            size = Math.min(size, columns.get(j).size());
+        }
+        int blockEnd = 0; // Rows before this are covered by the current blocks, which line up across columns
+
+        if (bucketCount <= MAX_DENSE_BUCKETS) {
+            double[][] sums = new double[columnCount][(int) bucketCount];
+            long[][] present = new long[columnCount][(int) ((bucketCount + 63) >>> 6)];
+            int row = selection != null ? selection.nextSetBit(0) : 0;
+            while (row >= 0 && row < size) {
+                if (row >= blockEnd) {
+                    millis = timeBlocks.seek(row);
+                    timeOffset = timeBlocks.offset();
+                    for (int j = 0; j < columnCount; j++) {
+                        values[j] = blocks[j].seek(row);
+                        offsets[j] = blocks[j].offset();
+                    }
+                    blockEnd = timeBlocks.end();
+                }
+                if (!time.isNull(row)) {
+                    int index = (int) ((millis[row - timeOffset] - first) / width);
+                    for (int j = 0; j < columnCount; j++) {
+                        if (!columns.get(j).isNull(row)) {
+                            sums[j][index] += values[j][row - offsets[j]];
+                            present[j][index >>> 6] |= 1L << index;
+                        }
+                    }
+                }
+                row = selection != null ? selection.nextSetBit(row + 1) : row + 1;
+            }
+            for (int j = 0; j < columnCount; j++) {
+                int nonEmpty = 0;
+                for (long word : present[j]) {
+                    nonEmpty += Long.bitCount(word);
+                }
+                long[] starts = new long[nonEmpty];
+                double[] compact = new double[nonEmpty];
+                int k = 0;
+                for (int index = 0; index < bucketCount; index++) {
+                    if ((present[j][index >>> 6] & (1L << index)) != 0) {
+                        starts[k] = first + index * width;
+                        compact[k++] = sums[j][index];
+                    }
+                }
+                results.put(columns.get(j).getName(), new TimeRollup(bucket, starts, compact));
+            }
+            return results;
+        }
+
+        // Sparse fallback for very long spans at fine granularity
+        List<Map<Long, Double>> sums = new ArrayList<>();
+        for (int j = 0; j < columnCount; j++) {
+            sums.add(new HashMap<>());
+        }
+        int row = selection != null ? selection.nextSetBit(0) : 0;
+        while (row >= 0 && row < size) {
+            if (row >= blockEnd) {
+                millis = timeBlocks.seek(row);
+                timeOffset = timeBlocks.offset();
+                for (int j = 0; j < columnCount; j++) {
+                    values[j] = blocks[j].seek(row);
+                    offsets[j] = blocks[j].offset();
+                }
+                blockEnd = timeBlocks.end();
+            }
+            if (!time.isNull(row)) {
+                long start = bucket.floor(millis[row - timeOffset]);
+                for (int j = 0; j < columnCount; j++) {
+                    if (!columns.get(j).isNull(row)) {
+                        sums.get(j).merge(start, values[j][row - offsets[j]], Double::sum);
+                    }
+                }
+            }
+            row = selection != null ? selection.nextSetBit(row + 1) : row + 1;
+        }
+        for (int j = 0; j < columnCount; j++) {
+            Map<Long, Double> columnSums = sums.get(j);
+            long[] starts = columnSums.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            double[] ordered = Arrays.stream(starts).mapToDouble(columnSums::get).toArray();
+            results.put(columns.get(j).getName(), new TimeRollup(bucket, starts, ordered));
+        }
+        return results;
+    }
+
+    /**
+     * Cache key of one rollup.
+     */
+    private static final class Key {
+        private final String xColumn;
+        private final String yColumn;
+        private final TimeBucket bucket;
+        private final long selectionStamp;
+
+        Key(String xColumn, String yColumn, TimeBucket bucket, long selectionStamp) {
+            this.xColumn = xColumn;
+            this.yColumn = yColumn;
+            this.bucket = bucket;
+            this.selectionStamp = selectionStamp;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return selectionStamp == other.selectionStamp && bucket == other.bucket
+                    && xColumn.equals(other.xColumn) && yColumn.equals(other.yColumn);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(xColumn, yColumn, bucket, selectionStamp);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package datavisualizer.model.time;
+
+/**
+ * Parses ISO-8601-style timestamps into epoch milliseconds without creating intermediate objects.
+ * Accepts a date ("2024-03-01" or "2024/03/01"), optionally followed by 'T' or a space and a time
+ * ("13:45", "13:45:10", "13:45:10.250"), optionally followed by 'Z' or an offset ("+02:00", "-0500").
+ * Timestamps without a zone are interpreted as UTC.
+ */
+public class TimestampParser {
+
+    /** The range held a valid timestamp, which was written to the output array. */
+    public static final int OK = 0;
+    /** The range was not a valid timestamp. */
+    public static final int INVALID = 1;
+    /** The range was empty or only whitespace. */
+    public static final int EMPTY = 2;
+
+    /**
+     * Parses a timestamp from a range of characters.
+     *
+     * @param text  The source characters.
+     * @param from  The start of the range (inclusive).
+     * @param to    The end of the range (exclusive).
+     * @param out   The array to write the epoch milliseconds into.
+     * @param index The position in the output array.
+     * @return {@link #OK}, {@link #INVALID} or {@link #EMPTY}.
+     */
+    public static int parse(CharSequence text, int from, int to, long[] out, int index) {
+        while (from < to && text.charAt(from) <= ' ') from++;
+        while (to > from && text.charAt(to - 1) <= ' ') to--;
+        if (from == to) {
+            return EMPTY;
+        }
+        // Date part: yyyy-MM-dd or yyyy/MM/dd
+        if (to - from < 10) {
+            return INVALID;
+        }
+        char separator = text.charAt(from + 4);
+        if ((separator != '-' && separator != '/') || text.charAt(from + 7) != separator) {
+            return INVALID;
+        }
+        int year = digits(text, from, 4);
+        int month = digits(text, from + 5, 2);
+        int day = digits(text, from + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        int i = from + 10;
+        long millisOfDay = 0;
+
+        // Optional time part
+        if (i < to && (text.charAt(i) == 'T' || text.charAt(i) == ' ')) {
+            i++;
+            if (i + 5 > to || text.charAt(i + 2) != ':') {
+                return INVALID;
+            }
+            int hour = digits(text, i, 2);
+            int minute = digits(text, i + 3, 2);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return INVALID;
+            }
+            i += 5;
+            int second = 0;
+            int millis = 0;
+            if (i < to && text.charAt(i) == ':') {
+                if (i + 3 > to) {
+                    return INVALID;
+                }
+                second = digits(text, i + 1, 2);
+                if (second < 0 || second > 60) {
+                    return INVALID;
+                }
+                i += 3;
+                if (i < to && (text.charAt(i) == '.' || text.charAt(i) == ',')) {
+                    i++;
+                    int fractionDigits = 0;
+                    for (; i < to && text.charAt(i) >= '0' && text.charAt(i) <= '9'; i++, fractionDigits++) {
+                        if (fractionDigits < 3) {
+                            millis = millis * 10 + (text.charAt(i) - '0');
+                        }
+                    }
+                    if (fractionDigits == 0) {
+                        return INVALID;
+                    }
+                    for (int d = fractionDigits; d < 3; d++) {
+                        millis *= 10;
+                    }
+                }
+            }
+            millisOfDay = ((hour * 60L + minute) * 60L + second) * 1000L + millis;
+
+            // Optional zone
+            if (i < to) {
+                char zone = text.charAt(i);
+                if (zone == 'Z' && i + 1 == to) {
+                    i++;
+                } else if (zone == '+' || zone == '-') {
+                    int offsetHours = digits(text, i + 1, 2);
+                    int next = i + 3;
+                    if (next < to && text.charAt(next) == ':') next++;
+                    int offsetMinutes = digits(text, next, 2);
+                    if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+                        return INVALID;
+                    }
+                    long offsetMillis = (offsetHours * 60L + offsetMinutes) * 60_000L;
+                    millisOfDay -= zone == '+' ? offsetMillis : -offsetMillis;
+                    i = next + 2;
+                }
+            }
+        }
+        if (i != to) {
+            return INVALID;
+        }
+        out[index] = epochDay(year, month, day) * 86_400_000L + millisOfDay;
+        return OK;
+    }
+
+    /**
+     * Parses a whole string; a convenience for code outside the hot loops.
+     *
+     * @param text The text to parse.
+     * @param out  A one-element (or larger) array receiving the value at index 0.
+     * @return {@link #OK}, {@link #INVALID} or {@link #EMPTY}.
+     */
+    public static int parse(CharSequence text, long[] out) {
+        return parse(text, 0, text.length(), out, 0);
+    }
+
+    /**
+     * Computes the days since 1970-01-01 of a proleptic Gregorian date (Howard Hinnant's algorithm).
+     *
+     * @param year  The year.
+     * @param month The month, 1-12.
+     * @param day   The day of month.
+     * @return The epoch day.
+     */
+    public static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Reads a fixed number of decimal digits.
+     *
+     * @return The value, or -1 if the range is out of bounds or holds a non-digit.
+     */
+    private static int digits(CharSequence text, int from, int count) {
+        if (from + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,68 @@
+package datavisualizer.server;
+
+import java.util.zip.CRC32;
+
+/**
+ * An encoded query answer, ready to be written to any number of clients.
+ * The ETag is derived from the body, so a reloaded file that aggregates to the same values keeps its tag.
+ */
+class QueryResult {
+
+    private final byte[] body;
+    private final String etag;
+
+    /**
+     * Constructs a result from its encoded JSON body.
+     *
+     * @param body The UTF-8 JSON body.
+     */
+    QueryResult(byte[] body) {
+        this.body = body;
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        this.etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+    }
+
+    /**
+     * Gets the encoded body. Must not be modified.
+     *
+     * @return The body bytes.
+     */
+    byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Gets the entity tag of the body, quoted as it appears in HTTP headers.
+     *
+     * @return The ETag.
+     */
+    String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Checks whether an If-None-Match header already names this result.
+     *
+     * @param ifNoneMatch The header value, or null.
+     * @return true if the client's copy is current.
+     */
+    boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
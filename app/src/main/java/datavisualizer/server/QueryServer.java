@@ -0,0 +1,546 @@
+package datavisualizer.server;
+
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import datavisualizer.model.aggregate.Aggregation;
+import datavisualizer.model.aggregate.StreamingAggregation;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
+import datavisualizer.model.parser.ParserFactory;
+import datavisualizer.model.time.TimeBucket;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless HTTP server answering aggregation queries over the data files in one directory.
+ * <p>
+ * {@code GET /aggregate?file=<path>&x=<column>&y=<column>[&bucket=<MINUTE|HOUR|DAY|WEEK|MONTH|AUTO>]}
+ * returns the same per-category (or per-time-bucket) sums the chart view shows, as
+ * {@code {"file":..,"x":..,"y":..,"bucket":..,"plan":..,"labels":[..],"values":[..]}}, where the plan tells how
+ * the file was read (FULL, TYPED_ONLY or STREAMED); the sums always cover every row.
+ * {@code GET /health} reports that the server is up.
+ * <p>
+ * Each request runs on its own virtual thread. Files are parsed once with the regular DataParser implementations
+ * and reloaded when they change on disk. Files that only fit the load budget as a sample are never loaded sampled;
+ * they are streamed for each new query instead (see {@link StreamingAggregation}). Encoded answers are cached per dataset and carry an ETag, so repeated
+ * queries cost a map lookup and conditional requests are answered with 304. Only the expensive work (loading and
+ * aggregating) is bounded by the concurrency limit; when no slot frees up in time the server answers 503.
+ */
+public class QueryServer {
+
+    // How long a request waits for a loading/aggregation slot before giving up with 503
+    private static final long SLOT_TIMEOUT_MILLIS = Long.getLong("datavisualizer.server.slotTimeoutMillis", 2000L);
+
+    private final Path root;
+    private final Semaphore slots;
+    private final Map<Path, CompletableFuture<ServedDataSet>> dataSets = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a server over the files of a directory.
+     *
+     * @param root          The directory that query paths are resolved against; files outside it are never served.
+     * @param maxConcurrent The maximum number of loads and aggregations running at the same time.
+     */
+    public QueryServer(Path root, int maxConcurrent) {
+        this.root = root.toAbsolutePath().normalize();
+        this.slots = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * Starts listening on the given port.
+     *
+     * @param port The port, or 0 to pick a free one.
+     * @throws IOException If the port cannot be bound.
+     */
+    public synchronized void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/aggregate", this::handleAggregate);
+        server.createContext("/health", this::handleHealth);
+        server.start();
+    }
+
+    /**
+     * Stops the server, letting exchanges in progress finish for up to a second.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Answers an aggregation query.
+     *
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be written.
+     */
+    private void handleAggregate(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                String method = exchange.getRequestMethod();
+                if (!method.equals("GET") && !method.equals("HEAD")) {
+                    exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                    sendError(exchange, 405, "Method not allowed");
+                    return;
+                }
+                Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+                QueryResult result = aggregate(params);
+                exchange.getResponseHeaders().set("ETag", result.getEtag());
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                if (result.matches(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                send(exchange, 200, result.getBody());
+            } catch (QueryException e) {
+                if (e.status == 503) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                }
+                sendError(exchange, e.status, e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("Error answering " + exchange.getRequestURI() + ": " + e);
+                sendError(exchange, 500, "Internal error");
+            }
+        }
+    }
+
+    /**
+     * Reports that the server is up.
+     *
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be written.
+     */
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringWriter json = new StringWriter();
+            try (JsonWriter writer = new JsonWriter(json)) {
+                writer.beginObject();
+                writer.name("status").value("ok");
+                writer.name("dataSets").value(dataSets.size());
+                writer.name("freeSlots").value(slots.availablePermits());
+                writer.endObject();
+            }
+            send(exchange, 200, json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Resolves a query to its encoded answer, computing it if it is not cached yet.
+     *
+     * @param params The query parameters.
+     * @return The answer.
+     * @throws QueryException If the query is invalid, names an unknown file or column, or the server is busy.
+     */
+    private QueryResult aggregate(Map<String, String> params) throws QueryException {
+        String file = require(params, "file");
+        String xColumn = require(params, "x");
+        String yColumn = require(params, "y");
+        String requestedBucket = params.getOrDefault("bucket", "AUTO");
+
+        TimeBucket requested = parseBucket(requestedBucket);
+
+        Path path = resolve(file);
+        String name = root.relativize(path).toString().replace('\\', '/'); // Same spelling however the client wrote it
+        ServedDataSet served = load(path);
+        DataSet dataSet = served.getDataSet();
+        TimeBucket bucket = null;
+        String key;
+        if (dataSet != null) {
+            bucket = resolveBucket(dataSet, xColumn, yColumn, requested);
+            key = xColumn + '\u0000' + yColumn + '\u0000' + (bucket != null ? bucket.name() : "");
+        } else {
+            // The columns and bucket of a streamed file are only known once it has been read
+            key = xColumn + '\u0000' + yColumn + '\u0000' + (requested != null ? requested.name() : "AUTO");
+        }
+        QueryResult result = served.getResult(key);
+        if (result != null) {
+            return result;
+        }
+        acquireSlot();
+        try {
+            result = served.getResult(key); // Another request may have computed it while this one waited
+            if (result == null) {
+                DataSet source = dataSet;
+                if (source == null) {
+                    source = stream(path, xColumn, yColumn, requested);
+                    bucket = resolveBucket(source, xColumn, yColumn, requested);
+                }
+                Map<String, Double> sums = Aggregation.sumByX(source, xColumn, yColumn, null, bucket);
+                result = new QueryResult(encode(name, xColumn, yColumn, bucket, source.getLoadPlan(), sums));
+                served.putResult(key, result);
+            }
+            return result;
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Checks that a dataset has the queried columns and resolves the time bucket of its X column.
+     *
+     * @param dataSet   The loaded or streamed dataset.
+     * @param xColumn   The X column.
+     * @param yColumn   The Y column.
+     * @param requested The requested bucket, or null for automatic.
+     * @return The bucket, or null if the X column does not hold timestamps.
+     * @throws QueryException If a column is missing, or a bucket was requested for a non-timestamp column.
+     */
+    private static TimeBucket resolveBucket(DataSet dataSet, String xColumn, String yColumn, TimeBucket requested) throws QueryException {
+        if (!dataSet.getColumnNames().contains(xColumn)) {
+            throw new QueryException(404, "Unknown column: " + xColumn);
+        }
+        if (!dataSet.getColumnNames().contains(yColumn)) {
+            throw new QueryException(404, "Unknown column: " + yColumn);
+        }
+        TimeBucket bucket = Aggregation.resolveTimeBucket(dataSet, xColumn, requested);
+        if (bucket == null && requested != null) {
+            throw new QueryException(400, "Column " + xColumn + " does not hold timestamps");
+        }
+        return bucket;
+    }
+
+    /**
+     * Aggregates a query over a file that is too large to load, in a single pass.
+     *
+     * @param path    The resolved file path.
+     * @param xColumn The X column.
+     * @param yColumn The Y column.
+     * @param bucket  The requested bucket, or null for automatic.
+     * @return A dataset with one row per group.
+     * @throws QueryException If the file cannot be read or parsed, or does not have the X column.
+     */
+    private DataSet stream(Path path, String xColumn, String yColumn, TimeBucket bucket) throws QueryException {
+        try {
+            return StreamingAggregation.aggregate(path.toFile(), xColumn, List.of(yColumn), null, bucket);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error streaming " + path + ": " + e.getMessage());
+            throw new QueryException(422, "Cannot aggregate " + root.relativize(path) + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the loaded dataset for a file, loading it on first use and again after the file changed.
+     * Concurrent requests for the same file wait for a single load. A file is loaded fully or as typed columns;
+     * if it only fits the load budget as a sample, no dataset is kept and its queries are streamed instead, since
+     * sums over a sample are not the sums over the file.
+     *
+     * @param path The resolved file path.
+     * @return The loaded dataset, or an entry without a dataset for a streamed file.
+     * @throws QueryException If the file does not exist or cannot be parsed, or the server is busy.
+     */
+    private ServedDataSet load(Path path) throws QueryException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new QueryException(404, "No such file: " + root.relativize(path));
+        } catch (IOException e) {
+            throw new QueryException(500, "Cannot read " + root.relativize(path));
+        }
+        if (!attributes.isRegularFile()) {
+            throw new QueryException(404, "No such file: " + root.relativize(path));
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long length = attributes.size();
+
+        while (true) {
+            CompletableFuture<ServedDataSet> existing = dataSets.get(path);
+            if (existing != null) {
+                ServedDataSet served = await(existing);
+                if (served != null && served.isCurrent(lastModified, length)) {
+                    return served;
+                }
+                dataSets.remove(path, existing); // Stale or failed; the next pass starts a fresh load
+                continue;
+            }
+            CompletableFuture<ServedDataSet> loading = new CompletableFuture<>();
+            if (dataSets.putIfAbsent(path, loading) != null) {
+                continue; // Another request started loading first
+            }
+            try {
+                acquireSlot();
+                try {
+                    LoadPlan plan = ParserFactory.plan(path.toFile(), ParserFactory.getLoadBudget());
+                    DataSet dataSet = null;
+                    if (isExact(plan)) {
+                        dataSet = ParserFactory.load(path.toFile(), plan);
+                        if (!isExact(dataSet.getLoadPlan())) {
+                            dataSet = null; // Ran out of memory and fell back to a sample
+                        }
+                    }
+                    if (dataSet == null) {
+                        System.out.println(root.relativize(path) + " does not fit the load budget in full, streaming it for each query.");
+                    }
+                    loading.complete(new ServedDataSet(dataSet, lastModified, length));
+                } finally {
+                    slots.release();
+                }
+            } catch (QueryException e) {
+                dataSets.remove(path, loading);
+                loading.completeExceptionally(e);
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error loading " + path + ": " + e.getMessage());
+                dataSets.remove(path, loading);
+                QueryException failure = new QueryException(422, "Cannot load " + root.relativize(path) + ": " + e.getMessage());
+                loading.completeExceptionally(failure);
+                throw failure;
+            }
+            return loading.join();
+        }
+    }
+
+    /**
+     * Checks whether a load plan reads every row, so sums over the dataset are sums over the file.
+     */
+    private static boolean isExact(LoadPlan plan) {
+        return plan.getStrategy() == LoadPlan.Strategy.FULL || plan.getStrategy() == LoadPlan.Strategy.TYPED_ONLY;
+    }
+
+    /**
+     * Waits for a load started by another request.
+     *
+     * @param loading The pending load.
+     * @return The loaded dataset.
+     * @throws QueryException If the load failed.
+     */
+    private static ServedDataSet await(CompletableFuture<ServedDataSet> loading) throws QueryException {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof QueryException) {
+                throw (QueryException) e.getCause();
+            }
+            throw new QueryException(500, "Load failed");
+        }
+    }
+
+    /**
+     * Waits for a free loading/aggregation slot.
+     *
+     * @throws QueryException If no slot frees up in time.
+     */
+    private void acquireSlot() throws QueryException {
+        try {
+            if (slots.tryAcquire(SLOT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new QueryException(503, "Server busy");
+    }
+
+    /**
+     * Resolves a client-supplied path against the root directory.
+     *
+     * @param file The relative path from the query.
+     * @return The absolute, normalized path.
+     * @throws QueryException If the path points outside the root directory.
+     */
+    private Path resolve(String file) throws QueryException {
+        Path path;
+        try {
+            path = root.resolve(file).normalize();
+        } catch (RuntimeException e) {
+            throw new QueryException(400, "Invalid file path");
+        }
+        if (!path.startsWith(root)) {
+            throw new QueryException(404, "No such file: " + file);
+        }
+        return path;
+    }
+
+    /**
+     * Encodes an aggregation result as JSON.
+     *
+     * @param file    The file, relative to the root directory.
+     * @param xColumn The X column.
+     * @param yColumn The Y column.
+     * @param bucket  The time granularity, or null.
+     * @param plan    How the file was read.
+     * @param sums    The aggregated values.
+     * @return The UTF-8 JSON body.
+     */
+    private static byte[] encode(String file, String xColumn, String yColumn, TimeBucket bucket, LoadPlan plan,
+                                 Map<String, Double> sums) {
+        StringWriter json = new StringWriter(64 + sums.size() * 24);
+        try (JsonWriter writer = new JsonWriter(json)) {
+            writer.beginObject();
+            writer.name("file").value(file);
+            writer.name("x").value(xColumn);
+            writer.name("y").value(yColumn);
+            writer.name("bucket").value(bucket != null ? bucket.name() : null);
+            writer.name("plan").value(plan.getStrategy().name());
+            writer.name("labels").beginArray();
+            for (String label : sums.keySet()) {
+                writer.value(label);
+            }
+            writer.endArray();
+            writer.name("values").beginArray();
+            for (double value : sums.values()) {
+                if (Double.isFinite(value)) {
+                    writer.value(value);
+                } else {
+                    writer.nullValue(); // JSON has no NaN or infinity
+                }
+            }
+            writer.endArray();
+            writer.endObject();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringWriter does not throw
+        }
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the bucket parameter.
+     *
+     * @param text The parameter value.
+     * @return The bucket, or null for automatic.
+     * @throws QueryException If the value is not a known bucket.
+     */
+    private static TimeBucket parseBucket(String text) throws QueryException {
+        if (text.equalsIgnoreCase("AUTO")) {
+            return null;
+        }
+        try {
+            return TimeBucket.valueOf(text.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new QueryException(400, "Unknown bucket: " + text);
+        }
+    }
+
+    /**
+     * Gets a required query parameter.
+     *
+     * @param params The query parameters.
+     * @param name   The parameter name.
+     * @return The non-empty value.
+     * @throws QueryException If the parameter is missing.
+     */
+    private static String require(Map<String, String> params, String name) throws QueryException {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new QueryException(400, "Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Splits a raw query string into decoded parameters; later duplicates win.
+     *
+     * @param rawQuery The raw query, or null.
+     * @return The parameters.
+     * @throws QueryException If the query is not properly encoded.
+     */
+    private static Map<String, String> parseQuery(String rawQuery) throws QueryException {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        try {
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int equals = pair.indexOf('=');
+                String name = equals >= 0 ? pair.substring(0, equals) : pair;
+                String value = equals >= 0 ? pair.substring(equals + 1) : "";
+                params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new QueryException(400, "Malformed query string");
+        }
+        return params;
+    }
+
+    /**
+     * Sends a JSON error body.
+     *
+     * @param exchange The HTTP exchange.
+     * @param status   The HTTP status.
+     * @param message  The error message.
+     * @throws IOException If the response cannot be written.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringWriter json = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(json)) {
+            writer.beginObject();
+            writer.name("error").value(message);
+            writer.endObject();
+        }
+        send(exchange, status, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a JSON body, or only the headers for a HEAD request.
+     *
+     * @param exchange The HTTP exchange.
+     * @param status   The HTTP status.
+     * @param body     The body bytes.
+     * @throws IOException If the response cannot be written.
+     */
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * A query that cannot be answered, with the HTTP status to report.
+     */
+    private static class QueryException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        QueryException(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+}
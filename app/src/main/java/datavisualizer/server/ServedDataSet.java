@@ -0,0 +1,80 @@
+package datavisualizer.server;
+
+import datavisualizer.model.dataset.DataSet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A dataset loaded by the query server, together with the encoded answers already computed over it.
+ * Files too large to load exactly have no dataset and are streamed for each new query instead.
+ * Results are kept in a small LRU map; the whole entry is dropped when the underlying file changes.
+ */
+class ServedDataSet {
+
+    // Number of distinct queries remembered per dataset
+    private static final int MAX_RESULTS = Integer.getInteger("datavisualizer.server.maxResultsPerDataSet", 256);
+
+    private final DataSet dataSet;
+    private final long lastModified;
+    private final long length;
+    private final Map<String, QueryResult> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QueryResult> eldest) {
+            return size() > MAX_RESULTS;
+        }
+    };
+
+    /**
+     * Constructs an entry for a freshly loaded file.
+     *
+     * @param dataSet      The loaded dataset, or null if the file is streamed.
+     * @param lastModified The file's modification time when it was loaded.
+     * @param length       The file's size when it was loaded.
+     */
+    ServedDataSet(DataSet dataSet, long lastModified, long length) {
+        this.dataSet = dataSet;
+        this.lastModified = lastModified;
+        this.length = length;
+    }
+
+    /**
+     * Gets the loaded dataset.
+     *
+     * @return The dataset, or null if the file does not fit the load budget and is streamed for each query.
+     */
+    DataSet getDataSet() {
+        return dataSet;
+    }
+
+    /**
+     * Checks whether the file still looks the same as when it was loaded.
+     *
+     * @param lastModified The file's current modification time.
+     * @param length       The file's current size.
+     * @return true if the loaded data is still current.
+     */
+    boolean isCurrent(long lastModified, long length) {
+        return this.lastModified == lastModified && this.length == length;
+    }
+
+    /**
+     * Gets a cached result.
+     *
+     * @param key The query key.
+     * @return The result, or null if it has not been computed yet.
+     */
+    synchronized QueryResult getResult(String key) {
+        return results.get(key);
+    }
+
+    /**
+     * Stores a computed result.
+     *
+     * @param key    The query key.
+     * @param result The result.
+     */
+    synchronized void putResult(String key, QueryResult result) {
+        results.put(key, result);
+    }
+}
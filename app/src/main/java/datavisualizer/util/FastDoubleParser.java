@@ -0,0 +1,343 @@
+package datavisualizer.util;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers directly from character or byte ranges, without creating a String
+ * and without throwing on invalid input.
+ * Uses Clinger's exact fast path for short inputs and the Eisel–Lemire algorithm for the rest;
+ * the rare inputs neither can round correctly (subnormals, more than 19 significant digits,
+ * ambiguous halfway products) fall back to Double.parseDouble.
+ * Accepts an optional sign, digits with an optional fraction and exponent, "NaN" and "Infinity",
+ * surrounded by optional whitespace.
+ */
+public class FastDoubleParser {
+
+    /** The range held a valid number, which was written to the output array. */
+    public static final int OK = 0;
+    /** The range was not a valid number; the output array was not modified. */
+    public static final int INVALID = 1;
+    /** The range was empty or only whitespace; the output array was not modified. */
+    public static final int EMPTY = 2;
+
+    private static final int SMALLEST_POWER = -342;
+    private static final int LARGEST_POWER = 308;
+    private static final int MAX_MANTISSA_DIGITS = 19;
+
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // High 64 bits of the normalized 128-bit approximation of 5^q, for q in [SMALLEST_POWER, LARGEST_POWER]
+    private static final long[] POWERS_OF_FIVE = buildPowersOfFive();
+
+    /**
+     * Parses a number from a range of characters.
+     *
+     * @param text  The source characters.
+     * @param from  The start of the range (inclusive).
+     * @param to    The end of the range (exclusive).
+     * @param out   The array to write the parsed value into.
+     * @param index The position in the output array.
+     * @return {@link #OK}, {@link #INVALID} or {@link #EMPTY}.
+     */
+    public static int parse(CharSequence text, int from, int to, double[] out, int index) {
+        while (from < to && text.charAt(from) <= ' ') from++;
+        while (to > from && text.charAt(to - 1) <= ' ') to--;
+        if (from == to) {
+            return EMPTY;
+        }
+
+        int i = from;
+        boolean negative = false;
+        char c = text.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            if (++i == to) {
+                return INVALID;
+            }
+            c = text.charAt(i);
+        }
+        if (c == 'N' || c == 'I') {
+            return parseSpecial(text.subSequence(i, to).toString(), negative, out, index);
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean truncated = false;
+        for (; i < to && (c = text.charAt(i)) >= '0' && c <= '9'; i++) {
+            anyDigit = true;
+            if (digits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+                truncated |= c != '0';
+            }
+        }
+        if (i < to && text.charAt(i) == '.') {
+            for (i++; i < to && (c = text.charAt(i)) >= '0' && c <= '9'; i++) {
+                anyDigit = true;
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                } else {
+                    truncated |= c != '0';
+                }
+            }
+        }
+        if (!anyDigit) {
+            return INVALID;
+        }
+        if (i < to && ((c = text.charAt(i)) == 'e' || c == 'E')) {
+            if (++i == to) {
+                return INVALID;
+            }
+            boolean negativeExponent = false;
+            c = text.charAt(i);
+            if (c == '-' || c == '+') {
+                negativeExponent = c == '-';
+                if (++i == to) {
+                    return INVALID;
+                }
+            }
+            int explicitExponent = 0;
+            int exponentStart = i;
+            for (; i < to && (c = text.charAt(i)) >= '0' && c <= '9'; i++) {
+                if (explicitExponent < 100_000) {
+                    explicitExponent = explicitExponent * 10 + (c - '0');
+                }
+            }
+            if (i == exponentStart) {
+                return INVALID;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != to) {
+            return INVALID;
+        }
+
+        double value = toDouble(negative, mantissa, exponent, truncated);
+        if (Double.isNaN(value)) {
+            value = Double.parseDouble(text.subSequence(from, to).toString());
+        }
+        out[index] = value;
+        return OK;
+    }
+
+    /**
+     * Parses a number from a range of ASCII or UTF-8 bytes.
+     *
+     * @param bytes The source bytes.
+     * @param from  The start of the range (inclusive).
+     * @param to    The end of the range (exclusive).
+     * @param out   The array to write the parsed value into.
+     * @param index The position in the output array.
+     * @return {@link #OK}, {@link #INVALID} or {@link #EMPTY}.
+     */
+    public static int parse(byte[] bytes, int from, int to, double[] out, int index) {
+        while (from < to && bytes[from] <= ' ' && bytes[from] >= 0) from++;
+        while (to > from && bytes[to - 1] <= ' ' && bytes[to - 1] >= 0) to--;
+        if (from == to) {
+            return EMPTY;
+        }
+
+        int i = from;
+        boolean negative = false;
+        byte c = bytes[i];
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            if (++i == to) {
+                return INVALID;
+            }
+            c = bytes[i];
+        }
+        if (c == 'N' || c == 'I') {
+            return parseSpecial(new String(bytes, i, to - i, StandardCharsets.US_ASCII), negative, out, index);
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean truncated = false;
+        for (; i < to && (c = bytes[i]) >= '0' && c <= '9'; i++) {
+            anyDigit = true;
+            if (digits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+                truncated |= c != '0';
+            }
+        }
+        if (i < to && bytes[i] == '.') {
+            for (i++; i < to && (c = bytes[i]) >= '0' && c <= '9'; i++) {
+                anyDigit = true;
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                } else {
+                    truncated |= c != '0';
+                }
+            }
+        }
+        if (!anyDigit) {
+            return INVALID;
+        }
+        if (i < to && ((c = bytes[i]) == 'e' || c == 'E')) {
+            if (++i == to) {
+                return INVALID;
+            }
+            boolean negativeExponent = false;
+            c = bytes[i];
+            if (c == '-' || c == '+') {
+                negativeExponent = c == '-';
+                if (++i == to) {
+                    return INVALID;
+                }
+            }
+            int explicitExponent = 0;
+            int exponentStart = i;
+            for (; i < to && (c = bytes[i]) >= '0' && c <= '9'; i++) {
+                if (explicitExponent < 100_000) {
+                    explicitExponent = explicitExponent * 10 + (c - '0');
+                }
+            }
+            if (i == exponentStart) {
+                return INVALID;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != to) {
+            return INVALID;
+        }
+
+        double value = toDouble(negative, mantissa, exponent, truncated);
+        if (Double.isNaN(value)) {
+            value = Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        }
+        out[index] = value;
+        return OK;
+    }
+
+    /**
+     * Parses a whole string; a convenience for code outside the hot loops.
+     *
+     * @param text The text to parse.
+     * @param out  A one-element (or larger) array receiving the value at index 0.
+     * @return {@link #OK}, {@link #INVALID} or {@link #EMPTY}.
+     */
+    public static int parse(CharSequence text, double[] out) {
+        return parse(text, 0, text.length(), out, 0);
+    }
+
+    /**
+     * Converts a decimal mantissa and exponent to the nearest double.
+     *
+     * @return The value, or NaN if the fast algorithms cannot decide and the slow path is needed.
+     */
+    private static double toDouble(boolean negative, long mantissa, int exponent, boolean truncated) {
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (truncated) {
+            return Double.NaN;
+        }
+        // Clinger: both operands are exact doubles, so one IEEE operation rounds correctly.
+        // The mantissa holds up to 19 digits and is unsigned, so "negative" values are above 2^63.
+        if (mantissa > 0 && mantissa <= (1L << 53) && exponent >= -22 && exponent <= 22) {
+            double value = (double) mantissa;
+            value = exponent >= 0 ? value * EXACT_POWERS_OF_TEN[exponent] : value / EXACT_POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        if (exponent < SMALLEST_POWER) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (exponent > LARGEST_POWER) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return eiselLemire(negative, mantissa, exponent);
+    }
+
+    /**
+     * Eisel–Lemire: multiply the normalized mantissa by a 64-bit approximation of 5^q and
+     * take the top 54 bits. Bails out (NaN) whenever the truncated product could round differently.
+     */
+    private static double eiselLemire(boolean negative, long mantissa, int exponent) {
+        long factor = POWERS_OF_FIVE[exponent - SMALLEST_POWER];
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        long normalized = mantissa << leadingZeros;
+        long upper = Math.unsignedMultiplyHigh(normalized, factor);
+
+        // Low 9 bits all ones: the dropped low product could carry; all zeros: possible exact halfway case
+        if ((upper & 0x1FF) == 0x1FF || (upper & 0x1FF) == 0) {
+            return Double.NaN;
+        }
+        long upperBit = upper >>> 63;
+        long significand = upper >>> (upperBit + 9);
+        leadingZeros += (int) (1 ^ upperBit);
+
+        significand += 1; // Round to nearest
+        significand >>>= 1;
+        int binaryExponent = (int) ((((152170L + 65536L) * exponent) >> 16) + 1023 + 64) - leadingZeros;
+        if (significand >= (1L << 53)) {
+            significand = 1L << 52;
+            binaryExponent++;
+        }
+        significand &= ~(1L << 52);
+        if (binaryExponent < 1 || binaryExponent > 2046) {
+            return Double.NaN; // Subnormal or overflow; let the JDK handle it
+        }
+        long bits = significand | ((long) binaryExponent << 52) | (negative ? 1L << 63 : 0L);
+        return Double.longBitsToDouble(bits);
+    }
+
+    private static int parseSpecial(String text, boolean negative, double[] out, int index) {
+        switch (text) {
+            case "NaN":
+                out[index] = Double.NaN;
+                return OK;
+            case "Infinity":
+                out[index] = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+                return OK;
+            default:
+                return INVALID;
+        }
+    }
+
+    /**
+     * Computes the table of 5^q approximations once at class initialization.
+     * Positive powers are truncated to their top 128 bits; negative powers are rounded up
+     * before truncation, matching the reference tables of the algorithm.
+     */
+    private static long[] buildPowersOfFive() {
+        long[] table = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+        BigInteger five = BigInteger.valueOf(5);
+        BigInteger limit = BigInteger.ONE.shiftLeft(128);
+        for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+            BigInteger value;
+            if (q >= 0) {
+                value = five.pow(q);
+                int shift = value.bitLength() - 128;
+                value = shift > 0 ? value.shiftRight(shift) : value.shiftLeft(-shift);
+            } else {
+                BigInteger power = five.pow(-q);
+                int z = power.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                value = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+                while (value.compareTo(limit) >= 0) {
+                    value = value.shiftRight(1);
+                }
+            }
+            table[q - SMALLEST_POWER] = value.shiftRight(64).longValue();
+        }
+        return table;
+    }
+}
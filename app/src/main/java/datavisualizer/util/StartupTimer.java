@@ -0,0 +1,97 @@
+package datavisualizer.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records startup milestones of the GUI, in milliseconds since launch.
+ * <p>
+ * The launch time is taken from the {@value #ORIGIN_PROPERTY} system property, which the startup benchmark sets
+ * to the time it starts the JVM; without it, times are counted from the {@value #MAIN} milestone. (The process
+ * start time the operating system reports is only accurate to a second, and the management API that knows the
+ * JVM's start time would itself add tens of milliseconds to every start.)
+ * <p>
+ * {@code MainApp} marks {@value #MAIN}, {@value #FXML}, {@value #SHOWN} and {@value #FIRST_FRAME}, and prints
+ * {@link #report()} once the first frame is laid out if the {@value #REPORT_PROPERTY} system property is set.
+ * The report line is what the startup benchmark ({@code ./gradlew startupBenchmark}) reads from each launch.
+ * Setting the {@value #EXIT_PROPERTY} system property makes the application exit right after its first frame,
+ * for measurements and the AppCDS training run.
+ */
+public final class StartupTimer {
+
+    /** Prefix of the report line. */
+    public static final String REPORT_PREFIX = "Startup (ms):";
+
+    /** System property: print the report line after the first frame. */
+    public static final String REPORT_PROPERTY = "datavisualizer.startup.report";
+
+    /** System property: exit after the first frame instead of waiting for the user. */
+    public static final String EXIT_PROPERTY = "datavisualizer.startup.exit";
+
+    /** System property: the launch time in epoch milliseconds, which milestones are measured from. */
+    public static final String ORIGIN_PROPERTY = "datavisualizer.startup.origin";
+
+    /** System property: a data file to open before exiting, so its loading classes are part of a training run. */
+    public static final String OPEN_PROPERTY = "datavisualizer.startup.open";
+
+    // Milestones marked by MainApp, in order
+    public static final String MAIN = "main";
+    public static final String FXML = "fxml";
+    public static final String SHOWN = "shown";
+    public static final String FIRST_FRAME = "firstFrame";
+
+    private static final long ORIGIN = Long.getLong(ORIGIN_PROPERTY, System.currentTimeMillis());
+    private static final Map<String, Long> milestones = new LinkedHashMap<>();
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Records a milestone; only its first occurrence is kept.
+     *
+     * @param milestone The milestone name.
+     */
+    public static synchronized void mark(String milestone) {
+        milestones.putIfAbsent(milestone, System.currentTimeMillis() - ORIGIN);
+    }
+
+    /**
+     * Gets the time of a milestone.
+     *
+     * @param milestone The milestone name.
+     * @return Milliseconds since launch, or -1 if the milestone was not reached.
+     */
+    public static synchronized long get(String milestone) {
+        return milestones.getOrDefault(milestone, -1L);
+    }
+
+    /**
+     * Formats the milestones reached so far as one line, e.g.
+     * {@code Startup (ms): main=90 fxml=310 shown=405 firstFrame=480}.
+     *
+     * @return The report line.
+     */
+    public static synchronized String report() {
+        StringBuilder line = new StringBuilder(REPORT_PREFIX);
+        milestones.forEach((milestone, millis) -> line.append(' ').append(milestone).append('=').append(millis));
+        return line.toString();
+    }
+
+    /**
+     * Checks whether the report line should be printed after the first frame.
+     *
+     * @return true if the {@value #REPORT_PROPERTY} property is set to true.
+     */
+    public static boolean isReportRequested() {
+        return Boolean.getBoolean(REPORT_PROPERTY);
+    }
+
+    /**
+     * Checks whether the application should exit after its first frame.
+     *
+     * @return true if the {@value #EXIT_PROPERTY} property is set to true.
+     */
+    public static boolean isExitAfterFirstFrame() {
+        return Boolean.getBoolean(EXIT_PROPERTY);
+    }
+}
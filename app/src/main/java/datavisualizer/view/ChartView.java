@@ -1,8 +1,14 @@
 package datavisualizer.view;
 
+import datavisualizer.diagnostics.ChartUpdateEvent;
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.model.ChartStateChange;
 import datavisualizer.model.chart.ChartFactory;
 import datavisualizer.model.chart.ChartType;
 import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.filter.SelectionVector;
+import datavisualizer.model.overlay.OverlaySpec;
+import datavisualizer.model.time.TimeBucket;
 import javafx.scene.chart.Chart;
 import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
@@ -13,7 +19,10 @@ import javafx.scene.Node;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * View responsible for displaying the chart.
@@ -24,6 +33,10 @@ public class ChartView {
     private String currentXColumn;
     private List<String> currentYColumns = new ArrayList<>();
     private ChartType currentChartType;
+    private DataSet currentDataSet;
+    private SelectionVector currentSelection; // Reused by the filter engine, copy before handing off to other threads
+    private TimeBucket currentTimeBucket;
+    private List<OverlaySpec> currentOverlays = Collections.emptyList();
 
     private Node selectionPromptNode; // The UI displayed initially, prompting the user to select chart options
 
@@ -55,22 +68,116 @@ public class ChartView {
      * @param yColumns  The columns to use for the Y-axis.
      */
     public void updateChart(DataSet dataSet, ChartType chartType, String xColumn, List<String> yColumns) {
+        updateChart(dataSet, chartType, xColumn, yColumns, null);
+    }
+
+    /**
+     * Updates the displayed chart using only the selected rows of the dataset.
+     *
+     * @param chartType The type of chart to display.
+     * @param xColumn   The column to use for the X-axis.
+     * @param yColumns  The columns to use for the Y-axis.
+     * @param selection The rows passing the current filter, or null for all rows.
+     */
+    public void updateChart(DataSet dataSet, ChartType chartType, String xColumn, List<String> yColumns, SelectionVector selection) {
+        updateChart(dataSet, chartType, xColumn, yColumns, selection, null);
+    }
+
+    /**
+     * Updates the displayed chart using only the selected rows of the dataset,
+     * bucketing a timestamp X column at the given granularity.
+     *
+     * @param chartType  The type of chart to display.
+     * @param xColumn    The column to use for the X-axis.
+     * @param yColumns   The columns to use for the Y-axis.
+     * @param selection  The rows passing the current filter, or null for all rows.
+     * @param timeBucket The granularity for a timestamp X column, or null for automatic.
+     */
+    public void updateChart(DataSet dataSet, ChartType chartType, String xColumn, List<String> yColumns,
+                            SelectionVector selection, TimeBucket timeBucket) {
+        updateChart(dataSet, chartType, xColumn, yColumns, selection, timeBucket, Collections.emptyList());
+    }
+
+    /**
+     * Updates the displayed chart using only the selected rows of the dataset,
+     * drawing the given overlays over line chart series.
+     *
+     * @param chartType  The type of chart to display.
+     * @param xColumn    The column to use for the X-axis.
+     * @param yColumns   The columns to use for the Y-axis.
+     * @param selection  The rows passing the current filter, or null for all rows.
+     * @param timeBucket The granularity for a timestamp X column, or null for automatic.
+     * @param overlays   The overlays to draw on line charts.
+     */
+    public void updateChart(DataSet dataSet, ChartType chartType, String xColumn, List<String> yColumns,
+                            SelectionVector selection, TimeBucket timeBucket, List<OverlaySpec> overlays) {
+        updateChart(dataSet, chartType, xColumn, yColumns, selection, timeBucket, overlays, EnumSet.allOf(ChartStateChange.class));
+    }
+
+    /**
+     * Updates the displayed chart after the given parts of the chart state changed.
+     * The chart is only rebuilt if one of the changes affects what it shows: a time bucket only matters for a
+     * timestamp X column, and overlays only for line charts.
+     *
+     * @param chartType  The type of chart to display.
+     * @param xColumn    The column to use for the X-axis.
+     * @param yColumns   The columns to use for the Y-axis.
+     * @param selection  The rows passing the current filter, or null for all rows.
+     * @param timeBucket The granularity for a timestamp X column, or null for automatic.
+     * @param overlays   The overlays to draw on line charts.
+     * @param changes    The parts of the state that changed since the last update.
+     */
+    public void updateChart(DataSet dataSet, ChartType chartType, String xColumn, List<String> yColumns,
+                            SelectionVector selection, TimeBucket timeBucket, List<OverlaySpec> overlays,
+                            Set<ChartStateChange> changes) {
+        ChartUpdateEvent event = new ChartUpdateEvent();
+        event.begin();
+        PerformanceMetrics.Timer timer = PerformanceMetrics.start(PerformanceMetrics.Phase.RENDER);
+        boolean rebuilt = rebuildChart(dataSet, chartType, xColumn, yColumns, selection, timeBucket, overlays, changes);
+        if (rebuilt) {
+            timer.stop(); // Skipped updates would hide the real render latency
+        }
+        if (event.shouldCommit()) {
+            event.chartType = String.valueOf(chartType);
+            event.changes = changes.toString();
+            event.rows = dataSet != null ? dataSet.getRowCount() : 0;
+            event.selectedRows = selection != null ? selection.cardinality() : event.rows;
+            event.rebuilt = rebuilt;
+            event.commit();
+        }
+    }
+
+    /**
+     * Rebuilds the chart and swaps it into the container, unless the changes do not affect it.
+     *
+     * @return true if a new chart is displayed.
+     */
+    private boolean rebuildChart(DataSet dataSet, ChartType chartType, String xColumn, List<String> yColumns,
+                                 SelectionVector selection, TimeBucket timeBucket, List<OverlaySpec> overlays,
+                                 Set<ChartStateChange> changes) {
+        if (dataSet != null && dataSet == currentDataSet && !affectsChart(changes, dataSet, chartType, xColumn)) {
+            // Nothing drawn changes; keep the settings current for export
+            this.currentTimeBucket = timeBucket;
+            this.currentOverlays = overlays;
+            return false;
+        }
+
         // Check if essential components are available
         if (dataSet == null) {
             System.err.println("ChartView: Cannot update chart: DataSet is null.");
             clearChart();
-            return;
+            return false;
         }
 
         // Check if columns are provided (basic check, controller should validate more)
         if (xColumn == null || yColumns == null /* Allow empty yColumns for some chart types? */ ) {
             System.err.println("ChartView: Cannot update chart: Columns not specified.");
             clearChart();
-        return;
+            return false;
         }
 
         // Attempt to create the chart using the provided state and dataSet
-        Chart newChart = ChartFactory.createChart(chartType, dataSet, xColumn, yColumns);
+        Chart newChart = ChartFactory.createChart(chartType, dataSet, xColumn, yColumns, selection, timeBucket, overlays);
 
         if (newChart != null) {
             // Chart created successfully, display it
@@ -79,11 +186,46 @@ public class ChartView {
             this.currentXColumn = xColumn;
             this.currentYColumns = new ArrayList<>(yColumns); // Store a mutable copy
             this.currentChartType = chartType;
+            this.currentDataSet = dataSet;
+            this.currentSelection = selection;
+            this.currentTimeBucket = timeBucket;
+            this.currentOverlays = overlays;
+            return true;
         } else {
             // Chart creation failed
             System.err.println("ChartView: Failed to create chart. Type: " + chartType + ", X: " + xColumn + ", Y: " + yColumns);
             clearChart(); // Show prompt if chart creation fails
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether any of the changes alters the chart currently displayed.
+     *
+     * @param changes   The changed parts of the state.
+     * @param dataSet   The dataset being displayed.
+     * @param chartType The chart type after the changes.
+     * @param xColumn   The X column after the changes.
+     * @return true if the chart has to be rebuilt.
+     */
+    private static boolean affectsChart(Set<ChartStateChange> changes, DataSet dataSet, ChartType chartType, String xColumn) {
+        for (ChartStateChange change : changes) {
+            switch (change) {
+                case TIME_BUCKET:
+                    if (xColumn != null && dataSet.isTimestampColumn(xColumn)) {
+                        return true;
+                    }
+                    break;
+                case OVERLAYS:
+                    if (chartType == ChartType.LINE) {
+                        return true;
+                    }
+                    break;
+                default:
+                    return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -95,6 +237,10 @@ public class ChartView {
         currentXColumn = null;
         currentYColumns.clear();
         currentChartType = null;
+        currentDataSet = null;
+        currentSelection = null;
+        currentTimeBucket = null;
+        currentOverlays = Collections.emptyList();
     }
 
 
@@ -102,6 +248,10 @@ public class ChartView {
     public ChartType getCurrentChartType() { return currentChartType; }
     public String getCurrentXColumn() { return currentXColumn; }
     public List<String> getCurrentYColumns() { return List.copyOf(currentYColumns); }
+    public DataSet getCurrentDataSet() { return currentDataSet; }
+    public SelectionVector getCurrentSelection() { return currentSelection; }
+    public TimeBucket getCurrentTimeBucket() { return currentTimeBucket; }
+    public List<OverlaySpec> getCurrentOverlays() { return currentOverlays; }
 
 
     /**
@@ -1,14 +1,23 @@
 package datavisualizer.view;
 
 import datavisualizer.controller.AppController;
+import datavisualizer.model.aggregate.ColumnSummary;
 import datavisualizer.model.chart.ChartType;
 import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.filter.FilterOperator;
+import datavisualizer.model.filter.FilterPredicate;
+import datavisualizer.model.overlay.OverlaySpec;
+import datavisualizer.model.overlay.OverlayType;
+import datavisualizer.model.time.TimeBucket;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
+import javafx.util.StringConverter;
 
+import java.io.File;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Panel for selecting columns and chart type.
@@ -16,27 +25,77 @@ import java.util.List;
 public class ColumnSelectionPanel {
 
     @FXML private VBox selectionPanel; // The root VBox defined in FXML
+    @FXML private ComboBox<File> dataSetComboBox; // Open data files
+    @FXML private Label dataSetMemoryLabel;
     @FXML private ComboBox<String> xAxisComboBox;// Axis selection controls
     @FXML private ComboBox<String> yAxisComboBox;
     @FXML private ComboBox<ChartType> chartTypeComboBox;
     @FXML private Label xAxisErrorLabel; // Error labels
     @FXML private Label yAxisErrorLabel;
     @FXML private Button swapAxesButton; // Button to swap axes
+    @FXML private ComboBox<String> timeBucketComboBox; // Granularity for timestamp X columns
+    @FXML private ComboBox<OverlayType> overlayTypeComboBox; // Overlay controls
+    @FXML private TextField overlayParameterField;
+    @FXML private Label overlayErrorLabel;
+    @FXML private Label activeOverlaysLabel;
+    @FXML private ComboBox<String> filterColumnComboBox; // Filter controls
+    @FXML private ComboBox<FilterOperator> filterOperatorComboBox;
+    @FXML private TextField filterValueField;
+    @FXML private CheckBox filterMatchAnyCheckBox;
+    @FXML private Label filterErrorLabel;
+    @FXML private TextField computedNameField; // Computed column controls
+    @FXML private TextField computedExpressionField;
+    @FXML private Label computedErrorLabel;
+    @FXML private Label activeFilterLabel;
+    @FXML private Label rowCountLabel;
+    @FXML private Label summaryLabel;
+    @FXML private Label memoryLabel;
 
     private AppController appController;
     private ChartView chartView; // Reference to the ChartView
     private ErrorDisplayView errorDisplayView; // Reference to the ErrorDisplayView
 
+    private static final String AUTO_TIME_BUCKET = "AUTO";
+
     /**
      * Initializes the panel. This method is automatically called after the FXML file has been loaded.
      */
     @FXML
     public void initialize() {
         // Initialize the error display view with the injected labels
-        errorDisplayView = new ErrorDisplayView(xAxisErrorLabel, yAxisErrorLabel);
+        errorDisplayView = new ErrorDisplayView(xAxisErrorLabel, yAxisErrorLabel, filterErrorLabel, overlayErrorLabel,
+                computedErrorLabel);
         // Populate the chart type ComboBox
         chartTypeComboBox.getItems().setAll(ChartType.values());
         chartTypeComboBox.setValue(ChartType.BAR); // Default selection
+        // Populate the filter operator ComboBox
+        filterOperatorComboBox.getItems().setAll(FilterOperator.values());
+        filterOperatorComboBox.setValue(FilterOperator.EQUALS);
+        // Populate the overlay ComboBox; the parameter field is only used by types that take one
+        overlayTypeComboBox.getItems().setAll(OverlayType.values());
+        overlayTypeComboBox.setValue(OverlayType.MOVING_AVERAGE);
+        overlayTypeComboBox.setOnAction(event -> overlayParameterField.setDisable(
+                overlayTypeComboBox.getValue() == null || !overlayTypeComboBox.getValue().hasParameter()));
+        // Populate the time granularity ComboBox ("AUTO" lets the chart pick from the time span)
+        timeBucketComboBox.getItems().add(AUTO_TIME_BUCKET);
+        for (TimeBucket bucket : TimeBucket.values()) {
+            timeBucketComboBox.getItems().add(bucket.name());
+        }
+        timeBucketComboBox.setValue(AUTO_TIME_BUCKET);
+        timeBucketComboBox.setOnAction(event -> changeTimeBucket());
+        // Open data files are listed by name
+        dataSetComboBox.setConverter(new StringConverter<File>() {
+            @Override
+            public String toString(File file) {
+                return file != null ? file.getName() : "";
+            }
+
+            @Override
+            public File fromString(String text) {
+                return null; // Not editable
+            }
+        });
+        dataSetComboBox.setOnAction(event -> switchDataSet());
     
         // Add listeners to request updates from the controller
         xAxisComboBox.setOnAction(event -> updateChart());
@@ -75,6 +134,8 @@ public class ColumnSelectionPanel {
         // Clear previous items
         xAxisComboBox.getItems().clear();
         yAxisComboBox.getItems().clear();
+        filterColumnComboBox.getItems().clear();
+        filterValueField.clear();
         // Clear validation errors when new data is loaded/cleared
         if (errorDisplayView != null) { // Check if initialized
              errorDisplayView.clearErrors();
@@ -84,17 +145,47 @@ public class ColumnSelectionPanel {
             // Populate ComboBoxes
             xAxisComboBox.getItems().addAll(columnNames);
             yAxisComboBox.getItems().addAll(columnNames);
+            filterColumnComboBox.getItems().addAll(columnNames);
 
             // Set defaults
             String defaultX = columnNames.get(0);
             String defaultY = columnNames.size() > 1 ? columnNames.get(1) : columnNames.get(0);
             xAxisComboBox.setValue(defaultX);
             yAxisComboBox.setValue(defaultY);
+            filterColumnComboBox.setValue(defaultX);
 
         } else {
              // No columns, clear selections
              xAxisComboBox.setValue(null);
              yAxisComboBox.setValue(null);
+             filterColumnComboBox.setValue(null);
+        }
+    }
+
+    /**
+     * Adds a column to the column selectors without changing the current selections, e.g. a new computed column.
+     *
+     * @param columnName The column name.
+     */
+    public void addColumn(String columnName) {
+        xAxisComboBox.getItems().add(columnName);
+        yAxisComboBox.getItems().add(columnName);
+        filterColumnComboBox.getItems().add(columnName);
+    }
+
+    /**
+     * Handles the action of adding a computed column by requesting it from the controller.
+     * The fields are cleared once the column was added.
+     */
+    @FXML
+    private void addComputedColumn() {
+        if (appController == null) {
+            System.err.println("ColumnSelectionPanel: AppController not set, cannot add computed column.");
+            return;
+        }
+        if (appController.requestComputedColumnAdd(computedNameField.getText(), computedExpressionField.getText())) {
+            computedNameField.clear();
+            computedExpressionField.clear();
         }
     }
 
@@ -189,6 +280,169 @@ public class ColumnSelectionPanel {
         yAxisComboBox.setOnAction(event -> updateChart());
     }
 
+    /**
+     * Reflects the time granularity in the panel, enabling the selector only for timestamp X columns.
+     *
+     * @param bucket     The current granularity, or null for automatic.
+     * @param applicable true if the X column holds timestamps.
+     */
+    public void reflectTimeBucket(TimeBucket bucket, boolean applicable) {
+        timeBucketComboBox.setOnAction(null);
+        timeBucketComboBox.setValue(bucket != null ? bucket.name() : AUTO_TIME_BUCKET);
+        timeBucketComboBox.setDisable(!applicable);
+        timeBucketComboBox.setOnAction(event -> changeTimeBucket());
+    }
+
+    /**
+     * Updates the list of open data files without triggering a switch.
+     *
+     * @param openFiles     The open files, in opening order.
+     * @param currentFile   The file being shown, or null.
+     * @param residentCount The number of open files held in memory.
+     * @param residentBytes The estimated footprint of the files held in memory.
+     * @param budgetBytes   The memory budget for open files.
+     */
+    public void reflectOpenDataSets(List<File> openFiles, File currentFile, int residentCount, long residentBytes, long budgetBytes) {
+        dataSetComboBox.setOnAction(null);
+        dataSetComboBox.getItems().setAll(openFiles);
+        dataSetComboBox.setValue(currentFile);
+        dataSetComboBox.setDisable(openFiles.isEmpty());
+        dataSetComboBox.setOnAction(event -> switchDataSet());
+        if (openFiles.isEmpty()) {
+            dataSetMemoryLabel.setText("");
+            return;
+        }
+        dataSetMemoryLabel.setText(String.format("%d open, %d in memory (%.1f of %.0f MB)", openFiles.size(), residentCount,
+                residentBytes / (1024.0 * 1024.0), budgetBytes / (1024.0 * 1024.0)));
+    }
+
+    /**
+     * Handles the selection of another open data file by requesting it from the controller.
+     */
+    private void switchDataSet() {
+        File selected = dataSetComboBox.getValue();
+        if (appController != null && selected != null) {
+            appController.requestDataSetSwitch(selected);
+        }
+    }
+
+    /**
+     * Handles a change of the time granularity by requesting it from the controller.
+     */
+    private void changeTimeBucket() {
+        String selected = timeBucketComboBox.getValue();
+        if (appController != null && selected != null) {
+            appController.requestTimeBucketChange(AUTO_TIME_BUCKET.equals(selected) ? null : TimeBucket.valueOf(selected));
+        }
+    }
+
+    /**
+     * Handles the action of adding an overlay by requesting it from the controller.
+     */
+    @FXML
+    private void addOverlay() {
+        if (appController != null) {
+            appController.requestOverlayAdd(overlayTypeComboBox.getValue(), overlayParameterField.getText());
+        } else {
+            System.err.println("ColumnSelectionPanel: AppController not set, cannot add overlay.");
+        }
+    }
+
+    /**
+     * Handles the action of clearing all overlays by requesting it from the controller.
+     */
+    @FXML
+    private void clearOverlays() {
+        if (appController != null) {
+            appController.requestOverlayClear();
+        } else {
+            System.err.println("ColumnSelectionPanel: AppController not set, cannot clear overlays.");
+        }
+    }
+
+    /**
+     * Updates the overlay summary to reflect the given overlays.
+     *
+     * @param overlays   The active overlays.
+     * @param applicable true if the current chart type draws overlays.
+     */
+    public void reflectOverlays(List<OverlaySpec> overlays, boolean applicable) {
+        if (overlays.isEmpty()) {
+            activeOverlaysLabel.setText("No overlays");
+            return;
+        }
+        String labels = overlays.stream().map(OverlaySpec::getLabel).collect(Collectors.joining(", "));
+        activeOverlaysLabel.setText("Overlays: " + labels + (applicable ? "" : " (line charts only)"));
+    }
+
+    /**
+     * Handles the action of adding a filter by requesting it from the controller.
+     * The new condition is combined with the active filter using AND, or OR if "Match any" is checked.
+     */
+    @FXML
+    private void addFilter() {
+        if (appController != null) {
+            appController.requestFilterAdd(filterColumnComboBox.getValue(), filterOperatorComboBox.getValue(),
+                    filterValueField.getText(), filterMatchAnyCheckBox.isSelected());
+        } else {
+            System.err.println("ColumnSelectionPanel: AppController not set, cannot add filter.");
+        }
+    }
+
+    /**
+     * Handles the action of clearing all filters by requesting it from the controller.
+     */
+    @FXML
+    private void clearFilters() {
+        if (appController != null) {
+            appController.requestFilterClear();
+        } else {
+            System.err.println("ColumnSelectionPanel: AppController not set, cannot clear filters.");
+        }
+    }
+
+    /**
+     * Updates the filter summary to reflect the given filter state.
+     *
+     * @param filter       The active filter, or null if none.
+     * @param selectedRows The number of rows passing the filter.
+     * @param totalRows    The total number of rows in the dataset.
+     */
+    public void reflectFilterState(FilterPredicate filter, int selectedRows, int totalRows) {
+        activeFilterLabel.setText(filter != null ? "Filter: " + filter.describe() : "No filter");
+        rowCountLabel.setText(totalRows > 0 ? String.format("Rows: %,d of %,d", selectedRows, totalRows) : "");
+    }
+
+    /**
+     * Shows the count, sum, minimum and maximum of the Y column over the selected rows.
+     *
+     * @param yColumn The summarized column, or null to clear the summary.
+     * @param summary The summary, or null to clear it.
+     */
+    public void reflectColumnSummary(String yColumn, ColumnSummary summary) {
+        if (yColumn == null || summary == null || summary.getCount() == 0) {
+            summaryLabel.setText("");
+            return;
+        }
+        summaryLabel.setText(String.format("%s: sum %.4g, min %.4g, max %.4g (%,d values)",
+                yColumn, summary.getSum(), summary.getMin(), summary.getMax(), summary.getCount()));
+    }
+
+    /**
+     * Shows the estimated memory used by the dataset and its bitmap indexes.
+     *
+     * @param dataBytes  The estimated dataset footprint in bytes.
+     * @param indexBytes The estimated index footprint in bytes (0 if not indexed).
+     */
+    public void reflectMemoryUsage(long dataBytes, long indexBytes) {
+        if (dataBytes <= 0) {
+            memoryLabel.setText("");
+            return;
+        }
+        memoryLabel.setText(String.format("Memory: data %.1f MB, indexes %.1f MB",
+                dataBytes / (1024.0 * 1024.0), indexBytes / (1024.0 * 1024.0)));
+    }
+
     /**
      * Gets the error display view associated with this panel.
      *
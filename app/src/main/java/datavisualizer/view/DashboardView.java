@@ -0,0 +1,157 @@
+package datavisualizer.view;
+
+import datavisualizer.model.dashboard.CrossFilter;
+import datavisualizer.model.dashboard.DashboardChart;
+import datavisualizer.model.dataset.DataSet;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * View showing the linked charts of a dashboard in a grid.
+ * The tiles are drawn from the group sums of a {@link CrossFilter}, so building them does not scan the rows,
+ * and {@link #update()} redraws them in place after a brush changes.
+ */
+public final class DashboardView {
+
+    private static final double TILE_WIDTH = 420;
+    private static final double TILE_HEIGHT = 300;
+
+    private final ScrollPane container;
+    private final GridPane grid;
+    private IntConsumer onRemove = index -> { };
+    private BrushHandler onBrush = (chart, label, additive) -> { };
+    private final List<LinkedChart> linkedCharts = new ArrayList<>();
+    private CrossFilter crossFilter;
+
+    /**
+     * Constructs an empty dashboard view.
+     */
+    public DashboardView() {
+        grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(10));
+        container = new ScrollPane(grid);
+        container.setFitToWidth(true);
+        show(null, null, Collections.emptyList());
+    }
+
+    /**
+     * Gets the node holding the dashboard.
+     *
+     * @return The scrollable dashboard container.
+     */
+    public ScrollPane getContainer() {
+        return container;
+    }
+
+    /**
+     * Sets the action run when the remove button of a tile is pressed.
+     *
+     * @param onRemove Receives the position of the chart to remove.
+     */
+    public void setOnRemove(IntConsumer onRemove) {
+        this.onRemove = onRemove;
+    }
+
+    /**
+     * Sets the action run when a group of a chart is clicked.
+     *
+     * @param onBrush Receives the click.
+     */
+    public void setOnBrush(BrushHandler onBrush) {
+        this.onBrush = onBrush;
+    }
+
+    /**
+     * Replaces the tiles with the given charts, drawn from a cross-filter built for them.
+     *
+     * @param dataSet     The dataset, or null if none is loaded.
+     * @param crossFilter The cross-filter of the charts, or null if it could not be built.
+     * @param charts      The charts to show.
+     */
+    public void show(DataSet dataSet, CrossFilter crossFilter, List<DashboardChart> charts) {
+        grid.getChildren().clear();
+        linkedCharts.clear();
+        this.crossFilter = crossFilter;
+        if (dataSet == null || charts.isEmpty() || crossFilter == null) {
+            Label prompt = new Label(dataSet == null ? "Open a data file to use the dashboard."
+                    : charts.isEmpty() ? "The dashboard is empty. Use \"Add Chart to Dashboard\" to pin the current chart here."
+                    : "Cannot link these charts. Remove some of them and try again.");
+            prompt.setWrapText(true);
+            grid.add(prompt, 0, 0);
+            return;
+        }
+        int columns = charts.size() > 9 ? 4 : charts.size() > 4 ? 3 : 2;
+        for (int i = 0; i < charts.size(); i++) {
+            grid.add(createTile(charts.get(i), i), i % columns, i / columns);
+        }
+    }
+
+    /**
+     * Redraws every tile from the current sums of the cross-filter, e.g. after a brush changed.
+     */
+    public void update() {
+        for (LinkedChart linkedChart : linkedCharts) {
+            linkedChart.update(crossFilter);
+        }
+    }
+
+    /**
+     * Creates the tile of one chart: a title bar with a remove button above the chart.
+     */
+    private BorderPane createTile(DashboardChart spec, int index) {
+        Label title = new Label(spec.getTitle());
+        title.setStyle("-fx-font-weight: bold;");
+        HBox.setHgrow(title, Priority.ALWAYS);
+        title.setMaxWidth(Double.MAX_VALUE);
+        Button remove = new Button("×");
+        remove.setOnAction(event -> onRemove.accept(index));
+        HBox header = new HBox(5, title, remove);
+        header.setAlignment(Pos.CENTER_LEFT);
+
+        BorderPane tile = new BorderPane();
+        tile.setTop(header);
+        tile.setPrefSize(TILE_WIDTH, TILE_HEIGHT);
+        tile.setStyle("-fx-border-color: #d0d0d0; -fx-padding: 5;");
+
+        LinkedChart linkedChart = new LinkedChart(spec, index, crossFilter, onBrush);
+        if (linkedChart.hasData()) {
+            linkedCharts.add(linkedChart);
+            tile.setCenter(linkedChart.getChart());
+        } else {
+            VBox message = new VBox(new Label("Cannot draw this chart for the current data."));
+            message.setAlignment(Pos.CENTER);
+            tile.setCenter(message);
+        }
+        return tile;
+    }
+
+    /**
+     * Receives clicks on the groups (bars, points, slices) of dashboard charts.
+     */
+    @FunctionalInterface
+    public interface BrushHandler {
+        /**
+         * Called when a group is clicked.
+         *
+         * @param chart    The position of the chart in the dashboard.
+         * @param label    The label of the group.
+         * @param additive true if the group should be added to or removed from the brush rather than replace it.
+         */
+        void brush(int chart, String label, boolean additive);
+    }
+}
@@ -9,6 +9,9 @@ public class ErrorDisplayView {
 
     private final Label xAxisErrorLabel;
     private final Label yAxisErrorLabel;
+    private final Label filterErrorLabel; // Optional, may be null
+    private final Label overlayErrorLabel; // Optional, may be null
+    private final Label computedColumnErrorLabel; // Optional, may be null
 
     /**
      * Constructs an ErrorDisplayView.
@@ -17,11 +20,51 @@ public class ErrorDisplayView {
      * @param yAxisErrorLabel The Label component for displaying Y-axis errors.
      */
     public ErrorDisplayView(Label xAxisErrorLabel, Label yAxisErrorLabel) {
+        this(xAxisErrorLabel, yAxisErrorLabel, null);
+    }
+
+    /**
+     * Constructs an ErrorDisplayView that can also show filter errors.
+     *
+     * @param xAxisErrorLabel  The Label component for displaying X-axis errors.
+     * @param yAxisErrorLabel  The Label component for displaying Y-axis errors.
+     * @param filterErrorLabel The Label component for displaying filter errors, or null.
+     */
+    public ErrorDisplayView(Label xAxisErrorLabel, Label yAxisErrorLabel, Label filterErrorLabel) {
+        this(xAxisErrorLabel, yAxisErrorLabel, filterErrorLabel, null);
+    }
+
+    /**
+     * Constructs an ErrorDisplayView that can also show filter and overlay errors.
+     *
+     * @param xAxisErrorLabel   The Label component for displaying X-axis errors.
+     * @param yAxisErrorLabel   The Label component for displaying Y-axis errors.
+     * @param filterErrorLabel  The Label component for displaying filter errors, or null.
+     * @param overlayErrorLabel The Label component for displaying overlay errors, or null.
+     */
+    public ErrorDisplayView(Label xAxisErrorLabel, Label yAxisErrorLabel, Label filterErrorLabel, Label overlayErrorLabel) {
+        this(xAxisErrorLabel, yAxisErrorLabel, filterErrorLabel, overlayErrorLabel, null);
+    }
+
+    /**
+     * Constructs an ErrorDisplayView that can also show filter, overlay and computed column errors.
+     *
+     * @param xAxisErrorLabel          The Label component for displaying X-axis errors.
+     * @param yAxisErrorLabel          The Label component for displaying Y-axis errors.
+     * @param filterErrorLabel         The Label component for displaying filter errors, or null.
+     * @param overlayErrorLabel        The Label component for displaying overlay errors, or null.
+     * @param computedColumnErrorLabel The Label component for displaying computed column errors, or null.
+     */
+    public ErrorDisplayView(Label xAxisErrorLabel, Label yAxisErrorLabel, Label filterErrorLabel, Label overlayErrorLabel,
+                            Label computedColumnErrorLabel) {
         if (xAxisErrorLabel == null || yAxisErrorLabel == null) {
             throw new IllegalArgumentException("Error labels cannot be null.");
         }
         this.xAxisErrorLabel = xAxisErrorLabel;
         this.yAxisErrorLabel = yAxisErrorLabel;
+        this.filterErrorLabel = filterErrorLabel;
+        this.overlayErrorLabel = overlayErrorLabel;
+        this.computedColumnErrorLabel = computedColumnErrorLabel;
     }
 
     /**
@@ -42,12 +85,81 @@ public class ErrorDisplayView {
         showError(yAxisErrorLabel, message);
     }
 
+    /**
+     * Displays an error message related to the filter input.
+     *
+     * @param message The error message to display.
+     */
+    public void showFilterError(String message) {
+        if (filterErrorLabel == null) {
+            System.err.println("Filter error: " + message);
+            return;
+        }
+        showError(filterErrorLabel, message);
+    }
+
+    /**
+     * Displays an error message related to the overlay input.
+     *
+     * @param message The error message to display.
+     */
+    public void showOverlayError(String message) {
+        if (overlayErrorLabel == null) {
+            System.err.println("Overlay error: " + message);
+            return;
+        }
+        showError(overlayErrorLabel, message);
+    }
+
+    /**
+     * Displays an error message related to the computed column input.
+     *
+     * @param message The error message to display.
+     */
+    public void showComputedColumnError(String message) {
+        if (computedColumnErrorLabel == null) {
+            System.err.println("Computed column error: " + message);
+            return;
+        }
+        showError(computedColumnErrorLabel, message);
+    }
+
     /**
      * Clears any validation error messages shown by this view.
      */
     public void clearErrors() {
         clearError(xAxisErrorLabel);
         clearError(yAxisErrorLabel);
+        clearFilterError();
+        clearOverlayError();
+        clearComputedColumnError();
+    }
+
+    /**
+     * Clears the filter error message, leaving axis errors untouched.
+     */
+    public void clearFilterError() {
+        if (filterErrorLabel != null) {
+            clearError(filterErrorLabel);
+        }
+    }
+
+    /**
+     * Clears the overlay error message, leaving other errors untouched.
+     */
+    public void clearOverlayError() {
+        if (overlayErrorLabel != null) {
+            clearError(overlayErrorLabel);
+        }
+    }
+
+    /**
+     * Clears the computed column error message, leaving other errors untouched.
+     */
+    public void clearComputedColumnError() {
+        if (computedColumnErrorLabel != null) {
+            clearError(computedColumnErrorLabel);
+        }
     }
 
     /**
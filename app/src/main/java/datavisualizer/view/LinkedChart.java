@@ -0,0 +1,239 @@
+package datavisualizer.view;
+
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.dashboard.CrossFilter;
+import datavisualizer.model.dashboard.DashboardChart;
+import datavisualizer.model.render.SeriesReducer;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.Chart;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One dashboard chart drawn from the group sums of a {@link CrossFilter}.
+ * <p>
+ * When a brush changes, the chart's values are updated in place as long as it shows the same categories, so a
+ * frame only re-lays out the existing bars, points or slices; the series are rebuilt only when the reduction to
+ * at most {@link SeriesReducer#MAX_CATEGORIES} categories or {@link SeriesReducer#MAX_POINTS} points keeps other
+ * categories. Clicking a bar, point or slice brushes its group; groups outside the chart's brush are dimmed.
+ */
+class LinkedChart {
+
+    private static final double DIMMED_OPACITY = 0.3;
+
+    private final DashboardChart spec;
+    private final int index;
+    private final DashboardView.BrushHandler onBrush;
+    private final Chart chart;
+    private final List<String> pieLabels = new ArrayList<>(); // Label of each slice, since slice names include the value
+    private Set<String> brush;
+
+    /**
+     * Constructs the chart of a dashboard tile and fills it from the cross-filter.
+     *
+     * @param spec        The chart.
+     * @param index       The position of the chart in the dashboard.
+     * @param crossFilter The cross-filter holding the chart's sums.
+     * @param onBrush     Receives clicks on the chart's groups.
+     */
+    LinkedChart(DashboardChart spec, int index, CrossFilter crossFilter, DashboardView.BrushHandler onBrush) {
+        this.spec = spec;
+        this.index = index;
+        this.onBrush = onBrush;
+        String axisLabel = crossFilter.getDimensionKey(crossFilter.getDimension(index));
+        if (spec.getChartType() == ChartType.PIE) {
+            chart = new PieChart();
+            ((PieChart) chart).setLabelsVisible(true);
+        } else {
+            CategoryAxis xAxis = new CategoryAxis();
+            xAxis.setLabel(axisLabel);
+            XYChart<String, Number> xyChart = spec.getChartType() == ChartType.LINE
+                    ? new LineChart<>(xAxis, new NumberAxis()) : new BarChart<>(xAxis, new NumberAxis());
+            chart = xyChart;
+        }
+        chart.setAnimated(false);
+        chart.setLegendVisible(spec.getValueColumns().size() > 1);
+        update(crossFilter);
+    }
+
+    /**
+     * Gets the JavaFX chart.
+     *
+     * @return The chart.
+     */
+    Chart getChart() {
+        return chart;
+    }
+
+    /**
+     * Checks whether the chart has anything to draw.
+     *
+     * @return true if at least one series or slice is shown.
+     */
+    boolean hasData() {
+        return chart instanceof PieChart ? !((PieChart) chart).getData().isEmpty() : !xyChart().getData().isEmpty();
+    }
+
+    /**
+     * Redraws the chart from the cross-filter's current sums and brush.
+     *
+     * @param crossFilter The cross-filter the chart was built from.
+     */
+    void update(CrossFilter crossFilter) {
+        int dimension = crossFilter.getDimension(index);
+        brush = crossFilter.getBrush(dimension);
+        if (chart instanceof PieChart) {
+            updatePie(crossFilter, dimension);
+        } else {
+            updateSeries(crossFilter, dimension);
+        }
+    }
+
+    private void updateSeries(CrossFilter crossFilter, int dimension) {
+        XYChart<String, Number> xyChart = xyChart();
+        List<String> labels = crossFilter.getLabels(dimension);
+        boolean keepOrder = spec.getChartType() == ChartType.LINE || crossFilter.getBucket(dimension) != null;
+        List<XYChart.Series<String, Number>> shown = new ArrayList<>();
+        Set<String> keptCategories = null; // Chosen from the first series so all bars share the same categories
+        for (String yColumn : spec.getValueColumns()) {
+            double[] sums = crossFilter.getSums(dimension, yColumn);
+            if (sums == null || labels.isEmpty()) {
+                continue;
+            }
+            Map<String, Double> values = toMap(labels, sums);
+            if (keepOrder) {
+                values = SeriesReducer.downsample(values, SeriesReducer.MAX_POINTS);
+            } else {
+                if (shown.isEmpty()) {
+                    keptCategories = SeriesReducer.topCategories(values, SeriesReducer.MAX_CATEGORIES);
+                }
+                values = SeriesReducer.foldCategories(values, keptCategories);
+            }
+            XYChart.Series<String, Number> series = shown.size() < xyChart.getData().size()
+                    ? xyChart.getData().get(shown.size()) : null;
+            if (series == null || !series.getName().equals(yColumn) || !sameCategories(series, values)) {
+                XYChart.Series<String, Number> created = new XYChart.Series<>();
+                created.setName(yColumn);
+                values.forEach((category, value) -> created.getData().add(linked(new XYChart.Data<>(category, value))));
+                series = created;
+            } else {
+                int i = 0;
+                for (Double value : values.values()) { // Same categories, so only the values change
+                    series.getData().get(i++).setYValue(value);
+                }
+            }
+            shown.add(series);
+        }
+        if (!shown.equals(xyChart.getData())) {
+            xyChart.getData().setAll(shown);
+        }
+        for (XYChart.Series<String, Number> series : shown) {
+            for (XYChart.Data<String, Number> data : series.getData()) {
+                dim(data.getNode(), data.getXValue());
+            }
+        }
+    }
+
+    private void updatePie(CrossFilter crossFilter, int dimension) {
+        PieChart pieChart = (PieChart) chart;
+        double[] sums = crossFilter.getSums(dimension, spec.getValueColumns().get(0));
+        Map<String, Double> positive = new LinkedHashMap<>();
+        if (sums != null) {
+            // Zero slices (e.g. groups emptied by another chart's brush) and negative sums are not drawn
+            SeriesReducer.topK(toMap(crossFilter.getLabels(dimension), sums), SeriesReducer.MAX_CATEGORIES).forEach((label, value) -> {
+                if (value > 0) {
+                    positive.put(label, value);
+                }
+            });
+        }
+        double total = positive.values().stream().mapToDouble(Double::doubleValue).sum();
+        boolean sameSlices = pieLabels.equals(new ArrayList<>(positive.keySet()));
+        if (!sameSlices) {
+            pieLabels.clear();
+            List<PieChart.Data> slices = new ArrayList<>();
+            positive.forEach((label, value) -> {
+                pieLabels.add(label);
+                PieChart.Data slice = new PieChart.Data(sliceName(label, value, total), value);
+                link(slice.nodeProperty(), label);
+                slices.add(slice);
+            });
+            pieChart.getData().setAll(slices);
+        } else {
+            int i = 0;
+            for (Map.Entry<String, Double> entry : positive.entrySet()) {
+                PieChart.Data slice = pieChart.getData().get(i++);
+                slice.setName(sliceName(entry.getKey(), entry.getValue(), total));
+                slice.setPieValue(entry.getValue());
+            }
+        }
+        for (int i = 0; i < pieLabels.size(); i++) {
+            dim(pieChart.getData().get(i).getNode(), pieLabels.get(i));
+        }
+    }
+
+    private XYChart.Data<String, Number> linked(XYChart.Data<String, Number> data) {
+        link(data.nodeProperty(), data.getXValue());
+        return data;
+    }
+
+    /**
+     * Makes the node of a group clickable once the chart creates it.
+     */
+    private void link(ObservableValue<Node> nodeProperty, String label) {
+        nodeProperty.addListener((observable, oldNode, node) -> {
+            if (node != null) {
+                node.setCursor(Cursor.HAND);
+                node.setOnMouseClicked(event -> onBrush.brush(index, label, event.isShortcutDown()));
+                dim(node, label);
+            }
+        });
+    }
+
+    private void dim(Node node, String label) {
+        if (node != null) {
+            node.setOpacity(brush == null || brush.contains(label) ? 1 : DIMMED_OPACITY);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private XYChart<String, Number> xyChart() {
+        return (XYChart<String, Number>) chart;
+    }
+
+    private static boolean sameCategories(XYChart.Series<String, Number> series, Map<String, Double> values) {
+        if (series.getData().size() != values.size()) {
+            return false;
+        }
+        int i = 0;
+        for (String category : values.keySet()) {
+            if (!series.getData().get(i++).getXValue().equals(category)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, Double> toMap(List<String> labels, double[] sums) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int g = 0; g < labels.size(); g++) {
+            values.put(labels.get(g), sums[g]);
+        }
+        return values;
+    }
+
+    private static String sliceName(String label, double value, double total) {
+        return String.format("%s: %.2f (%.1f%%)", label, value, total == 0 ? 0 : value / total * 100);
+    }
+}
@@ -1,14 +1,19 @@
 package datavisualizer.view;
 
 import datavisualizer.controller.AppController;
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.model.aggregate.ApproximateAggregation;
 import datavisualizer.model.dataset.DataSet;
 
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Label;
+import javafx.scene.control.MenuItem;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.VBox;
 
@@ -22,29 +27,48 @@ public class MainView {
     @FXML private BorderPane mainPane;
     @FXML private VBox columnSelectionPanel;
     @FXML private ColumnSelectionPanel columnSelectionPanelController;
+    @FXML private MenuItem recordingMenuItem;
+    @FXML private CheckMenuItem performanceHudMenuItem;
 
-    private ChartView chartView;
+    private ChartView chartView; // Created on first use, so the start screen shows without the chart classes
+    private DashboardView dashboardView; // Created on first use
+    private boolean dashboardVisible; // Whether the dashboard replaces the single chart while data is loaded
     private AppController appController;
     private VBox startScreen;
+    private PerformanceHud performanceHud; // Created on first use
+    private PerformanceMetrics.Timer pulseTimer; // Running from the start of a pulse to the end of its layout
 
     /**
      * Initializes the main view. This method is automatically called after the FXML file has been loaded.
      */
     @FXML
     public void initialize() {
-        // Initialize ChartView but don't add it to the center yet
-        chartView = new ChartView();
-
         // Create the start screen using the helper method
         startScreen = createStartScreen();
 
         // Set the start screen as the initial center content
         mainPane.setCenter(startScreen);
 
-        // Connect ColumnSelectionPanel to ChartView (needed later)
-        if (columnSelectionPanelController != null) {
-            columnSelectionPanelController.setChartView(chartView);
-        }
+        mainPane.sceneProperty().addListener((observable, oldScene, scene) -> {
+            if (scene != null) {
+                trackPulses(scene);
+            }
+        });
+    }
+
+    /**
+     * Times the CSS and layout part of every pulse of the scene for the performance metrics.
+     *
+     * @param scene The scene of the main window.
+     */
+    private void trackPulses(Scene scene) {
+        scene.addPreLayoutPulseListener(() -> pulseTimer = PerformanceMetrics.start(PerformanceMetrics.Phase.PULSE));
+        scene.addPostLayoutPulseListener(() -> {
+            if (pulseTimer != null) {
+                pulseTimer.stop();
+                pulseTimer = null;
+            }
+        });
     }
 
     /**
@@ -57,6 +81,10 @@ public class MainView {
         if (columnSelectionPanelController != null) {
             columnSelectionPanelController.setAppController(appController);
         }
+        if (appController != null && dashboardView != null) {
+            dashboardView.setOnRemove(appController::requestDashboardRemove);
+            dashboardView.setOnBrush(appController::requestBrushToggle);
+        }
     }
 
     /**
@@ -69,6 +97,46 @@ public class MainView {
         }
     }
 
+    /**
+     * Handles the action of exporting the current chart as SVG.
+     */
+    @FXML
+    private void exportSvg() {
+        if (appController != null) {
+            appController.requestSvgExport();
+        }
+    }
+
+    /**
+     * Handles the action of aggregating the current chart over the whole file in one streaming pass.
+     */
+    @FXML
+    private void streamChart() {
+        if (appController != null) {
+            appController.requestStreamedChart();
+        }
+    }
+
+    /**
+     * Handles the action of estimating the current chart from a uniform random sample of the file.
+     */
+    @FXML
+    private void approximateChart() {
+        if (appController != null) {
+            appController.requestApproximateChart(ApproximateAggregation.Mode.UNIFORM);
+        }
+    }
+
+    /**
+     * Handles the action of estimating the current chart from a sample stratified by X category.
+     */
+    @FXML
+    private void approximateChartStratified() {
+        if (appController != null) {
+            appController.requestApproximateChart(ApproximateAggregation.Mode.STRATIFIED);
+        }
+    }
+
     /**
      * Handles the action of closing the current data file.
      */
@@ -107,6 +175,68 @@ public class MainView {
         }
     }
 
+    /**
+     * Handles the action of switching between the single chart and the dashboard.
+     */
+    @FXML
+    private void toggleDashboard() {
+        if (appController != null) {
+            appController.requestDashboardToggle();
+        }
+    }
+
+    /**
+     * Handles the action of adding the current chart to the dashboard.
+     */
+    @FXML
+    private void addChartToDashboard() {
+        if (appController != null) {
+            appController.requestDashboardAdd();
+        }
+    }
+
+    /**
+     * Handles the action of removing every chart from the dashboard.
+     */
+    @FXML
+    private void clearDashboard() {
+        if (appController != null) {
+            appController.requestDashboardClear();
+        }
+    }
+
+    /**
+     * Handles the action of starting or stopping and saving a flight recording.
+     */
+    @FXML
+    private void toggleRecording() {
+        if (appController != null) {
+            appController.requestRecordingToggle();
+        }
+    }
+
+    /**
+     * Handles the action of showing or hiding the performance overlay.
+     */
+    @FXML
+    private void togglePerformanceHud() {
+        if (performanceHud == null) {
+            performanceHud = new PerformanceHud(mainPane);
+        }
+        performanceHud.setShowing(performanceHudMenuItem == null || performanceHudMenuItem.isSelected());
+    }
+
+    /**
+     * Updates the recording menu item to offer the next action.
+     *
+     * @param recording true while a flight recording is in progress.
+     */
+    public void setRecordingActive(boolean recording) {
+        if (recordingMenuItem != null) {
+            recordingMenuItem.setText(recording ? "Stop and Save Flight Recording..." : "Start Flight Recording");
+        }
+    }
+
     /**
      * Shows/hides the column selection panel.
      */
@@ -116,14 +246,58 @@ public class MainView {
     }
 
     /**
-     * Gets the chart view instance.
+     * Gets the chart view instance, creating it on first use.
      *
      * @return The ChartView.
      */
     public ChartView getChartView() {
+        if (chartView == null) {
+            chartView = new ChartView();
+            // Connect ColumnSelectionPanel to ChartView
+            if (columnSelectionPanelController != null) {
+                columnSelectionPanelController.setChartView(chartView);
+            }
+        }
         return chartView;
     }
 
+    /**
+     * Gets the dashboard view instance, creating it on first use.
+     *
+     * @return The DashboardView.
+     */
+    public DashboardView getDashboardView() {
+        if (dashboardView == null) {
+            dashboardView = new DashboardView();
+            if (appController != null) {
+                dashboardView.setOnRemove(appController::requestDashboardRemove);
+                dashboardView.setOnBrush(appController::requestBrushToggle);
+            }
+        }
+        return dashboardView;
+    }
+
+    /**
+     * Checks whether the dashboard is shown instead of the single chart.
+     *
+     * @return true if the dashboard is selected.
+     */
+    public boolean isDashboardVisible() {
+        return dashboardVisible;
+    }
+
+    /**
+     * Switches between the single chart and the dashboard. The start screen stays up while no data is loaded.
+     *
+     * @param visible true to show the dashboard, false for the single chart.
+     */
+    public void setDashboardVisible(boolean visible) {
+        dashboardVisible = visible;
+        if (mainPane.getCenter() != startScreen) {
+            mainPane.setCenter(visible ? getDashboardView().getContainer() : getChartView().getChartContainer());
+        }
+    }
+
     /**
      * Gets the column selection panel instance.
      *
@@ -141,14 +315,15 @@ public class MainView {
     public void displayDataSet(DataSet dataSet) {
         if (dataSet != null) {
             // Data loaded successfully, show the chart view
-            mainPane.setCenter(chartView.getChartContainer()); // Switch center to chart view
+            // Switch center to chart view, or to the dashboard if it was selected
+            mainPane.setCenter(dashboardVisible ? getDashboardView().getContainer() : getChartView().getChartContainer());
 
             List<String> columnNames = dataSet.getColumnNames();
             if (columnSelectionPanelController != null) {
                 columnSelectionPanelController.populateColumns(columnNames);
             }
             // Clear any existing chart before new selections are made
-            chartView.clearChart();
+            getChartView().clearChart();
 
         } else {
             // Data loading failed or was cancelled, show start screen
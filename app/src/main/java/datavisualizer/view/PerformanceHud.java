@@ -0,0 +1,109 @@
+package datavisualizer.view;
+
+import datavisualizer.diagnostics.PerformanceMetrics;
+import datavisualizer.diagnostics.PhaseSummary;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Pane;
+import javafx.util.Duration;
+
+import java.util.Locale;
+
+/**
+ * A translucent overlay in the corner of the main window showing live performance metrics: FX pulse times, the
+ * throughput of the last parse, and latency percentiles and allocation per operation of aggregation, rendering
+ * and commands. It is refreshed twice a second while shown and costs nothing while hidden.
+ */
+public class PerformanceHud {
+
+    private static final double MARGIN = 12;
+
+    private final Pane parent;
+    private final Label label = new Label();
+    private final Timeline refresh;
+
+    /**
+     * Constructs the overlay over a pane. The overlay is not managed by the pane's layout, so it floats over
+     * whatever the pane shows.
+     *
+     * @param parent The pane to float over.
+     */
+    public PerformanceHud(Pane parent) {
+        this.parent = parent;
+        label.setManaged(false);
+        label.setMouseTransparent(true);
+        label.setVisible(false);
+        label.setStyle("-fx-font-family: monospace; -fx-font-size: 11px; -fx-text-fill: white;"
+                + " -fx-background-color: rgba(0, 0, 0, 0.7); -fx-background-radius: 4; -fx-padding: 6 8 6 8;");
+        parent.getChildren().add(label);
+        refresh = new Timeline(new KeyFrame(Duration.millis(500), event -> update()));
+        refresh.setCycleCount(Animation.INDEFINITE);
+    }
+
+    /**
+     * Shows or hides the overlay.
+     *
+     * @param showing true to show it.
+     */
+    public void setShowing(boolean showing) {
+        label.setVisible(showing);
+        if (showing) {
+            update();
+            refresh.play();
+        } else {
+            refresh.stop();
+        }
+    }
+
+    /**
+     * Checks whether the overlay is shown.
+     *
+     * @return true if it is shown.
+     */
+    public boolean isShowing() {
+        return label.isVisible();
+    }
+
+    private void update() {
+        PerformanceMetrics metrics = PerformanceMetrics.getInstance();
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "%-9s %7s %8s %8s %8s %10s%n", "", "count", "p50 ms", "p99 ms", "max ms", "alloc/op"));
+        appendPhase(text, "Pulse", metrics.getPulse());
+        appendPhase(text, "Parse", metrics.getParse());
+        appendPhase(text, "Aggregate", metrics.getAggregation());
+        appendPhase(text, "Render", metrics.getRender());
+        appendPhase(text, "Command", metrics.getCommand());
+        if (metrics.getLastParseRows() > 0) {
+            text.append(String.format(Locale.ROOT, "Last parse: %.1f MB/s, %,.0f rows/s (%,d rows)",
+                    metrics.getLastParseMegabytesPerSecond(), metrics.getLastParseRowsPerSecond(), metrics.getLastParseRows()));
+        } else {
+            text.append("Last parse: -");
+        }
+        label.setText(text.toString());
+
+        // Unmanaged nodes are sized and placed by hand; keep the overlay above a center swapped in meanwhile
+        label.applyCss();
+        label.autosize();
+        label.relocate(MARGIN, Math.max(MARGIN, parent.getHeight() - label.getHeight() - MARGIN));
+        label.toFront();
+    }
+
+    private static void appendPhase(StringBuilder text, String name, PhaseSummary summary) {
+        text.append(String.format(Locale.ROOT, "%-9s %7d %8.2f %8.2f %8.2f %10s%n", name, summary.getCount(),
+                summary.getP50Millis(), summary.getP99Millis(), summary.getMaxMillis(),
+                formatBytes(summary.getAllocatedBytesPerOperation())));
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+}
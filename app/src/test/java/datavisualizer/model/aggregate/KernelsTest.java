@@ -0,0 +1,64 @@
+package datavisualizer.model.aggregate;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KernelsTest {
+
+    private final AggregationKernels scalar = new ScalarKernels();
+    private final AggregationKernels vector = new VectorKernels();
+
+    @Test public void vectorKernelsMatchScalarKernels() {
+        Random random = new Random(17);
+        int[] sizes = {0, 1, 3, 7, 63, 64, 65, 127, 130, 1000, 4099};
+        for (int size : sizes) {
+            for (int trial = 0; trial < 20; trial++) {
+                double[] values = new double[size];
+                long[] nullMask = new long[(size + 63) / 64 + 1];
+                long[] selection = new long[nullMask.length];
+                for (int row = 0; row < size; row++) {
+                    int kind = random.nextInt(20);
+                    values[row] = kind == 0 ? Double.NaN : kind == 1 ? (random.nextBoolean() ? Double.POSITIVE_INFINITY
+                            : Double.NEGATIVE_INFINITY) : random.nextGaussian() * 1000;
+                    if (random.nextInt(5) == 0) {
+                        nullMask[row >>> 6] |= 1L << row;
+                    }
+                    if (random.nextBoolean()) {
+                        selection[row >>> 6] |= 1L << row;
+                    }
+                }
+                String label = "size " + size + " trial " + trial;
+                assertEquals(label, scalar.min(values, nullMask, size), vector.min(values, nullMask, size), 0);
+                assertEquals(label, scalar.max(values, nullMask, size), vector.max(values, nullMask, size), 0);
+                assertEquals(label, scalar.count(nullMask, selection, size), vector.count(nullMask, selection, size));
+                assertSumEquals(label, scalar.sum(values, nullMask, size), vector.sum(values, nullMask, size));
+                assertSumEquals(label, scalar.filteredSum(values, nullMask, selection, size),
+                        vector.filteredSum(values, nullMask, selection, size));
+            }
+        }
+    }
+
+    @Test public void minAndMaxSkipNaN() {
+        double[] values = new double[64];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = row % 2 == 0 ? Double.NaN : row;
+        }
+        long[] nullMask = new long[1];
+        for (AggregationKernels kernels : new AggregationKernels[]{scalar, vector}) {
+            assertEquals(1, kernels.min(values, nullMask, values.length), 0);
+            assertEquals(63, kernels.max(values, nullMask, values.length), 0);
+        }
+    }
+
+    /** Sums may differ in rounding, as lanes add in a different order. */
+    private static void assertSumEquals(String label, double expected, double actual) {
+        if (Double.isNaN(expected) || Double.isInfinite(expected)) {
+            assertEquals(label, expected, actual, 0);
+        } else {
+            assertEquals(label, expected, actual, 1e-6 * Math.max(1, Math.abs(expected)));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package datavisualizer.model.dataset;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressedColumnsTest {
+
+    private static final int BLOCK = DoubleBlockIterator.BLOCK_SIZE;
+
+    private static long[] nullMask(int size) {
+        return new long[(size + 63) / 64];
+    }
+
+    private static void setNull(long[] nullMask, int row) {
+        nullMask[row >>> 6] |= 1L << row;
+    }
+
+    private static void assertRoundTrip(String label, double[] values, long[] nullMask, int size, CompressedDoubles encoded) {
+        assertNotNull(label, encoded);
+        assertEquals(label, size, encoded.size());
+        double[] inflated = encoded.inflate();
+        double[] block = new double[BLOCK];
+        for (int b = 0; b * BLOCK < size; b++) {
+            int count = encoded.decodeBlock(b, block);
+            assertEquals(label, Math.min(BLOCK, size - b * BLOCK), count);
+            for (int i = 0; i < count; i++) {
+                int row = b * BLOCK + i;
+                if (!CompressedDoubles.isNull(nullMask, row)) {
+                    long expected = Double.doubleToRawLongBits(values[row]);
+                    assertEquals(label + " block row " + row, expected, Double.doubleToRawLongBits(block[i]));
+                    assertEquals(label + " inflated row " + row, expected, Double.doubleToRawLongBits(inflated[row]));
+                    assertEquals(label + " get row " + row, expected, Double.doubleToRawLongBits(encoded.get(row)));
+                }
+            }
+        }
+    }
+
+    /** Encodes with the chosen encoding, if any, and checks it is lossless. */
+    private static void assertEncodesLosslessly(String label, double[] values, long[] nullMask, int size) {
+        CompressedDoubles encoded = CompressedDoubles.encode(values, nullMask, size);
+        if (encoded != null) {
+            assertRoundTrip(label + " (" + encoded.getEncoding() + ")", values, nullMask, size, encoded);
+        }
+        assertRoundTrip(label + " (xor)", values, nullMask, size, GorillaDoubles.xorEncode(values, nullMask, size));
+    }
+
+    @Test public void largeIntegersAmongFinerDecimalsRoundTrip() {
+        int size = 65_536;
+        Random random = new Random(7);
+        double[] values = new double[size];
+        for (int row = 0; row < size; row++) {
+            values[row] = row < BLOCK ? 14569893391443.0 : random.nextInt(10_000_000) / 10_000.0;
+        }
+        assertEncodesLosslessly("mixed scales", values, nullMask(size), size);
+    }
+
+    @Test public void valuesNearTheExactLimitRoundTrip() {
+        int size = 4 * BLOCK + 17;
+        for (int scale = 0; scale <= PackedDecimals.MAX_SCALE; scale++) {
+            double limit = Math.pow(2, 53) / Math.pow(10, scale);
+            double[] values = new double[size];
+            for (int row = 0; row < size; row++) {
+                values[row] = row % 3 == 0 ? Math.floor(limit) - row : row % 3 == 1 ? -Math.floor(limit) + row : row / 100.0;
+            }
+            assertEncodesLosslessly("limit scale " + scale, values, nullMask(size), size);
+        }
+    }
+
+    @Test public void specialValuesRoundTrip() {
+        int size = 3 * BLOCK + 5;
+        double[] specials = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0, 0.0,
+                Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE};
+        double[] values = new double[size];
+        for (int row = 0; row < size; row++) {
+            values[row] = row % 50 == 0 ? specials[(row / 50) % specials.length] : (row % 200) / 4.0;
+        }
+        assertEncodesLosslessly("specials", values, nullMask(size), size);
+
+        double[] decimals = new double[size];
+        for (int row = 0; row < size; row++) {
+            decimals[row] = row % 97 == 0 ? -0.0 : (row % 300) / 100.0;
+        }
+        CompressedDoubles packed = CompressedDoubles.encode(decimals, nullMask(size), size);
+        assertRoundTrip("negative zeros", decimals, nullMask(size), size, packed);
+    }
+
+    @Test public void nullBlocksRoundTrip() {
+        int size = 5 * BLOCK + 100;
+        long[] nulls = nullMask(size);
+        double[] values = new double[size];
+        Random random = new Random(3);
+        for (int row = 0; row < size; row++) {
+            boolean nullBlock = row / BLOCK == 0 || row / BLOCK == 3; // First and a middle block are all null
+            if (nullBlock || row % 11 == 0) {
+                setNull(nulls, row);
+                values[row] = Double.NaN;
+            } else {
+                values[row] = random.nextInt(100_000) / 100.0;
+            }
+        }
+        assertEncodesLosslessly("null blocks", values, nulls, size);
+
+        double[] allNull = new double[size];
+        long[] everyRow = nullMask(size);
+        for (int row = 0; row < size; row++) {
+            setNull(everyRow, row);
+        }
+        assertEncodesLosslessly("all null", allNull, everyRow, size);
+    }
+
+    @Test public void randomDoublesRoundTripWithXor() {
+        int size = 10 * BLOCK + 1;
+        Random random = new Random(11);
+        double[] values = new double[size];
+        double walk = 20;
+        for (int row = 0; row < size; row++) {
+            walk += random.nextGaussian() * 0.01;
+            values[row] = row % 7 == 0 ? Double.longBitsToDouble(random.nextLong()) : walk;
+        }
+        assertEncodesLosslessly("random", values, nullMask(size), size);
+    }
+
+    @Test public void timestampsRoundTrip() {
+        int size = 20 * BLOCK + 33;
+        long[] nulls = nullMask(size);
+        long[] millis = new long[size];
+        Random random = new Random(5);
+        long time = 1_700_000_000_000L;
+        for (int row = 0; row < size; row++) {
+            time += 60_000 + (random.nextInt(10) == 0 ? random.nextInt(100_000) - 50_000 : 0);
+            millis[row] = time;
+            if (row % 1000 == 999) {
+                millis[row] = random.nextBoolean() ? Long.MAX_VALUE : Long.MIN_VALUE; // Wrapping deltas
+            }
+            if (row / BLOCK == 4 || row % 13 == 0) {
+                setNull(nulls, row);
+            }
+        }
+        DeltaOfDeltaLongs encoded = DeltaOfDeltaLongs.encode(millis, nulls, size);
+        assertNotNull(encoded);
+        long[] inflated = encoded.inflate();
+        TimestampColumn column = new TimestampColumn("t", millis, nulls, size).compress();
+        assertTrue(column.isCompressed());
+        LongBlockIterator blocks = column.blocks();
+        while (blocks.next()) {
+            long[] block = blocks.values();
+            for (int row = blocks.start(); row < blocks.end(); row++) {
+                if (!column.isNull(row)) {
+                    assertEquals("inflated row " + row, millis[row], inflated[row]);
+                    assertEquals("get row " + row, millis[row], encoded.get(row));
+                    assertEquals("block row " + row, millis[row], block[row - blocks.offset()]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package datavisualizer.model.expression;
+
+import datavisualizer.model.dataset.ComputedColumn;
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.NumericColumn;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ExpressionTest {
+
+    private static final int ROWS = 3 * Expression.BLOCK_SIZE + 17;
+
+    /** Evaluates a compiled expression a block at a time over all rows. */
+    private static double[] evaluate(String text, Map<String, double[]> columns) {
+        MethodHandle compiled = Expression.parse(text).compile(columns::get);
+        double[] values = new double[ROWS];
+        try {
+            for (int from = 0; from < ROWS; from += Expression.BLOCK_SIZE) {
+                int count = Math.min(Expression.BLOCK_SIZE, ROWS - from);
+                double[] block = (double[]) compiled.invokeExact(from, count);
+                System.arraycopy(block, 0, values, from, count);
+            }
+        } catch (Throwable e) {
+            throw new AssertionError(e);
+        }
+        return values;
+    }
+
+    private static Map<String, double[]> columns() {
+        double[] a = new double[ROWS];
+        double[] b = new double[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            a[row] = row * 0.5 - 100;
+            b[row] = row % 13 + 1;
+        }
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("a", a);
+        columns.put("b", b);
+        columns.put("unit price", b);
+        return columns;
+    }
+
+    private static void assertParseError(String text, String message) {
+        try {
+            Expression.parse(text);
+            fail("Parsed " + text);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test public void precedenceAndUnaryMinus() {
+        assertEquals("(1 + (2 * 3))", Expression.parse("1 + 2 * 3").toString());
+        assertEquals("((1 - 2) - 3)", Expression.parse("1 - 2 - 3").toString());
+        assertEquals("((a / b) % 4)", Expression.parse("a / b % 4").toString());
+        assertEquals("(-a * b)", Expression.parse("-a * b").toString());
+        assertEquals("(2 - --3)", Expression.parse("2 - - -3").toString());
+
+        Map<String, double[]> columns = columns();
+        double[] a = columns.get("a");
+        double[] b = columns.get("b");
+        double[] mixed = evaluate("a + b * 2 - (a - b) / -b", columns);
+        double[] negated = evaluate("-a * b % 5", columns);
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals("row " + row, a[row] + b[row] * 2 - (a[row] - b[row]) / -b[row], mixed[row], 0);
+            assertEquals("row " + row, -a[row] * b[row] % 5, negated[row], 0);
+        }
+    }
+
+    @Test public void functionArityIsChecked() {
+        assertParseError("sqrt(a, b)", "sqrt() takes 1 argument at position 1.");
+        assertParseError("a + POW(a)", "pow() takes 2 arguments at position 5.");
+        assertParseError("max(a, b, 1)", "max() takes 2 arguments at position 1.");
+        assertParseError("cube(a)", "Unknown function cube() at position 1.");
+        assertEquals("min(a, max(b, 0))", Expression.parse("MIN(a, Max(b, 0))").toString());
+    }
+
+    @Test public void bracketedColumnNames() {
+        Expression expression = Expression.parse("[unit price] * a + [sqrt] - [a]");
+        assertEquals(Set.of("unit price", "a", "sqrt"), expression.getColumns());
+        assertEquals(List.of("unit price", "a", "sqrt"), new ArrayList<>(expression.getColumns()));
+        assertEquals("((([unit price] * a) + [sqrt]) - a)", expression.toString());
+        assertEquals(expression.toString(), Expression.parse(expression.toString()).toString());
+        assertParseError("[unit price * 2", "Missing ']' at position 1.");
+        assertParseError("a + [ ]", "Empty column name at position 5.");
+
+        Map<String, double[]> columns = columns();
+        double[] values = evaluate("[unit price] * 2", columns);
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(columns.get("unit price")[row] * 2, values[row], 0);
+        }
+    }
+
+    @Test public void constantsAreFolded() {
+        Map<String, double[]> none = new HashMap<>();
+        double[] folded = evaluate("pow(2, 3) * -(1 + 1) + sqrt(16) % 3", none);
+        double[] rounded = evaluate("round(-2.5) + floor(2.7) + ceil(2.1) + abs(-1)", none);
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(-15, folded[row], 0);
+            assertEquals(Math.round(-2.5) + 2 + 3 + 1, rounded[row], 0);
+        }
+
+        Map<String, double[]> columns = columns();
+        double[] partly = evaluate("a * (ln(exp(2)) + log10(100))", columns);
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(columns.get("a")[row] * 4, partly[row], 1e-12);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownColumnIsRejectedOnCompile() {
+        Expression.parse("a + missing").compile(columns()::get);
+    }
+
+    @Test public void computedColumnPropagatesNulls() {
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int row = 0; row < ROWS; row++) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("revenue", row % 7 == 0 ? null : (Object) (double) row);
+            values.put("cost", row % 11 == 0 ? "n/a" : (Object) (double) (row % 5));
+            data.add(values);
+        }
+        DataSet dataSet = new DataSet(List.of("revenue", "cost"), data);
+        dataSet.addComputedColumn(new ComputedColumn("margin", "(revenue - cost) / cost"));
+        dataSet.addComputedColumn(new ComputedColumn("root", "sqrt(cost - 2)"));
+
+        NumericColumn margin = dataSet.getNumericColumn("margin");
+        NumericColumn root = dataSet.getNumericColumn("root");
+        assertEquals(ROWS, margin.size());
+        for (int row = 0; row < ROWS; row++) {
+            boolean sourceNull = row % 7 == 0 || row % 11 == 0;
+            int cost = row % 5;
+            assertEquals("margin row " + row, sourceNull || cost == 0, margin.isNull(row));
+            if (!margin.isNull(row)) {
+                assertEquals("margin row " + row, (row - cost) / (double) cost, margin.getDouble(row), 0);
+            }
+            assertEquals("root row " + row, row % 11 == 0 || cost < 2, root.isNull(row));
+            if (!root.isNull(row)) {
+                assertEquals("root row " + row, Math.sqrt(cost - 2), root.getDouble(row), 0);
+            }
+        }
+    }
+}
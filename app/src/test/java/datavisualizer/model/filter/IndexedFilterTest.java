@@ -0,0 +1,70 @@
+package datavisualizer.model.filter;
+
+import datavisualizer.model.dataset.DataSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class IndexedFilterTest {
+
+    private static DataSet dataSet(int rows, boolean indexed) {
+        Random random = new Random(8);
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("region", "R" + (row * 8L / rows)); // Long runs
+            values.put("product", random.nextInt(50) == 0 ? null : "P" + random.nextInt(40)); // Scattered, with nulls
+            values.put("flag", random.nextBoolean() ? "yes" : "no"); // Dense
+            values.put("amount", String.valueOf(random.nextInt(1000)));
+            data.add(values);
+        }
+        DataSet dataSet = new DataSet(List.of("region", "product", "flag", "amount"), data);
+        if (indexed) {
+            dataSet.buildCategoricalIndexes(1000);
+        }
+        return dataSet;
+    }
+
+    @Test public void indexedAndOrMatchScans() {
+        int rows = 150_000;
+        DataSet indexed = dataSet(rows, true);
+        DataSet scanned = dataSet(rows, false);
+        assertNotNull(indexed.getCategoricalIndex("product"));
+        assertNull(scanned.getCategoricalIndex("product"));
+
+        FilterPredicate region = new InFilter("region", Set.of("R1", "R2", "R6"), false);
+        FilterPredicate product = new InFilter("product", Set.of("P3", "P7"), false);
+        FilterPredicate notProduct = new InFilter("product", Set.of("P3"), true); // Not answered by the index
+        FilterPredicate flag = new InFilter("flag", Set.of("yes"), false);
+        FilterPredicate amount = new RangeFilter("amount", 100, 400);
+        assertNotNull(region.indexedRows(indexed));
+        assertNotNull(new AndFilter(List.of(region, product, flag)).indexedRows(indexed));
+        assertNull(notProduct.indexedRows(indexed));
+        assertNull(product.indexedRows(scanned));
+        List<FilterPredicate> predicates = List.of(
+                new AndFilter(List.of(region, product)),
+                new AndFilter(List.of(region, flag, amount)),
+                new AndFilter(List.of(amount, notProduct, product)),
+                new AndFilter(List.of(new InFilter("region", Set.of("missing"), false), amount)),
+                new OrFilter(List.of(region, product)),
+                new OrFilter(List.of(amount, product, flag)),
+                new OrFilter(List.of(notProduct, region)),
+                new AndFilter(List.of(new OrFilter(List.of(region, product)), flag)),
+                new OrFilter(List.of(new AndFilter(List.of(region, product)), new AndFilter(List.of(flag, amount)))));
+        for (FilterPredicate predicate : predicates) {
+            SelectionVector expected = new FilterEngine().evaluate(predicate, scanned);
+            SelectionVector actual = new FilterEngine().evaluate(predicate, indexed);
+            assertEquals(predicate.describe(), expected.cardinality(), actual.cardinality());
+            for (int row = 0; row < rows; row++) {
+                assertEquals(predicate.describe() + " row " + row, expected.get(row), actual.get(row));
+            }
+        }
+    }
+}
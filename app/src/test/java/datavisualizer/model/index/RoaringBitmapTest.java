@@ -0,0 +1,75 @@
+package datavisualizer.model.index;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RoaringBitmapTest {
+
+    private static final int ROWS = 300_000; // Several chunks, the last one partial
+
+    /** Builds a bitmap and the same rows as a BitSet: sparse values, a dense stretch and long runs. */
+    private static RoaringBitmap build(Random random, BitSet expected) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int row = 0; row < ROWS; row++) {
+            boolean set;
+            if (row < 65_536) {
+                set = random.nextInt(100) == 0; // Sparse: array containers
+            } else if (row < 131_072) {
+                set = random.nextBoolean(); // Dense: bitmap containers
+            } else {
+                set = (row / (1000 + random.nextInt(3))) % 2 == 0; // Runs
+            }
+            if (set) {
+                bitmap.add(row);
+                expected.set(row);
+            }
+        }
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    private static void assertSameRows(String label, BitSet expected, RoaringBitmap actual) {
+        assertEquals(label, expected.cardinality(), actual.cardinality());
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(label + " row " + row, expected.get(row), actual.contains(row));
+        }
+    }
+
+    @Test public void andAndOrMatchBitSets() {
+        Random random = new Random(21);
+        for (int trial = 0; trial < 3; trial++) {
+            BitSet left = new BitSet();
+            BitSet right = new BitSet();
+            RoaringBitmap a = build(random, left);
+            RoaringBitmap b = build(random, right);
+            assertSameRows("left", left, a);
+
+            BitSet union = (BitSet) left.clone();
+            union.or(right);
+            assertSameRows("or", union, a.or(b));
+
+            BitSet intersection = (BitSet) left.clone();
+            intersection.and(right);
+            assertSameRows("and", intersection, a.and(b));
+        }
+    }
+
+    @Test public void orSharesNoContainersWithItsInputs() {
+        RoaringBitmap a = new RoaringBitmap();
+        RoaringBitmap b = new RoaringBitmap();
+        a.add(1);
+        b.add(70_000); // Chunks present in only one input
+        RoaringBitmap union = a.or(b);
+        union.add(2);
+        union.add(70_001);
+        assertFalse(a.contains(2));
+        assertFalse(b.contains(70_001));
+        assertEquals(1, a.cardinality());
+        assertEquals(1, b.cardinality());
+        assertEquals(4, union.cardinality());
+    }
+}
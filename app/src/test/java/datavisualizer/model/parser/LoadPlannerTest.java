@@ -0,0 +1,146 @@
+package datavisualizer.model.parser;
+
+import datavisualizer.model.dataset.DataSet;
+import datavisualizer.model.dataset.LoadPlan;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LoadPlannerTest {
+
+    private static final int ROWS = 50_000;
+    private static final String[] REGIONS = {"North", "East", "South", "West"};
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    /** Fails the first full-file loads with an OutOfMemoryError, as a load over a too-low projection would. */
+    private static final class FailingParser implements DataParser {
+        private final CSVParser parser = new CSVParser();
+        private int failures;
+
+        FailingParser(int failures) {
+            this.failures = failures;
+        }
+
+        @Override public DataSet parse(File file) throws IOException {
+            fail();
+            return parser.parse(file);
+        }
+
+        @Override public boolean supportsLoadPlans() {
+            return true;
+        }
+
+        @Override public DataSet parse(Reader reader, LoadPlan plan) throws IOException {
+            if (plan.getMaxRows() == Integer.MAX_VALUE) {
+                fail(); // Heads read for measuring always fit
+            }
+            return parser.parse(reader, plan);
+        }
+
+        private void fail() {
+            if (failures != 0) {
+                failures--;
+                throw new OutOfMemoryError("Java heap space");
+            }
+        }
+    }
+
+    @Before public void writeFile() throws IOException {
+        file = folder.newFile("sales.csv");
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("region,amount,qty,note");
+            for (int row = 0; row < ROWS; row++) {
+                writer.println(REGIONS[row % REGIONS.length] + "," + row * 0.25 + "," + row % 10 + ",note-" + row);
+            }
+        }
+    }
+
+    @Test public void smallFilesAndNoBudgetLoadFully() throws IOException {
+        assertSame(LoadPlan.FULL, ParserFactory.plan(file, 0));
+        assertSame(LoadPlan.FULL, ParserFactory.plan(file, file.length() * 64));
+    }
+
+    @Test public void strategyFollowsTheBudget() throws IOException {
+        LoadPlan measured = ParserFactory.plan(file, 1);
+        assertEquals(LoadPlan.Strategy.SAMPLED, measured.getStrategy());
+        assertEquals(1 << 16, measured.getSampleStride());
+        assertEquals(Set.of("amount", "qty"), measured.getNumericColumns());
+        assertEquals(ROWS, measured.getProjectedRows(), ROWS / 10.0);
+        long fullBytes = measured.getFullBytes();
+        assertTrue(fullBytes > file.length());
+
+        LoadPlan full = ParserFactory.plan(file, fullBytes);
+        assertEquals(LoadPlan.Strategy.FULL, full.getStrategy());
+        assertEquals(fullBytes, full.getProjectedBytes());
+
+        LoadPlan typed = ParserFactory.plan(file, fullBytes - 1);
+        assertEquals(LoadPlan.Strategy.TYPED_ONLY, typed.getStrategy());
+        assertEquals(1, typed.getSampleStride());
+        long typedBytes = typed.getProjectedBytes();
+        assertTrue(typedBytes < fullBytes);
+
+        LoadPlan sampled = ParserFactory.plan(file, (typedBytes + 2) / 3);
+        assertEquals(LoadPlan.Strategy.SAMPLED, sampled.getStrategy());
+        assertEquals(3, sampled.getSampleStride());
+        assertTrue(sampled.getProjectedBytes() <= sampled.getBudget());
+
+        LoadPlan justUnder = ParserFactory.plan(file, typedBytes - 1);
+        assertEquals(2, justUnder.getSampleStride());
+    }
+
+    @Test public void degradeStepsDownToSparseSamples() {
+        LoadPlan plan = new LoadPlan(LoadPlan.Strategy.FULL, 1, Integer.MAX_VALUE, Set.of("amount"), ROWS, 4000, 4000, 1000);
+        plan = plan.degrade();
+        assertEquals(LoadPlan.Strategy.TYPED_ONLY, plan.getStrategy());
+        assertEquals(Set.of("amount"), plan.getNumericColumns());
+        int expectedStride = 2;
+        plan = plan.degrade();
+        while (plan != null) {
+            assertEquals(LoadPlan.Strategy.SAMPLED, plan.getStrategy());
+            assertEquals(expectedStride, plan.getSampleStride());
+            assertTrue(plan.keeps(0));
+            assertFalse(plan.keeps(expectedStride - 1));
+            assertTrue(plan.keeps(expectedStride));
+            expectedStride *= 2;
+            plan = plan.degrade();
+        }
+        assertEquals(1 << 17, expectedStride);
+        assertNull(LoadPlan.streamed(ROWS).degrade());
+        assertNull(LoadPlan.approximate(100, ROWS).degrade());
+    }
+
+    @Test public void outOfMemoryRetriesWithDegradedPlans() throws IOException {
+        DataSet dataSet = ParserFactory.load(file, new FailingParser(2),
+                new LoadPlan(LoadPlan.Strategy.FULL, 1, Integer.MAX_VALUE, Set.of("amount", "qty"), ROWS, -1, -1, -1));
+        assertEquals(LoadPlan.Strategy.SAMPLED, dataSet.getLoadPlan().getStrategy());
+        assertEquals(2, dataSet.getLoadPlan().getSampleStride());
+        assertEquals(ROWS / 2, dataSet.getRowCount());
+        assertEquals(0.5, dataSet.getNumericColumn("amount").getDouble(1), 0);
+    }
+
+    @Test public void unmeasuredPlanIsMeasuredBeforeDegrading() throws IOException {
+        DataSet dataSet = ParserFactory.load(file, new FailingParser(1), LoadPlan.FULL);
+        LoadPlan plan = dataSet.getLoadPlan();
+        assertEquals(LoadPlan.Strategy.TYPED_ONLY, plan.getStrategy());
+        assertEquals(Set.of("amount", "qty"), plan.getNumericColumns());
+        assertTrue(plan.getProjectedRows() > 0);
+        assertEquals(ROWS, dataSet.getRowCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void givesUpWhenEvenTheSparsestSampleFails() throws IOException {
+        ParserFactory.load(file, new FailingParser(-1), LoadPlan.FULL);
+    }
+}
@@ -0,0 +1,77 @@
+package datavisualizer.model.session;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import datavisualizer.model.ChartStateModel;
+import datavisualizer.model.chart.ChartType;
+import datavisualizer.model.command.Command;
+import datavisualizer.model.command.UpdateChartStateCommand;
+import datavisualizer.model.command.UpdateFilterCommand;
+import datavisualizer.model.command.UpdateOverlaysCommand;
+import datavisualizer.model.command.UpdateTimeBucketCommand;
+import datavisualizer.model.filter.AndFilter;
+import datavisualizer.model.filter.ComparisonFilter;
+import datavisualizer.model.filter.FilterPredicate;
+import datavisualizer.model.filter.InFilter;
+import datavisualizer.model.filter.OrFilter;
+import datavisualizer.model.filter.RangeFilter;
+import datavisualizer.model.overlay.OverlaySpec;
+import datavisualizer.model.overlay.OverlayType;
+import datavisualizer.model.time.TimeBucket;
+import org.junit.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SessionCodecTest {
+
+    private static final FilterPredicate FILTER = new AndFilter(List.of(
+            new InFilter("region", new LinkedHashSet<>(List.of("North", "East")), false),
+            new OrFilter(List.of(new ComparisonFilter("revenue", ComparisonFilter.Operator.GREATER_OR_EQUAL, 12.5),
+                    new RangeFilter("profit", -3, 7))),
+            new InFilter("region", Set.of("West"), true)));
+
+    @Test public void filtersRoundTrip() {
+        JsonElement encoded = SessionCodec.encodeFilter(FILTER);
+        assertEquals(encoded, SessionCodec.encodeFilter(SessionCodec.decodeFilter(encoded)));
+        assertNull(SessionCodec.decodeFilter(SessionCodec.encodeFilter(null)));
+    }
+
+    @Test public void commandsRoundTrip() {
+        ChartStateModel model = new ChartStateModel();
+        List<OverlaySpec> overlays = List.of(new OverlaySpec(OverlayType.MOVING_AVERAGE, 7), new OverlaySpec(OverlayType.TREND, 0));
+        List<Command> commands = List.of(
+                new UpdateChartStateCommand(model, ChartType.BAR, null, null, ChartType.LINE, "date", List.of("revenue", "profit")),
+                new UpdateFilterCommand(model, null, FILTER),
+                new UpdateTimeBucketCommand(model, TimeBucket.DAY, null),
+                new UpdateOverlaysCommand(model, List.of(), overlays));
+        for (Command command : commands) {
+            JsonObject encoded = SessionCodec.encodeCommand(command);
+            assertNotNull(encoded);
+            assertEquals(encoded, SessionCodec.encodeCommand(SessionCodec.decodeCommand(encoded, model)));
+        }
+    }
+
+    @Test public void stateRoundTrip() {
+        ChartStateModel model = new ChartStateModel();
+        model.updateState(ChartType.LINE, "date", List.of("revenue"));
+        model.setFilter(FILTER);
+        model.setTimeBucket(TimeBucket.WEEK);
+        model.setOverlays(List.of(new OverlaySpec(OverlayType.EXPONENTIAL, 0.3)));
+
+        ChartStateModel restored = new ChartStateModel();
+        SessionCodec.applyState(SessionCodec.encodeState(model), restored);
+        assertEquals(SessionCodec.encodeState(model), SessionCodec.encodeState(restored));
+        assertEquals(TimeBucket.WEEK, restored.getTimeBucket());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownCommandKindIsRejected() {
+        JsonObject encoded = new JsonObject();
+        encoded.addProperty("kind", "teleport");
+        SessionCodec.decodeCommand(encoded, new ChartStateModel());
+    }
+}
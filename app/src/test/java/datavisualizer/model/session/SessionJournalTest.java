@@ -0,0 +1,151 @@
+package datavisualizer.model.session;
+
+import datavisualizer.controller.CommandManager;
+import datavisualizer.model.ChartStateModel;
+import datavisualizer.model.command.Command;
+import datavisualizer.model.command.UpdateFilterCommand;
+import datavisualizer.model.command.UpdateTimeBucketCommand;
+import datavisualizer.model.filter.ComparisonFilter;
+import datavisualizer.model.filter.FilterPredicate;
+import datavisualizer.model.time.TimeBucket;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class SessionJournalTest {
+
+    private static final String JOURNAL_FILE = "session.journal";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** A command the journal does not persist, like a dashboard brush. */
+    private static final class TransientCommand implements Command {
+        @Override public void execute() { }
+        @Override public void undo() { }
+    }
+
+    private static SessionJournal startJournal(Path directory, ChartStateModel model, CommandManager manager) {
+        SessionJournal journal = new SessionJournal(directory, model);
+        journal.start();
+        journal.snapshot(null, null, manager.getHistory(), manager.getRedoStack());
+        manager.setJournal(journal);
+        return journal;
+    }
+
+    /** Recovers the journal into a fresh model and command manager, as a restart does. */
+    private static CommandManager replay(Path directory, ChartStateModel model) {
+        SessionJournal.RecoveredSession session = new SessionJournal(directory, model).recover();
+        assertNotNull(session);
+        session.applyState(model);
+        CommandManager manager = new CommandManager();
+        manager.replay(session, model);
+        return manager;
+    }
+
+    private static List<Object> encode(List<Command> commands) {
+        return commands.stream().map(SessionCodec::encodeCommand).collect(Collectors.toList());
+    }
+
+    /** Journals two bucket changes, DAY then MONTH, and returns the journal file. */
+    private Path journalTwoCommands() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        ChartStateModel model = new ChartStateModel();
+        CommandManager manager = new CommandManager();
+        SessionJournal journal = startJournal(directory, model, manager);
+        manager.executeCommand(new UpdateTimeBucketCommand(model, null, TimeBucket.DAY));
+        manager.executeCommand(new UpdateTimeBucketCommand(model, TimeBucket.DAY, TimeBucket.MONTH));
+        journal.close();
+        return directory.resolve(JOURNAL_FILE);
+    }
+
+    @Test public void tornFinalRecordIsIgnored() throws IOException {
+        Path file = journalTwoCommands();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3)); // Crashed while writing the last record
+
+        ChartStateModel restored = new ChartStateModel();
+        CommandManager replayed = replay(file.getParent(), restored);
+        assertEquals(TimeBucket.DAY, restored.getTimeBucket());
+        assertEquals(1, replayed.getHistory().size());
+    }
+
+    @Test public void recordWithBadChecksumIsRejected() throws IOException {
+        Path file = journalTwoCommands();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 2] ^= 1; // Inside the payload of the last record
+        Files.write(file, bytes);
+
+        ChartStateModel restored = new ChartStateModel();
+        CommandManager replayed = replay(file.getParent(), restored);
+        assertEquals(TimeBucket.DAY, restored.getTimeBucket());
+        assertEquals(1, replayed.getHistory().size());
+    }
+
+    @Test public void replayMatchesLiveHistory() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        ChartStateModel model = new ChartStateModel();
+        CommandManager manager = new CommandManager();
+        SessionJournal journal = startJournal(directory, model, manager);
+        FilterPredicate high = new ComparisonFilter("revenue", ComparisonFilter.Operator.GREATER_THAN, 100);
+
+        manager.executeCommand(new UpdateTimeBucketCommand(model, null, TimeBucket.DAY));
+        manager.executeCommand(new UpdateFilterCommand(model, null, high));
+        manager.executeCommand(new UpdateTimeBucketCommand(model, TimeBucket.DAY, TimeBucket.MONTH));
+        manager.undo();
+        manager.undo();
+        manager.redo();
+        manager.executeCommand(new UpdateTimeBucketCommand(model, TimeBucket.DAY, TimeBucket.HOUR));
+        manager.undo();
+        journal.close();
+
+        ChartStateModel restored = new ChartStateModel();
+        CommandManager replayed = replay(directory, restored);
+        assertEquals(model.getTimeBucket(), restored.getTimeBucket());
+        assertEquals(SessionCodec.encodeFilter(model.getFilter()), SessionCodec.encodeFilter(restored.getFilter()));
+        assertEquals(encode(manager.getHistory()), encode(replayed.getHistory()));
+        assertEquals(encode(manager.getRedoStack()), encode(replayed.getRedoStack()));
+        assertEquals(1, replayed.getRedoStack().size());
+    }
+
+    @Test public void transientCommandClearsRedoOnReplay() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        ChartStateModel model = new ChartStateModel();
+        CommandManager manager = new CommandManager();
+        SessionJournal journal = startJournal(directory, model, manager);
+
+        manager.executeCommand(new UpdateTimeBucketCommand(model, null, TimeBucket.DAY));
+        manager.undo();
+        manager.executeCommand(new TransientCommand());
+        journal.close();
+        assertTrue(manager.getRedoStack().isEmpty());
+
+        ChartStateModel restored = new ChartStateModel();
+        CommandManager replayed = replay(directory, restored);
+        assertTrue(replayed.getRedoStack().isEmpty());
+        assertNull(restored.getTimeBucket());
+    }
+
+    @Test public void transientCommandWithoutRedoIsNotJournaled() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        ChartStateModel model = new ChartStateModel();
+        CommandManager manager = new CommandManager();
+        SessionJournal journal = startJournal(directory, model, manager);
+
+        manager.executeCommand(new UpdateTimeBucketCommand(model, null, TimeBucket.DAY));
+        manager.executeCommand(new TransientCommand());
+        journal.close();
+
+        SessionJournal.RecoveredSession session = new SessionJournal(directory, new ChartStateModel()).recover();
+        List<String> types = session.getEvents().stream().map(event -> event.get("t").getAsString()).toList();
+        assertEquals(List.of("execute"), types);
+    }
+}
@@ -0,0 +1,59 @@
+package datavisualizer.util;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FastDoubleParserTest {
+
+    private static void assertParsesLikeJdk(String text) {
+        double expected = Double.parseDouble(text);
+        double[] out = new double[1];
+        assertEquals(text, FastDoubleParser.OK, FastDoubleParser.parse(text, out));
+        assertEquals(text, Double.doubleToLongBits(expected), Double.doubleToLongBits(out[0]));
+
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        assertEquals(text, FastDoubleParser.OK, FastDoubleParser.parse(bytes, 0, bytes.length, out, 0));
+        assertEquals(text, Double.doubleToLongBits(expected), Double.doubleToLongBits(out[0]));
+    }
+
+    @Test public void parsesEdgeCasesLikeJdk() {
+        String[] cases = {"0", "-0", "1", "+1.5", " 2.25 ", "1e10", "1E-5", ".5", "5.", "-.5e3", "0.1", "0.3",
+                "9007199254740993", "123456789012345678901234", "9999999999999999999",
+                "2.2250738585072014E-308", "4.9e-324", "1e-400", "1.7976931348623157e308", "1e309",
+                "NaN", "Infinity", "-Infinity"};
+        for (String text : cases) {
+            assertParsesLikeJdk(text);
+        }
+    }
+
+    @Test public void parsesRandomNumbersLikeJdk() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            assertParsesLikeJdk(Double.toString(Double.longBitsToDouble(random.nextLong() & 0x7fefffffffffffffL)));
+            assertParsesLikeJdk(String.format("%." + random.nextInt(17) + "f", random.nextDouble() * 1000));
+            assertParsesLikeJdk((random.nextLong() % 100_000_000_000L) + "e" + (random.nextInt(600) - 300));
+        }
+    }
+
+    @Test public void reportsInvalidInputWithoutThrowing() {
+        double[] out = {42};
+        for (String text : new String[]{"abc", "1.2.3", "1e", "-", "+.e5", "1,5", "12a", "--1", "Nan"}) {
+            assertEquals(text, FastDoubleParser.INVALID, FastDoubleParser.parse(text, out));
+        }
+        assertEquals(FastDoubleParser.EMPTY, FastDoubleParser.parse("", out));
+        assertEquals(FastDoubleParser.EMPTY, FastDoubleParser.parse("   ", out));
+        assertEquals(42, out[0], 0);
+    }
+
+    @Test public void parsesSubRangeOfLine() {
+        String line = "north,12.5,x";
+        double[] out = new double[1];
+        assertEquals(FastDoubleParser.OK, FastDoubleParser.parse(line, 6, 10, out, 0));
+        assertEquals(12.5, out[0], 0);
+        assertEquals(FastDoubleParser.INVALID, FastDoubleParser.parse(line, 0, 5, out, 0));
+    }
+}